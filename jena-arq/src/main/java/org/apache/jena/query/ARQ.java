@@ -327,17 +327,65 @@ public class ARQ
      * choosing the value.
      * <p>
      * Operations currently affected by this symbol: <br>
-     * ORDER BY, SPARQL Update, CONSTRUCT (optionally)
+     * ORDER BY, DISTINCT, GROUP BY (when all the aggregates can be merged), hash joins,
+     * SPARQL Update, CONSTRUCT (optionally)
      * <p>
      * A reasonable value here is 10000.
      * </p>
      * @see <a href="https://issues.apache.org/jira/browse/JENA-119">JENA-119</a>
      */
     // Some possible additions to the list:
-    // Sort: DISTINCT, merge joins<br>
-    // Hash table: GROUP BY, MINUS, SERVICE, VALUES, and hash joins <br>
+    // Sort: merge joins<br>
+    // Hash table: MINUS, SERVICE, VALUES <br>
     public static final Symbol spillToDiskThreshold = SystemARQ.allocSymbol("spillToDiskThreshold");
 
+    /**
+     * An Integer value that, if greater than one, enables parallel evaluation of
+     * GROUP BY aggregation. The input is read in batches, and up to this many
+     * concurrent tasks in the fork-join common pool calculate the group keys and
+     * aggregate expressions of a batch and aggregate it. The partial aggregates are
+     * merged.
+     * <p>
+     * This only applies when all the aggregates can be merged (COUNT, SUM, AVG,
+     * MIN, MAX), and not in a write transaction. In a read transaction, each task
+     * uses its own read transaction on the same data.
+     * The default is unset, which is sequential aggregation.
+     */
+    public static final Symbol groupByParallelism = SystemARQ.allocSymbol("groupByParallelism");
+
+    /**
+     * An Integer value that, if greater than one, enables concurrent evaluation of
+     * the branches of a UNION, and of the right hand side of a join, when they do not
+     * depend on the rows before them. This many branches run at the same time,
+     * in worker threads, and their results are merged as they arrive.
+     * <p>
+     * If the query is in a read transaction, each worker thread starts its own read
+     * transaction and checks it sees the same data (see
+     * {@link org.apache.jena.sparql.core.DatasetSnapshots}); if not, or if the query
+     * is in a write transaction, the branch is evaluated in the query thread.
+     * The default is unset, which is sequential evaluation.
+     */
+    public static final Symbol parallelUnion = SystemARQ.allocSymbol("parallelUnion");
+
+    /**
+     * A Long value: the maximum number of nodes expanded by the bidirectional search
+     * used to test for a property path {@code path+} or {@code path*} between two
+     * fixed terms. If the search goes over the budget, the path is evaluated
+     * from the subject as usual. 0 turns the bidirectional search off.
+     * The default is unset, which is no limit.
+     */
+    public static final Symbol pathBidirectionalBudget = SystemARQ.allocSymbol("pathBidirectionalBudget");
+
+    /**
+     * Context key: when true, query strings are parsed and the algebra of queries is
+     * optimized through the shared {@link org.apache.jena.sparql.engine.QueryPlanCache},
+     * so a query string seen before is not parsed or optimized again.
+     * Query strings given to {@link org.apache.jena.sparql.exec.QueryExecDatasetBuilder}
+     * are parsed when the execution is built, using the setting in the builder's context.
+     * The default is unset, which is no caching.
+     */
+    public static final Symbol queryPlanCache = SystemARQ.allocSymbol("queryPlanCache");
+
     // Optimizer controls.
 
     /**
@@ -533,6 +581,27 @@ public class ARQ
     // TDB reorders based on stats when the input binding is known.
     public static final Symbol optReorderBGP = SystemARQ.allocSymbol("optReorderBGP");
 
+    /**
+     * Context key controlling whether basic graph patterns are executed adaptively:
+     * after the first triple pattern, the order of the triple patterns is chosen, and
+     * revised as the query runs, from the numbers of matches seen.
+     * This applies to the general purpose stage generator and to TDB2.
+     * <p>By default, this is not applied.
+     * @see org.apache.jena.sparql.engine.main.solver.AdaptiveBGP
+     */
+    public static final Symbol optAdaptiveBGP = SystemARQ.allocSymbol("optAdaptiveBGP");
+
+    /**
+     * Context key controlling whether the main query engine executes queries in
+     * batches of rows held by column, rather than one binding at a time.
+     * Basic graph patterns, filter, extend, project, slice, distinct and join are
+     * executed in batches; other operators are executed as normal.
+     * This applies to the general purpose query engine and stage generator.
+     * <p>By default, this is not applied.
+     * @see org.apache.jena.sparql.engine.batch.BatchCompiler
+     */
+    public static final Symbol batchExecution = SystemARQ.allocSymbol("batchExecution");
+
     /**
      *  Context key controlling whether the main query engine processes property functions.
      *  <p>By default, this is applied.
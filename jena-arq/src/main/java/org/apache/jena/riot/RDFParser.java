@@ -28,13 +28,17 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 import org.apache.jena.atlas.io.IO;
+import org.apache.jena.atlas.lib.IRILib;
 import org.apache.jena.atlas.lib.InternalErrorException;
 import org.apache.jena.atlas.web.ContentType;
 import org.apache.jena.atlas.web.TypedInputStream;
@@ -46,6 +50,9 @@ import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.lang.ParallelParserNTuples;
+import org.apache.jena.riot.lang.ParallelParserTurtle;
 import org.apache.jena.riot.process.normalize.StreamCanonicalLangTag;
 import org.apache.jena.riot.process.normalize.StreamCanonicalLiterals;
 import org.apache.jena.riot.system.*;
@@ -109,6 +116,9 @@ public class RDFParser {
     private final FactoryRDF          factory;
     private final ErrorHandler        errorHandler;
     private final Context             context;
+    private final int                 parallelism;
+    private final boolean             parallelOrdered;
+    private final TermDictionary      termDictionary;
     // Some cases the parser is reusable (read a file), some are not (input streams).
     private boolean                 canUseThisParser = true;
 
@@ -203,7 +213,8 @@ public class RDFParser {
                             String parserBaseURI, boolean strict, Optional<Boolean> checking,
                             boolean canonicalLexicalValues, LangTagForm langTagForm,
                             boolean resolveURIs, IRIxResolver resolver, PrefixMap prefixMap,
-                            FactoryRDF factory, ErrorHandler errorHandler, Context context) {
+                            FactoryRDF factory, ErrorHandler errorHandler, Context context,
+                            int parallelism, boolean parallelOrdered, TermDictionary termDictionary) {
         int x = countNonNull(uri, path, content, inputStream, javaReader);
         if ( x >= 2 )
             throw new IllegalArgumentException("Only one source allowed: one of uri, path, content, inputStream and javaReader must be set");
@@ -235,6 +246,9 @@ public class RDFParser {
         this.factory = factory;
         this.errorHandler = errorHandler;
         this.context = context;
+        this.parallelism = parallelism;
+        this.parallelOrdered = parallelOrdered;
+        this.termDictionary = termDictionary;
     }
 
     /** Count the nulls */
@@ -372,9 +386,70 @@ public class RDFParser {
             return;
         }
         Objects.requireNonNull(baseURI);
+        if ( parallelism > 1 && parseParallel(destination) )
+            return;
         parseURI(destination);
     }
 
+    /**
+     * Parse N-Triples, N-Quads, Turtle or TriG from a local file with several threads.
+     * Return false, having done nothing, if the source is not suitable.
+     */
+    private boolean parseParallel(StreamRDF destination) {
+        Path file = localFile();
+        if ( file == null || ! ParallelParserNTuples.canParse(file) )
+            return false;
+        Lang lang = forceLang;
+        if ( lang == null ) {
+            String target = ( uri != null ) ? uri : path.toString();
+            ContentType ct = WebContent.determineCT(null, hintLang, target);
+            lang = ( ct == null ) ? null : RDFLanguages.contentTypeToLang(ct);
+        }
+        if ( lang == null )
+            return false;
+        // Each thread has its own parser profile. Blank node labels are mapped
+        // to the same blank nodes by all of them, and they share a TermDictionary.
+        Lang lang$ = lang;
+        UUID seed = UUID.randomUUID();
+        TermDictionary dictionary = ( termDictionary != null ) ? termDictionary : new TermDictionary();
+        Supplier<FactoryRDF> factories = ()->RiotLib.factoryRDF(dictionary, LabelToNode.createScopeByDocumentHashPart(seed));
+        if ( ParallelParserNTuples.canParse(lang) ) {
+            ParallelParserNTuples.parse(file, lang, parallelism, parallelOrdered,
+                                        ()->makeParserProfile(lang$, factories.get()),
+                                        destination);
+            return true;
+        }
+        if ( ParallelParserTurtle.canParse(lang) ) {
+            // The directives are processed by one parser profile with the prefix map
+            // of this parser; each segment has a separate prefix map.
+            PrefixMap pmap = ( this.prefixMap != null ) ? this.prefixMap : PrefixMapFactory.create();
+            ParserProfile prologue = makeParserProfile(lang, factories.get(),
+                                                       ErrorHandlerFactory.errorHandlerStrictSilent(), pmap);
+            return ParallelParserTurtle.parse(file, lang, parallelism, parallelOrdered, errorHandler, prologue,
+                                              eh->makeParserProfile(lang$, factories.get(), eh, PrefixMapFactory.create()),
+                                              destination);
+        }
+        return false;
+    }
+
+    /** The source as a local file, or null. */
+    private Path localFile() {
+        if ( path != null )
+            return path;
+        String fn = streamManager.mapURI(uri);
+        String scheme = IRIs.scheme(fn);
+        if ( scheme != null && scheme.length() == 1 )
+            // Windows drive letter.
+            scheme = null;
+        try {
+            if ( scheme == null )
+                return Path.of(fn);
+            if ( scheme.equalsIgnoreCase("file") )
+                return Path.of(IRILib.IRIToFilename(fn));
+        } catch (InvalidPathException ex) {}
+        return null;
+    }
+
     /** Parse when there is a URI to guide the choice of syntax */
     private void parseURI(StreamRDF destination) {
         // Source by uri or path.
@@ -516,6 +591,15 @@ public class RDFParser {
 
     // See also RiotLib.profile but this version has RDFParser specific features.
     private ParserProfile makeParserProfile(Lang lang) {
+        return makeParserProfile(lang, factory);
+    }
+
+    private ParserProfile makeParserProfile(Lang lang, FactoryRDF factory) {
+        PrefixMap pmap = ( this.prefixMap != null ) ? this.prefixMap : PrefixMapFactory.create();
+        return makeParserProfile(lang, factory, errorHandler, pmap);
+    }
+
+    private ParserProfile makeParserProfile(Lang lang, FactoryRDF factory, ErrorHandler errorHandler, PrefixMap pmap) {
         boolean resolve = resolveURIs;
         boolean allowRelative = false;
         boolean checking$ = strict;
@@ -544,7 +628,6 @@ public class RDFParser {
         IRIxResolver parserResolver = (resolver != null)
                 ? resolver
                 : IRIxResolver.create().base(baseStr).resolve(resolve).allowRelative(allowRelative).build();
-        PrefixMap pmap = ( this.prefixMap != null ) ? this.prefixMap : PrefixMapFactory.create();
         ParserProfileStd parserFactory = new ParserProfileStd(factory, errorHandler,
                                                               parserResolver, pmap,
                                                               context, checking$, strict);
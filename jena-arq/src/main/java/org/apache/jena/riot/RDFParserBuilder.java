@@ -103,10 +103,15 @@ public class RDFParserBuilder {
     // Construction for the StreamRDF
     private FactoryRDF factory = null;
     private LabelToNode labelToNode = null;
+    private TermDictionary termDictionary = null;
 
     // Bad news.
     private ErrorHandler errorHandler = null;
 
+    // Parallel parsing.
+    private int parallelism = 1;
+    private boolean parallelOrdered = true;
+
     public static RDFParserBuilder create() { return new RDFParserBuilder() ; }
     private RDFParserBuilder() {}
 
@@ -487,6 +492,63 @@ public class RDFParserBuilder {
         return this;
     }
 
+    /**
+     * Use the given {@link TermDictionary} for IRIs and short literals. A
+     * {@code TermDictionary} can be shared by several parsers, including ones running
+     * at the same time, so that repeated terms across them become the same
+     * {@code Node}. {@link TermDictionary#stats()} reports how well it is doing.
+     * <p>
+     * This does not apply if {@link #factory} is set.
+     *
+     * @param termDictionary
+     * @return this
+     */
+    public RDFParserBuilder termDictionary(TermDictionary termDictionary) {
+        this.termDictionary = termDictionary;
+        return this;
+    }
+
+    /**
+     * Parse with several threads. The output is in the order of the source.
+     * <p>
+     * This applies to N-Triples, N-Quads, Turtle and TriG read from an uncompressed
+     * local file. Other sources, and a setting of {@link #factory} or
+     * {@link #labelToNode}, are parsed with the calling thread. Turtle and TriG files
+     * that can not be split safely at the end of statements are also parsed with the
+     * calling thread.
+     * <p>
+     * The {@link StreamRDF} destination is only called from the calling thread. For
+     * N-Triples and N-Quads, line numbers in error messages are relative to the part
+     * of the file being parsed.
+     * The threads share a {@link TermDictionary}, the one from
+     * {@link #termDictionary} if set.
+     *
+     * @param threads Number of parser threads; 1 for no parallel parsing.
+     * @return this
+     * @see #parallel(int, boolean)
+     */
+    public RDFParserBuilder parallel(int threads) {
+        return parallel(threads, true);
+    }
+
+    /**
+     * Parse with several threads. See {@link #parallel(int)}.
+     * <p>
+     * If {@code ordered} is false, the output of each part of the file is sent to the
+     * destination as it is parsed and the parser threads do not wait for earlier parts.
+     *
+     * @param threads Number of parser threads; 1 for no parallel parsing.
+     * @param ordered Whether the output is in the order of the source.
+     * @return this
+     */
+    public RDFParserBuilder parallel(int threads, boolean ordered) {
+        if ( threads < 1 )
+            throw new IllegalArgumentException("Number of threads must be at least 1: "+threads);
+        this.parallelism = threads;
+        this.parallelOrdered = ordered;
+        return this;
+    }
+
     // There are no strict/unstrict differences.
     // Strict is passed through to the RIOT reader.
 //    /**
@@ -670,6 +732,9 @@ public class RDFParserBuilder {
         if ( sMgr == null )
             sMgr = StreamManager.get(context);
 
+        // Parallel parsing uses a FactoryRDF for each thread.
+        int parallelism$ = ( factory == null && labelToNode == null ) ? parallelism : 1;
+
         // Can't build the profile here as it is Lang/conneg dependent.
         return new RDFParser(uri, path, stringToParse, inputStream, javaReader, sMgr,
                              appAcceptHeader, httpHeaders,
@@ -678,16 +743,18 @@ public class RDFParserBuilder {
                              parserBaseURI, strict, checking,
                              canonicalValues, langTagForm,
                              resolveURIs, resolver, prefixMap,
-                             factory$, errorHandler$, context);
+                             factory$, errorHandler$, context,
+                             parallelism$, parallelOrdered, termDictionary);
     }
 
     private FactoryRDF buildFactoryRDF() {
         FactoryRDF factory$ = factory;
         if ( factory$ == null ) {
-            if ( labelToNode != null )
-                factory$ = RiotLib.factoryRDF(labelToNode);
+            LabelToNode labelToNode$ = ( labelToNode != null ) ? labelToNode : SyntaxLabels.createLabelToNode();
+            if ( termDictionary != null )
+                factory$ = RiotLib.factoryRDF(termDictionary, labelToNode$);
             else
-                factory$ = RiotLib.factoryRDF();
+                factory$ = RiotLib.factoryRDF(labelToNode$);
         }
         return factory$;
     }
@@ -717,7 +784,10 @@ public class RDFParserBuilder {
         builder.resolveURIs =       this.resolveURIs;
         builder.factory =           this.factory;
         builder.labelToNode =       this.labelToNode;
+        builder.termDictionary =    this.termDictionary;
         builder.errorHandler =      this.errorHandler;
+        builder.parallelism =       this.parallelism;
+        builder.parallelOrdered =   this.parallelOrdered;
         return builder;
     }
 }
@@ -52,6 +52,16 @@ public class LabelToNode extends MapWithScope<String, Node, Node>
     public static LabelToNode createScopeByDocumentHash(UUID seed)
     { return new LabelToNode(new FixedScopePolicy(), nodeAllocatorHash(seed)); }
 
+    /**
+     * Allocation for one of several parsers of parts of the same document. Labels
+     * give the same blank nodes for all parsers with the same seed, as
+     * {@link #createScopeByDocumentHash(UUID)}; blank nodes without a label are
+     * different for each parser.
+     * @param seed Seed
+     */
+    public static LabelToNode createScopeByDocumentHashPart(UUID seed)
+    { return new LabelToNode(new FixedScopePolicy(), nodeAllocatorHashPart(seed)); }
+
     /**
      * Allocation, with a map from seen label to node. It uses the jena-core blank
      * node allocator and a map from label to blank node. This style works for any
@@ -110,6 +120,10 @@ public class LabelToNode extends MapWithScope<String, Node, Node>
         return new Alloc(new BlankNodeAllocatorFixedSeedHash(seed));
     }
 
+    private static Allocator<String, Node, Node> nodeAllocatorHashPart(UUID seed) {
+        return new AllocPart(new BlankNodeAllocatorFixedSeedHash(seed), new BlankNodeAllocatorHash());
+    }
+
     private static Allocator<String, Node, Node> nodeAllocatorDeterministic() {
         return new Alloc(new BlankNodeAllocatorCounter());
     }
@@ -213,6 +227,33 @@ public class LabelToNode extends MapWithScope<String, Node, Node>
         }
     }
 
+    /** Labels from one allocator, fresh blank nodes from another. */
+    private static class AllocPart implements Allocator<String, Node, Node> {
+        final BlankNodeAllocator labels;
+        final BlankNodeAllocator fresh;
+
+        AllocPart(BlankNodeAllocator labels, BlankNodeAllocator fresh) {
+            this.labels = labels;
+            this.fresh = fresh;
+        }
+
+        @Override
+        public Node alloc(Node scope, String label) {
+            return labels.alloc(label);
+        }
+
+        @Override
+        public Node create() {
+            return fresh.create();
+        }
+
+        @Override
+        public void reset() {
+            labels.reset();
+            fresh.reset();
+        }
+    }
+
     /** Allocate a fresh blank node each time with a scope. */
     private static class AllocByScope implements Allocator<String, Node, Node> {
         BlankNodeAllocator dft = make();
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.EltStreamRDF;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * The machinery of parallel parsing: worker threads take the chunks of the input
+ * in turn and parse them, and the output is passed, in batches, to the calling
+ * thread which sends it to a {@link StreamRDF}, either in the order of the chunks
+ * or in the order the chunks are parsed.
+ *
+ * @see ParallelParserNTuples
+ * @see ParallelParserTurtle
+ */
+/*package*/ class ParallelParse {
+    /** Number of output items passed from a worker to the calling thread at a time. */
+    static final int BatchSize = 1000;
+    /** Number of batches waiting for the calling thread before a worker waits. */
+    static final int QueueSize = 16;
+
+    private static final ThreadFactory threadFactory = new BasicThreadFactory.Builder()
+        .daemon(true)
+        .namingPattern("riot-parse-%d")
+        .build();
+    private static final ExecutorService executor = Executors.newCachedThreadPool(threadFactory);
+
+    /** Parse one chunk, sending the output to a {@link StreamRDF}. */
+    interface ChunkParser {
+        void parse(int chunk, StreamRDF output) throws Exception;
+    }
+
+    // Output of a chunk, or an error. No output and no error is the end of the chunk.
+    private record Item(int chunk, List<EltStreamRDF> elts, Throwable error) {}
+
+    // Thrown in a worker to stop parsing when the calling thread has finished.
+    private static class StopParsing extends RuntimeException {
+        StopParsing() { super(null, null, false, false); }
+    }
+
+    private final int numChunks;
+    private final boolean ordered;
+    // Called once for each worker thread.
+    private final Supplier<ChunkParser> parsers;
+    // One queue for each chunk, created when needed, for ordered output, else one queue.
+    private final Map<Integer, BlockingQueue<Item>> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger nextChunk = new AtomicInteger(0);
+    private volatile boolean stopping = false;
+
+    /**
+     * Parse {@code numChunks} chunks with {@code parallelism} threads, each having
+     * a {@link ChunkParser} from {@code parsers}. This calls {@code start} and
+     * {@code finish} on the destination.
+     */
+    static void parse(int numChunks, int parallelism, boolean ordered, Supplier<ChunkParser> parsers, StreamRDF destination) {
+        new ParallelParse(numChunks, ordered, parsers).run(parallelism, destination);
+    }
+
+    private ParallelParse(int numChunks, boolean ordered, Supplier<ChunkParser> parsers) {
+        this.numChunks = numChunks;
+        this.ordered = ordered;
+        this.parsers = parsers;
+    }
+
+    private BlockingQueue<Item> queue(int chunk) {
+        int key = ordered ? chunk : 0;
+        return queues.computeIfAbsent(key, k -> new ArrayBlockingQueue<>(QueueSize));
+    }
+
+    // ---- Calling thread
+
+    private void run(int parallelism, StreamRDF destination) {
+        int workers = Math.min(parallelism, numChunks);
+        CountDownLatch finished = new CountDownLatch(workers);
+        for ( int i = 0 ; i < workers ; i++ ) {
+            executor.execute(()->{
+                try { work(); }
+                finally { finished.countDown(); }
+            });
+        }
+        destination.start();
+        try {
+            int chunksFinished = 0;
+            while ( chunksFinished < numChunks ) {
+                Item item = take(chunksFinished);
+                if ( item.error() != null )
+                    throw exception(item.error());
+                if ( item.elts() == null ) {
+                    if ( ordered )
+                        queues.remove(chunksFinished);
+                    chunksFinished++;
+                    continue;
+                }
+                for ( EltStreamRDF elt : item.elts() )
+                    send(elt, destination);
+            }
+        } finally {
+            stopping = true;
+            queues.values().forEach(BlockingQueue::clear);
+            // Do not return, and let the caller release the input, while workers are still running.
+            try { finished.await(); }
+            catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+        }
+        destination.finish();
+    }
+
+    private static void send(EltStreamRDF elt, StreamRDF destination) {
+        if ( elt.isTriple() )
+            destination.triple(elt.triple());
+        else if ( elt.isQuad() )
+            destination.quad(elt.quad());
+        else if ( elt.isPrefix() )
+            destination.prefix(elt.prefix(), elt.iri());
+        else if ( elt.isBase() )
+            destination.base(elt.iri());
+    }
+
+    private Item take(int chunksFinished) {
+        // Ordered: the queue of the chunk after those finished.
+        BlockingQueue<Item> queue = queue(chunksFinished);
+        try {
+            return queue.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RiotException("Interrupted");
+        }
+    }
+
+    private static RuntimeException exception(Throwable th) {
+        if ( th instanceof RuntimeException ex )
+            return ex;
+        if ( th instanceof Error err )
+            throw err;
+        return new RiotException(th);
+    }
+
+    // ---- Worker threads
+
+    private void work() {
+        ChunkParser parser = null;
+        for ( ;; ) {
+            int chunk = nextChunk.getAndIncrement();
+            if ( stopping || chunk >= numChunks )
+                return;
+            try {
+                if ( parser == null )
+                    parser = parsers.get();
+                Collector collector = new Collector(chunk);
+                parser.parse(chunk, collector);
+                collector.flush();
+                if ( ! put(new Item(chunk, null, null)) )
+                    return;
+            } catch (StopParsing ex) {
+                return;
+            } catch (Throwable th) {
+                put(new Item(chunk, null, th));
+                return;
+            }
+        }
+    }
+
+    // Wait for space in the queue, unless the calling thread has finished.
+    // Return false if the item was not added.
+    private boolean put(Item item) {
+        BlockingQueue<Item> queue = queue(item.chunk());
+        try {
+            while ( ! stopping ) {
+                if ( queue.offer(item, 100, TimeUnit.MILLISECONDS) )
+                    return true;
+            }
+        } catch (InterruptedException ex) {
+            stopping = true;
+        }
+        return false;
+    }
+
+    /** Collect the output of the parser of a chunk into batches. */
+    private class Collector extends StreamRDFBase {
+        private final int chunk;
+        private List<EltStreamRDF> batch = new ArrayList<>(BatchSize);
+
+        Collector(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public void triple(Triple triple) {
+            add(EltStreamRDF.triple(triple));
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            add(EltStreamRDF.quad(quad));
+        }
+
+        @Override
+        public void base(String base) {
+            add(EltStreamRDF.base(base));
+        }
+
+        @Override
+        public void prefix(String prefix, String iri) {
+            add(EltStreamRDF.prefix(prefix, iri));
+        }
+
+        private void add(EltStreamRDF elt) {
+            batch.add(elt);
+            if ( batch.size() >= BatchSize )
+                flush();
+        }
+
+        void flush() {
+            if ( batch.isEmpty() )
+                return;
+            if ( ! put(new Item(chunk, batch, null)) )
+                throw new StopParsing();
+            batch = new ArrayList<>(BatchSize);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.ParserProfile;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.tokens.Tokenizer;
+import org.apache.jena.riot.tokens.TokenizerBytes;
+
+/**
+ * Parallel parsing of an N-Triples or N-Quads file.
+ * <p>
+ * The file is split into chunks at newlines, which can not occur inside a term in
+ * these formats. Worker threads take chunks in turn and parse them from memory mapped
+ * buffers with {@link TokenizerBytes}, each with its own {@link ParserProfile}. The parser
+ * profiles must map blank node labels to the same blank nodes; a
+ * {@link LabelToNode#createScopeByDocumentHash(java.util.UUID)} with the same seed
+ * for all of them does this. The output is sent to the {@link StreamRDF} by the
+ * calling thread, either in file order or in the order the chunks are parsed.
+ * <p>
+ * Line numbers in error messages are counted from the start of the chunk.
+ * <p>
+ * <b>This class is internal to RIOT.</b> Use {@code RDFParserBuilder.parallel}.
+ */
+public class ParallelParserNTuples {
+    /** Default size of a chunk, in bytes. */
+    public static final int DftChunkSize = 8 * 1024 * 1024;
+
+    /** Whether a language can be parsed by this class. */
+    public static boolean canParse(Lang lang) {
+        return RDFLanguages.sameLang(Lang.NTRIPLES, lang) || RDFLanguages.sameLang(Lang.NQUADS, lang);
+    }
+
+    /** Whether a file can be parsed by this class: it must be a regular file and not compressed. */
+    public static boolean canParse(Path path) {
+        String fn = path.getFileName().toString();
+        return path.toFile().isFile() && IO.filenameNoCompression(fn).equals(fn);
+    }
+
+    /**
+     * Parse a file, sending the output to a {@link StreamRDF}.
+     *
+     * @param path The file.
+     * @param lang N-Triples or N-Quads.
+     * @param parallelism Number of worker threads.
+     * @param ordered Whether to send the output in file order.
+     * @param profiles Parser profiles, one for each worker thread.
+     * @param destination The output.
+     */
+    public static void parse(Path path, Lang lang, int parallelism, boolean ordered,
+                             Supplier<ParserProfile> profiles, StreamRDF destination) {
+        parse(path, lang, parallelism, ordered, DftChunkSize, profiles, destination);
+    }
+
+    /*package*/ static void parse(Path path, Lang lang, int parallelism, boolean ordered, int chunkSize,
+                                  Supplier<ParserProfile> profiles, StreamRDF destination) {
+        if ( ! canParse(lang) )
+            throw new RiotException("Parallel parsing is only for N-Triples and N-Quads: "+lang);
+        try ( FileChannel channel = FileChannel.open(path, StandardOpenOption.READ) ) {
+            List<Long> starts = chunkStarts(channel, chunkSize);
+            ParallelParserNTuples parser = new ParallelParserNTuples(channel, starts, lang);
+            // One parser profile for each thread.
+            ParallelParse.parse(starts.size()-1, parallelism, ordered, ()->{
+                ParserProfile profile = profiles.get();
+                return (chunk, output) -> parser.parseChunk(chunk, profile, output);
+            }, destination);
+        } catch (IOException ex) {
+            IO.exception(ex);
+        }
+    }
+
+    // The start of each chunk and, last, the size of the file.
+    private static List<Long> chunkStarts(FileChannel channel, int chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> starts = new ArrayList<>();
+        starts.add(0L);
+        ByteBuffer bb = ByteBuffer.allocate(4096);
+        long position = chunkSize;
+        while ( position < size ) {
+            // Start the chunk after the next newline.
+            long start = size;
+            long x = position;
+            scan:
+            while ( x < size ) {
+                bb.clear();
+                int len = channel.read(bb, x);
+                if ( len <= 0 )
+                    break;
+                for ( int i = 0 ; i < len ; i++ ) {
+                    if ( bb.get(i) == '\n' ) {
+                        start = x + i + 1;
+                        break scan;
+                    }
+                }
+                x += len;
+            }
+            if ( start >= size )
+                break;
+            starts.add(start);
+            position = start + chunkSize;
+        }
+        starts.add(size);
+        return starts;
+    }
+
+    private final FileChannel channel;
+    private final List<Long> starts;
+    private final Lang lang;
+
+    private ParallelParserNTuples(FileChannel channel, List<Long> starts, Lang lang) {
+        this.channel = channel;
+        this.starts = starts;
+        this.lang = lang;
+    }
+
+    private void parseChunk(int chunk, ParserProfile profile, StreamRDF output) throws IOException {
+        long start = starts.get(chunk);
+        long length = starts.get(chunk+1) - start;
+        ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        Tokenizer tokenizer = TokenizerBytes.create(bytes, profile.getErrorHandler());
+        LangRIOT parser = RDFLanguages.sameLang(Lang.NTRIPLES, lang)
+                ? new LangNTriples(tokenizer, profile, output)
+                : new LangNQuads(tokenizer, profile, output);
+        parser.parse();
+    }
+}
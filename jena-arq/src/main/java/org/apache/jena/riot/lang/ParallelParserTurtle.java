@@ -0,0 +1,584 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.*;
+import org.apache.jena.riot.tokens.Tokenizer;
+import org.apache.jena.riot.tokens.TokenizerText;
+
+/**
+ * Parallel parsing of a Turtle or TriG file.
+ * <p>
+ * A first pass over the bytes of the file finds places where a statement, or a TriG
+ * graph block, ends: a "." or a closing "}" that is not inside an IRI, a string, a
+ * comment or any kind of bracket. The file is split at such places into segments of
+ * about the chunk size. This pass also finds the prefix and base directives; they are
+ * processed in file order, before parsing, to give the prefixes and base in force at
+ * the start of each segment. Worker threads then parse the segments with
+ * {@link TokenizerText}, each segment with its own {@link ParserProfile}. The parser
+ * profiles must map blank node labels to the same blank nodes, and create different
+ * blank nodes for {@code []} and lists; a
+ * {@link LabelToNode#createScopeByDocumentHashPart(java.util.UUID)} with the same
+ * seed for all of them does this.
+ * <p>
+ * The first pass is conservative: if the file is not split into at least two
+ * segments, or the bytes do not look like well-formed Turtle or TriG, or a directive
+ * can not be processed on its own, nothing is parsed and {@link #parse} returns false.
+ * The caller should then parse the file sequentially, which gives the usual error
+ * messages.
+ * <p>
+ * Line numbers in error messages are counted from the start of the file; column
+ * numbers on the first line of a segment are counted from the start of the segment.
+ * <p>
+ * <b>This class is internal to RIOT.</b> Use {@code RDFParserBuilder.parallel}.
+ */
+public class ParallelParserTurtle {
+    /** Default size of a segment, in bytes. */
+    public static final int DftChunkSize = 8 * 1024 * 1024;
+
+    /** Whether a language can be parsed by this class. */
+    public static boolean canParse(Lang lang) {
+        return RDFLanguages.sameLang(Lang.TURTLE, lang) || RDFLanguages.sameLang(Lang.TRIG, lang);
+    }
+
+    /**
+     * Parse a file, sending the output to a {@link StreamRDF}. Return false, having
+     * sent nothing to the destination, if the file should be parsed sequentially.
+     *
+     * @param path The file.
+     * @param lang Turtle or TriG.
+     * @param parallelism Number of worker threads.
+     * @param ordered Whether to send the output in file order.
+     * @param errorHandler Error handler for parse errors.
+     * @param prologue Parser profile for processing the directives, in file order.
+     *          Errors in the directives must cause exceptions.
+     * @param profiles Parser profiles, one for each segment, given the error handler to use.
+     * @param destination The output.
+     */
+    public static boolean parse(Path path, Lang lang, int parallelism, boolean ordered,
+                                ErrorHandler errorHandler, ParserProfile prologue,
+                                Function<ErrorHandler, ParserProfile> profiles, StreamRDF destination) {
+        return parse(path, lang, parallelism, ordered, DftChunkSize, errorHandler, prologue, profiles, destination);
+    }
+
+    /*package*/ static boolean parse(Path path, Lang lang, int parallelism, boolean ordered, int chunkSize,
+                                     ErrorHandler errorHandler, ParserProfile prologue,
+                                     Function<ErrorHandler, ParserProfile> profiles, StreamRDF destination) {
+        if ( ! canParse(lang) )
+            throw new RiotException("Parallel parsing is only for Turtle and TriG: "+lang);
+        try ( FileChannel channel = FileChannel.open(path, StandardOpenOption.READ) ) {
+            Segments segments;
+            try ( InputStream input = Files.newInputStream(path) ) {
+                segments = new Splitter(input, channel.size(), chunkSize).split();
+            }
+            if ( segments == null || segments.size() < 2 )
+                return false;
+            if ( ! prologue(channel, segments, prologue) )
+                return false;
+            ParallelParserTurtle parser = new ParallelParserTurtle(channel, segments, lang, errorHandler, profiles);
+            ParallelParse.parse(segments.size(), parallelism, ordered,
+                                ()->(chunk, output) -> parser.parseSegment(chunk, output),
+                                destination);
+            return true;
+        } catch (IOException ex) {
+            IO.exception(ex);
+            return false;
+        }
+    }
+
+    /** Segments of the file, and the directives. */
+    private static class Segments {
+        // The start of each segment and, last, the size of the file.
+        final List<Long> starts = new ArrayList<>();
+        // The line number of the start of each segment.
+        final List<Long> lines = new ArrayList<>();
+        // Start and end of each directive, in file order.
+        final List<long[]> directives = new ArrayList<>();
+        // The prefixes and base (null for unchanged) at the start of each segment.
+        final List<PrefixMap> prefixes = new ArrayList<>();
+        final List<String> bases = new ArrayList<>();
+
+        int size() { return starts.size()-1; }
+    }
+
+    // Process the directives in order, to find the prefixes and base at the start of each segment.
+    private static boolean prologue(FileChannel channel, Segments segments, ParserProfile profile) throws IOException {
+        StreamRDF sink = StreamRDFLib.sinkNull();
+        boolean baseSeen = false;
+        int d = 0;
+        for ( int i = 0 ; i < segments.size() ; i++ ) {
+            long start = segments.starts.get(i);
+            while ( d < segments.directives.size() && segments.directives.get(d)[1] <= start ) {
+                long[] directive = segments.directives.get(d++);
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, directive[0], directive[1]-directive[0]);
+                String text = StandardCharsets.UTF_8.decode(bytes).toString();
+                if ( text.startsWith("@base") || text.regionMatches(true, 0, "BASE", 0, 4) )
+                    baseSeen = true;
+                Tokenizer tokenizer = TokenizerText.create().fromString(text).errorHandler(profile.getErrorHandler()).build();
+                try {
+                    new LangTurtle(tokenizer, profile, sink).parse();
+                } catch (RiotException ex) {
+                    return false;
+                }
+            }
+            segments.prefixes.add(PrefixMapFactory.create(profile.getPrefixMap()));
+            segments.bases.add(baseSeen ? profile.getBaseURI() : null);
+        }
+        return true;
+    }
+
+    private final FileChannel channel;
+    private final Segments segments;
+    private final Lang lang;
+    private final ErrorHandler errorHandler;
+    private final Function<ErrorHandler, ParserProfile> profiles;
+
+    private ParallelParserTurtle(FileChannel channel, Segments segments, Lang lang,
+                                 ErrorHandler errorHandler, Function<ErrorHandler, ParserProfile> profiles) {
+        this.channel = channel;
+        this.segments = segments;
+        this.lang = lang;
+        this.errorHandler = errorHandler;
+        this.profiles = profiles;
+    }
+
+    private void parseSegment(int segment, StreamRDF output) throws IOException {
+        long start = segments.starts.get(segment);
+        long length = segments.starts.get(segment+1) - start;
+        long lineOffset = segments.lines.get(segment) - 1;
+        ParserProfile profile = profiles.apply(new ErrorHandlerLineOffset(errorHandler, lineOffset));
+        PrefixMap prefixMap = profile.getPrefixMap();
+        prefixMap.clear();
+        prefixMap.putAll(segments.prefixes.get(segment));
+        String base = segments.bases.get(segment);
+        if ( base != null )
+            profile.setBaseIRI(base);
+        ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        Tokenizer tokenizer = TokenizerText.create().source(new ByteBufferInputStream(bytes))
+                                           .errorHandler(profile.getErrorHandler()).build();
+        LangRIOT parser = RDFLanguages.sameLang(Lang.TURTLE, lang)
+                ? new LangTurtle(tokenizer, profile, output)
+                : new LangTriG(tokenizer, profile, output);
+        parser.parse();
+    }
+
+    /**
+     * Scan the bytes of the file to split it into segments. Only the bytes that
+     * matter for finding the end of statements are recognized.
+     */
+    private static class Splitter {
+        private final InputStream input;
+        private final long size;
+        private final int chunkSize;
+        private final byte[] buffer = new byte[64*1024];
+        // Position in the file of buffer[0].
+        private long bufferStart = 0;
+        private int idx = 0;
+        private int len = 0;
+        private long line = 1;
+        // The last two bytes read by next().
+        private int last = -1;
+        private int prev = -1;
+
+        private final Segments segments = new Segments();
+        private long target;
+        // Inside a statement or directive.
+        private boolean inStatement = false;
+        // Start of a directive, until its IRI ends, else -1.
+        private long directiveStart = -1;
+        // "[" and "(".
+        private int depth = 0;
+        // "{", for TriG graphs.
+        private int braces = 0;
+        // "{|", for RDF-star annotations.
+        private int annotations = 0;
+
+        Splitter(InputStream input, long size, int chunkSize) {
+            this.input = input;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.target = chunkSize;
+        }
+
+        /** Return the segments, or null if the file is not as expected. */
+        Segments split() throws IOException {
+            segments.starts.add(0L);
+            segments.lines.add(1L);
+            // Byte order mark.
+            if ( peek(0) == 0xEF && peek(1) == 0xBB && peek(2) == 0xBF )
+                idx += 3;
+            for ( ;; ) {
+                int b = next();
+                if ( b < 0 )
+                    break;
+                if ( ! scan(b) )
+                    return null;
+            }
+            if ( depth != 0 || braces != 0 || annotations != 0 || directiveStart >= 0 )
+                return null;
+            segments.starts.add(size);
+            return segments;
+        }
+
+        private boolean scan(int b) throws IOException {
+            switch (b) {
+                case ' ', '\t', '\n', '\r' -> {}
+                case '#' -> skipComment();
+                case '<' -> {
+                    inStatement = true;
+                    if ( peek(0) == '<' ) {
+                        // RDF-star "<<".
+                        idx++;
+                        return true;
+                    }
+                    if ( ! skipIRI() )
+                        return false;
+                    if ( directiveStart >= 0 )
+                        endDirective();
+                }
+                case '"', '\'' -> {
+                    inStatement = true;
+                    return skipString(b);
+                }
+                case '\\' -> {
+                    inStatement = true;
+                    next();
+                }
+                case '[', '(' -> {
+                    inStatement = true;
+                    depth++;
+                }
+                case ']', ')' -> {
+                    if ( --depth < 0 )
+                        return false;
+                }
+                case '{' -> {
+                    inStatement = true;
+                    if ( peek(0) == '|' ) {
+                        idx++;
+                        annotations++;
+                    } else
+                        braces++;
+                }
+                case '|' -> {
+                    if ( peek(0) == '}' ) {
+                        idx++;
+                        if ( --annotations < 0 )
+                            return false;
+                    }
+                }
+                case '}' -> {
+                    if ( --braces < 0 )
+                        return false;
+                    if ( topLevel() )
+                        boundary();
+                }
+                case '.' -> {
+                    if ( topLevel() && directiveStart < 0 && endOfStatement() )
+                        boundary();
+                    else
+                        inStatement = true;
+                }
+                default -> {
+                    if ( topLevel() ) {
+                        if ( ! inStatement )
+                            directive(b);
+                        else if ( directiveInStatement(b) )
+                            // The file is not as expected.
+                            return false;
+                    }
+                    inStatement = true;
+                }
+            }
+            return true;
+        }
+
+        private boolean topLevel() {
+            return depth == 0 && braces == 0 && annotations == 0;
+        }
+
+        /**
+         * Whether the "." just read ends a statement. It does not if it is part of
+         * a prefixed name ({@code ex:a.b}) or a number ({@code 1.5}), which is when
+         * it is between characters that can be in a name, or when it starts a
+         * number ({@code .5}).
+         */
+        private boolean endOfStatement() throws IOException {
+            int b2 = peek(0);
+            if ( b2 < 0 || isWhitespace(b2) || b2 == '#' )
+                return true;
+            if ( b2 >= '0' && b2 <= '9' )
+                return false;
+            return ! isNameChar(prev) || ! ( isNameChar(b2) || b2 == '.' );
+        }
+
+        // At the start of a statement: "@prefix", "@base", "PREFIX" or "BASE".
+        private void directive(int b) throws IOException {
+            if ( isDirective(b) )
+                directiveStart = position() - 1;
+        }
+
+        /**
+         * Whether there is a directive keyword, not part of a name or a language tag,
+         * in what is thought to be a statement. A "." that ended the statement was
+         * not recognized.
+         */
+        private boolean directiveInStatement(int b) throws IOException {
+            if ( directiveStart >= 0 )
+                return false;
+            boolean start = ( b == '@' ) ? ! isQuote(prev) : ! isNameChar(prev);
+            return start && isDirective(b);
+        }
+
+        private boolean isDirective(int b) throws IOException {
+            return switch (b) {
+                case '@' -> keyword("prefix", false) || keyword("base", false);
+                case 'P', 'p' -> keyword("REFIX", true);
+                case 'B', 'b' -> keyword("ASE", true);
+                default -> false;
+            };
+        }
+
+        // Whether the rest of a keyword is next, followed by whitespace or an IRI.
+        private boolean keyword(String rest, boolean ignoreCase) throws IOException {
+            int n = rest.length();
+            for ( int i = 0 ; i < n ; i++ ) {
+                int c = peek(i);
+                char ch = rest.charAt(i);
+                if ( c != ch && ! ( ignoreCase && Character.toUpperCase(c) == ch ) )
+                    return false;
+            }
+            int after = peek(n);
+            return isWhitespace(after) || after == '<';
+        }
+
+        // After the IRI of a directive, which ends it, with any "." following.
+        private void endDirective() throws IOException {
+            for ( ;; ) {
+                int b = peek(0);
+                if ( b < 0 )
+                    break;
+                if ( b == '.' ) {
+                    idx++;
+                    break;
+                }
+                if ( ! isWhitespace(b) )
+                    break;
+                next();
+            }
+            segments.directives.add(new long[] {directiveStart, position()});
+            directiveStart = -1;
+            boundary();
+        }
+
+        // After the end of a statement.
+        private void boundary() {
+            inStatement = false;
+            long position = position();
+            if ( position < target || position >= size )
+                return;
+            segments.starts.add(position);
+            segments.lines.add(line);
+            target = position + chunkSize;
+        }
+
+        private void skipComment() throws IOException {
+            for ( ;; ) {
+                int b = next();
+                if ( b < 0 || b == '\n' || b == '\r' )
+                    return;
+            }
+        }
+
+        private boolean skipIRI() throws IOException {
+            for ( ;; ) {
+                int b = next();
+                if ( b < 0 || b == '\n' || b == '\r' )
+                    return false;
+                if ( b == '>' )
+                    return true;
+                if ( b == '\\' )
+                    next();
+            }
+        }
+
+        private boolean skipString(int quote) throws IOException {
+            boolean longString = false;
+            if ( peek(0) == quote ) {
+                if ( peek(1) != quote ) {
+                    // Empty string.
+                    idx++;
+                    return true;
+                }
+                idx += 2;
+                longString = true;
+            }
+            for ( ;; ) {
+                int b = next();
+                if ( b < 0 )
+                    return false;
+                if ( b == '\\' ) {
+                    next();
+                    continue;
+                }
+                if ( ! longString && ( b == '\n' || b == '\r' ) )
+                    return false;
+                if ( b != quote )
+                    continue;
+                if ( ! longString )
+                    return true;
+                if ( peek(0) == quote && peek(1) == quote ) {
+                    idx += 2;
+                    return true;
+                }
+            }
+        }
+
+        private static boolean isWhitespace(int b) {
+            return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+        }
+
+        // A byte that can be part of a prefixed name or a number. Bytes of UTF-8
+        // multibyte characters are all 0x80 or above.
+        private static boolean isNameChar(int b) {
+            return ( b >= 'a' && b <= 'z' ) || ( b >= 'A' && b <= 'Z' ) || ( b >= '0' && b <= '9' )
+                    || b == '_' || b == '-' || b == ':' || b == '%' || b == '\\' || b >= 0x80;
+        }
+
+        private static boolean isQuote(int b) {
+            return b == '"' || b == '\'';
+        }
+
+        private long position() {
+            return bufferStart + idx;
+        }
+
+        private int next() throws IOException {
+            int b = peek(0);
+            if ( b < 0 )
+                return b;
+            idx++;
+            if ( b == '\n' )
+                line++;
+            prev = last;
+            last = b;
+            return b;
+        }
+
+        // The byte at idx+i, or -1 at the end of the file.
+        private int peek(int i) throws IOException {
+            if ( idx + i >= len ) {
+                fill(i+1);
+                if ( idx + i >= len )
+                    return -1;
+            }
+            return buffer[idx + i] & 0xFF;
+        }
+
+        // Read so that there are at least n bytes from idx in the buffer, if possible.
+        private void fill(int n) throws IOException {
+            System.arraycopy(buffer, idx, buffer, 0, len - idx);
+            bufferStart += idx;
+            len -= idx;
+            idx = 0;
+            while ( len - idx < n ) {
+                int x = input.read(buffer, len, buffer.length - len);
+                if ( x < 0 )
+                    return;
+                len += x;
+            }
+        }
+    }
+
+    /** Error handler for a segment: line numbers are from the start of the file. */
+    private static class ErrorHandlerLineOffset implements ErrorHandler {
+        private final ErrorHandler other;
+        private final long offset;
+
+        ErrorHandlerLineOffset(ErrorHandler other, long offset) {
+            this.other = other;
+            this.offset = offset;
+        }
+
+        private long line(long line) {
+            return ( line < 0 ) ? line : line + offset;
+        }
+
+        @Override
+        public void warning(String message, long line, long col) {
+            other.warning(message, line(line), col);
+        }
+
+        @Override
+        public void error(String message, long line, long col) {
+            other.error(message, line(line), col);
+        }
+
+        @Override
+        public void fatal(String message, long line, long col) {
+            other.fatal(message, line(line), col);
+        }
+    }
+
+    /** Read from a {@link ByteBuffer}. */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer bytes;
+
+        ByteBufferInputStream(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return bytes.hasRemaining() ? bytes.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if ( len == 0 )
+                return 0;
+            if ( ! bytes.hasRemaining() )
+                return -1;
+            int n = Math.min(len, bytes.remaining());
+            bytes.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return bytes.remaining();
+        }
+    }
+}
@@ -82,6 +82,34 @@ public class RRX {
         register(RDFXML_ARP0,    ReaderRDFXML_ARP0.factory);
     }
 
+    /**
+     * Set the parser for {@link Lang#RDFXML} to be the one for one of the languages
+     * of this class. The system default is {@link #RDFXML_SAX}.
+     * <p>
+     * The parsers can be compared with the RDF/XML benchmarks in jena-benchmarks-jmh.
+     */
+    public static void setDefault(Lang lang) {
+        ReaderRIOTFactory factory = factory(lang);
+        if ( factory == null )
+            throw new IllegalArgumentException("Not one of the RDF/XML parser languages: "+lang);
+        RDFParserRegistry.registerLangTriples(Lang.RDFXML, factory);
+    }
+
+    /** Return the parser factory for one of the languages of this class, or null. */
+    public static ReaderRIOTFactory factory(Lang lang) {
+        if ( RDFXML_SAX.equals(lang) )
+            return ReaderRDFXML_SAX.factory;
+        if ( RDFXML_StAX_ev.equals(lang) )
+            return ReaderRDFXML_StAX_EV.factory;
+        if ( RDFXML_StAX_sr.equals(lang) )
+            return ReaderRDFXML_StAX_SR.factory;
+        if ( RDFXML_ARP1.equals(lang) )
+            return ReaderRDFXML_ARP1.factory;
+        if ( RDFXML_ARP0.equals(lang) )
+            return ReaderRDFXML_ARP0.factory;
+        return null;
+    }
+
     private static void register(Lang lang, ReaderRIOTFactory factory) {
         RDFLanguages.register(lang);
         RDFParserRegistry.registerLangTriples(lang, factory);
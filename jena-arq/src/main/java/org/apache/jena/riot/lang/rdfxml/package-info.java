@@ -27,6 +27,8 @@
  * <li>A StAX-based parser using {@link javax.xml.stream.XMLStreamReader XMLStreamReader}.
  * <li>A StAX-based parser using {@link javax.xml.stream.XMLEventReader XMLEventReader}.
  * </ul>
+ * The parser used for {@code Lang.RDFXML} can be changed with
+ * {@link org.apache.jena.riot.lang.rdfxml.RRX#setDefault RRX.setDefault}.
  * In addition Jena (in jena-core) has the original ARP parser in package {@code org.apach.jena-rdfxml.rdfxml0} referred to as "ARP0".
  * This was the RDF/XML parser up to Jena 4.6.1. ARP1 uses package jena-iri directly to handle IRIs.
  * <p>
@@ -137,6 +137,23 @@ public class ParserRDFXML_StAX_SR {
         return null;
     }
 
+    // Caches of the StAX reader state for the current event, which is
+    // asked for several times while processing an element.
+    private long eventCounter = 0;
+    private long qNameEvent = -1;
+    private QName currentQName = null;
+    private long locationEvent = -1;
+    private Location currentLocation = null;
+    private long syntaxAttributesEvent = -1;
+    private final String[] syntaxAttributes = new String[syntaxAttributeNames.length];
+
+    // Resolved IRIs, by base and then by the string in the RDF/XML.
+    private static final int MaxBaseCaches = 100;
+    private static final int MaxCachedIRIs = 10_000;
+    private final Map<IRIx, Map<String, String>> resolvedIRIs = new HashMap<>();
+
+    private final Emitter emitterPlain = this::emit;
+
     // Collecting characters does not need to be a stack because there are
     // no nested objects while gathering characters for lexical or XMLLiterals.
     private StringBuilder accCharacters = new StringBuilder(100);
@@ -199,6 +216,11 @@ public class ParserRDFXML_StAX_SR {
     // whitespace characters inside elements. Skip it.
     private static final QName xmlQNameSpace = new QName(XMLConstants.XML_NS_URI, "space");
 
+    // Attributes looked up for each element; see readSyntaxAttributes.
+    private static final QName[] syntaxAttributeNames = {
+        rdfAbout, rdfID, rdfNodeID, rdfResource, rdfDatatype, rdfParseType, xmlQNameBase, xmlQNameLang
+    };
+
     private static final String parseTypeCollection = "Collection";
     private static final String parseTypeLiteral = "Literal";
     private static final String parseTypeResource = "Resource";
@@ -559,7 +581,7 @@ public class ParserRDFXML_StAX_SR {
             property = qNameToURI(qName, location);
 
         Node reify = reifyStatement(location);
-        Emitter emitter = (reify==null) ? this::emit : (s,p,o,loc)->emitReify(reify, s, p, o, loc);
+        Emitter emitter = (reify==null) ? emitterPlain : (s,p,o,loc)->emitReify(reify, s, p, o, loc);
 
         // If there is a blank node label, the element must be empty,
         // Check NCName if blank node created
@@ -649,8 +671,7 @@ public class ParserRDFXML_StAX_SR {
             accCharacters.setLength(0);
 
             while(lookingAt(event, CHARACTERS)) {
-                String text = xmlSource.getText();
-                accCharacters.append(text);
+                appendText(accCharacters);
                 event = nextEventAny();
             }
             if ( lookingAt(event, START_ELEMENT) ) {
@@ -707,7 +728,7 @@ public class ParserRDFXML_StAX_SR {
                 break;
             if ( ! lookingAt(eventType, CHARACTERS) )
                 throw RDFXMLparseError("Unexpected element in text element: "+strEventType(eventType));
-            sBuff.append(xmlSource.getText());
+            appendText(sBuff);
             eventType = nextEventAny();
         }
         lexicalForm = sBuff.toString();
@@ -1087,9 +1108,36 @@ public class ParserRDFXML_StAX_SR {
 
     /** Get the string value for an attribute by QName */
     private String attribute(QName qName) {
+        for ( int i = 0 ; i < syntaxAttributeNames.length ; i++ ) {
+            if ( syntaxAttributeNames[i] == qName ) {
+                if ( syntaxAttributesEvent != eventCounter )
+                    readSyntaxAttributes();
+                return syntaxAttributes[i];
+            }
+        }
         return xmlSource.getAttributeValue(qName.getNamespaceURI(), qName.getLocalPart());
     }
 
+    /** Find the syntax attributes of the current start element in one pass over the attributes. */
+    private void readSyntaxAttributes() {
+        Arrays.fill(syntaxAttributes, null);
+        int N = xmlSource.getAttributeCount();
+        for ( int i = 0 ; i < N ; i++ ) {
+            String namespace = xmlSource.getAttributeNamespace(i);
+            if ( namespace == null || namespace.isEmpty() )
+                continue;
+            String localName = xmlSource.getAttributeLocalName(i);
+            for ( int j = 0 ; j < syntaxAttributeNames.length ; j++ ) {
+                QName attrName = syntaxAttributeNames[j];
+                if ( localName.equals(attrName.getLocalPart()) && namespace.equals(attrName.getNamespaceURI()) ) {
+                    syntaxAttributes[j] = xmlSource.getAttributeValue(i);
+                    break;
+                }
+            }
+        }
+        syntaxAttributesEvent = eventCounter;
+    }
+
     /** XML parsing error. */
     private RiotException handleXMLStreamException(XMLStreamException ex) {
         String msg = xmlStreamExceptionMessage(ex);
@@ -1124,14 +1172,24 @@ public class ParserRDFXML_StAX_SR {
 
     /** Only valid in START_ELEMENT and END_ELEMENT */
     private QName qName() {
-        return xmlSource.getName();
+        if ( qNameEvent != eventCounter ) {
+            currentQName = xmlSource.getName();
+            qNameEvent = eventCounter;
+        }
+        return currentQName;
     }
 
     private static boolean lookingAt(int eventType, int expectedEventType) {
         return eventType == expectedEventType;
     }
 
-    private Location location() { return xmlSource.getLocation(); }
+    private Location location() {
+        if ( locationEvent != eventCounter ) {
+            currentLocation = xmlSource.getLocation();
+            locationEvent = eventCounter;
+        }
+        return currentLocation;
+    }
 
     /**
      * Move to next tag, skipping DTDs and "skipping unimportant whitespace and comments".
@@ -1150,9 +1208,10 @@ public class ParserRDFXML_StAX_SR {
                             System.out.println("-- Tag: "+strEventType(evType));
                         return evType;
                     case CHARACTERS, CDATA:
-                        String chars = xmlSource.getText();
-                        if ( ! isWhitespace(chars) )
+                        if ( ! isWhitespaceText() ) {
+                            String chars = xmlSource.getText();
                             throw RDFXMLparseError("Read "+nonWhitespaceForMsg(chars)+" when expecting a start or end element.");
+                        }
                         // Skip
                         break;
                     case COMMENT, DTD:
@@ -1219,6 +1278,7 @@ public class ParserRDFXML_StAX_SR {
     }
 
     private int read() throws XMLStreamException {
+        eventCounter++;
         int eventType = xmlSource.next();
         if ( EVENTS )
             System.out.println("-- Read: "+strEventType(eventType));
@@ -1359,7 +1419,31 @@ public class ParserRDFXML_StAX_SR {
         if ( uriStr.startsWith("_:") )
             // <_:label> syntax. Handled by the FactoryRDF via the parser profile.
             return uriStr;
-        return resolveIRIx(uriStr, location).str();
+        return resolveIRIcached(uriStr, location);
+    }
+
+    /**
+     * Resolve an IRI, caching the results for the current base.
+     * IRIs that do not resolve are not cached; they cause an error each time.
+     */
+    private String resolveIRIcached(String uriStr, Location location) {
+        if ( currentBase == null )
+            return resolveIRIx(uriStr, location).str();
+        Map<String, String> cache = resolvedIRIs.get(currentBase);
+        if ( cache == null ) {
+            if ( resolvedIRIs.size() >= MaxBaseCaches )
+                resolvedIRIs.clear();
+            cache = new HashMap<>();
+            resolvedIRIs.put(currentBase, cache);
+        }
+        String resolved = cache.get(uriStr);
+        if ( resolved == null ) {
+            resolved = resolveIRIx(uriStr, location).str();
+            if ( cache.size() >= MaxCachedIRIs )
+                cache.clear();
+            cache.put(uriStr, resolved);
+        }
+        return resolved;
     }
 
     private IRIx resolveIRIx(String uriStr, Location location) {
@@ -1544,13 +1628,21 @@ public class ParserRDFXML_StAX_SR {
     }
 
     private boolean isWhitespace(int eventType) {
-        if ( lookingAt(eventType, CHARACTERS ) ) {
-            String s = xmlSource.getText();
-            return isWhitespace(s);
-        }
+        if ( lookingAt(eventType, CHARACTERS ) )
+            return isWhitespaceText();
         return false;
     }
 
+    /** Whether the text of the current event is whitespace, without creating a string. */
+    private boolean isWhitespaceText() {
+        return isWhitespace(xmlSource.getTextCharacters(), xmlSource.getTextStart(), xmlSource.getTextLength());
+    }
+
+    /** Append the text of the current event, without creating a string. */
+    private void appendText(StringBuilder sBuff) {
+        sBuff.append(xmlSource.getTextCharacters(), xmlSource.getTextStart(), xmlSource.getTextLength());
+    }
+
 //    private static boolean isWhitespace(char[] ch) {
 //        return isWhitespace(ch, 0, ch.length);
 //    }
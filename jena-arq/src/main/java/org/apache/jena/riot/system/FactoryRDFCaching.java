@@ -28,12 +28,19 @@ import org.apache.jena.graph.Node ;
 import org.apache.jena.riot.lang.LabelToNode ;
 import org.apache.jena.sparql.graph.NodeConst ;
 
-/** Adds some caching of created nodes - the caching is tuned to RIOT parser usage */
+/**
+ * Adds some caching of created nodes - the caching is tuned to RIOT parser usage.
+ * <p>
+ * By default, IRIs are cached for this factory only. With a {@link TermDictionary},
+ * IRIs and short literals are shared with other factories using the same dictionary,
+ * which may be used by other threads.
+ */
 public class FactoryRDFCaching extends FactoryRDFStd {
     public static final int DftNodeCacheSize = 5000 ;
 
     private final int cacheSize ;
     private final Cache<String, Node> cache ;
+    private final TermDictionary dictionary ;
 
     public FactoryRDFCaching() {
         this(DftNodeCacheSize, SyntaxLabels.createLabelToNode());
@@ -43,6 +50,15 @@ public class FactoryRDFCaching extends FactoryRDFStd {
         super(labelMapping) ;
         this.cacheSize = cacheSize;
         this.cache = setCache(cacheSize) ;
+        this.dictionary = null ;
+    }
+
+    /** Use a {@link TermDictionary}, which may be shared, in place of a cache for this factory. */
+    public FactoryRDFCaching(TermDictionary dictionary, LabelToNode labelMapping) {
+        super(labelMapping) ;
+        this.cacheSize = -1;
+        this.cache = null ;
+        this.dictionary = dictionary ;
     }
 
     private Cache<String, Node> setCache(int cacheSize) {
@@ -52,6 +68,8 @@ public class FactoryRDFCaching extends FactoryRDFStd {
 
     @Override
     public Node createURI(String uriStr) {
+        if ( dictionary != null )
+            return dictionary.createURI(uriStr);
         return cache.get(uriStr, RiotLib::createIRIorBNode);
     }
 
@@ -74,17 +92,35 @@ public class FactoryRDFCaching extends FactoryRDFStd {
             }
             // fallthrough.
         }
+        if ( dictionary != null )
+            return dictionary.createTypedLiteral(lexical, datatype);
         return super.createTypedLiteral(lexical, datatype) ;
     }
 
+    @Override
+    public Node createLangLiteral(String lexical, String langTag) {
+        if ( dictionary != null )
+            return dictionary.createLangLiteral(lexical, langTag);
+        return super.createLangLiteral(lexical, langTag) ;
+    }
+
     @Override
     public Node createStringLiteral(String lexical) {
         if ( lexical.isEmpty() )
             return NodeConst.emptyString ;
+        if ( dictionary != null )
+            return dictionary.createStringLiteral(lexical);
         return super.createStringLiteral(lexical) ;
     }
 
     public CacheInfo stats() {
+        if ( dictionary != null )
+            return dictionary.stats();
         return cache.stats();
     }
+
+    /** The {@link TermDictionary} in use, or null. */
+    public TermDictionary getTermDictionary() {
+        return dictionary;
+    }
 }
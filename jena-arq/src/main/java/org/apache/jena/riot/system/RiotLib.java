@@ -205,6 +205,14 @@ public class RiotLib {
         return new FactoryRDFCaching(FactoryRDFCaching.DftNodeCacheSize, labelMapping);
     }
 
+    /**
+     * Create a new {@code FactoryRDF} using the label to blank node scheme provided
+     * and a {@link TermDictionary}, which may be shared with other {@code FactoryRDF}s.
+     */
+    public static FactoryRDF factoryRDF(TermDictionary dictionary, LabelToNode labelMapping) {
+        return new FactoryRDFCaching(dictionary, labelMapping);
+    }
+
     /**
      * Create a new (not influenced by anything else) {@code FactoryRDF}
      * using the default label to blank node scheme.
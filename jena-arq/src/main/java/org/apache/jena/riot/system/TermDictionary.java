@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.jena.atlas.lib.cache.CacheInfo;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+/**
+ * A bounded dictionary of {@link Node Nodes} for IRIs and short literals that can be
+ * shared between parsers running at the same time, including those of a parallel
+ * parse and of the TDB2 bulk loaders.
+ * <p>
+ * Repeated terms, such as predicates, classes and datatypes, become the same Node
+ * object. This saves allocating them again and makes later lookups by Node, such
+ * as in a node table cache, cheaper.
+ * <p>
+ * The dictionary is a fixed size table, one for IRIs and one for literals, using
+ * the hash code of the term to find a slot. On a clash, the new entry replaces the
+ * old one. Lookups do not lock and do not allocate.
+ * <p>
+ * {@link #stats()} gives the number of lookups and the hit rate.
+ *
+ * @see FactoryRDFCaching
+ */
+public class TermDictionary {
+    /** Default number of slots for IRIs, and for literals. */
+    public static final int DftSize = 64 * 1024;
+    /** Literals with a longer lexical form are not put in the dictionary. */
+    public static final int MaxLiteralLength = 40;
+
+    // The term, a language tag or datatype for literals, and the node.
+    private record Entry(String string, Object qualifier, Node node) {}
+
+    private final AtomicReferenceArray<Entry> iris;
+    private final AtomicReferenceArray<Entry> literals;
+    private final int mask;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public TermDictionary() {
+        this(DftSize);
+    }
+
+    /** Create a dictionary; the size is rounded up to a power of two. */
+    public TermDictionary(int size) {
+        if ( size <= 0 )
+            throw new IllegalArgumentException("Size must be positive: "+size);
+        int n = Integer.highestOneBit(size);
+        if ( n < size )
+            n = n << 1;
+        this.iris = new AtomicReferenceArray<>(n);
+        this.literals = new AtomicReferenceArray<>(n);
+        this.mask = n - 1;
+    }
+
+    /** The node for an IRI. */
+    public Node createURI(String uriStr) {
+        int idx = slot(uriStr.hashCode());
+        Node node = find(iris, idx, uriStr, null);
+        if ( node == null ) {
+            node = RiotLib.createIRIorBNode(uriStr);
+            iris.set(idx, new Entry(uriStr, null, node));
+        }
+        return node;
+    }
+
+    /** The node for a literal with a datatype. */
+    public Node createTypedLiteral(String lexical, RDFDatatype datatype) {
+        if ( lexical.length() > MaxLiteralLength )
+            return NodeFactory.createLiteral(lexical, datatype);
+        int idx = slot(31 * lexical.hashCode() + datatype.getURI().hashCode());
+        Node node = find(literals, idx, lexical, datatype);
+        if ( node == null ) {
+            node = NodeFactory.createLiteral(lexical, datatype);
+            literals.set(idx, new Entry(lexical, datatype, node));
+        }
+        return node;
+    }
+
+    /** The node for a literal with a language tag. */
+    public Node createLangLiteral(String lexical, String langTag) {
+        if ( lexical.length() > MaxLiteralLength )
+            return NodeFactory.createLiteralLang(lexical, langTag);
+        int idx = slot(31 * lexical.hashCode() + langTag.hashCode());
+        Node node = find(literals, idx, lexical, langTag);
+        if ( node == null ) {
+            node = NodeFactory.createLiteralLang(lexical, langTag);
+            literals.set(idx, new Entry(lexical, langTag, node));
+        }
+        return node;
+    }
+
+    /** The node for a string literal. */
+    public Node createStringLiteral(String lexical) {
+        if ( lexical.length() > MaxLiteralLength )
+            return NodeFactory.createLiteralString(lexical);
+        // Same entry as the typed literal with datatype xsd:string.
+        RDFDatatype datatype = XSDDatatype.XSDstring;
+        int idx = slot(31 * lexical.hashCode() + datatype.getURI().hashCode());
+        Node node = find(literals, idx, lexical, datatype);
+        if ( node == null ) {
+            node = NodeFactory.createLiteralString(lexical);
+            literals.set(idx, new Entry(lexical, datatype, node));
+        }
+        return node;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    // The node in the slot if it is for the string and qualifier, else null.
+    private Node find(AtomicReferenceArray<Entry> table, int idx, String string, Object qualifier) {
+        requests.increment();
+        Entry e = table.get(idx);
+        if ( e != null && e.string.equals(string) && sameQualifier(e.qualifier, qualifier) ) {
+            hits.increment();
+            return e.node;
+        }
+        return null;
+    }
+
+    private static boolean sameQualifier(Object q1, Object q2) {
+        if ( q1 == q2 )
+            return true;
+        if ( q1 == null || q2 == null )
+            return false;
+        return q1.equals(q2);
+    }
+
+    /** Lookup statistics. */
+    public CacheInfo stats() {
+        long r = requests.sum();
+        long h = hits.sum();
+        double rate = ( r == 0 ) ? 1.0 : (double)h / r;
+        return new CacheInfo(r, h, r - h, rate);
+    }
+
+    /** Remove all entries. The statistics are not reset. */
+    public void clear() {
+        for ( int i = 0 ; i <= mask ; i++ ) {
+            iris.set(i, null);
+            literals.set(i, null);
+        }
+    }
+}
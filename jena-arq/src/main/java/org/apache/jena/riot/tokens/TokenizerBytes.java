@@ -0,0 +1,618 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.tokens;
+
+import static org.apache.jena.atlas.lib.Chars.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.system.ErrorHandler;
+import org.apache.jena.riot.system.RiotChars;
+
+/**
+ * Tokenizer for N-Triples and N-Quads that works on the UTF-8 bytes in a
+ * {@link ByteBuffer}, such as a memory mapped file.
+ * <p>
+ * The structure of the input is found from the bytes. UTF-8 is only decoded to
+ * create the strings of IRIs, literals and blank node labels, and, when there are
+ * no escapes, it is decoded from the bytes in one step. IRIs and language tags
+ * are looked up in a table of recently seen strings, by their bytes, so
+ * repeated IRIs, such as predicates and datatypes, do not create new strings.
+ * <p>
+ * The tokens are those of {@link TokenizerText} for N-Triples and N-Quads
+ * including {@code <<} and {@code >>} for triple terms. Other characters are
+ * errors. Columns in error messages are counted in bytes.
+ * <p>
+ * The {@code ByteBuffer} is read from its position to its limit and is not
+ * changed.
+ */
+public final class TokenizerBytes implements Tokenizer
+{
+    // Size of the table of IRI and language tag strings. A power of two.
+    private static final int InternTableSize = 1024;
+
+    private final ByteBuffer bytes;
+    private final int end;
+    private final ErrorHandler errorHandler;
+
+    // Current position, line number and the position of the start of the line.
+    private int pos;
+    private long line = 1;
+    private int lineStart;
+
+    private final StringBuilder stringBuilder = new StringBuilder(200);
+    private byte[] scratch = new byte[200];
+    // Direct mapped table: the bytes of an IRI and the string for it.
+    private final byte[][] internBytes = new byte[InternTableSize][];
+    private final String[] internStrings = new String[InternTableSize];
+
+    // Length of the UTF-8 sequence of the last call of decode.
+    private int decodeLength;
+
+    private Token token = null;
+    private boolean finished = false;
+
+    public static Tokenizer create(ByteBuffer bytes, ErrorHandler errorHandler) {
+        return new TokenizerBytes(bytes, errorHandler);
+    }
+
+    private TokenizerBytes(ByteBuffer bytes, ErrorHandler errorHandler) {
+        this.bytes = Objects.requireNonNull(bytes, "ByteBuffer");
+        this.errorHandler = Objects.requireNonNull(errorHandler, "ErrorHandler");
+        this.pos = bytes.position();
+        this.end = bytes.limit();
+        this.lineStart = pos;
+        // Skip a byte order mark.
+        if ( end - pos >= 3 && byteAt(pos) == 0xEF && byteAt(pos+1) == 0xBB && byteAt(pos+2) == 0xBF ) {
+            pos += 3;
+            lineStart = pos;
+        }
+    }
+
+    @Override
+    public final boolean hasNext() {
+        if ( finished )
+            return false;
+        if ( token != null )
+            return true;
+        skip();
+        if ( pos >= end ) {
+            finished = true;
+            return false;
+        }
+        token = parseToken();
+        return true;
+    }
+
+    @Override
+    public final boolean eof() {
+        return !hasNext();
+    }
+
+    @Override
+    public final Token next() {
+        if ( !hasNext() )
+            throw new NoSuchElementException();
+        Token t = token;
+        token = null;
+        return t;
+    }
+
+    @Override
+    public final Token peek() {
+        if ( !hasNext() )
+            return null;
+        return token;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public long getLine() {
+        return line;
+    }
+
+    @Override
+    public long getColumn() {
+        return pos - lineStart + 1;
+    }
+
+    // ---- Machinery
+
+    private int byteAt(int idx) {
+        return bytes.get(idx) & 0xFF;
+    }
+
+    // Next byte or EOF.
+    private int peekByte() {
+        return ( pos < end ) ? byteAt(pos) : EOF;
+    }
+
+    // Whitespace, newlines and comments.
+    private void skip() {
+        while ( pos < end ) {
+            int b = byteAt(pos);
+            if ( b == ' ' || b == '\t' || b == '\r' ) {
+                pos++;
+            } else if ( b == '\n' ) {
+                pos++;
+                line++;
+                lineStart = pos;
+            } else if ( b == '#' ) {
+                // Comment. Skip to NL
+                while ( pos < end && byteAt(pos) != '\n' )
+                    pos++;
+            } else
+                return;
+        }
+    }
+
+    private Token parseToken() {
+        Token token = new Token(getLine(), getColumn());
+        int b = byteAt(pos);
+        switch (b) {
+            case '<':
+                pos++;
+                if ( peekByte() == '<' ) {
+                    pos++;
+                    return token.setType(TokenType.LT2);
+                }
+                return token.setType(TokenType.IRI).setImage(readIRI());
+            case '>':
+                pos++;
+                if ( peekByte() == '>' ) {
+                    pos++;
+                    return token.setType(TokenType.GT2);
+                }
+                return token.setType(TokenType.GT);
+            case '"': case '\'':
+                return readLiteral(token, b);
+            case '_':
+                pos++;
+                if ( peekByte() == ':' ) {
+                    pos++;
+                    return token.setType(TokenType.BNODE).setImage(readBlankNodeLabel());
+                }
+                return token.setType(TokenType.UNDERSCORE);
+            case '.':
+                pos++;
+                return token.setType(TokenType.DOT);
+        }
+        int ch = decode(pos);
+        fatal("Unexpected character in N-Triples or N-Quads: '%s' (U+%04X)", Character.toString(ch), ch);
+        return null;
+    }
+
+    // [8]  IRIREF  ::= '<' ([^#x00-#x20<>"{}|^`\] | UCHAR)* '>'
+    private String readIRI() {
+        // Common case: ASCII, no escapes, no characters to warn about.
+        int start = pos;
+        int hash = 0;
+        for ( int p = start ; p < end ; p++ ) {
+            int b = byteAt(p);
+            if ( b == '>' ) {
+                String str = intern(start, p, hash);
+                pos = p+1;
+                return str;
+            }
+            if ( b <= 0x20 || b >= 0x80 ) break;
+            switch (b) {
+                case '<': case '\\': case '"': case '{': case '}': case '|': case '^': case '`':
+                    return readIRISlow();
+            }
+            hash = 31*hash + b;
+        }
+        return readIRISlow();
+    }
+
+    // As TokenizerText.
+    private String readIRISlow() {
+        stringBuilder.setLength(0);
+        for (;;) {
+            if ( pos >= end )
+                fatal("Broken IRI (End of file)");
+            int ch = decode(pos);
+            pos += decodeLength;
+            switch(ch) {
+                case NL:
+                    fatal("Broken IRI (newline): %s", stringBuilder.toString()); return null;
+                case CR:
+                    fatal("Broken IRI (CR): %s", stringBuilder.toString()); return null;
+                case CH_GT:
+                    return stringBuilder.toString();
+                case CH_RSLASH:
+                    ch = readUnicodeEscape();
+                    break;
+                case CH_LT:
+                    fatal("Bad character in IRI (bad character: '<'): <%s[<]...>", stringBuilder.toString()); return null;
+                case TAB:
+                    error("Bad character in IRI (tab character): <%s[tab]...>", stringBuilder.toString()); break;
+                case '{': case '}': case '"': case '|': case '^': case '`' :
+                    warning("Illegal character in IRI (codepoint 0x%02X, '%c'): <%s[%c]...>", ch, (char)ch, stringBuilder.toString(), (char)ch);
+                    break;
+                case SPC:
+                    error("Bad character in IRI (space): <%s[space]...>", stringBuilder.toString());
+                    break;
+                default:
+                    if ( ch <= 0x19 )
+                        warning("Illegal character in IRI (control char 0x%02X): <%s[0x%02X]...>", ch, stringBuilder.toString(), ch);
+            }
+            if ( ch >= 0xA0 && ! TokenizerText.isUcsChar(ch) )
+                warning("Illegal character in IRI (Not a ucschar: 0x%04X): <%s[U+%04X]...>", ch, stringBuilder.toString(), ch);
+            insertCodepoint(stringBuilder, ch);
+        }
+    }
+
+    // Looking at the quote character.
+    private Token readLiteral(Token token, int quote) {
+        pos++;
+        token.setType(TokenType.STRING);
+        token.setStringType(quote == CH_QUOTE1 ? StringType.STRING1 : StringType.STRING2);
+        if ( peekByte() == quote ) {
+            pos++;
+            if ( peekByte() == quote )
+                fatal("Triple quoted string not permitted");
+            token.setImage("");
+        } else
+            token.setImage(readString(quote));
+
+        // White space after lexical part of a literal.
+        skip();
+
+        int b = peekByte();
+        if ( b == '@' ) {
+            pos++;
+            Token mainToken = new Token(token);
+            mainToken.setType(TokenType.LITERAL_LANG);
+            mainToken.setSubToken1(token);
+            mainToken.setImage2(langTag());
+            return mainToken;
+        }
+        if ( b == '^' ) {
+            pos++;
+            if ( peekByte() != '^' )
+                fatal("expected \"^^\"");
+            pos++;
+            skip();
+            Token mainToken = new Token(token);
+            mainToken.setSubToken1(token);
+            mainToken.setImage(token.getImage());
+            Token subToken = new Token(getLine(), getColumn());
+            if ( peekByte() != '<' )
+                fatal("Datatype URI required after ^^ - URI expected");
+            pos++;
+            if ( peekByte() == '<' )
+                fatal("Datatype URI required after ^^ - URI expected");
+            subToken.setType(TokenType.IRI).setImage(readIRI());
+            mainToken.setSubToken2(subToken);
+            mainToken.setType(TokenType.LITERAL_DT);
+            return mainToken;
+        }
+        return token;
+    }
+
+    // After the opening quote. Reads the closing quote.
+    private String readString(int quote) {
+        // Common case: no escapes.
+        // The UTF-8 is checked and decoded, in one step, when there are no escapes.
+        int start = pos;
+        boolean ascii = true;
+        int p = start;
+        while ( p < end ) {
+            int b = byteAt(p);
+            if ( b == quote ) {
+                pos = p+1;
+                return string(start, p, ascii);
+            }
+            if ( b == '\\' || b == '\n' )
+                break;
+            if ( b >= 0x80 ) {
+                ascii = false;
+                int ch = decode(p);
+                if ( ch == NotACharacter || ch == ReverseOrderBOM ) {
+                    pos = p;
+                    warning("Unicode non-character U+%4X in string", ch);
+                }
+                p += decodeLength;
+            } else
+                p++;
+        }
+        return readStringSlow(start, quote);
+    }
+
+    // As TokenizerText.
+    private String readStringSlow(int start, int quote) {
+        pos = start;
+        stringBuilder.setLength(0);
+        for (;;) {
+            if ( pos >= end )
+                fatal("Broken token: %s", stringBuilder.toString());
+            int ch = decode(pos);
+            pos += decodeLength;
+            if ( ch == NotACharacter || ch == ReverseOrderBOM )
+                warning("Unicode non-character U+%4X in string", ch);
+            if ( ch == NL )
+                fatal("Broken token (newline): %s", stringBuilder.toString());
+            else if ( ch == quote )
+                return stringBuilder.toString();
+            else if ( ch == CH_RSLASH )
+                ch = readLiteralEscape();
+            insertCodepoint(stringBuilder, ch);
+        }
+    }
+
+    // BLANK_NODE_LABEL    ::=     '_:' (PN_CHARS_U | [0-9]) ((PN_CHARS | '.')* PN_CHARS)?
+    private String readBlankNodeLabel() {
+        if ( pos >= end )
+            fatal("Blank node label missing (EOF found)");
+        int start = pos;
+        int ch = decode(pos);
+        if ( RiotChars.isWhitespace(ch) )
+            fatal("Blank node label missing");
+        if ( !RiotChars.isPNChars_U_N(ch) )
+            fatal("Blank node label does not start with alphabetic or _ : '%c'", (char)ch);
+        if ( ch == REPLACEMENT )
+            warning("Unicode replacement character U+FFFD in blank node label");
+        boolean ascii = ( decodeLength == 1 );
+        int p = pos + decodeLength;
+        // End of the label so far, not including any dots.
+        int labelEnd = p;
+        while ( p < end ) {
+            ch = decode(p);
+            if ( ch == CH_DOT ) {
+                p++;
+                continue;
+            }
+            if ( !RiotChars.isPNChars(ch) )
+                break;
+            if ( ch == REPLACEMENT ) {
+                pos = p;
+                warning("Unicode replacement character U+FFFD in blank node label");
+            }
+            if ( decodeLength > 1 )
+                ascii = false;
+            p += decodeLength;
+            labelEnd = p;
+        }
+        // DOT can't be last.
+        pos = labelEnd;
+        return string(start, labelEnd, ascii);
+    }
+
+    // LANGTAG ::= '@' [a-zA-Z]+ ('-' [a-zA-Z0-9]+)*
+    private String langTag() {
+        int start = pos;
+        int hash = 0;
+        int p = a2z(pos, false);
+        if ( p == pos )
+            fatal("Bad language tag");
+        for (;;) {
+            if ( p >= end || byteAt(p) != '-' )
+                break;
+            int p2 = a2z(p+1, true);
+            if ( p2 == p+1 ) {
+                pos = p2;
+                fatal("Bad language tag");
+            }
+            p = p2;
+        }
+        for ( int i = start ; i < p ; i++ )
+            hash = 31*hash + byteAt(i);
+        pos = p;
+        return intern(start, p, hash);
+    }
+
+    private int a2z(int p, boolean digits) {
+        while ( p < end ) {
+            int b = byteAt(p);
+            if ( digits ? RiotChars.isA2ZN(b) : RiotChars.isA2Z(b) )
+                p++;
+            else
+                break;
+        }
+        return p;
+    }
+
+    // ---- Strings from bytes
+
+    /** The string for the ASCII bytes from start to finish (exclusive), using the table of recent strings. */
+    private String intern(int start, int finish, int hash) {
+        int len = finish - start;
+        int idx = (hash ^ (hash >>> 16)) & (InternTableSize-1);
+        byte[] key = internBytes[idx];
+        if ( key != null && key.length == len && sameBytes(key, start) )
+            return internStrings[idx];
+        key = new byte[len];
+        bytes.get(start, key);
+        String str = new String(key, StandardCharsets.ISO_8859_1);
+        internBytes[idx] = key;
+        internStrings[idx] = str;
+        return str;
+    }
+
+    private boolean sameBytes(byte[] key, int start) {
+        for ( int i = 0 ; i < key.length ; i++ ) {
+            if ( key[i] != bytes.get(start+i) )
+                return false;
+        }
+        return true;
+    }
+
+    /** The string for the (checked) UTF-8 bytes from start to finish (exclusive). */
+    private String string(int start, int finish, boolean ascii) {
+        int len = finish - start;
+        if ( len == 0 )
+            return "";
+        if ( bytes.hasArray() ) {
+            int offset = bytes.arrayOffset() + start;
+            return new String(bytes.array(), offset, len, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+        if ( scratch.length < len )
+            scratch = new byte[Math.max(len, 2*scratch.length)];
+        bytes.get(start, scratch, 0, len);
+        return new String(scratch, 0, len, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode the UTF-8 character at position p, setting {@link #decodeLength}.
+     * Malformed UTF-8 is an error.
+     */
+    private int decode(int p) {
+        int b0 = byteAt(p);
+        if ( b0 < 0x80 ) {
+            decodeLength = 1;
+            return b0;
+        }
+        int len;
+        int ch;
+        int min;
+        if ( b0 >= 0xC2 && b0 <= 0xDF ) {
+            len = 2; ch = b0 & 0x1F; min = 0x80;
+        } else if ( b0 >= 0xE0 && b0 <= 0xEF ) {
+            len = 3; ch = b0 & 0x0F; min = 0x800;
+        } else if ( b0 >= 0xF0 && b0 <= 0xF4 ) {
+            len = 4; ch = b0 & 0x07; min = 0x10000;
+        } else {
+            badEncoding(p);
+            return -1;
+        }
+        if ( p + len > end )
+            badEncoding(p);
+        for ( int i = 1 ; i < len ; i++ ) {
+            int b = byteAt(p+i);
+            if ( (b & 0xC0) != 0x80 )
+                badEncoding(p);
+            ch = (ch << 6) | (b & 0x3F);
+        }
+        // Overlong forms, surrogates and beyond the Unicode range.
+        if ( ch < min || ch > Character.MAX_CODE_POINT || (ch >= 0xD800 && ch <= 0xDFFF) )
+            badEncoding(p);
+        decodeLength = len;
+        return ch;
+    }
+
+    private void badEncoding(int p) {
+        pos = p;
+        fatal("Bad character encoding");
+    }
+
+    private void insertCodepoint(StringBuilder buffer, int ch) {
+        if ( Character.charCount(ch) == 1 )
+            buffer.append((char)ch);
+        else {
+            if ( !Character.isDefined(ch) && !Character.isSupplementaryCodePoint(ch) )
+                fatal("Illegal codepoint: 0x%04X", ch);
+            buffer.appendCodePoint(ch);
+        }
+    }
+
+    // ---- Escape sequences
+
+    private int readByte() {
+        if ( pos >= end )
+            return EOF;
+        return byteAt(pos++);
+    }
+
+    // Read a unicode escape : does not allow \\ bypass
+    private int readUnicodeEscape() {
+        int ch = readByte();
+        if ( ch == EOF )
+            fatal("Broken escape sequence");
+        switch (ch) {
+            case 'u': return readHexSequence(4);
+            case 'U': return readUnicode8Escape();
+            default:
+                fatal("Illegal unicode escape sequence value: \\%c (0x%02X)", ch, ch);
+        }
+        return 0;
+    }
+
+    private int readLiteralEscape() {
+        int c = readByte();
+        if ( c == EOF )
+            fatal("Escape sequence not completed");
+        switch (c) {
+            case 'n':   return NL;
+            case 'r':   return CR;
+            case 't':   return TAB;
+            case 'f':   return '\f';
+            case 'b':   return BSPACE;
+            case '"':   return '"';
+            case '\'':  return '\'';
+            case '\\':  return '\\';
+            case 'u':   return readHexSequence(4);
+            case 'U':   return readUnicode8Escape();
+            default:
+                fatal("Illegal escape sequence value: %c (0x%02X)", c, c);
+                return 0;
+        }
+    }
+
+    private int readUnicode8Escape() {
+        int ch8 = readHexSequence(8);
+        if ( ch8 > Character.MAX_CODE_POINT )
+            fatal("Illegal code point in \\U sequence value: 0x%08X", ch8);
+        return ch8;
+    }
+
+    private int readHexSequence(int N) {
+        int x = 0;
+        for (int i = 0; i < N; i++) {
+            int ch = readByte();
+            if ( ch == EOF )
+                fatal("Not a hexadecimal character (end of file)");
+            int d = RiotChars.valHexChar(ch);
+            if ( d < 0 )
+                fatal("Not a hexadecimal character: '%c'", (char)ch);
+            x = (x << 4) + d;
+        }
+        return x;
+    }
+
+    // ---- Errors
+
+    /** Warning - can continue. */
+    private void warning(String message, Object... args) {
+        String msg = String.format(message, args);
+        errorHandler.warning(msg, getLine(), getColumn());
+    }
+
+    /** Error - the caller probably should treat as an error and stop. */
+    private void error(String message, Object... args) {
+        String msg = String.format(message, args);
+        errorHandler.error(msg, getLine(), getColumn());
+    }
+
+    /** Structural error - unrecoverable. */
+    private void fatal(String message, Object... args) {
+        String msg = String.format(message, args);
+        long line = getLine();
+        long col = getColumn();
+        errorHandler.fatal(msg, line, col);
+        // We require that errors cause the tokenizer to stop so in case the
+        // provided error handler does not, we throw an exception.
+        throw new RiotParseException(msg, line, col);
+    }
+}
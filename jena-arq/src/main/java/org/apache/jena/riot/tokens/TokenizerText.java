@@ -558,7 +558,7 @@ public final class TokenizerText implements Tokenizer
         }
     }
 
-    private static boolean isUcsChar(int ch) {
+    /*package*/ static boolean isUcsChar(int ch) {
         // RFC 3987
         // ucschar    = %xA0-D7FF / %xF900-FDCF / %xFDF0-FFEF
         //            / %x10000-1FFFD / %x20000-2FFFD / %x30000-3FFFD
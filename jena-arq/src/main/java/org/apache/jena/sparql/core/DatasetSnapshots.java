@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.core;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.apache.jena.atlas.lib.Pair;
+import org.apache.jena.sparql.core.mem.DatasetGraphInMemory;
+
+/**
+ * Identify the data seen by the transaction of the calling thread, so that another
+ * thread can check whether its own read transaction sees the same data.
+ * <p>
+ * Storage implementations register a function that returns an object identifying the
+ * version of the data for the transaction of the calling thread, or null if it does
+ * not apply. Two transactions see the same data if these objects are equal.
+ */
+public class DatasetSnapshots {
+    private static final List<Function<DatasetGraph, Object>> providers = new CopyOnWriteArrayList<>();
+
+    static {
+        register(DatasetSnapshots::snapshotInMemory);
+    }
+
+    /** Register a function that identifies the data seen by the transaction of the calling thread. */
+    public static void register(Function<DatasetGraph, Object> provider) {
+        providers.add(provider);
+    }
+
+    /**
+     * Return an object identifying the data seen by the transaction of the calling
+     * thread, or null if this is not known.
+     */
+    public static Object snapshot(DatasetGraph dsg) {
+        for ( Function<DatasetGraph, Object> provider : providers ) {
+            Object x = provider.apply(dsg);
+            if ( x != null )
+                return x;
+        }
+        return null;
+    }
+
+    private static Object snapshotInMemory(DatasetGraph dsg) {
+        DatasetGraph dsgw = dsg;
+        while ( dsgw instanceof DatasetGraphWrapper wrapper )
+            dsgw = wrapper.getWrapped();
+        if ( ! ( dsgw instanceof DatasetGraphInMemory dsgim ) )
+            return null;
+        long generation = dsgim.getTransactionGeneration();
+        if ( generation < 0 )
+            return null;
+        return Pair.create(dsgim, generation);
+    }
+}
@@ -143,6 +143,22 @@ public class DatasetGraphInMemory extends DatasetGraphTriplesQuads implements Tr
     @Override
     public boolean supportsTransactionAbort()   { return true; }
 
+    /**
+     * The dataset version: the number of write transactions committed.
+     * This changes whenever the data visible to a new transaction changes.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * The dataset version seen by the transaction of the calling thread,
+     * or -1 if the thread is not in a transaction.
+     */
+    public long getTransactionGeneration() {
+        return isInTransaction() ? version.get() : -1;
+    }
+
     @Override
     public void begin(TxnType txnType) {
         if (isInTransaction())
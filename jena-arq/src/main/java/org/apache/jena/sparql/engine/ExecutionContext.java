@@ -66,6 +66,14 @@ public class ExecutionContext implements FunctionEnv
         this.activeGraph = activeGraph;
     }
 
+    /**
+     * Clone, with separate iterator tracking, for execution in another thread.
+     * The cancel signal is shared.
+     */
+    public static ExecutionContext fork(ExecutionContext other) {
+        return new ExecutionContext(other.context, other.activeGraph, other.dataset, other.executor, other.cancelSignal);
+    }
+
     /** Setup with defaults of global settings */
     public ExecutionContext(DatasetGraph dataset) {
         this(dataset, QC.getFactory(ARQ.getContext()));
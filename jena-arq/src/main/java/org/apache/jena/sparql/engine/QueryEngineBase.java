@@ -115,12 +115,18 @@ public abstract class QueryEngineBase implements OpEval, Closeable
         // Decide the algebra to actually execute.
         Op op = queryOp;
         if ( !startBinding.isEmpty() ) {
+            if ( QueryPlanCache.isEnabled(context) )
+                // The query, and so its expressions, may be shared through the cache.
+                op = QueryPlanCache.copy(op);
             op = Substitute.substitute(op, startBinding);
             context.put(ARQConstants.sysCurrentAlgebra, op);
             // Don't reset the startBinding because it also is
             // needed in the output.
-        }
-        op = modifyOp(op);
+            op = modifyOp(op);
+        } else if ( QueryPlanCache.isEnabled(context) )
+            op = cachedModifyOp(op);
+        else
+            op = modifyOp(op);
 
         QueryIterator queryIterator = null;
         if ( dataset != null )
@@ -136,6 +142,30 @@ public abstract class QueryEngineBase implements OpEval, Closeable
     protected Op modifyOp(Op op)
     { return op; }
 
+    /**
+     * Whether the result of {@link #modifyOp} can be kept in the {@link QueryPlanCache}
+     * and used, instead of calling {@link #modifyOp}, for another execution of the
+     * same query object on the same dataset with the same optimizer settings. This
+     * requires that {@link #modifyOp} depends on nothing else, and that it has no
+     * effects other than, possibly, recording the plan with {@link #setOp}.
+     */
+    protected boolean isPlanCacheable()
+    { return false; }
+
+    /** {@link #modifyOp}, using the {@link QueryPlanCache}. */
+    private Op cachedModifyOp(Op op) {
+        if ( query == null )
+            return modifyOp(op);
+        // Datasets built from FROM/FROM NAMED are new each time.
+        // The query, and so its expressions, may be shared through the cache.
+        if ( dataset == null || isDynamicDataset() || ! isPlanCacheable() )
+            return modifyOp(QueryPlanCache.copy(op));
+        Op modified = QueryPlanCache.get().plan(query, getClass(), dataset, context, ()->modifyOp(op));
+        // The plan may come from the cache without a call of modifyOp.
+        setOp(modified);
+        return modified;
+    }
+
     protected Op createOp(Query query) {
         Op op = Algebra.compile(query) ;
         return op ;
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.jena.atlas.lib.Cache;
+import org.apache.jena.atlas.lib.CacheFactory;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.Syntax;
+import org.apache.jena.sparql.ARQConstants;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.TransformCopy;
+import org.apache.jena.sparql.algebra.Transformer;
+import org.apache.jena.sparql.algebra.optimize.Optimize;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.expr.ExprTransformCopy;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.sparql.util.Symbol;
+
+/**
+ * A bounded, shared cache of parsed queries and of the optimized algebra of queries.
+ * <p>
+ * Applications that run the same query strings many times, such as a server handling
+ * requests from a few query templates, can avoid parsing and optimizing each time.
+ * The cache is used when {@link ARQ#queryPlanCache} is true in the context.
+ * <ul>
+ * <li>Parsed queries are keyed on the query string, base URI and syntax.
+ * The same {@link Query} object is returned for the same key so it must not be
+ * modified.</li>
+ * <li>Optimized algebra is keyed on the {@link Query} object (so only queries from
+ * the parse cache are found again), the query engine, the dataset, and the settings in
+ * the context that control the optimizer. The query and the dataset are weakly
+ * referenced so the cache does not keep them alive; entries for a dataset or query that
+ * has gone are not found again and are evicted as the cache fills.</li>
+ * </ul>
+ * Expressions bind their implementation on first use (e.g. {@code E_Function}) so
+ * algebra is not shared between executions: the cache keeps its own copy and
+ * {@link #plan} returns a new copy each time.
+ * Hit and miss counts are kept for monitoring.
+ */
+public class QueryPlanCache {
+    /** Default maximum number of entries in each of the caches. */
+    public static final int DefaultSize = 1000;
+
+    private static final QueryPlanCache systemCache = new QueryPlanCache(DefaultSize);
+
+    /** The system-wide cache. */
+    public static QueryPlanCache get() {
+        return systemCache;
+    }
+
+    /** Whether the cache should be used for a query execution with this context. */
+    public static boolean isEnabled(Context context) {
+        return context != null && context.isTrue(ARQ.queryPlanCache);
+    }
+
+    private record QueryKey(String queryString, String baseURI, Syntax syntax) {}
+
+    // The Query and the DatasetGraph compare by identity.
+    private record PlanKey(WeakKey query, Class<?> engineClass, WeakKey dataset, List<Object> settings) {}
+
+    /** Identity of an object, without keeping the object alive. */
+    private static final class WeakKey {
+        private final WeakReference<Object> ref;
+        private final int hash;
+
+        WeakKey(Object object) {
+            this.ref = new WeakReference<>(object);
+            this.hash = System.identityHashCode(object);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if ( this == other )
+                return true;
+            if ( !(other instanceof WeakKey key) )
+                return false;
+            Object object = ref.get();
+            return object != null && object == key.ref.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final Cache<QueryKey, Query> queries;
+    private final Cache<PlanKey, Op> plans;
+
+    private final LongAdder queryHits = new LongAdder();
+    private final LongAdder queryMisses = new LongAdder();
+    private final LongAdder planHits = new LongAdder();
+    private final LongAdder planMisses = new LongAdder();
+
+    public QueryPlanCache(int maxSize) {
+        this.queries = CacheFactory.createCache(maxSize);
+        this.plans = CacheFactory.createCache(maxSize);
+    }
+
+    /** Parse a query string, or return the {@link Query} of an earlier parse of the same string. */
+    public Query parse(String queryString, String baseURI, Syntax syntax) {
+        Objects.requireNonNull(queryString);
+        if ( syntax == null )
+            syntax = Syntax.defaultQuerySyntax;
+        QueryKey key = new QueryKey(queryString, baseURI, syntax);
+        Query query = queries.getIfPresent(key);
+        if ( query != null ) {
+            queryHits.increment();
+            return query;
+        }
+        queryMisses.increment();
+        // Parse errors are not cached.
+        query = QueryFactory.create(queryString, baseURI, syntax);
+        // Set before the query is shared.
+        query.setResultVars();
+        queries.put(key, query);
+        return query;
+    }
+
+    /**
+     * Return the optimized algebra for a query, calling {@code optimizer} if it is not
+     * in the cache. The algebra returned is a copy for the caller's use only.
+     */
+    public Op plan(Query query, Class<?> engineClass, DatasetGraph dataset, Context context, Supplier<Op> optimizer) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(dataset);
+        PlanKey key = new PlanKey(new WeakKey(query), engineClass, new WeakKey(dataset), optimizerSettings(context));
+        Op op = plans.getIfPresent(key);
+        if ( op != null ) {
+            planHits.increment();
+            return copy(op);
+        }
+        planMisses.increment();
+        // The optimized algebra may share expressions with the query, which is
+        // itself shared, so it is kept in the cache and not evaluated.
+        op = optimizer.get();
+        plans.put(key, op);
+        return copy(op);
+    }
+
+    /** Copy algebra, including the expressions, so it can be evaluated without affecting the original. */
+    static Op copy(Op op) {
+        return Transformer.transform(new TransformCopy(TransformCopy.COPY_ALWAYS),
+                                     new ExprTransformCopy(ExprTransformCopy.COPY_ALWAYS), op);
+    }
+
+    // The context settings that may change the optimized algebra.
+    private static final Symbol[] optimizerSymbols = {
+        ARQ.optimization, ARQ.enablePropertyFunctions, ARQ.propertyFunctions,
+        ARQConstants.sysOptimizerFactory, ARQConstants.registryPropertyFunctions
+    };
+
+    private static List<Object> optimizerSettings(Context context) {
+        List<Object> settings = new ArrayList<>();
+        settings.add(Optimize.getFactory());
+        for ( Symbol symbol : optimizerSymbols )
+            settings.add(context.get(symbol));
+        // Optimizer controls: ARQ.optFilterPlacement, ARQ.optMergeBGPs, ...
+        List<Symbol> optSymbols = new ArrayList<>();
+        for ( Symbol symbol : context.keys() ) {
+            if ( symbol.getSymbol().startsWith(ARQ.arqParamNS+"opt") )
+                optSymbols.add(symbol);
+        }
+        optSymbols.sort(Comparator.comparing(Symbol::getSymbol));
+        for ( Symbol symbol : optSymbols ) {
+            settings.add(symbol);
+            settings.add(context.get(symbol));
+        }
+        return settings;
+    }
+
+    public long getQueryHits()      { return queryHits.sum(); }
+    public long getQueryMisses()    { return queryMisses.sum(); }
+    public long getPlanHits()       { return planHits.sum(); }
+    public long getPlanMisses()     { return planMisses.sum(); }
+
+    /** Number of parsed queries in the cache. */
+    public long getQueryCacheSize() { return queries.size(); }
+    /** Number of optimized algebra expressions in the cache. */
+    public long getPlanCacheSize()  { return plans.size(); }
+
+    /** Remove all entries. Counts are not reset. */
+    public void clear() {
+        queries.clear();
+        plans.clear();
+    }
+}
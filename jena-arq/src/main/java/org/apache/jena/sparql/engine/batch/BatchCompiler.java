@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.OpVars;
+import org.apache.jena.sparql.algebra.op.*;
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.main.OpExecutor;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderLib;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation;
+
+/**
+ * Execute an algebra expression as a pipeline of {@link BatchIterator BatchIterators}.
+ * <p>
+ * Basic graph patterns (matched directly against the active graph), filter, extend,
+ * project, slice, distinct, join and sequence are executed in batches. Any other
+ * operator is executed by the {@link OpExecutor}, with adapters between batches and
+ * {@link QueryIterator QueryIterators} either side of it.
+ * <p>
+ * This is used by {@link OpExecutor} for the whole query when {@link ARQ#batchExecution}
+ * is set and the general purpose stage generator is in use.
+ */
+public class BatchCompiler {
+    private static final ReorderTransformation reorderFixed = ReorderLib.fixed();
+
+    private final OpExecutor opExecutor;
+    private final ExecutionContext execCxt;
+
+    /** Whether an operator at the top of the algebra expression is executed in batches. */
+    public static boolean isBatchOp(Op op) {
+        return op instanceof OpBGP || op instanceof OpFilter || op instanceof OpExtend ||
+               op instanceof OpProject || op instanceof OpSlice || op instanceof OpDistinct ||
+               op instanceof OpJoin || op instanceof OpSequence;
+    }
+
+    /** Execute an algebra expression, starting from the join identity. */
+    public static QueryIterator execute(Op op, OpExecutor opExecutor, ExecutionContext execCxt) {
+        BatchCompiler compiler = new BatchCompiler(opExecutor, execCxt);
+        BatchIterator batches = compiler.compile(op, compiler.root(), true);
+        return new QueryIterBatch(batches, execCxt);
+    }
+
+    private BatchCompiler(OpExecutor opExecutor, ExecutionContext execCxt) {
+        this.opExecutor = opExecutor;
+        this.execCxt = execCxt;
+    }
+
+    // One batch of one row, no variables.
+    private BatchIterator root() {
+        return new BatchFromQueryIterator(OpExecutor.createRootQueryIterator(execCxt), List.of());
+    }
+
+    /**
+     * Compile an operator over an input. {@code isRoot} indicates the input is the
+     * join identity.
+     */
+    private BatchIterator compile(Op op, BatchIterator input, boolean isRoot) {
+        if ( op instanceof OpBGP opBGP )
+            return compileBGP(opBGP, input, isRoot);
+        if ( op instanceof OpFilter opFilter ) {
+            BatchIterator sub = compile(opFilter.getSubOp(), input, isRoot);
+            return new BatchFilter(sub, opFilter.getExprs(), execCxt);
+        }
+        if ( op instanceof OpExtend opExtend ) {
+            BatchIterator sub = compile(opExtend.getSubOp(), input, isRoot);
+            return new BatchExtend(sub, opExtend.getVarExprList(), execCxt);
+        }
+        if ( op instanceof OpProject opProject && isRoot ) {
+            // Nested projection over a non-root input needs to keep the input variables.
+            BatchIterator sub = compile(opProject.getSubOp(), input, isRoot);
+            return new BatchProject(sub, opProject.getVars());
+        }
+        if ( op instanceof OpSlice opSlice ) {
+            BatchIterator sub = compile(opSlice.getSubOp(), input, isRoot);
+            return new BatchSlice(sub, opSlice.getStart(), opSlice.getLength());
+        }
+        if ( op instanceof OpDistinct opDistinct && ! execCxt.getContext().isDefined(ARQ.spillToDiskThreshold) ) {
+            BatchIterator sub = compile(opDistinct.getSubOp(), input, isRoot);
+            return new BatchDistinct(sub);
+        }
+        if ( op instanceof OpJoin opJoin ) {
+            BatchIterator left = compile(opJoin.getLeft(), input, isRoot);
+            BatchIterator right = compile(opJoin.getRight(), root(), true);
+            return new BatchHashJoin(left, right);
+        }
+        if ( op instanceof OpSequence opSequence ) {
+            BatchIterator batches = input;
+            boolean root = isRoot;
+            for ( Op sub : opSequence.getElements() ) {
+                batches = compile(sub, batches, root);
+                root = false;
+            }
+            return batches;
+        }
+        if ( op instanceof OpTable opTable && opTable.isJoinIdentity() )
+            return input;
+        return fallback(op, input, isRoot);
+    }
+
+    private BatchIterator compileBGP(OpBGP opBGP, BatchIterator input, boolean isRoot) {
+        BasicPattern pattern = opBGP.getPattern();
+        if ( pattern.isEmpty() )
+            return input;
+        if ( execCxt.getContext().isTrue(ARQ.optAdaptiveBGP) )
+            return fallback(opBGP, input, isRoot);
+        for ( Triple triple : pattern ) {
+            if ( triple.getSubject().isNodeTriple() || triple.getPredicate().isNodeTriple() || triple.getObject().isNodeTriple() )
+                // Triple terms, which may have variables inside.
+                return fallback(opBGP, input, isRoot);
+        }
+        if ( pattern.size() >= 2 )
+            pattern = reorderFixed.reorder(pattern);
+        BatchIterator batches = input;
+        for ( Triple triple : pattern )
+            batches = new BatchMatchTriple(batches, execCxt.getActiveGraph(), triple);
+        return batches;
+    }
+
+    private BatchIterator fallback(Op op, BatchIterator input, boolean isRoot) {
+        QueryIterator qIter;
+        if ( isRoot ) {
+            // Let the executor see the join identity as a root.
+            input.close();
+            qIter = OpExecutor.createRootQueryIterator(execCxt);
+        } else {
+            qIter = new QueryIterBatch(input, execCxt);
+        }
+        qIter = opExecutor.executeOp(op, qIter);
+        Set<Var> vars = new LinkedHashSet<>(input.vars());
+        OpVars.visibleVars(op, vars);
+        return new BatchFromQueryIterator(qIter, new ArrayList<>(vars));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.*;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+
+/**
+ * Remove duplicate rows, keeping the first occurrence.
+ * Rows seen are held in memory.
+ * <p>
+ * As for {@link org.apache.jena.sparql.engine.iterator.QueryIterDistinct},
+ * unnamed and internal variables are hidden.
+ */
+public class BatchDistinct extends BatchIteratorBase {
+    private final BatchIterator input;
+    private final boolean hideVars;
+    private Set<List<Node>> seen = new HashSet<>();
+
+    public BatchDistinct(BatchIterator input) {
+        super(namedVars(input.vars()));
+        this.input = input;
+        this.hideVars = vars().size() != input.vars().size();
+    }
+
+    private static List<Var> namedVars(List<Var> inputVars) {
+        List<Var> vars = new ArrayList<>(inputVars.size());
+        for ( Var v : inputVars ) {
+            if ( v.isNamedVar() )
+                vars.add(v);
+        }
+        return vars;
+    }
+
+    @Override
+    protected BindingBatch moveToNextBatch() {
+        while ( input.hasNext() ) {
+            BindingBatch batch = input.next();
+            if ( hideVars )
+                batch = batch.project(vars());
+            BindingBatch out = null;
+            for ( int r = 0 ; r < batch.size() ; r++ ) {
+                boolean isNew = seen.add(Arrays.asList(batch.row(r)));
+                if ( out == null ) {
+                    if ( isNew )
+                        continue;
+                    // First duplicate - copy the rows so far.
+                    out = new BindingBatch(vars(), batch.size());
+                    for ( int i = 0 ; i < r ; i++ )
+                        out.addRow(batch, i);
+                    continue;
+                }
+                if ( isNew )
+                    out.addRow(batch, r);
+            }
+            if ( out == null )
+                return batch;
+            if ( !out.isEmpty() )
+                return out;
+        }
+        return null;
+    }
+
+    @Override
+    protected void closeIterator() {
+        seen = null;
+        input.close();
+    }
+
+    @Override
+    protected void requestCancel() {
+        input.cancel();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.core.VarExprList;
+import org.apache.jena.sparql.engine.ExecutionContext;
+
+/**
+ * Extend each row of the batches by assigning variables with expressions
+ * (the batch form of {@link org.apache.jena.sparql.engine.iterator.QueryIterAssign}).
+ * The assignments are evaluated in order, each seeing the ones before ("let*").
+ * <p>
+ * If no assigned variable is already a column of the input, the input columns are
+ * shared and only the new columns are filled in.
+ */
+public class BatchExtend extends BatchIteratorBase {
+    private final BatchIterator input;
+    private final VarExprList exprs;
+    private final ExecutionContext execCxt;
+    private final boolean onlyNewVars;
+    private final BatchRow binding = new BatchRow();
+
+    public BatchExtend(BatchIterator input, VarExprList exprs, ExecutionContext execCxt) {
+        super(outputVars(input.vars(), exprs));
+        this.input = input;
+        this.exprs = exprs;
+        this.execCxt = execCxt;
+        boolean b = true;
+        for ( Var v : exprs.getVars() ) {
+            if ( input.vars().contains(v) )
+                b = false;
+        }
+        this.onlyNewVars = b;
+    }
+
+    private static List<Var> outputVars(List<Var> inputVars, VarExprList exprs) {
+        List<Var> vars = new ArrayList<>(inputVars);
+        for ( Var v : exprs.getVars() ) {
+            if ( !vars.contains(v) )
+                vars.add(v);
+        }
+        return vars;
+    }
+
+    @Override
+    protected BindingBatch moveToNextBatch() {
+        while ( input.hasNext() ) {
+            BindingBatch batch = input.next();
+            BindingBatch out = onlyNewVars ? extendShared(batch) : extendCopy(batch);
+            if ( !out.isEmpty() )
+                return out;
+        }
+        return null;
+    }
+
+    // The assigned variables are new columns; rows are never dropped.
+    private BindingBatch extendShared(BindingBatch batch) {
+        BindingBatch out = batch.extend(vars());
+        for ( int r = 0 ; r < out.size() ; r++ ) {
+            binding.setRow(out, r);
+            for ( Var v : exprs.getVars() ) {
+                Node n = exprs.get(v, binding, execCxt);
+                if ( n != null )
+                    out.set(out.column(v), r, n);
+            }
+        }
+        return out;
+    }
+
+    private BindingBatch extendCopy(BindingBatch batch) {
+        BindingBatch out = new BindingBatch(vars(), batch.size());
+        for ( int i = 0 ; i < batch.size() ; i++ ) {
+            int r = out.addRow(batch, i);
+            if ( !assign(out, r) )
+                out.removeRow();
+        }
+        return out;
+    }
+
+    private boolean assign(BindingBatch out, int r) {
+        binding.setRow(out, r);
+        for ( Var v : exprs.getVars() ) {
+            Node n = exprs.get(v, binding, execCxt);
+            if ( n == null )
+                // Expression failed to evaluate - no assignment
+                continue;
+            int col = out.column(v);
+            Node n2 = out.get(col, r);
+            if ( n2 != null ) {
+                // Already has a value; must be sameValueAs
+                if ( !n2.sameValueAs(n) )
+                    return false;
+                continue;
+            }
+            out.set(col, r, n);
+        }
+        return true;
+    }
+
+    @Override
+    protected void closeIterator() {
+        input.close();
+    }
+
+    @Override
+    protected void requestCancel() {
+        input.cancel();
+    }
+}
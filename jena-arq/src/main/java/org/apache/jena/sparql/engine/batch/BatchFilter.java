@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import org.apache.jena.atlas.logging.Log;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprException;
+import org.apache.jena.sparql.expr.ExprList;
+
+/**
+ * Filter the rows of batches by a list of expressions, all of which must be satisfied.
+ * A batch in which all rows are accepted is passed on unchanged.
+ */
+public class BatchFilter extends BatchIteratorBase {
+    private final BatchIterator input;
+    private final ExprList exprs;
+    private final ExecutionContext execCxt;
+    private final BatchRow binding = new BatchRow();
+
+    public BatchFilter(BatchIterator input, ExprList exprs, ExecutionContext execCxt) {
+        super(input.vars());
+        this.input = input;
+        this.exprs = exprs;
+        this.execCxt = execCxt;
+    }
+
+    @Override
+    protected BindingBatch moveToNextBatch() {
+        while ( input.hasNext() ) {
+            BindingBatch batch = input.next();
+            BindingBatch out = null;
+            for ( int r = 0 ; r < batch.size() ; r++ ) {
+                boolean accept = accept(batch, r);
+                if ( out == null ) {
+                    if ( accept )
+                        continue;
+                    // First rejected row - copy the rows so far.
+                    out = new BindingBatch(vars(), batch.size());
+                    for ( int i = 0 ; i < r ; i++ )
+                        out.addRow(batch, i);
+                    continue;
+                }
+                if ( accept )
+                    out.addRow(batch, r);
+            }
+            if ( out == null )
+                return batch;
+            if ( !out.isEmpty() )
+                return out;
+        }
+        return null;
+    }
+
+    private boolean accept(BindingBatch batch, int row) {
+        binding.setRow(batch, row);
+        for ( Expr expr : exprs ) {
+            try {
+                // ExprNode.isSatisfied converts exceptions to ExprEvalException
+                if ( !expr.isSatisfied(binding, execCxt) )
+                    return false;
+            } catch (ExprException ex) {
+                // Some evaluation exception: should not happen.
+                Log.warn(this, "Expression Exception in " + expr, ex);
+                return false;
+            } catch (Exception ex) {
+                Log.warn(this, "General exception in " + expr, ex);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void closeIterator() {
+        input.close();
+    }
+
+    @Override
+    protected void requestCancel() {
+        input.cancel();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+
+/**
+ * Collect the bindings of a {@link QueryIterator} into batches. The variables must
+ * include all the variables that the bindings may have.
+ */
+public class BatchFromQueryIterator extends BatchIteratorBase {
+    private final QueryIterator qIter;
+
+    public BatchFromQueryIterator(QueryIterator qIter, List<Var> vars) {
+        super(vars);
+        this.qIter = qIter;
+    }
+
+    @Override
+    protected BindingBatch moveToNextBatch() {
+        if ( !qIter.hasNext() )
+            return null;
+        List<Var> vars = vars();
+        BindingBatch batch = new BindingBatch(vars, BindingBatch.DefaultSize);
+        while ( !batch.isFull() && qIter.hasNext() ) {
+            Binding binding = qIter.next();
+            int r = batch.addRow();
+            for ( Iterator<Var> iter = binding.vars() ; iter.hasNext() ; ) {
+                Var v = iter.next();
+                int c = vars.indexOf(v);
+                if ( c >= 0 ) {
+                    Node n = binding.get(v);
+                    batch.set(c, r, n);
+                }
+            }
+        }
+        return batch;
+    }
+
+    @Override
+    protected void closeIterator() {
+        qIter.close();
+    }
+
+    @Override
+    protected void requestCancel() {
+        qIter.cancel();
+    }
+}
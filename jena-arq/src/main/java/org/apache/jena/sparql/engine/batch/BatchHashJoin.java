@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.*;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+
+/**
+ * Hash join of two streams of batches.
+ * <p>
+ * The right hand side is read into a hash table, keyed by the values of the variables
+ * in common, then the left hand side is streamed through. Rows of the right hand side
+ * without a value for some of the common variables are checked against every left row.
+ * The output has the variables of the left followed by the other variables of the right.
+ */
+public class BatchHashJoin extends BatchIteratorBase {
+    private final BatchIterator left;
+    private final BatchIterator right;
+    // Common variables: column in the left and the right.
+    private final int[] leftKeys;
+    private final int[] rightKeys;
+    // Right-only variables: column in the right and the output.
+    private final int[] rightColumns;
+    private final int[] outputColumns;
+
+    private Map<List<Node>, List<Node[]>> table = null;
+    private List<Node[]> partial = null;
+    private List<Node[]> allRows = null;
+
+    private BindingBatch leftBatch = null;
+    private int leftRow = 0;
+    private List<Node[]> candidates = null;
+    private int candidateIdx = 0;
+
+    public BatchHashJoin(BatchIterator left, BatchIterator right) {
+        super(outputVars(left.vars(), right.vars()));
+        this.left = left;
+        this.right = right;
+        List<Var> leftVars = left.vars();
+        List<Var> rightVars = right.vars();
+        int common = 0;
+        for ( Var v : rightVars ) {
+            if ( leftVars.contains(v) )
+                common++;
+        }
+        leftKeys = new int[common];
+        rightKeys = new int[common];
+        rightColumns = new int[rightVars.size() - common];
+        outputColumns = new int[rightVars.size() - common];
+        int k = 0;
+        int j = 0;
+        for ( int c = 0 ; c < rightVars.size() ; c++ ) {
+            Var v = rightVars.get(c);
+            int idx = leftVars.indexOf(v);
+            if ( idx >= 0 ) {
+                leftKeys[k] = idx;
+                rightKeys[k] = c;
+                k++;
+            } else {
+                rightColumns[j] = c;
+                outputColumns[j] = vars().indexOf(v);
+                j++;
+            }
+        }
+    }
+
+    private static List<Var> outputVars(List<Var> leftVars, List<Var> rightVars) {
+        List<Var> vars = new ArrayList<>(leftVars);
+        for ( Var v : rightVars ) {
+            if ( !vars.contains(v) )
+                vars.add(v);
+        }
+        return vars;
+    }
+
+    private void build() {
+        table = new HashMap<>();
+        partial = new ArrayList<>();
+        allRows = new ArrayList<>();
+        while ( right.hasNext() ) {
+            BindingBatch batch = right.next();
+            for ( int r = 0 ; r < batch.size() ; r++ ) {
+                Node[] row = batch.row(r);
+                allRows.add(row);
+                List<Node> key = key(row, rightKeys);
+                if ( key == null )
+                    partial.add(row);
+                else
+                    table.computeIfAbsent(key, x -> new ArrayList<>()).add(row);
+            }
+        }
+        right.close();
+    }
+
+    // The values of the key columns, or null if any is unbound.
+    private static List<Node> key(Node[] row, int[] keys) {
+        Node[] key = new Node[keys.length];
+        for ( int i = 0 ; i < keys.length ; i++ ) {
+            Node n = row[keys[i]];
+            if ( n == null )
+                return null;
+            key[i] = n;
+        }
+        return Arrays.asList(key);
+    }
+
+    @Override
+    protected BindingBatch moveToNextBatch() {
+        if ( table == null ) {
+            build();
+            if ( allRows.isEmpty() )
+                return null;
+        }
+        BindingBatch out = null;
+        for ( ;; ) {
+            if ( candidates != null ) {
+                while ( candidateIdx < candidates.size() ) {
+                    Node[] rightRow = candidates.get(candidateIdx++);
+                    if ( !compatible(rightRow) )
+                        continue;
+                    if ( out == null )
+                        out = new BindingBatch(vars(), BindingBatch.DefaultSize);
+                    merge(out, rightRow);
+                    if ( out.isFull() )
+                        return out;
+                }
+                candidates = null;
+                leftRow++;
+            }
+            if ( leftBatch == null || leftRow >= leftBatch.size() ) {
+                if ( !left.hasNext() ) {
+                    leftBatch = null;
+                    return out;
+                }
+                leftBatch = left.next();
+                leftRow = 0;
+            }
+            candidates = candidates();
+            candidateIdx = 0;
+        }
+    }
+
+    // The rows of the right hand side that may join with the current left row.
+    private List<Node[]> candidates() {
+        List<Node> key = key(leftBatch.row(leftRow), leftKeys);
+        if ( key == null )
+            return allRows;
+        List<Node[]> matches = table.getOrDefault(key, List.of());
+        if ( partial.isEmpty() )
+            return matches;
+        List<Node[]> x = new ArrayList<>(matches.size() + partial.size());
+        x.addAll(matches);
+        x.addAll(partial);
+        return x;
+    }
+
+    private boolean compatible(Node[] rightRow) {
+        for ( int i = 0 ; i < leftKeys.length ; i++ ) {
+            Node nLeft = leftBatch.get(leftKeys[i], leftRow);
+            Node nRight = rightRow[rightKeys[i]];
+            if ( nLeft != null && nRight != null && !nLeft.equals(nRight) )
+                return false;
+        }
+        return true;
+    }
+
+    private void merge(BindingBatch out, Node[] rightRow) {
+        int r = out.addRow(leftBatch, leftRow);
+        for ( int i = 0 ; i < leftKeys.length ; i++ ) {
+            if ( out.get(leftKeys[i], r) == null )
+                out.set(leftKeys[i], r, rightRow[rightKeys[i]]);
+        }
+        for ( int i = 0 ; i < rightColumns.length ; i++ )
+            out.set(outputColumns[i], r, rightRow[rightColumns[i]]);
+    }
+
+    @Override
+    protected void closeIterator() {
+        table = null;
+        partial = null;
+        allRows = null;
+        left.close();
+        right.close();
+    }
+
+    @Override
+    protected void requestCancel() {
+        left.cancel();
+        right.cancel();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.sparql.core.Var;
+
+/**
+ * Framework for a {@link BatchIterator}: implementations provide
+ * {@link #moveToNextBatch}, and close and cancel their inputs.
+ */
+public abstract class BatchIteratorBase implements BatchIterator {
+    private final List<Var> vars;
+    private BindingBatch nextBatch = null;
+    private boolean finished = false;
+    private boolean closed = false;
+    private volatile boolean cancelled = false;
+
+    protected BatchIteratorBase(List<Var> vars) {
+        this.vars = vars;
+    }
+
+    /** Return the next batch, which must not be empty, or null for the end of the batches. */
+    protected abstract BindingBatch moveToNextBatch();
+
+    protected abstract void closeIterator();
+
+    protected abstract void requestCancel();
+
+    @Override
+    public List<Var> vars() {
+        return vars;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( cancelled )
+            throw new QueryCancelledException();
+        if ( finished )
+            return false;
+        if ( nextBatch != null )
+            return true;
+        nextBatch = moveToNextBatch();
+        if ( nextBatch == null ) {
+            finished = true;
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public BindingBatch next() {
+        if ( !hasNext() )
+            throw new NoSuchElementException();
+        BindingBatch batch = nextBatch;
+        nextBatch = null;
+        return batch;
+    }
+
+    @Override
+    public void close() {
+        if ( closed )
+            return;
+        closed = true;
+        finished = true;
+        closeIterator();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        requestCancel();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.main.solver.SolverLib;
+import org.apache.jena.system.G;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/**
+ * Match a triple pattern against a graph for each row of the input batches.
+ * The output has the input variables followed by the new variables of the triple pattern.
+ * <p>
+ * Plain matching - no variables inside triple terms.
+ */
+public class BatchMatchTriple extends BatchIteratorBase {
+    private final BatchIterator input;
+    private final Graph graph;
+    // Subject, predicate, object of the triple pattern.
+    private final Node[] pattern;
+    // Column in the input and the output for each variable position, or -1.
+    private final int[] inputColumns;
+    private final int[] outputColumns;
+
+    private BindingBatch inBatch = null;
+    private int inRow = 0;
+    private ExtendedIterator<Triple> matches = null;
+
+    public BatchMatchTriple(BatchIterator input, Graph graph, Triple triple) {
+        super(outputVars(input.vars(), triple));
+        this.input = input;
+        this.graph = graph;
+        this.pattern = new Node[] {triple.getSubject(), triple.getPredicate(), triple.getObject()};
+        this.inputColumns = new int[3];
+        this.outputColumns = new int[3];
+        for ( int i = 0 ; i < 3 ; i++ ) {
+            if ( Var.isVar(pattern[i]) ) {
+                Var v = Var.alloc(pattern[i]);
+                inputColumns[i] = input.vars().indexOf(v);
+                outputColumns[i] = vars().indexOf(v);
+            } else {
+                inputColumns[i] = -1;
+                outputColumns[i] = -1;
+            }
+        }
+    }
+
+    private static List<Var> outputVars(List<Var> inputVars, Triple triple) {
+        List<Var> vars = new ArrayList<>(inputVars);
+        addVar(vars, triple.getSubject());
+        addVar(vars, triple.getPredicate());
+        addVar(vars, triple.getObject());
+        return vars;
+    }
+
+    private static void addVar(List<Var> vars, Node node) {
+        if ( !Var.isVar(node) )
+            return;
+        Var v = Var.alloc(node);
+        if ( !vars.contains(v) )
+            vars.add(v);
+    }
+
+    @Override
+    protected BindingBatch moveToNextBatch() {
+        BindingBatch out = null;
+        for ( ;; ) {
+            if ( matches != null ) {
+                if ( matches.hasNext() ) {
+                    Triple t = matches.next();
+                    if ( out == null )
+                        out = new BindingBatch(vars(), BindingBatch.DefaultSize);
+                    int r = out.addRow(inBatch, inRow);
+                    if ( !bind(out, r, t) ) {
+                        out.removeRow();
+                        continue;
+                    }
+                    if ( out.isFull() )
+                        return out;
+                    continue;
+                }
+                matches.close();
+                matches = null;
+                inRow++;
+            }
+            if ( inBatch == null || inRow >= inBatch.size() ) {
+                if ( !input.hasNext() ) {
+                    inBatch = null;
+                    return ( out == null || out.isEmpty() ) ? null : out;
+                }
+                inBatch = input.next();
+                inRow = 0;
+            }
+            matches = G.findByLang(graph, lookup(0), lookup(1), lookup(2));
+        }
+    }
+
+    // The graph node to find for a position of the triple pattern, given the current input row.
+    private Node lookup(int i) {
+        if ( outputColumns[i] < 0 )
+            return pattern[i];
+        Node n = ( inputColumns[i] < 0 ) ? null : inBatch.get(inputColumns[i], inRow);
+        return ( n == null ) ? Node.ANY : n;
+    }
+
+    private boolean bind(BindingBatch out, int row, Triple t) {
+        return bind(out, row, 0, t.getSubject()) &&
+               bind(out, row, 1, t.getPredicate()) &&
+               bind(out, row, 2, t.getObject());
+    }
+
+    private boolean bind(BindingBatch out, int row, int i, Node data) {
+        int col = outputColumns[i];
+        if ( col < 0 )
+            return true;
+        Node x = out.get(col, row);
+        if ( x != null )
+            return SolverLib.sameTermAs(data, x);
+        out.set(col, row, data);
+        return true;
+    }
+
+    @Override
+    protected void closeIterator() {
+        if ( matches != null ) {
+            matches.close();
+            matches = null;
+        }
+        input.close();
+    }
+
+    @Override
+    protected void requestCancel() {
+        input.cancel();
+    }
+}
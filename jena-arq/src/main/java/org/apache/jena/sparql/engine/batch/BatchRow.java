@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingBase;
+
+/**
+ * A {@link org.apache.jena.sparql.engine.binding.Binding} view of one row of a
+ * {@link BindingBatch}, for evaluating expressions without creating a binding for
+ * each row. The view is moved from row to row so it must not be retained.
+ */
+class BatchRow extends BindingBase {
+    private BindingBatch batch;
+    private int row;
+
+    BatchRow() {
+        super(null);
+    }
+
+    /** Set the row this binding is a view of. */
+    void setRow(BindingBatch batch, int row) {
+        this.batch = batch;
+        this.row = row;
+    }
+
+    @Override
+    protected Iterator<Var> vars1() {
+        List<Var> x = new ArrayList<>();
+        List<Var> vars = batch.vars();
+        for ( int c = 0 ; c < vars.size() ; c++ ) {
+            if ( batch.get(c, row) != null )
+                x.add(vars.get(c));
+        }
+        return x.iterator();
+    }
+
+    @Override
+    protected int size1() {
+        int count = 0;
+        for ( int c = 0 ; c < batch.vars().size() ; c++ ) {
+            if ( batch.get(c, row) != null )
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    protected boolean isEmpty1() {
+        return size1() == 0;
+    }
+
+    @Override
+    protected boolean contains1(Var var) {
+        return get1(var) != null;
+    }
+
+    @Override
+    protected Node get1(Var var) {
+        int c = batch.column(var);
+        return ( c < 0 ) ? null : batch.get(c, row);
+    }
+}
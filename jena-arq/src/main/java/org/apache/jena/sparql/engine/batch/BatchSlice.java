@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import org.apache.jena.query.Query;
+
+/**
+ * OFFSET and LIMIT over batches. The input is closed as soon as the limit is reached.
+ */
+public class BatchSlice extends BatchIteratorBase {
+    private final BatchIterator input;
+    private long toSkip;
+    private long remaining;
+
+    /** Start and length may be {@link Query#NOLIMIT}. */
+    public BatchSlice(BatchIterator input, long start, long length) {
+        super(input.vars());
+        this.input = input;
+        this.toSkip = ( start == Query.NOLIMIT ) ? 0 : start;
+        this.remaining = ( length == Query.NOLIMIT ) ? Long.MAX_VALUE : length;
+    }
+
+    @Override
+    protected BindingBatch moveToNextBatch() {
+        while ( remaining > 0 && input.hasNext() ) {
+            BindingBatch batch = input.next();
+            int size = batch.size();
+            if ( toSkip >= size ) {
+                toSkip -= size;
+                continue;
+            }
+            int start = (int)toSkip;
+            toSkip = 0;
+            int end = ( remaining >= size - start ) ? size : start + (int)remaining;
+            remaining -= (end - start);
+            if ( start == 0 && end == size )
+                return batch;
+            return batch.slice(start, end);
+        }
+        return null;
+    }
+
+    @Override
+    protected void closeIterator() {
+        input.close();
+    }
+
+    @Override
+    protected void requestCancel() {
+        input.cancel();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingBuilder;
+
+/**
+ * A batch of rows, held by column: an array of {@link Node Nodes} for each variable.
+ * A null entry is an unbound variable.
+ * <p>
+ * Column arrays may be shared between batches (see {@link #project}) so
+ * a batch is not modified after it has been passed on.
+ */
+public class BindingBatch {
+    /** Normal number of rows in a batch. */
+    public static final int DefaultSize = 1024;
+
+    private final List<Var> vars;
+    private final Node[][] columns;
+    private final int capacity;
+    private int size;
+
+    /** Create an empty batch. */
+    public BindingBatch(List<Var> vars, int capacity) {
+        this.vars = vars;
+        this.capacity = capacity;
+        this.columns = new Node[vars.size()][capacity];
+        this.size = 0;
+    }
+
+    private BindingBatch(List<Var> vars, Node[][] columns, int capacity, int size) {
+        this.vars = vars;
+        this.columns = columns;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    /** A batch with one row and no variables: the start of execution. */
+    public static BindingBatch joinIdentity() {
+        BindingBatch batch = new BindingBatch(List.of(), 1);
+        batch.addRow();
+        return batch;
+    }
+
+    public List<Var> vars() {
+        return vars;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /** Column index of a variable, or -1. */
+    public int column(Var var) {
+        return vars.indexOf(var);
+    }
+
+    public Node[] getColumn(int col) {
+        return columns[col];
+    }
+
+    public Node get(int col, int row) {
+        return columns[col][row];
+    }
+
+    public void set(int col, int row, Node node) {
+        columns[col][row] = node;
+    }
+
+    /** Add a row, all unbound, and return its index. */
+    public int addRow() {
+        if ( size == capacity )
+            throw new IllegalStateException("Batch is full");
+        return size++;
+    }
+
+    /** Remove the last row. */
+    public void removeRow() {
+        size--;
+        for ( Node[] column : columns )
+            column[size] = null;
+    }
+
+    /**
+     * Copy a row from another batch, the columns of which are at the start of the
+     * columns of this batch, and return the index of the new row.
+     */
+    public int addRow(BindingBatch other, int row) {
+        int r = addRow();
+        for ( int c = 0 ; c < other.columns.length ; c++ )
+            columns[c][r] = other.columns[c][row];
+        return r;
+    }
+
+    /** A batch of the given variables, sharing the column arrays of this batch. */
+    public BindingBatch project(List<Var> projectVars) {
+        Node[][] projected = new Node[projectVars.size()][];
+        Node[] unbound = null;
+        for ( int i = 0 ; i < projectVars.size() ; i++ ) {
+            int c = column(projectVars.get(i));
+            if ( c >= 0 )
+                projected[i] = columns[c];
+            else {
+                if ( unbound == null )
+                    unbound = new Node[capacity];
+                projected[i] = unbound;
+            }
+        }
+        return new BindingBatch(projectVars, projected, capacity, size);
+    }
+
+    /**
+     * A batch with more variables, sharing the column arrays of this batch for its
+     * variables, which must be the first of {@code allVars}. The other columns are unbound.
+     */
+    public BindingBatch extend(List<Var> allVars) {
+        Node[][] extended = new Node[allVars.size()][];
+        for ( int c = 0 ; c < extended.length ; c++ )
+            extended[c] = ( c < columns.length ) ? columns[c] : new Node[capacity];
+        return new BindingBatch(allVars, extended, capacity, size);
+    }
+
+    /** A batch of the rows {@code start} (inclusive) to {@code end} (exclusive). */
+    public BindingBatch slice(int start, int end) {
+        if ( start == 0 ) {
+            // Rows after "end" are not visible.
+            return new BindingBatch(vars, columns, capacity, end);
+        }
+        Node[][] sliced = new Node[columns.length][];
+        for ( int c = 0 ; c < columns.length ; c++ )
+            sliced[c] = Arrays.copyOfRange(columns[c], start, end);
+        return new BindingBatch(vars, sliced, end - start, end - start);
+    }
+
+    /** The values of a row, in column order. */
+    public Node[] row(int row) {
+        Node[] x = new Node[columns.length];
+        for ( int c = 0 ; c < columns.length ; c++ )
+            x[c] = columns[c][row];
+        return x;
+    }
+
+    /** Create a {@link Binding} for a row. */
+    public Binding binding(int row) {
+        BindingBuilder builder = Binding.builder();
+        for ( int c = 0 ; c < columns.length ; c++ ) {
+            Node n = columns[c][row];
+            if ( n != null )
+                builder.add(vars.get(c), n);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(vars).append(" ").append(size).append(" rows");
+        return sb.toString();
+    }
+}
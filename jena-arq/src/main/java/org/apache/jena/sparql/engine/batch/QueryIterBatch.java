@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import org.apache.jena.atlas.io.IndentedWriter;
+import org.apache.jena.atlas.lib.Lib;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.iterator.QueryIter;
+import org.apache.jena.sparql.serializer.SerializationContext;
+
+/** Turn a {@link BatchIterator} into a {@link org.apache.jena.sparql.engine.QueryIterator}. */
+public class QueryIterBatch extends QueryIter {
+    private final BatchIterator batches;
+    private BindingBatch batch = null;
+    private int row = 0;
+
+    public QueryIterBatch(BatchIterator batches, ExecutionContext execCxt) {
+        super(execCxt);
+        this.batches = batches;
+    }
+
+    @Override
+    protected boolean hasNextBinding() {
+        while ( batch == null || row >= batch.size() ) {
+            if ( !batches.hasNext() ) {
+                batch = null;
+                return false;
+            }
+            batch = batches.next();
+            row = 0;
+        }
+        return true;
+    }
+
+    @Override
+    protected Binding moveToNextBinding() {
+        return batch.binding(row++);
+    }
+
+    @Override
+    protected void closeIterator() {
+        batches.close();
+    }
+
+    @Override
+    protected void requestCancel() {
+        batches.cancel();
+    }
+
+    @Override
+    public void output(IndentedWriter out, SerializationContext sCxt) {
+        out.print(Lib.className(this));
+        out.print(" ");
+        out.print(batches.vars().toString());
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.iterator;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.collections4.MultiMapUtils;
+import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.jena.atlas.lib.Pair;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.algebra.TransformCopy;
+import org.apache.jena.sparql.algebra.walker.Walker;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetSnapshots;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.core.VarExprList;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.expr.*;
+import org.apache.jena.sparql.expr.aggregate.Accumulator;
+import org.apache.jena.sparql.expr.aggregate.Aggregator;
+import org.apache.jena.sparql.expr.aggregate.MergeableAccumulator;
+
+/**
+ * Parallel aggregation for {@link QueryIterGroup}.
+ * <p>
+ * The input is read, in the calling thread, in batches. Each batch is handed to a
+ * task in the fork-join common pool which calculates the group keys, evaluates the
+ * aggregate expressions and accumulates them into its own set of groups. As each
+ * task finishes, its groups are merged into the overall result using the partial
+ * state of the accumulators (see {@link MergeableAccumulator}).
+ * <p>
+ * If the query is in a read transaction, each task starts its own read transaction
+ * and checks that it sees the same data as the query (see {@link DatasetSnapshots}),
+ * so that bindings which access the storage (e.g. TDB2 bindings of NodeIds) can be
+ * used in the task. A batch for which this is not the case is aggregated in the
+ * calling thread. Parallel aggregation is not used in a write transaction, or if the
+ * data seen by the read transaction is not known.
+ * <p>
+ * Expressions bind their function implementation on first use (e.g. {@code E_Function})
+ * so each task works on its own copy of the group key and aggregate expressions.
+ */
+class GroupParallel {
+    /** Number of input rows for each task. */
+    static final int BatchSize = 1000;
+
+    /**
+     * Return the parallelism for this GROUP BY, or 1 if it should be done in
+     * the calling thread.
+     */
+    static int parallelism(List<ExprAggregator> aggregators, ExecutionContext execCxt) {
+        if ( execCxt == null || aggregators == null || aggregators.isEmpty() )
+            return 1;
+        int parallelism = execCxt.getContext().getInt(ARQ.groupByParallelism, 1);
+        if ( parallelism <= 1 )
+            return 1;
+        for ( ExprAggregator agg : aggregators ) {
+            if ( ! ( agg.getAggregator().createAccumulator() instanceof MergeableAccumulator ) )
+                return 1;
+        }
+        DatasetGraph dsg = execCxt.getDataset();
+        if ( dsg != null && dsg.isInTransaction() ) {
+            if ( dsg.transactionMode() != ReadWrite.READ || DatasetSnapshots.snapshot(dsg) == null )
+                return 1;
+        }
+        return parallelism;
+    }
+
+    // A batch of input and the task aggregating it.
+    private record Task(List<Binding> batch, CompletableFuture<Map<Binding, List<Accumulator>>> future) {}
+
+    /** Calculate the groups for the input. */
+    static MultiValuedMap<Binding, Pair<Var, Accumulator>> accumulate(Iterator<Binding> input, VarExprList groupVarExpr,
+                                                                     List<ExprAggregator> aggregators,
+                                                                     ExecutionContext execCxt, int parallelism) {
+        DatasetGraph dsg = execCxt.getDataset();
+        Object snapshot = ( dsg != null && dsg.isInTransaction() ) ? DatasetSnapshots.snapshot(dsg) : null;
+        List<Aggregator> aggs = new ArrayList<>(aggregators.size());
+        for ( ExprAggregator agg : aggregators )
+            aggs.add(agg.getAggregator());
+
+        Map<Binding, List<Accumulator>> results = new HashMap<>();
+        Deque<Task> inProgress = new ArrayDeque<>();
+        try {
+            while ( input.hasNext() ) {
+                List<Binding> batch = new ArrayList<>(BatchSize);
+                while ( batch.size() < BatchSize && input.hasNext() )
+                    batch.add(input.next());
+                if ( inProgress.size() >= parallelism )
+                    finish(results, inProgress.removeFirst(), groupVarExpr, aggs, execCxt);
+                CompletableFuture<Map<Binding, List<Accumulator>>> future =
+                    CompletableFuture.supplyAsync(()->accumulateBatch(batch, groupVarExpr, aggs, execCxt, snapshot),
+                                                  ForkJoinPool.commonPool());
+                inProgress.addLast(new Task(batch, future));
+            }
+            while ( ! inProgress.isEmpty() )
+                finish(results, inProgress.removeFirst(), groupVarExpr, aggs, execCxt);
+        } finally {
+            inProgress.forEach(t->t.future().cancel(true));
+        }
+
+        MultiValuedMap<Binding, Pair<Var, Accumulator>> accumulators = MultiMapUtils.newListValuedHashMap();
+        results.forEach((key, accs) -> {
+            for ( int i = 0 ; i < accs.size() ; i++ )
+                accumulators.put(key, Pair.create(aggregators.get(i).getVar(), accs.get(i)));
+        });
+        return accumulators;
+    }
+
+    // Wait for a task and merge its groups. If the task could not see the data of
+    // the query, aggregate the batch in the calling thread.
+    private static void finish(Map<Binding, List<Accumulator>> results, Task task, VarExprList groupVarExpr,
+                               List<Aggregator> aggregators, ExecutionContext execCxt) {
+        Map<Binding, List<Accumulator>> groups = join(task.future());
+        if ( groups == null )
+            groups = accumulateBatch(task.batch(), groupVarExpr, aggregators, execCxt, null);
+        merge(results, groups);
+    }
+
+    /**
+     * Run in a task: calculate the keys and accumulate a batch of rows. Return null if
+     * the task's read transaction does not see the same data as the query.
+     */
+    private static Map<Binding, List<Accumulator>> accumulateBatch(List<Binding> batch, VarExprList groupVarExpr,
+                                                                   List<Aggregator> aggregators,
+                                                                   ExecutionContext execCxt, Object snapshot) {
+        if ( execCxt.getCancelSignal() != null && execCxt.getCancelSignal().get() )
+            throw new QueryCancelledException();
+        ExecutionContext cxt = ExecutionContext.fork(execCxt);
+        VarExprList keyVars = copy(groupVarExpr);
+        List<Aggregator> aggs = new ArrayList<>(aggregators.size());
+        for ( Aggregator agg : aggregators )
+            aggs.add(agg.getExprList() == null ? agg : agg.copy(copy(agg.getExprList())));
+
+        DatasetGraph dsg = cxt.getDataset();
+        boolean inTransaction = false;
+        try {
+            if ( snapshot != null ) {
+                dsg.begin(TxnType.READ);
+                inTransaction = true;
+                if ( ! snapshot.equals(DatasetSnapshots.snapshot(dsg)) )
+                    // The data has changed since the query started.
+                    return null;
+            }
+            Map<Binding, List<Accumulator>> groups = new HashMap<>();
+            for ( Binding row : batch ) {
+                Binding key = QueryIterGroup.genKey(keyVars, row, cxt);
+                List<Accumulator> accs = groups.computeIfAbsent(key, k->{
+                    List<Accumulator> x = new ArrayList<>(aggs.size());
+                    for ( Aggregator agg : aggs )
+                        x.add(agg.createAccumulator());
+                    return x;
+                });
+                for ( Accumulator acc : accs )
+                    acc.accumulate(row, cxt);
+            }
+            return groups;
+        } finally {
+            if ( inTransaction )
+                dsg.end();
+        }
+    }
+
+    private static VarExprList copy(VarExprList vars) {
+        VarExprList x = new VarExprList();
+        vars.forEachVarExpr((v, e) -> {
+            if ( e == null )
+                x.add(v);
+            else
+                x.add(v, copy(e));
+        });
+        return x;
+    }
+
+    private static ExprList copy(ExprList exprs) {
+        ExprList x = new ExprList();
+        exprs.forEach(e->x.add(copy(e)));
+        return x;
+    }
+
+    // Copy the expression, including any pattern in EXISTS.
+    private static Expr copy(Expr expr) {
+        return Walker.transform(expr, new TransformCopy(TransformCopy.COPY_ALWAYS), new ExprTransformCopy(ExprTransformCopy.COPY_ALWAYS));
+    }
+
+    private static void merge(Map<Binding, List<Accumulator>> results, Map<Binding, List<Accumulator>> partial) {
+        partial.forEach((key, accs) -> {
+            List<Accumulator> current = results.putIfAbsent(key, accs);
+            if ( current == null )
+                return;
+            for ( int i = 0 ; i < current.size() ; i++ )
+                ((MergeableAccumulator)current.get(i)).mergePartialState(((MergeableAccumulator)accs.get(i)).getPartialState());
+        });
+    }
+
+    private static <X> X join(CompletableFuture<X> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if ( ex.getCause() instanceof RuntimeException )
+                throw (RuntimeException)ex.getCause();
+            throw ex;
+        }
+    }
+}
@@ -20,15 +20,22 @@ package org.apache.jena.sparql.engine.iterator;
 
 import java.util.ArrayList ;
 import java.util.Collection ;
+import java.util.Comparator ;
 import java.util.Iterator ;
 import java.util.List ;
 
 import org.apache.commons.collections4.MultiMapUtils;
 import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.jena.atlas.data.BagFactory ;
+import org.apache.jena.atlas.data.SortedDataBag ;
+import org.apache.jena.atlas.data.ThresholdPolicy ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
 import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.iterator.IteratorDelayedInitialization ;
+import org.apache.jena.atlas.iterator.IteratorSlotted ;
 import org.apache.jena.atlas.lib.Pair ;
 import org.apache.jena.graph.Node ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.core.VarExprList ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
@@ -39,7 +46,23 @@ import org.apache.jena.sparql.engine.binding.BindingFactory ;
 import org.apache.jena.sparql.expr.ExprAggregator ;
 import org.apache.jena.sparql.expr.NodeValue ;
 import org.apache.jena.sparql.expr.aggregate.Accumulator ;
+import org.apache.jena.sparql.expr.aggregate.MergeableAccumulator ;
+import org.apache.jena.sparql.system.SerializationFactoryFinder ;
+import org.apache.jena.sparql.util.NodeCmp ;
 
+/**
+ * GROUP BY and aggregation.
+ * <p>
+ * Groups are calculated in memory. If {@link ARQ#spillToDiskThreshold} is set,
+ * and all the accumulators are {@linkplain MergeableAccumulator mergeable},
+ * then when the number of groups in memory reaches the threshold, the partial
+ * state of each group is written to a {@link SortedDataBag}, sorted by group key,
+ * and the in-memory groups are discarded. At the end, the partial states
+ * for each group are read back in key order and merged.
+ * <p>
+ * If {@link ARQ#groupByParallelism} is set, and all the accumulators are mergeable,
+ * the aggregation is done in parallel (see {@link GroupParallel}) and does not spill.
+ */
 public class QueryIterGroup extends QueryIterPlainWrapper
 {
 	private final QueryIterator embeddedIterator;
@@ -106,11 +129,33 @@ public class QueryIterGroup extends QueryIterPlainWrapper
 
                 // Case: there is input.
                 // Phase 1 : Create keys and aggregators per key, and pump bindings through the aggregators.
+                int parallelism = GroupParallel.parallelism(aggregators, execCxt);
+                if ( parallelism > 1 ) {
+                    MultiValuedMap<Binding, Pair<Var, Accumulator>> accumulators =
+                        GroupParallel.accumulate(iter, groupVarExpr, aggregators, execCxt, parallelism);
+                    return results(accumulators);
+                }
+
                 MultiValuedMap<Binding, Pair<Var, Accumulator>> accumulators = MultiMapUtils.newListValuedHashMap();
+                ThresholdPolicy<Binding> policy = spillPolicy(aggregators, execCxt);
+                SortedDataBag<Binding> spill = null;
                 while (iter.hasNext()) {
                     Binding b = iter.nextBinding();
                     Binding key = genKey(groupVarExpr, b, execCxt);
 
+                    if ( policy.isThresholdExceeded() && ! accumulators.containsKey(key) ) {
+                        // New group and no more room : write out the partial states.
+                        if ( spill == null )
+                            spill = BagFactory.newSortedBag(ThresholdPolicyFactory.policyFromContext(execCxt.getContext()),
+                                                            SerializationFactoryFinder.bindingSerializationFactory(),
+                                                            keyComparator(groupVarExpr));
+                        spillPartials(spill, accumulators);
+                        accumulators.clear();
+                        policy.reset();
+                    }
+                    if ( !accumulators.containsKey(key) )
+                        policy.increment(key);
+
                     if ( !hasAggregators ) {
                         // Put in a dummy to remember the input.
                         accumulators.put(key, placeholder);
@@ -135,30 +180,175 @@ public class QueryIterGroup extends QueryIterPlainWrapper
                 // For each bucket, get binding, add aggregator values to the binding.
                 // We used AccNull so there are always accumulators.
 
+                if ( spill != null ) {
+                    spillPartials(spill, accumulators);
+                    accumulators.clear();
+                    return new IterMergePartials(spill, groupVarExpr, aggregators);
+                }
+
                 if ( !hasAggregators )
                     // We used placeholder so there are always the key.
                     return accumulators.keySet().iterator();
 
-                List<Binding> results = new ArrayList<>();
-                for ( Binding k : accumulators.keySet() ) {
-                    BindingBuilder builder2 = Binding.builder(k);
-                    Collection<Pair<Var, Accumulator>> accs = accumulators.get(k);
+                return results(accumulators);
+            }
+        };
+    }
 
-                    for ( Pair<Var, Accumulator> pair : accs ) {
-                        NodeValue value = pair.getRight().getValue();
-                        if ( value == null )
-                            continue;
-                        Var v = pair.getLeft();
-                        builder2.add(v, value.asNode());
-                    }
-                    results.add(builder2.build());
-                }
-                return results.iterator();
+    /** For each group, get the key binding and add the aggregator values. */
+    private static Iterator<Binding> results(MultiValuedMap<Binding, Pair<Var, Accumulator>> accumulators) {
+        List<Binding> results = new ArrayList<>();
+        for ( Binding k : accumulators.keySet() ) {
+            BindingBuilder builder2 = Binding.builder(k);
+            Collection<Pair<Var, Accumulator>> accs = accumulators.get(k);
+
+            for ( Pair<Var, Accumulator> pair : accs ) {
+                NodeValue value = pair.getRight().getValue();
+                if ( value == null )
+                    continue;
+                Var v = pair.getLeft();
+                builder2.add(v, value.asNode());
+            }
+            results.add(builder2.build());
+        }
+        return results.iterator();
+    }
+
+    /**
+     * The policy for the number of groups held in memory.
+     * Spilling is only possible if every accumulator can be merged.
+     */
+    private static ThresholdPolicy<Binding> spillPolicy(List<ExprAggregator> aggregators, ExecutionContext execCxt) {
+        if ( execCxt == null || execCxt.getContext().getLong(ARQ.spillToDiskThreshold, -1) < 0 )
+            return ThresholdPolicyFactory.never();
+        if ( aggregators != null ) {
+            for ( ExprAggregator agg : aggregators ) {
+                if ( ! ( agg.getAggregator().createAccumulator() instanceof MergeableAccumulator ) )
+                    return ThresholdPolicyFactory.never();
             }
+        }
+        return ThresholdPolicyFactory.policyFromContext(execCxt.getContext());
+    }
+
+    /** Order by the group key variables, by RDF term. This is consistent with {@code Binding.equals}. */
+    private static Comparator<Binding> keyComparator(VarExprList groupVarExpr) {
+        List<Var> vars = groupVarExpr.getVars();
+        return (b1, b2) -> {
+            for ( Var v : vars ) {
+                int x = NodeCmp.compareRDFTerms(b1.get(v), b2.get(v));
+                if ( x != 0 )
+                    return x;
+            }
+            return 0;
         };
     }
 
-    static private Binding genKey(VarExprList vars, Binding binding, ExecutionContext execCxt) {
+    /** Variable for part of the partial state of the i'th aggregator. */
+    private static Var stateVar(int i, int j) {
+        return Var.alloc("..agg"+i+"."+j);
+    }
+
+    /** Write each group's key and the partial state of its accumulators. */
+    private static void spillPartials(SortedDataBag<Binding> spill, MultiValuedMap<Binding, Pair<Var, Accumulator>> accumulators) {
+        for ( Binding k : accumulators.keySet() ) {
+            BindingBuilder builder = Binding.builder(k);
+            int i = 0;
+            for ( Pair<Var, Accumulator> pair : accumulators.get(k) ) {
+                if ( pair == placeholder )
+                    continue;
+                List<Node> state = ((MergeableAccumulator)pair.getRight()).getPartialState();
+                for ( int j = 0 ; j < state.size() ; j++ ) {
+                    Node n = state.get(j);
+                    if ( n != null )
+                        builder.add(stateVar(i, j), n);
+                }
+                i++;
+            }
+            spill.add(builder.build());
+        }
+    }
+
+    /**
+     * Read back the partial states, in group key order, and merge the partial
+     * states of each group.
+     */
+    private static class IterMergePartials extends IteratorSlotted<Binding> {
+        private final SortedDataBag<Binding> spill;
+        private final Iterator<Binding> input;
+        private final List<Var> groupVars;
+        private final List<ExprAggregator> aggregators;
+        private final int[] stateLengths;
+        private Binding pending = null;
+
+        IterMergePartials(SortedDataBag<Binding> spill, VarExprList groupVarExpr, List<ExprAggregator> aggregators) {
+            this.spill = spill;
+            this.input = spill.iterator();
+            this.groupVars = groupVarExpr.getVars();
+            this.aggregators = ( aggregators == null ) ? List.of() : aggregators;
+            this.stateLengths = new int[this.aggregators.size()];
+            for ( int i = 0 ; i < stateLengths.length ; i++ )
+                stateLengths[i] = ((MergeableAccumulator)this.aggregators.get(i).getAggregator().createAccumulator()).getPartialState().size();
+        }
+
+        private Binding key(Binding row) {
+            BindingBuilder builder = Binding.builder();
+            for ( Var v : groupVars ) {
+                Node n = row.get(v);
+                if ( n != null )
+                    builder.add(v, n);
+            }
+            return builder.build();
+        }
+
+        @Override
+        protected boolean hasMore() {
+            return pending != null || input.hasNext();
+        }
+
+        @Override
+        protected Binding moveToNext() {
+            Binding row = ( pending != null ) ? pending : input.next();
+            pending = null;
+            Binding key = key(row);
+            List<Accumulator> accs = new ArrayList<>(aggregators.size());
+            for ( ExprAggregator agg : aggregators )
+                accs.add(agg.getAggregator().createAccumulator());
+            for (;;) {
+                merge(accs, row);
+                if ( ! input.hasNext() )
+                    break;
+                row = input.next();
+                if ( ! key.equals(key(row)) ) {
+                    pending = row;
+                    break;
+                }
+            }
+            BindingBuilder builder = Binding.builder(key);
+            for ( int i = 0 ; i < accs.size() ; i++ ) {
+                NodeValue value = accs.get(i).getValue();
+                if ( value == null )
+                    continue;
+                builder.add(aggregators.get(i).getVar(), value.asNode());
+            }
+            return builder.build();
+        }
+
+        private void merge(List<Accumulator> accs, Binding row) {
+            for ( int i = 0 ; i < accs.size() ; i++ ) {
+                List<Node> state = new ArrayList<>(stateLengths[i]);
+                for ( int j = 0 ; j < stateLengths[i] ; j++ )
+                    state.add(row.get(stateVar(i, j)));
+                ((MergeableAccumulator)accs.get(i)).mergePartialState(state);
+            }
+        }
+
+        @Override
+        protected void closeIterator() {
+            spill.close();
+        }
+    }
+
+    static /*package*/ Binding genKey(VarExprList vars, Binding binding, ExecutionContext execCxt) {
         return copyProject(vars, binding, execCxt);
     }
 
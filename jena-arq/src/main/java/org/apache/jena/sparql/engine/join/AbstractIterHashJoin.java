@@ -18,9 +18,13 @@
 
 package org.apache.jena.sparql.engine.join;
 
+import java.util.HashSet ;
 import java.util.Iterator ;
 import java.util.List ;
+import java.util.Set ;
 
+import org.apache.jena.atlas.data.ThresholdPolicy ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
 import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.sparql.algebra.Algebra ;
 import org.apache.jena.sparql.core.Var ;
@@ -34,6 +38,10 @@ import org.apache.jena.sparql.engine.iterator.QueryIterPeek ;
  *  
  * This code materializes one input into the probe table
  * then hash joins the other input from the stream side.
+ * <p>
+ * If the probe table passes the {@link org.apache.jena.query.ARQ#spillToDiskThreshold},
+ * both inputs are partitioned to disk and joined one partition at a time
+ * (see {@link HashJoinPartitions}).
  */
 
 public abstract class AbstractIterHashJoin extends QueryIter2 {
@@ -44,9 +52,14 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
     // See also stats in the probe table.
     
     protected final JoinKey               joinKey ;
-    protected final HashProbeTable        hashTable ;
+    protected HashProbeTable              hashTable ;
+    // Set if the probe table spilled to disk.
+    private HashJoinPartitions          partitions      = null ;
+    // Probe rows that have joined, if recorded, when not partitioned.
+    private Set<Binding>                probeHits       = null ;
 
     private QueryIterator               iterStream ;
+    private Iterator<Binding>           iterStreamRows ;
     private Binding                     rowStream       = null ;
     private Iterator<Binding>           iterCurrent ;
     private boolean                     yielded ;       // Flag to note when current probe causes a result. 
@@ -77,6 +90,7 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         
         this.joinKey = joinKey ;
         this.iterStream = streamIter ;
+        this.iterStreamRows = streamIter ;
         this.hashTable = new HashProbeTable(joinKey) ;
         this.iterCurrent = null ;
         buildHashTable(probeIter) ;
@@ -85,15 +99,69 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         
     private void buildHashTable(QueryIterator iter1) {
         state = Phase.HASH ;
+        ThresholdPolicy<Binding> policy = ( getExecContext() == null )
+            ? ThresholdPolicyFactory.never()
+            : ThresholdPolicyFactory.policyFromContext(getExecContext().getContext()) ;
         for (; iter1.hasNext();) {
             Binding row1 = iter1.next() ;
             s_countProbe ++ ;
+            if ( partitions != null ) {
+                partitions.putProbe(row1) ;
+                continue ;
+            }
             hashTable.put(row1) ;
+            policy.increment(row1) ;
+            if ( policy.isThresholdExceeded() )
+                spill() ;
         }
         iter1.close() ;
+        if ( partitions != null ) {
+            // Partition the stream side then join partition by partition.
+            iterStream.forEachRemaining(partitions::putStream) ;
+            iterStreamRows = nextPartition() ;
+        }
         state = Phase.STREAM ;
     }
 
+    private void spill() {
+        partitions = new HashJoinPartitions(joinKey, getExecContext().getContext()) ;
+        hashTable.values().forEachRemaining(partitions::putProbe) ;
+        hashTable.clear() ;
+    }
+
+    private Iterator<Binding> nextPartition() {
+        Iterator<Binding> iter = partitions.nextPass() ;
+        if ( partitions.currentTable() != null )
+            hashTable = partitions.currentTable() ;
+        return iter ;
+    }
+
+    private Iterator<Binding> getCandidates(Binding row) {
+        if ( partitions != null )
+            return partitions.getCandidates(row) ;
+        return hashTable.getCandidates(row) ;
+    }
+
+    /** Record that a row of the probe side has joined. See {@link #probeMisses}. */
+    protected void probeHit(Binding rowProbe) {
+        if ( partitions != null ) {
+            partitions.probeHit(rowProbe) ;
+            return ;
+        }
+        if ( probeHits == null )
+            probeHits = new HashSet<>() ;
+        probeHits.add(rowProbe) ;
+    }
+
+    /** The rows of the probe side that have not been passed to {@link #probeHit}. */
+    protected Iterator<Binding> probeMisses() {
+        if ( partitions != null )
+            return partitions.probeMisses() ;
+        if ( probeHits == null )
+            return hashTable.values() ;
+        return Iter.filter(hashTable.values(), b -> ! probeHits.contains(b)) ;
+    }
+
     @Override
     protected boolean hasNextBinding() {
         if ( isFinished() ) 
@@ -134,22 +202,27 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
             // Ensure we are processing a row. 
             while ( iterCurrent == null ) {
                 // Move on to the next row from the right.
-                if ( ! iterStream.hasNext() ) {
+                while ( partitions != null && iterStreamRows != null && ! iterStreamRows.hasNext() )
+                    iterStreamRows = nextPartition() ;
+                if ( iterStreamRows == null || ! iterStreamRows.hasNext() ) {
                     state = Phase.TRAILER ;
                     iterTail = joinFinished() ;
                     if ( iterTail != null )
                         return doOneTail() ;
                     return null ;
                 }
-                rowStream = iterStream.next() ;
+                rowStream = iterStreamRows.next() ;
                 s_countScan ++ ;
-                iterCurrent = hashTable.getCandidates(rowStream) ;
+                iterCurrent = getCandidates(rowStream) ;
                 yielded = false ;
             }
             
             // Emit one row using the rightRow and the current matched left rows. 
             if ( ! iterCurrent.hasNext() ) {
                 iterCurrent = null ;
+                if ( partitions != null )
+                    // A row without a key may join in a later partition.
+                    yielded = partitions.finishStreamRow(yielded) ;
                 if ( ! yielded ) {
                     Binding b = noYieldedRows(rowStream) ;
                     if ( b != null ) {
@@ -229,6 +302,9 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         // In case it's a peek iterator.
         iterStream.close() ;
         hashTable.clear(); 
+        probeHits = null ;
+        if ( partitions != null )
+            partitions.close() ;
     }
 
     @Override
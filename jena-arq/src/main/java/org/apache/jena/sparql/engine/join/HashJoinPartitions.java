@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import org.apache.jena.atlas.data.BagFactory;
+import org.apache.jena.atlas.data.DataBag;
+import org.apache.jena.atlas.data.ThresholdPolicy;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory;
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.lib.Closeable;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.system.SerializationFactoryFinder;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * Disk-backed partitions for a hash join whose probe table has passed the
+ * {@link ARQ#spillToDiskThreshold} ("grace hash join").
+ * <p>
+ * Both sides are split by join key hash into {@link #NumPartitions} data bags.
+ * A row of the stream side can only match probe rows in the partition with
+ * the same hash so each partition is then joined in turn, with only one
+ * partition of the probe side in memory at a time.
+ * <p>
+ * Rows without any join key variable can match anything:
+ * <ul>
+ * <li>probe rows without a key are kept in memory and added to every partition's probe table.</li>
+ * <li>stream rows without a key are joined with each partition while it is in memory,
+ * then with the probe rows without a key in a final pass.</li>
+ * </ul>
+ * A stream row without a key is seen in several passes so whether it has joined
+ * is recorded (see {@link #finishStreamRow}). Probe rows that have joined are
+ * recorded by position in their partition (see {@link #probeHit} and
+ * {@link #probeMisses}) for the left join that keeps unmatched probe rows.
+ */
+class HashJoinPartitions implements Closeable {
+    /** Number of partitions each side is split into. */
+    static final int NumPartitions = 32;
+
+    private final JoinKey joinKey;
+    private final List<DataBag<Binding>> probeParts;
+    private final List<DataBag<Binding>> streamParts;
+    private final List<Binding> noKeyProbe = new ArrayList<>();
+    private final DataBag<Binding> noKeyStream;
+
+    // -1 : not started; 0 to NumPartitions-1 : partitions; NumPartitions : no key stream rows.
+    private int pass = -1;
+    private HashProbeTable table = null;
+    // The probe rows of the current partition, and their positions.
+    private List<Binding> partRows = null;
+    private Map<Binding, Integer> partIndex = null;
+
+    // Probe rows that have joined, by position in their partition.
+    private final BitSet[] probeHits = new BitSet[NumPartitions];
+    private final Map<Binding, Integer> noKeyProbeIndex = new IdentityHashMap<>();
+    private final BitSet noKeyProbeHits = new BitSet();
+    // Stream rows without a key that have joined, by position.
+    private final BitSet noKeyStreamHits = new BitSet();
+    // Position of the current stream row in noKeyStream, or -1 if it has a key.
+    private int noKeyStreamIndex = -1;
+
+    HashJoinPartitions(JoinKey joinKey, Context context) {
+        this.joinKey = joinKey;
+        // Share the memory allowance between the bags.
+        long threshold = context.getLong(ARQ.spillToDiskThreshold, 0);
+        long partThreshold = Math.max(0, threshold / NumPartitions);
+        this.probeParts = new ArrayList<>(NumPartitions);
+        this.streamParts = new ArrayList<>(NumPartitions);
+        for ( int i = 0 ; i < NumPartitions ; i++ ) {
+            probeParts.add(newBag(partThreshold));
+            streamParts.add(newBag(partThreshold));
+        }
+        this.noKeyStream = newBag(partThreshold);
+    }
+
+    private static DataBag<Binding> newBag(long threshold) {
+        ThresholdPolicy<Binding> policy = ThresholdPolicyFactory.count(threshold);
+        return BagFactory.newDefaultBag(policy, SerializationFactoryFinder.bindingSerializationFactory());
+    }
+
+    // A bag with a zero threshold and no items has no spill file to read.
+    private static Iterator<Binding> iterator(DataBag<Binding> bag) {
+        if ( bag.size() == 0 )
+            return Iter.nullIterator();
+        return bag.iterator();
+    }
+
+    private static int partition(Object hash) {
+        return Math.floorMod(hash.hashCode(), NumPartitions);
+    }
+
+    /** Add a row of the probe (build) side. */
+    public void putProbe(Binding row) {
+        Object hash = JoinLib.hash(joinKey, row);
+        if ( hash == JoinLib.noKeyHash ) {
+            noKeyProbeIndex.put(row, noKeyProbe.size());
+            noKeyProbe.add(row);
+            return;
+        }
+        probeParts.get(partition(hash)).add(row);
+    }
+
+    /** Add a row of the stream side. */
+    public void putStream(Binding row) {
+        Object hash = JoinLib.hash(joinKey, row);
+        if ( hash == JoinLib.noKeyHash ) {
+            noKeyStream.add(row);
+            return;
+        }
+        streamParts.get(partition(hash)).add(row);
+    }
+
+    /**
+     * Move to the next pass over the partitions, skipping any partition with no
+     * stream rows to join. Returns the stream rows for the pass, or null when all
+     * passes are done.
+     */
+    public Iterator<Binding> nextPass() {
+        table = null;
+        partRows = null;
+        partIndex = null;
+        boolean hasNoKeyStream = ( noKeyStream.size() != 0 );
+        while ( pass < NumPartitions ) {
+            pass++;
+            if ( pass == NumPartitions ) {
+                if ( ! hasNoKeyStream || noKeyProbe.isEmpty() )
+                    break;
+                return streamRows(Iter.nullIterator(), true);
+            }
+            DataBag<Binding> streamBag = streamParts.get(pass);
+            DataBag<Binding> probeBag = probeParts.get(pass);
+            boolean noKeyRows = hasNoKeyStream && probeBag.size() != 0;
+            if ( streamBag.size() == 0 && ! noKeyRows )
+                continue;
+            table = new HashProbeTable(joinKey);
+            partRows = new ArrayList<>();
+            partIndex = new IdentityHashMap<>();
+            iterator(probeBag).forEachRemaining(row -> {
+                partIndex.put(row, partRows.size());
+                partRows.add(row);
+                table.put(row);
+            });
+            noKeyProbe.forEach(table::put);
+            return streamRows(iterator(streamBag), noKeyRows);
+        }
+        pass = NumPartitions + 1;
+        return null;
+    }
+
+    // The stream rows of a pass, noting the position of each row without a key.
+    private Iterator<Binding> streamRows(Iterator<Binding> keyed, boolean withNoKey) {
+        Iterator<Binding> noKey = withNoKey ? iterator(noKeyStream) : Iter.nullIterator();
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return keyed.hasNext() || noKey.hasNext();
+            }
+
+            @Override
+            public Binding next() {
+                if ( keyed.hasNext() ) {
+                    noKeyStreamIndex = -1;
+                    return keyed.next();
+                }
+                Binding row = noKey.next();
+                noKeyStreamIndex = index++;
+                return row;
+            }
+        };
+    }
+
+    /** The probe rows that may match a stream row of the current pass. */
+    public Iterator<Binding> getCandidates(Binding row) {
+        if ( noKeyStreamIndex < 0 )
+            return table.getCandidates(row);
+        // No key stream row: the probe rows of the partition, or, in the last pass, the probe rows without a key.
+        if ( partRows != null )
+            return partRows.iterator();
+        return noKeyProbe.iterator();
+    }
+
+    /** The probe table for the current pass, if any. */
+    public HashProbeTable currentTable() {
+        return table;
+    }
+
+    /**
+     * The current stream row has had all its candidates for this pass. Returns
+     * whether it has joined with any probe row, or, for a row that will be seen
+     * again in a later pass, true so that it is not treated as unmatched yet.
+     */
+    public boolean finishStreamRow(boolean yielded) {
+        if ( noKeyStreamIndex < 0 )
+            return yielded;
+        if ( yielded )
+            noKeyStreamHits.set(noKeyStreamIndex);
+        if ( pass < NumPartitions && hasLaterNoKeyPass() )
+            return true;
+        return noKeyStreamHits.get(noKeyStreamIndex);
+    }
+
+    // Whether no key stream rows are in a later pass.
+    private boolean hasLaterNoKeyPass() {
+        if ( ! noKeyProbe.isEmpty() )
+            return true;
+        for ( int i = pass + 1 ; i < NumPartitions ; i++ ) {
+            if ( probeParts.get(i).size() != 0 )
+                return true;
+        }
+        return false;
+    }
+
+    /** Record that a probe row of the current pass has joined. */
+    public void probeHit(Binding row) {
+        Integer idx = ( partIndex == null ) ? null : partIndex.get(row);
+        if ( idx != null ) {
+            if ( probeHits[pass] == null )
+                probeHits[pass] = new BitSet();
+            probeHits[pass].set(idx);
+            return;
+        }
+        idx = noKeyProbeIndex.get(row);
+        if ( idx != null )
+            noKeyProbeHits.set(idx);
+    }
+
+    /** The probe rows that have not joined, reading each partition once. */
+    public Iterator<Binding> probeMisses() {
+        Iterator<Integer> parts = IntStream.range(0, NumPartitions).iterator();
+        Iterator<Binding> iter = Iter.flatMap(parts, p -> misses(iterator(probeParts.get(p)), probeHits[p]));
+        return Iter.concat(iter, misses(noKeyProbe.iterator(), noKeyProbeHits));
+    }
+
+    private static Iterator<Binding> misses(Iterator<Binding> rows, BitSet hits) {
+        if ( hits == null )
+            return rows;
+        int[] index = { 0 };
+        return Iter.filter(rows, row -> ! hits.get(index[0]++));
+    }
+
+    @Override
+    public void close() {
+        table = null;
+        partRows = null;
+        partIndex = null;
+        probeParts.forEach(DataBag::close);
+        streamParts.forEach(DataBag::close);
+        noKeyStream.close();
+        noKeyProbe.clear();
+        noKeyProbeIndex.clear();
+    }
+}
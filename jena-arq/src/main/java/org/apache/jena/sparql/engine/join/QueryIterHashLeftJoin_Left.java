@@ -18,9 +18,6 @@
 
 package org.apache.jena.sparql.engine.join;
 
-import java.util.* ;
-
-import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.logging.Log ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
 import org.apache.jena.sparql.engine.QueryIterator ;
@@ -85,13 +82,11 @@ public class QueryIterHashLeftJoin_Left extends AbstractIterHashJoin {
         this.conditions = conditions ;
     }
 
-    private Set<Binding> leftHits = new HashSet<>() ; 
-    
     @Override
     protected Binding yieldOneResult(Binding rowCurrentProbe, Binding rowStream, Binding rowResult) {
         if ( conditions != null && ! conditions.isSatisfied(rowResult, getExecContext()) )
             return null ;
-        leftHits.add(rowCurrentProbe) ;
+        probeHit(rowCurrentProbe) ;
         return rowResult ; 
     }
     
@@ -103,8 +98,7 @@ public class QueryIterHashLeftJoin_Left extends AbstractIterHashJoin {
     
     @Override
     protected QueryIterator joinFinished() {
-        Iterator<Binding> iter = Iter.filter(hashTable.values(), b-> ! leftHits.contains(b) )  ;
-        return QueryIterPlainWrapper.create(iter, getExecContext()) ;
+        return QueryIterPlainWrapper.create(probeMisses(), getExecContext()) ;
     }
 }
 
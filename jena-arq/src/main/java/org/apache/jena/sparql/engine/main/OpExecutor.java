@@ -37,11 +37,13 @@ import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.ExecutionContext;
 import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.batch.BatchCompiler;
 import org.apache.jena.sparql.engine.binding.Binding;
 import org.apache.jena.sparql.engine.iterator.*;
 import org.apache.jena.sparql.engine.join.Join;
 import org.apache.jena.sparql.engine.main.iterator.QueryIterGraph;
 import org.apache.jena.sparql.engine.main.iterator.QueryIterOptionalIndex;
+import org.apache.jena.sparql.engine.main.iterator.QueryIterParallelUnion;
 import org.apache.jena.sparql.engine.main.iterator.QueryIterUnion;
 import org.apache.jena.sparql.expr.Expr;
 import org.apache.jena.sparql.expr.ExprList;
@@ -96,12 +98,18 @@ public class OpExecutor {
     protected int level = TOP_LEVEL - 1;
     private final boolean hideBNodeVars;
     protected final StageGenerator stageGenerator;
+    private final boolean batchExecution;
 
     protected OpExecutor(ExecutionContext execCxt) {
         this.execCxt = execCxt;
         this.dispatcher = new ExecutionDispatch(this);
         this.hideBNodeVars = execCxt.getContext().isTrue(ARQ.hideNonDistiguishedVariables);
         this.stageGenerator = StageBuilder.chooseStageGenerator(execCxt.getContext());
+        // Batch execution replaces the general purpose OpExecutor and stage generator.
+        this.batchExecution = execCxt.getContext().isTrue(ARQ.batchExecution)
+                              && getClass() == OpExecutor.class
+                              && stageGenerator.getClass() == StageGeneratorGeneric.class
+                              && ! hideBNodeVars;
     }
 
     // Public interface
@@ -112,13 +120,27 @@ public class OpExecutor {
     // ---- The recursive step.
     protected QueryIterator exec(Op op, QueryIterator input) {
         level++;
-        QueryIterator qIter = dispatcher.exec(op, input);
+        QueryIterator qIter = isBatchExecution(op, input)
+            ? BatchCompiler.execute(op, this, execCxt)
+            : dispatcher.exec(op, input);
         // Intentionally not try/finally so exceptions leave some evidence
         // around.
         level--;
         return qIter;
     }
 
+    // Batch execution is for the whole query, starting from the root.
+    private boolean isBatchExecution(Op op, QueryIterator input) {
+        if ( ! batchExecution || level != TOP_LEVEL )
+            return false;
+        if ( ! ( input instanceof QueryIterRoot ) || ! input.isJoinIdentity() )
+            return false;
+        if ( ! BatchCompiler.isBatchOp(op) )
+            return false;
+        input.close();
+        return true;
+    }
+
     // ---- All the cases
 
     protected QueryIterator execute(OpBGP opBGP, QueryIterator input) {
@@ -210,8 +232,12 @@ public class OpExecutor {
             QueryIterator qIter = Join.join(left, right, execCxt);
             return qIter;
         }
+        // The right hand side does not depend on the left, so it can be
+        // evaluated in the background.
+        QueryIterator right = input.isJoinIdentity() ? parallel(List.of(opJoin.getRight())) : null;
         QueryIterator left = exec(opJoin.getLeft(), input);
-        QueryIterator right = exec(opJoin.getRight(), root());
+        if ( right == null )
+            right = exec(opJoin.getRight(), root());
         // Join key.
         QueryIterator qIter = Join.join(left, right, execCxt);
         return qIter;
@@ -273,10 +299,29 @@ public class OpExecutor {
 
     protected QueryIterator execute(OpUnion opUnion, QueryIterator input) {
         List<Op> x = flattenUnion(opUnion);
+        if ( input.isJoinIdentity() ) {
+            // The branches are independent.
+            QueryIterator qIter = parallel(x);
+            if ( qIter != null ) {
+                input.close();
+                return qIter;
+            }
+        }
         QueryIterator cIter = new QueryIterUnion(input, x, execCxt);
         return cIter;
     }
 
+    /**
+     * Evaluate independent sub-operations concurrently if {@link ARQ#parallelUnion} is set.
+     * Returns null if they are to be evaluated in the usual way.
+     */
+    protected QueryIterator parallel(List<Op> subOps) {
+        int parallelism = execCxt.getContext().getInt(ARQ.parallelUnion, 1);
+        if ( parallelism <= 1 )
+            return null;
+        return QueryIterParallelUnion.create(subOps, parallelism, execCxt);
+    }
+
     // Based on code from Olaf Hartig.
     protected List<Op> flattenUnion(OpUnion opUnion) {
         List<Op> x = new ArrayList<>();
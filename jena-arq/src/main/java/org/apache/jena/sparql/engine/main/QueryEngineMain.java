@@ -72,6 +72,10 @@ public class QueryEngineMain extends QueryEngineBase
     protected Op minimalModifyOp(Op op) {
         return Optimize.minimalOptimizationFactory.create(context).rewrite(op);
     }
+
+    @Override
+    protected boolean isPlanCacheable()
+    { return true ; }
     
     // -------- Factory
     
@@ -20,6 +20,7 @@ package org.apache.jena.sparql.engine.main;
 
 import org.apache.jena.atlas.lib.Lib ;
 import org.apache.jena.atlas.logging.Log ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.sparql.core.BasicPattern ;
 import org.apache.jena.sparql.core.Substitute ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
@@ -72,6 +73,8 @@ public class StageGeneratorGeneric implements StageGenerator {
             pattern = reorderProc.reorder(pattern) ;
         }
         Explain.explain("Reorder/generic", pattern, execCxt.getContext()) ;
+        if ( execCxt.getContext().isTrue(ARQ.optAdaptiveBGP) )
+            return PatternMatchData.executeAdaptive(execCxt.getActiveGraph(), pattern, input, execCxt);
         return PatternMatchData.execute(execCxt.getActiveGraph(), pattern, input, null, execCxt);
     }
 }
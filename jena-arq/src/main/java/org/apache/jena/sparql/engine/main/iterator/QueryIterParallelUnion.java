@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.main.iterator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.jena.atlas.io.IndentedWriter;
+import org.apache.jena.atlas.lib.Lib;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.query.QueryExecException;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetSnapshots;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.iterator.QueryIter;
+import org.apache.jena.sparql.engine.iterator.QueryIterRoot;
+import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.serializer.SerializationContext;
+
+/**
+ * Concurrent evaluation of the branches of a union, each starting from the join identity.
+ * <p>
+ * Worker threads take branches in turn, execute them, and pass the results, in
+ * batches, through a bounded queue to the query thread. The results of different
+ * branches are interleaved. With one branch, it is evaluated in the background while
+ * the query thread does other work.
+ * <p>
+ * If the query is in a read transaction, each worker starts its own read transaction
+ * and checks that it sees the same data as the query (see {@link DatasetSnapshots}).
+ * A branch for which this is not the case is evaluated in the query thread.
+ * Workers see cancellation, including timeouts, through the cancel signal of the
+ * {@link ExecutionContext}.
+ */
+public class QueryIterParallelUnion extends QueryIter {
+    /** Number of rows passed from a worker to the query thread at a time. */
+    static final int BatchSize = 100;
+    /** Number of batches waiting for the query thread before workers wait. */
+    static final int QueueSize = 16;
+
+    private static final ThreadFactory threadFactory = new BasicThreadFactory.Builder()
+        .daemon(true)
+        .namingPattern("query-union-%d")
+        .build();
+    private static final ExecutorService executor = Executors.newCachedThreadPool(threadFactory);
+
+    // Rows, or a branch to be evaluated in the query thread, or an error.
+    // All null is the end of a branch.
+    private record Item(List<Binding> rows, Op branch, Throwable error) {}
+    private static final Item endOfBranch = new Item(null, null, null);
+
+    private final List<Op> subOps;
+    private final Object snapshot;
+    private final BlockingQueue<Item> queue = new ArrayBlockingQueue<>(QueueSize);
+    private final AtomicInteger nextBranch = new AtomicInteger(0);
+    private volatile boolean stopping = false;
+
+    // Query thread.
+    private int branchesFinished = 0;
+    private Iterator<Binding> current = null;
+    private QueryIterator localBranch = null;
+
+    /**
+     * Create the iterator and start the worker threads. Return null if the branches
+     * can not be evaluated in other threads: the query is in a write transaction or
+     * the data seen by its read transaction is not known.
+     */
+    public static QueryIterator create(List<Op> subOps, int parallelism, ExecutionContext execCxt) {
+        DatasetGraph dsg = execCxt.getDataset();
+        if ( dsg == null )
+            return null;
+        Object snapshot = null;
+        if ( dsg.isInTransaction() ) {
+            if ( dsg.transactionMode() != ReadWrite.READ )
+                return null;
+            snapshot = DatasetSnapshots.snapshot(dsg);
+            if ( snapshot == null )
+                return null;
+        }
+        QueryIterParallelUnion qIter = new QueryIterParallelUnion(subOps, snapshot, execCxt);
+        int workers = Math.min(parallelism, subOps.size());
+        for ( int i = 0 ; i < workers ; i++ )
+            executor.execute(qIter::work);
+        return qIter;
+    }
+
+    private QueryIterParallelUnion(List<Op> subOps, Object snapshot, ExecutionContext execCxt) {
+        super(execCxt);
+        this.subOps = subOps;
+        this.snapshot = snapshot;
+    }
+
+    // ---- Worker threads
+
+    private void work() {
+        ExecutionContext execCxt = ExecutionContext.fork(getExecContext());
+        DatasetGraph dsg = execCxt.getDataset();
+        for ( ;; ) {
+            int i = nextBranch.getAndIncrement();
+            if ( stopping || i >= subOps.size() )
+                return;
+            Op op = subOps.get(i);
+            boolean inTransaction = false;
+            try {
+                if ( snapshot != null ) {
+                    dsg.begin(TxnType.READ);
+                    inTransaction = true;
+                    if ( ! snapshot.equals(DatasetSnapshots.snapshot(dsg)) ) {
+                        // The data has changed since the query started.
+                        put(new Item(null, op, null));
+                        continue;
+                    }
+                }
+                execute(op, execCxt);
+                put(endOfBranch);
+            } catch (Throwable th) {
+                put(new Item(null, null, th));
+            } finally {
+                if ( inTransaction )
+                    dsg.end();
+            }
+        }
+    }
+
+    private void execute(Op op, ExecutionContext execCxt) {
+        QueryIterator qIter = QC.execute(op, QueryIterRoot.create(execCxt), execCxt);
+        try {
+            List<Binding> rows = new ArrayList<>(BatchSize);
+            while ( ! stopping && qIter.hasNext() ) {
+                // Copy so that the bindings do not refer to this thread's transaction.
+                rows.add(BindingFactory.copy(qIter.next()));
+                if ( rows.size() >= BatchSize ) {
+                    put(new Item(rows, null, null));
+                    rows = new ArrayList<>(BatchSize);
+                }
+            }
+            if ( ! rows.isEmpty() )
+                put(new Item(rows, null, null));
+        } finally {
+            qIter.close();
+        }
+    }
+
+    // Wait for space in the queue, unless the iterator is closed.
+    private void put(Item item) {
+        try {
+            while ( ! stopping ) {
+                if ( queue.offer(item, 100, TimeUnit.MILLISECONDS) )
+                    return;
+            }
+        } catch (InterruptedException ex) {
+            stopping = true;
+        }
+    }
+
+    // ---- Query thread
+
+    @Override
+    protected boolean hasNextBinding() {
+        for ( ;; ) {
+            if ( current != null && current.hasNext() )
+                return true;
+            current = null;
+            if ( localBranch != null ) {
+                localBranch.close();
+                localBranch = null;
+                branchesFinished++;
+            }
+            if ( branchesFinished >= subOps.size() )
+                return false;
+            Item item = take();
+            if ( item.error() != null ) {
+                stopping = true;
+                throw exception(item.error());
+            }
+            if ( item.rows() != null )
+                current = item.rows().iterator();
+            else if ( item.branch() != null ) {
+                localBranch = QC.execute(item.branch(), QueryIterRoot.create(getExecContext()), getExecContext());
+                current = localBranch;
+            } else
+                branchesFinished++;
+        }
+    }
+
+    private Item take() {
+        try {
+            for ( ;; ) {
+                Item item = queue.poll(100, TimeUnit.MILLISECONDS);
+                if ( item != null )
+                    return item;
+                if ( getExecContext().getCancelSignal() != null && getExecContext().getCancelSignal().get() )
+                    throw new QueryCancelledException();
+            }
+        } catch (InterruptedException ex) {
+            throw new QueryCancelledException();
+        }
+    }
+
+    private static RuntimeException exception(Throwable th) {
+        if ( th instanceof RuntimeException ex )
+            return ex;
+        if ( th instanceof Error err )
+            throw err;
+        return new QueryExecException(th);
+    }
+
+    @Override
+    protected Binding moveToNextBinding() {
+        return current.next();
+    }
+
+    @Override
+    protected void closeIterator() {
+        stopping = true;
+        queue.clear();
+        if ( localBranch != null ) {
+            localBranch.close();
+            localBranch = null;
+        }
+    }
+
+    @Override
+    protected void requestCancel() {
+        stopping = true;
+        QueryIterator qIter = localBranch;
+        if ( qIter != null )
+            qIter.cancel();
+    }
+
+    @Override
+    public void output(IndentedWriter out, SerializationContext sCxt) {
+        out.println(Lib.className(this));
+        out.incIndent();
+        for ( Op op : subOps )
+            op.output(out, sCxt);
+        out.decIndent();
+        out.ensureStartOfLine();
+    }
+}
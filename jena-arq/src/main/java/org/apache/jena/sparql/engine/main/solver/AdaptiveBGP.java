@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.main.solver;
+
+import java.util.*;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.iterator.Abortable;
+import org.apache.jena.sparql.util.VarUtils;
+
+/**
+ * Adaptive execution of a basic graph pattern.
+ * <p>
+ * The first triple pattern is matched as given. The rows it produces are taken in
+ * batches and the other triple patterns are matched for each batch in an order
+ * chosen from the number of matches per row seen so far for each triple pattern
+ * (the fan-out), smallest first. Before the first batch, each triple pattern is
+ * probed with a few rows. The observations are kept by which of the variables of
+ * the triple pattern are bound, and the order is revised for each batch, so a
+ * triple pattern that matches far more, or far less, than expected moves in the
+ * order while the query runs.
+ * <p>
+ * The order of the results is not the same as for static execution.
+ * <p>
+ * The matching of one triple pattern is supplied as a {@link Step} over rows of
+ * type {@code X}, so this is used for bindings of nodes ({@link PatternMatchData})
+ * and for bindings of TDB2 NodeIds.
+ */
+public class AdaptiveBGP<X> implements Iterator<X>, Abortable {
+    /** Number of rows used to probe each triple pattern before the first batch. */
+    public static int SampleRows = 8;
+    /** Maximum number of matches counted when probing. */
+    public static int ProbeLimit = 1000;
+    /** Size of the first batch. Batches double in size up to {@link #MaxBatchSize}. */
+    public static int InitialBatchSize = 16;
+    public static int MaxBatchSize = 1024;
+
+    /** Extend each row of the input by matching a triple pattern. */
+    @FunctionalInterface
+    public interface Step<X> {
+        public Iterator<X> apply(Iterator<X> input, Triple triple);
+    }
+
+    /**
+     * Execute the triple patterns, adaptively if there are more than two.
+     * The iterator returned is added to the {@code killList}.
+     */
+    public static <X> Iterator<X> execute(Iterator<X> input, List<Triple> triples, Step<X> step, List<Abortable> killList) {
+        long[] varMasks = varMasks(triples);
+        if ( triples.size() < 3 || varMasks == null ) {
+            Iterator<X> chain = input;
+            for ( Triple triple : triples ) {
+                chain = step.apply(chain, triple);
+                chain = SolverLib.makeAbortable(chain, killList);
+            }
+            return chain;
+        }
+        AdaptiveBGP<X> iter = new AdaptiveBGP<>(input, triples, step, varMasks);
+        if ( killList != null )
+            killList.add(iter);
+        return iter;
+    }
+
+    // For each triple pattern, a bit for each of its variables.
+    // Null if there are too many variables.
+    private static long[] varMasks(List<Triple> triples) {
+        Map<Var, Integer> index = new HashMap<>();
+        long[] masks = new long[triples.size()];
+        for ( int i = 0 ; i < triples.size() ; i++ ) {
+            Set<Var> vars = new LinkedHashSet<>();
+            VarUtils.addVarsFromTriple(vars, triples.get(i));
+            for ( Var v : vars ) {
+                int idx = index.computeIfAbsent(v, k -> index.size());
+                if ( idx >= Long.SIZE )
+                    return null;
+                masks[i] |= 1L << idx;
+            }
+        }
+        return masks;
+    }
+
+    // Rows in and rows out for a triple pattern.
+    private static class Counts {
+        long rows = 0;
+        long matches = 0;
+        double fanout() { return (double)matches / rows; }
+    }
+
+    // Count the items returned.
+    private static class Counter<X> implements Iterator<X> {
+        private final Iterator<X> iter;
+        long count = 0;
+        Counter(Iterator<X> iter) { this.iter = iter; }
+        @Override public boolean hasNext() { return iter.hasNext(); }
+        @Override public X next() { X x = iter.next(); count++; return x; }
+    }
+
+    private final List<Triple> triples;
+    private final Step<X> step;
+    private final long[] varMasks;
+    private final Iterator<X> driver;
+    // For each triple pattern, the observations keyed by which of its variables are bound.
+    private final List<Map<Long, Counts>> observations;
+    private int batchSize = InitialBatchSize;
+    private boolean probed = false;
+
+    // The current batch.
+    private Iterator<X> current = null;
+    private int[] order = null;
+    private List<Counter<X>> counters = null;
+    private int replans = 0;
+
+    private volatile boolean abortFlag = false;
+    private volatile List<Abortable> abortables = List.of();
+
+    private AdaptiveBGP(Iterator<X> input, List<Triple> triples, Step<X> step, long[] varMasks) {
+        this.triples = triples;
+        this.step = step;
+        this.varMasks = varMasks;
+        this.driver = step.apply(input, triples.get(0));
+        this.observations = new ArrayList<>(triples.size());
+        for ( int i = 0 ; i < triples.size() ; i++ )
+            observations.add(new HashMap<>());
+    }
+
+    @Override
+    public boolean hasNext() {
+        for (;;) {
+            if ( abortFlag )
+                throw new QueryCancelledException();
+            if ( current != null ) {
+                if ( current.hasNext() )
+                    return true;
+                endBatch();
+            }
+            if ( !driver.hasNext() )
+                return false;
+            List<X> batch = new ArrayList<>(batchSize);
+            while ( batch.size() < batchSize && driver.hasNext() )
+                batch.add(driver.next());
+            batchSize = Math.min(2 * batchSize, MaxBatchSize);
+            if ( !probed ) {
+                probe(batch);
+                probed = true;
+            }
+            startBatch(batch);
+        }
+    }
+
+    @Override
+    public X next() {
+        if ( !hasNext() )
+            throw new NoSuchElementException();
+        return current.next();
+    }
+
+    @Override
+    public void abort() {
+        abortFlag = true;
+        abortables.forEach(Abortable::abort);
+    }
+
+    /** Number of times the order has changed between batches. */
+    public int getReplans() {
+        return replans;
+    }
+
+    // Match each of the other triple patterns for the first few rows.
+    private void probe(List<X> batch) {
+        int n = Math.min(SampleRows, batch.size());
+        for ( int i = 1 ; i < triples.size() ; i++ ) {
+            long key = varMasks[0] & varMasks[i];
+            for ( int r = 0 ; r < n ; r++ ) {
+                Iterator<X> iter = step.apply(Iter.singleton(batch.get(r)), triples.get(i));
+                long count = 0;
+                while ( count < ProbeLimit && iter.hasNext() ) {
+                    iter.next();
+                    count++;
+                }
+                Iter.close(iter);
+                record(i, key, 1, count);
+            }
+        }
+    }
+
+    private void startBatch(List<X> batch) {
+        int[] newOrder = plan();
+        if ( order != null && !Arrays.equals(order, newOrder) )
+            replans++;
+        order = newOrder;
+        List<Abortable> killList = new ArrayList<>(order.length);
+        counters = new ArrayList<>(order.length + 1);
+        Counter<X> counter = new Counter<>(batch.iterator());
+        counters.add(counter);
+        Iterator<X> chain = counter;
+        for ( int idx : order ) {
+            chain = step.apply(chain, triples.get(idx));
+            chain = SolverLib.makeAbortable(chain, killList);
+            counter = new Counter<>(chain);
+            counters.add(counter);
+            chain = counter;
+        }
+        abortables = killList;
+        current = chain;
+    }
+
+    // Record the numbers of rows and matches for each triple pattern of the batch.
+    private void endBatch() {
+        long bound = varMasks[0];
+        for ( int k = 0 ; k < order.length ; k++ ) {
+            int idx = order[k];
+            long rows = counters.get(k).count;
+            if ( rows > 0 )
+                record(idx, bound & varMasks[idx], rows, counters.get(k+1).count);
+            bound |= varMasks[idx];
+        }
+        current = null;
+        counters = null;
+        abortables = List.of();
+    }
+
+    private void record(int idx, long key, long rows, long matches) {
+        Counts counts = observations.get(idx).computeIfAbsent(key, k -> new Counts());
+        counts.rows += rows;
+        counts.matches += matches;
+    }
+
+    // Greedy: the triple pattern with the least fan-out next.
+    // On a tie, the given order.
+    private int[] plan() {
+        int N = triples.size();
+        int[] plan = new int[N - 1];
+        boolean[] used = new boolean[N];
+        long bound = varMasks[0];
+        for ( int k = 0 ; k < N - 1 ; k++ ) {
+            int best = -1;
+            double bestFanout = Double.POSITIVE_INFINITY;
+            for ( int i = 1 ; i < N ; i++ ) {
+                if ( used[i] )
+                    continue;
+                double f = estimate(i, bound & varMasks[i]);
+                if ( best < 0 || f < bestFanout ) {
+                    best = i;
+                    bestFanout = f;
+                }
+            }
+            plan[k] = best;
+            used[best] = true;
+            bound |= varMasks[best];
+        }
+        return plan;
+    }
+
+    // Fan-out with these variables bound. If there are no observations for
+    // exactly these, use the smallest for fewer bound variables, which is an
+    // overestimate.
+    private double estimate(int idx, long key) {
+        Map<Long, Counts> obs = observations.get(idx);
+        Counts exact = obs.get(key);
+        if ( exact != null )
+            return exact.fanout();
+        double f = Double.POSITIVE_INFINITY;
+        for ( Map.Entry<Long, Counts> e : obs.entrySet() ) {
+            if ( (e.getKey() & ~key) == 0 )
+                f = Math.min(f, e.getValue().fanout());
+        }
+        return f;
+    }
+}
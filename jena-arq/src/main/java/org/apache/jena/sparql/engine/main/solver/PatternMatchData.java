@@ -67,6 +67,21 @@ public class PatternMatchData {
         return new QueryIterAbortable(chain, killList, input, execCxt);
     }
 
+    /**
+     * Adaptive execution of a triple pattern (basic graph pattern), given an iterator
+     * of bindings as input. The triple patterns after the first are reordered as
+     * execution proceeds. See {@link AdaptiveBGP}.
+     */
+    public static QueryIterator executeAdaptive(Graph graph, BasicPattern pattern,
+                                                QueryIterator input, ExecutionContext execCxt)
+    {
+        List<Abortable> killList = new ArrayList<>();
+        Iterator<Binding> chain = AdaptiveBGP.execute(input, pattern.getList(),
+                                                      (iter, triple) -> SolverRX3.rdfStarTriple(iter, triple, execCxt),
+                                                      killList);
+        return new QueryIterAbortable(chain, killList, input, execCxt);
+    }
+
     /** Non-reordering execution of a quad pattern, a graph name and a basic graph pattern,
      *  given an iterator of bindings as input.
      *  <p>
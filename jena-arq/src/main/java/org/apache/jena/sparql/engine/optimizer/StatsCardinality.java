@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.*;
+
+import org.apache.jena.atlas.logging.Log;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.ARQException;
+import org.apache.jena.sparql.engine.optimizer.reorder.PatternElements;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.graph.NodeConst;
+import org.apache.jena.sparql.sse.Item;
+import org.apache.jena.sparql.sse.ItemList;
+import org.apache.jena.sparql.sse.SSE;
+
+/**
+ * Cardinality estimates from a statistics file.
+ * <p>
+ * This uses the detailed sections of the stats format, in addition to the
+ * predicate and {@code rdf:type} counts used by {@link StatsMatcher}:
+ *
+ * <pre>
+ * (stats
+ *    (meta ... (count N) (subjects S) (objects O))
+ *    ...
+ *    (predicates
+ *       (&lt;predicate uri&gt; (count N) (subjects S) (objects O)
+ *           (histogram (bounds v0 v1 ... vk) (counts c1 ... ck) (distinct d1 ... dk)))
+ *    )
+ *    (charsets
+ *       (charset S (&lt;p1&gt; N1) (&lt;p2&gt; N2) ...)
+ *    )
+ * )
+ * </pre>
+ *
+ * A characteristic set is a set of predicates that some subjects have exactly:
+ * {@code S} is the number of such subjects and {@code Ni} the number of triples
+ * with predicate {@code pi} for those subjects. They give estimates for star joins
+ * (patterns with a common subject) that take account of correlated predicates.
+ * The histogram covers the numeric values of the objects of a predicate.
+ */
+public class StatsCardinality {
+    public static final String PREDICATES = "predicates";
+    public static final String CHARSETS   = "charsets";
+    public static final String CHARSET    = "charset";
+    public static final String SUBJECTS   = "subjects";
+    public static final String OBJECTS    = "objects";
+    public static final String HISTOGRAM  = "histogram";
+    public static final String BOUNDS     = "bounds";
+    public static final String COUNTS     = "counts";
+    public static final String DISTINCT   = "distinct";
+
+    /** Counts for one predicate. {@code histogram} may be null. */
+    public record PredicateStats(long count, long subjects, long objects, Histogram histogram) {}
+
+    /** The subjects with exactly this set of predicates and the number of triples for each predicate. */
+    public record CharacteristicSet(long subjects, Map<Node, Long> occurrences) {}
+
+    /**
+     * Equi-depth histogram over numeric values: bucket {@code i} covers
+     * {@code bounds[i]} to {@code bounds[i+1]}, holding {@code counts[i]} values
+     * of which {@code distinct[i]} are different.
+     */
+    public record Histogram(double[] bounds, long[] counts, long[] distinct) {
+        /** Estimate the number of occurrences of a value. */
+        public double estimateEquals(double value) {
+            int k = counts.length;
+            if ( k == 0 || value < bounds[0] || value > bounds[k] )
+                return 0;
+            int idx = Arrays.binarySearch(bounds, value);
+            // Exact match on a boundary - use the bucket starting at that value unless it is the end.
+            int bucket = ( idx >= 0 ) ? Math.min(idx, k-1) : -idx-2;
+            bucket = Math.max(0, Math.min(bucket, k-1));
+            return (double)counts[bucket] / Math.max(1, distinct[bucket]);
+        }
+    }
+
+    private long count = -1;
+    private long subjects = -1;
+    private long objects = -1;
+    private final Map<Node, PredicateStats> predicates = new HashMap<>();
+    private final Map<Node, Long> types = new HashMap<>();
+    private final List<CharacteristicSet> charsets = new ArrayList<>();
+    // Characteristic sets, by each predicate in the set.
+    private final Map<Node, List<CharacteristicSet>> charsetsByPredicate = new HashMap<>();
+
+    public StatsCardinality(String filename) {
+        Item stats = SSE.readFile(filename);
+        if ( stats.isNil() ) {
+            Log.warn(this, "Empty stats file: " + filename);
+            return;
+        }
+        init(stats);
+    }
+
+    public StatsCardinality(Item stats) {
+        init(stats);
+    }
+
+    /** Whether the statistics include characteristic sets. */
+    public static boolean hasCharacteristicSets(Item stats) {
+        return stats.isTagged(StatsMatcher.STATS) && Item.find(stats.getList(), CHARSETS) != null;
+    }
+
+    private void init(Item stats) {
+        if ( !stats.isTagged(StatsMatcher.STATS) )
+            throw new ARQException("Not a tagged '" + StatsMatcher.STATS + "'");
+        ItemList list = stats.getList().cdr();
+        for ( Item elt : list ) {
+            if ( elt.isTagged(StatsMatcher.META) ) {
+                count = longValue(elt.getList(), StatsMatcher.COUNT, -1);
+                subjects = longValue(elt.getList(), SUBJECTS, -1);
+                objects = longValue(elt.getList(), OBJECTS, -1);
+            } else if ( elt.isTagged(PREDICATES) )
+                elt.getList().cdr().forEach(this::onePredicate);
+            else if ( elt.isTagged(CHARSETS) )
+                elt.getList().cdr().forEach(this::oneCharset);
+            else if ( elt.isList() && elt.getList().size() == 2 )
+                onePattern(elt);
+        }
+    }
+
+    // (<p> count) and ((VAR rdf:type <T>) count)
+    private void onePattern(Item elt) {
+        Item pat = elt.getList().get(0);
+        Item w = elt.getList().get(1);
+        if ( !w.isNode() )
+            return;
+        if ( pat.isNodeURI() ) {
+            Node p = pat.getNode();
+            if ( ! predicates.containsKey(p) )
+                predicates.put(p, new PredicateStats(w.getLong(), -1, -1, null));
+            return;
+        }
+        if ( pat.isList() && pat.getList().size() == 3 ) {
+            Item s = pat.getList().get(0);
+            Item p = pat.getList().get(1);
+            Item o = pat.getList().get(2);
+            if ( s.sameSymbol(PatternElements.VAR.getSymbol()) && p.isNode() && NodeConst.nodeRDFType.equals(p.getNode()) && o.isNode() )
+                types.put(o.getNode(), w.getLong());
+        }
+    }
+
+    // (<p> (count N) (subjects S) (objects O) (histogram ...))
+    private void onePredicate(Item elt) {
+        ItemList x = elt.getList();
+        if ( x.isEmpty() || !x.get(0).isNodeURI() ) {
+            Log.warn(this, "Not a predicate entry: " + elt);
+            return;
+        }
+        Node p = x.get(0).getNode();
+        ItemList fields = x.cdr();
+        long n = longValue(fields, StatsMatcher.COUNT, -1);
+        long s = longValue(fields, SUBJECTS, -1);
+        long o = longValue(fields, OBJECTS, -1);
+        Histogram histogram = null;
+        Item h = Item.find(fields, HISTOGRAM);
+        if ( h != null )
+            histogram = histogram(h.getList());
+        predicates.put(p, new PredicateStats(n, s, o, histogram));
+    }
+
+    private static Histogram histogram(ItemList list) {
+        Item b = Item.find(list, BOUNDS);
+        Item c = Item.find(list, COUNTS);
+        Item d = Item.find(list, DISTINCT);
+        if ( b == null || c == null || d == null )
+            return null;
+        ItemList bx = b.getList().cdr();
+        ItemList cx = c.getList().cdr();
+        ItemList dx = d.getList().cdr();
+        int k = cx.size();
+        if ( bx.size() != k+1 || dx.size() != k )
+            throw new ARQException("Histogram: inconsistent sizes");
+        double[] bounds = new double[k+1];
+        long[] counts = new long[k];
+        long[] distinct = new long[k];
+        for ( int i = 0 ; i <= k ; i++ )
+            bounds[i] = bx.get(i).getDouble();
+        for ( int i = 0 ; i < k ; i++ ) {
+            counts[i] = cx.get(i).getLong();
+            distinct[i] = dx.get(i).getLong();
+        }
+        return new Histogram(bounds, counts, distinct);
+    }
+
+    // (charset S (<p1> N1) ...)
+    private void oneCharset(Item elt) {
+        if ( !elt.isTagged(CHARSET) ) {
+            Log.warn(this, "Not a characteristic set: " + elt);
+            return;
+        }
+        ItemList x = elt.getList().cdr();
+        long s = x.get(0).getLong();
+        Map<Node, Long> occurrences = new HashMap<>();
+        for ( Item pair : x.cdr() )
+            occurrences.put(pair.getList().get(0).getNode(), pair.getList().get(1).getLong());
+        CharacteristicSet cs = new CharacteristicSet(s, Map.copyOf(occurrences));
+        charsets.add(cs);
+        occurrences.keySet().forEach(p -> charsetsByPredicate.computeIfAbsent(p, k -> new ArrayList<>()).add(cs));
+    }
+
+    private static long longValue(ItemList list, String key, long dft) {
+        Item x = Item.find(list, key);
+        if ( x == null )
+            return dft;
+        return x.getList().get(1).getLong();
+    }
+
+    /** Number of triples, or -1 if not known. */
+    public long getCount() {
+        return count;
+    }
+
+    /** Whether there are any characteristic sets. */
+    public boolean hasCharacteristicSets() {
+        return !charsets.isEmpty();
+    }
+
+    public List<CharacteristicSet> getCharacteristicSets() {
+        return Collections.unmodifiableList(charsets);
+    }
+
+    public PredicateStats getPredicateStats(Node predicate) {
+        return predicates.get(predicate);
+    }
+
+    /** Number of triples with the predicate. */
+    public double count(Node predicate) {
+        PredicateStats ps = predicates.get(predicate);
+        return ( ps == null ) ? 0 : ps.count();
+    }
+
+    /** Number of different subjects of the predicate. */
+    public double distinctSubjects(Node predicate) {
+        PredicateStats ps = predicates.get(predicate);
+        if ( ps == null )
+            return 0;
+        if ( ps.subjects() >= 0 )
+            return ps.subjects();
+        List<CharacteristicSet> x = charsetsByPredicate.get(predicate);
+        if ( x != null )
+            return x.stream().mapToLong(CharacteristicSet::subjects).sum();
+        return ps.count();
+    }
+
+    /** Number of different objects of the predicate. */
+    public double distinctObjects(Node predicate) {
+        PredicateStats ps = predicates.get(predicate);
+        if ( ps == null )
+            return 0;
+        return ( ps.objects() >= 0 ) ? ps.objects() : ps.count();
+    }
+
+    /** Number of different subjects, over all predicates. */
+    public double distinctSubjects() {
+        if ( subjects >= 0 )
+            return subjects;
+        return Math.max(1, charsets.stream().mapToLong(CharacteristicSet::subjects).sum());
+    }
+
+    /** Number of different objects, over all predicates. */
+    public double distinctObjects() {
+        return ( objects >= 0 ) ? objects : Math.max(1, count);
+    }
+
+    /** Number of different predicates. */
+    public double distinctPredicates() {
+        return Math.max(1, predicates.size());
+    }
+
+    /**
+     * Estimate the number of subjects that have all the predicates.
+     */
+    public double starSubjects(Collection<Node> predicates) {
+        if ( predicates.isEmpty() )
+            return distinctSubjects();
+        if ( !hasCharacteristicSets() )
+            return predicates.stream().mapToDouble(this::distinctSubjects).min().orElse(0);
+        double total = 0;
+        for ( CharacteristicSet cs : candidates(predicates) ) {
+            if ( cs.occurrences().keySet().containsAll(predicates) )
+                total += cs.subjects();
+        }
+        return total;
+    }
+
+    /**
+     * Estimate the number of results of a star join: triple patterns with the same
+     * subject variable and each of the predicates, with other positions different
+     * variables.
+     */
+    public double starCardinality(Collection<Node> predicates) {
+        if ( predicates.isEmpty() )
+            return distinctSubjects();
+        if ( !hasCharacteristicSets() ) {
+            // Independence : the subjects with the rarest predicate, the average number for each predicate.
+            double subj = predicates.stream().mapToDouble(this::distinctSubjects).min().orElse(0);
+            double x = subj;
+            for ( Node p : predicates ) {
+                double s = distinctSubjects(p);
+                x *= ( s == 0 ) ? 0 : count(p) / s;
+            }
+            return x;
+        }
+        double total = 0;
+        for ( CharacteristicSet cs : candidates(predicates) ) {
+            Map<Node, Long> occ = cs.occurrences();
+            if ( !occ.keySet().containsAll(predicates) )
+                continue;
+            double x = cs.subjects();
+            for ( Node p : predicates )
+                x *= (double)occ.get(p) / cs.subjects();
+            total += x;
+        }
+        return total;
+    }
+
+    // The characteristic sets of the predicate in the collection with the fewest of them.
+    private List<CharacteristicSet> candidates(Collection<Node> predicates) {
+        List<CharacteristicSet> best = null;
+        for ( Node p : predicates ) {
+            List<CharacteristicSet> x = charsetsByPredicate.getOrDefault(p, List.of());
+            if ( best == null || x.size() < best.size() )
+                best = x;
+        }
+        return best;
+    }
+
+    /**
+     * Estimate the fraction of the triples with the predicate that have the object.
+     */
+    public double objectSelectivity(Node predicate, Node object) {
+        double n = count(predicate);
+        if ( n == 0 )
+            return 0;
+        if ( NodeConst.nodeRDFType.equals(predicate) && types.containsKey(object) )
+            return Math.min(1, types.get(object) / n);
+        PredicateStats ps = predicates.get(predicate);
+        if ( ps.histogram() != null && object.isLiteral() ) {
+            double v = numeric(object);
+            if ( !Double.isNaN(v) )
+                return Math.min(1, ps.histogram().estimateEquals(v) / n);
+        }
+        double d = distinctObjects(predicate);
+        return ( d <= 0 ) ? 0 : 1 / d;
+    }
+
+    private static double numeric(Node node) {
+        try {
+            NodeValue nv = NodeValue.makeNode(node);
+            return nv.isNumber() ? nv.getDouble() : Double.NaN;
+        } catch (RuntimeException ex) {
+            return Double.NaN;
+        }
+    }
+}
@@ -121,6 +121,9 @@ public final class StatsMatcher {
         while (!list.isEmpty()) {
             Item elt = list.car();
             list = list.cdr();
+            // Detailed statistics - see StatsCardinality.
+            if ( elt.isTagged(StatsCardinality.PREDICATES) || elt.isTagged(StatsCardinality.CHARSETS) )
+                continue;
             onePattern(elt);
         }
     }
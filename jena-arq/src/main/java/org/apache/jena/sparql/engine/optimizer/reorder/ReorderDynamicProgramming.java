@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer.reorder;
+
+import java.util.*;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality;
+
+/**
+ * Join order for a basic graph pattern by dynamic programming over the subsets of
+ * its triple patterns, using the cardinality estimates of {@link StatsCardinality}.
+ * <p>
+ * Execution is by substitution (index nested loop join), so a plan is a sequence of
+ * triple patterns. The cost of a sequence is the sum of the estimated sizes of the
+ * intermediate results. The estimated size for a set of triple patterns does not
+ * depend on the order, so the best sequence for each set is found from the best
+ * sequences for its subsets with one pattern less.
+ * <p>
+ * Triple patterns with the same subject are estimated together as a star join using
+ * characteristic sets. Other joins use the number of different values of the join
+ * variable at each side.
+ * <p>
+ * Basic graph patterns with more than {@link #MaxPatternsDP} triple patterns are
+ * ordered greedily with the same estimates.
+ */
+public class ReorderDynamicProgramming implements ReorderTransformation {
+    /** Largest basic graph pattern for exhaustive search. */
+    public static final int MaxPatternsDP = 12;
+
+    private final StatsCardinality stats;
+
+    public ReorderDynamicProgramming(StatsCardinality stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public BasicPattern reorder(BasicPattern pattern) {
+        if ( pattern.size() <= 1 )
+            return pattern;
+        return reorderIndexes(pattern).reorder(pattern);
+    }
+
+    @Override
+    public ReorderProc reorderIndexes(BasicPattern pattern) {
+        int N = pattern.size();
+        if ( N <= 1 )
+            return ReorderLib.identityProc();
+        Estimator estimator = new Estimator(stats, pattern.getList());
+        int[] order = ( N <= MaxPatternsDP ) ? dynamicProgramming(estimator, N) : greedy(estimator, N);
+        return new ReorderProcIndexes(order);
+    }
+
+    /** Estimated number of results for the basic graph pattern. */
+    public double cardinality(BasicPattern pattern) {
+        int N = pattern.size();
+        int[] members = new int[N];
+        for ( int i = 0 ; i < N ; i++ )
+            members[i] = i;
+        return new Estimator(stats, pattern.getList()).cardinality(members, N);
+    }
+
+    private static int[] dynamicProgramming(Estimator estimator, int N) {
+        int full = (1 << N) - 1;
+        double[] cost = new double[full+1];
+        int[] last = new int[full+1];
+        int[] members = new int[N];
+        for ( int mask = 1 ; mask <= full ; mask++ ) {
+            int len = 0;
+            for ( int i = 0 ; i < N ; i++ ) {
+                if ( (mask & (1 << i)) != 0 )
+                    members[len++] = i;
+            }
+            double card = estimator.cardinality(members, len);
+            if ( len == 1 ) {
+                cost[mask] = card;
+                last[mask] = members[0];
+                continue;
+            }
+            // Which pattern to put last. On a tie, keep the written order.
+            double best = Double.POSITIVE_INFINITY;
+            int bestLast = members[len-1];
+            for ( int j = len-1 ; j >= 0 ; j-- ) {
+                int t = members[j];
+                double c = cost[mask & ~(1 << t)];
+                if ( c < best ) {
+                    best = c;
+                    bestLast = t;
+                }
+            }
+            cost[mask] = best + card;
+            last[mask] = bestLast;
+        }
+        int[] order = new int[N];
+        int mask = full;
+        for ( int i = N-1 ; i >= 0 ; i-- ) {
+            int t = last[mask];
+            order[i] = t;
+            mask &= ~(1 << t);
+        }
+        return order;
+    }
+
+    private static int[] greedy(Estimator estimator, int N) {
+        int[] order = new int[N];
+        boolean[] used = new boolean[N];
+        for ( int len = 0 ; len < N ; len++ ) {
+            double best = Double.POSITIVE_INFINITY;
+            int bestIdx = -1;
+            for ( int t = 0 ; t < N ; t++ ) {
+                if ( used[t] )
+                    continue;
+                order[len] = t;
+                double c = estimator.cardinality(order, len+1);
+                if ( c < best ) {
+                    best = c;
+                    bestIdx = t;
+                }
+            }
+            order[len] = bestIdx;
+            used[bestIdx] = true;
+        }
+        return order;
+    }
+
+    /** Cardinality estimates for sets of the triple patterns of a basic graph pattern. */
+    private static class Estimator {
+        private final StatsCardinality stats;
+        private final List<Triple> triples;
+
+        Estimator(StatsCardinality stats, List<Triple> triples) {
+            this.stats = stats;
+            this.triples = triples;
+        }
+
+        /** Estimate the number of results of the triple patterns {@code members[0..len)}. */
+        double cardinality(int[] members, int len) {
+            // Group by subject, for triple patterns with a fixed predicate.
+            Map<Node, List<Triple>> stars = new LinkedHashMap<>();
+            List<Triple> others = new ArrayList<>();
+            for ( int i = 0 ; i < len ; i++ ) {
+                Triple t = triples.get(members[i]);
+                if ( t.getPredicate().isURI() )
+                    stars.computeIfAbsent(t.getSubject(), k -> new ArrayList<>()).add(t);
+                else
+                    others.add(t);
+            }
+
+            // For each variable, the number of different values at each place it occurs.
+            Map<Node, List<Double>> joinVars = new HashMap<>();
+            double card = 1;
+            for ( Map.Entry<Node, List<Triple>> e : stars.entrySet() )
+                card *= star(e.getKey(), e.getValue(), joinVars);
+            for ( Triple t : others )
+                card *= other(t, joinVars);
+            if ( card <= 0 )
+                return 0;
+
+            // Each join reduces the results by the number of values at all but the smallest side.
+            for ( List<Double> distinct : joinVars.values() ) {
+                if ( distinct.size() < 2 )
+                    continue;
+                double min = Double.POSITIVE_INFINITY;
+                double product = 1;
+                for ( double d : distinct ) {
+                    d = Math.max(1, d);
+                    min = Math.min(min, d);
+                    product *= d;
+                }
+                card = card * min / product;
+            }
+            return card;
+        }
+
+        // Triple patterns with the same subject and fixed predicates.
+        private double star(Node subject, List<Triple> star, Map<Node, List<Double>> joinVars) {
+            Set<Node> predicates = new LinkedHashSet<>();
+            double repeats = 1;
+            for ( Triple t : star ) {
+                Node p = t.getPredicate();
+                if ( !predicates.add(p) )
+                    // Same predicate again: the average number of values for each subject.
+                    repeats *= perSubject(p);
+            }
+            double est;
+            double subjects;
+            if ( Var.isVar(subject) ) {
+                est = stats.starCardinality(predicates) * repeats;
+                subjects = stats.starSubjects(predicates);
+            } else {
+                est = repeats;
+                for ( Node p : predicates )
+                    est *= perSubject(p);
+                subjects = 1;
+            }
+            for ( Triple t : star ) {
+                Node p = t.getPredicate();
+                Node o = t.getObject();
+                if ( Var.isVar(o) )
+                    note(joinVars, o, Math.min(stats.distinctObjects(p), est));
+                else {
+                    double sel = stats.objectSelectivity(p, o);
+                    est *= sel;
+                    subjects *= sel;
+                }
+            }
+            if ( Var.isVar(subject) )
+                note(joinVars, subject, Math.min(subjects, est));
+            return est;
+        }
+
+        private double perSubject(Node p) {
+            double s = stats.distinctSubjects(p);
+            return ( s <= 0 ) ? 0 : stats.count(p) / s;
+        }
+
+        // Triple pattern with a variable predicate.
+        private double other(Triple t, Map<Node, List<Double>> joinVars) {
+            double total = stats.getCount();
+            if ( total < 0 )
+                total = stats.distinctSubjects();
+            if ( total <= 0 )
+                return 0;
+            // At least one of each for any data.
+            double subjects = Math.max(1, stats.distinctSubjects());
+            double objects = Math.max(1, stats.distinctObjects());
+            double est = total;
+            Node s = t.getSubject();
+            Node o = t.getObject();
+            if ( Var.isVar(s) )
+                note(joinVars, s, subjects);
+            else
+                est /= subjects;
+            if ( Var.isVar(o) )
+                note(joinVars, o, objects);
+            else
+                est /= objects;
+            note(joinVars, t.getPredicate(), stats.distinctPredicates());
+            return est;
+        }
+
+        private static void note(Map<Node, List<Double>> joinVars, Node var, double distinct) {
+            joinVars.computeIfAbsent(var, k -> new ArrayList<>(2)).add(distinct);
+        }
+    }
+}
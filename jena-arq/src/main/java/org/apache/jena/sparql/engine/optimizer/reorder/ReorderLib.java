@@ -19,7 +19,10 @@
 package org.apache.jena.sparql.engine.optimizer.reorder ;
 
 import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality ;
 import org.apache.jena.sparql.engine.optimizer.StatsMatcher ;
+import org.apache.jena.sparql.sse.Item ;
+import org.apache.jena.sparql.sse.SSE ;
 
 public class ReorderLib
 {
@@ -85,4 +88,26 @@ public class ReorderLib
         return new ReorderWeighted(stats) ;
     }
 
+    /**
+     * Return a ReorderTransformation that finds the join order with the least estimated
+     * cost, using the detailed statistics (characteristic sets, distinct counts).
+     * @see ReorderDynamicProgramming
+     */
+    public static ReorderTransformation dynamicProgramming(String filename) {
+        StatsCardinality stats = new StatsCardinality(filename) ;
+        return new ReorderDynamicProgramming(stats) ;
+    }
+
+    /**
+     * Return a ReorderTransformation for a statistics file: cost-based
+     * ({@link #dynamicProgramming}) if the file has characteristic sets, otherwise
+     * {@link #weighted}.
+     */
+    public static ReorderTransformation statistics(String filename) {
+        Item stats = SSE.readFile(filename) ;
+        if ( StatsCardinality.hasCharacteristicSets(stats) )
+            return new ReorderDynamicProgramming(new StatsCardinality(stats)) ;
+        return new ReorderWeighted(new StatsMatcher(filename)) ;
+    }
+
 }
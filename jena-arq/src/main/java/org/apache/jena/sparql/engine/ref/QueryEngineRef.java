@@ -61,6 +61,11 @@ public class QueryEngineRef extends QueryEngineBase
         return op;
     }
 
+    @Override
+    protected boolean isPlanCacheable() {
+        return true;
+    }
+
     @Override
     public QueryIterator eval(Op op, DatasetGraph dsg, Binding binding, Context context) {
         if ( binding.vars().hasNext() )
@@ -34,6 +34,7 @@ import org.apache.jena.sparql.core.DatasetGraphFactory;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.QueryEngineFactory;
 import org.apache.jena.sparql.engine.QueryEngineRegistry;
+import org.apache.jena.sparql.engine.QueryPlanCache;
 import org.apache.jena.sparql.engine.Timeouts;
 import org.apache.jena.sparql.engine.binding.Binding;
 import org.apache.jena.sparql.syntax.syntaxtransform.QueryTransformOps;
@@ -60,6 +61,8 @@ public class QueryExecDatasetBuilder implements QueryExecMod, QueryExecBuilder {
     private DatasetGraph dataset            = null;
     private Query        query              = null;
     private String       queryString        = null;
+    // Syntax of a query string not yet parsed.
+    private Syntax       querySyntax        = null;
 
     private ContextAccumulator contextAcc =
             ContextAccumulator.newBuilder(()->ARQ.getContext(), ()->Context.fromDataset(dataset));
@@ -76,12 +79,13 @@ public class QueryExecDatasetBuilder implements QueryExecMod, QueryExecBuilder {
 
     private QueryExecDatasetBuilder() { }
 
-    public Query getQuery()         { return query; }
+    public Query getQuery()         { return parsedQuery(); }
     public String getQueryString()  { return queryString; }
 
     @Override
     public QueryExecDatasetBuilder query(Query query) {
         this.query = query;
+        this.querySyntax = null;
         return this;
     }
 
@@ -93,11 +97,26 @@ public class QueryExecDatasetBuilder implements QueryExecMod, QueryExecBuilder {
 
     @Override
     public QueryExecDatasetBuilder query(String queryString, Syntax syntax) {
+        Objects.requireNonNull(queryString);
         this.queryString = queryString;
-        this.query = QueryFactory.create(queryString, syntax);
+        this.querySyntax = ( syntax != null ) ? syntax : Syntax.defaultQuerySyntax;
+        this.query = null;
         return this;
     }
 
+    // The query string is parsed when first needed so that the setting of
+    // ARQ.queryPlanCache in this builder's context applies.
+    private Query parsedQuery() {
+        if ( query == null && querySyntax != null ) {
+            if ( QueryPlanCache.isEnabled(getContext()) )
+                query = QueryPlanCache.get().parse(queryString, null, querySyntax);
+            else
+                query = QueryFactory.create(queryString, querySyntax);
+            querySyntax = null;
+        }
+        return query;
+    }
+
     public QueryExecDatasetBuilder dataset(DatasetGraph dsg) {
         this.dataset = dsg;
         return this;
@@ -216,7 +235,7 @@ public class QueryExecDatasetBuilder implements QueryExecMod, QueryExecBuilder {
 
     @Override
     public QueryExec build() {
-        Objects.requireNonNull(query, "No query for QueryExec");
+        Objects.requireNonNull(parsedQuery(), "No query for QueryExec");
         // Queries can have FROM/FROM NAMED or VALUES to get data.
         //Objects.requireNonNull(dataset, "No dataset for QueryExec");
         query.setResultVars();
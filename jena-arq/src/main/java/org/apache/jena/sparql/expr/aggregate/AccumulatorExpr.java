@@ -21,6 +21,7 @@ package org.apache.jena.sparql.expr.aggregate;
 import java.util.HashSet ;
 import java.util.Set ;
 
+import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.expr.Expr ;
 import org.apache.jena.sparql.expr.ExprEvalException ;
@@ -80,6 +81,22 @@ public abstract class AccumulatorExpr implements Accumulator
 
     /** Get the count of accumulated values */ 
     protected long getAccCount() { return accCount ; }
+
+    /** Merge the counts of another accumulator's partial state into this one. */
+    protected void mergeCounts(long otherAccCount, long otherErrorCount) {
+        accCount += otherAccCount ;
+        errorCount += otherErrorCount ;
+    }
+
+    /** Encode a count in a partial state. */
+    protected static Node countToNode(long count) {
+        return NodeValue.makeInteger(count).asNode() ;
+    }
+
+    /** Decode a count in a partial state. */
+    protected static long nodeToCount(Node node) {
+        return NodeValue.makeNode(node).getInteger().longValue() ;
+    }
     
     /** Called if no errors to get the accumulated result */
     protected abstract NodeValue getAccValue() ; 
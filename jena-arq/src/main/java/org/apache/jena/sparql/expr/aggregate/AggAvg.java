@@ -18,6 +18,8 @@
 
 package org.apache.jena.sparql.expr.aggregate;
 
+import java.util.List ;
+
 import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.expr.Expr ;
@@ -65,11 +67,11 @@ public class AggAvg extends AggregatorBase
     }
     
     // ---- Accumulator
-    private static class AccAvg extends AccumulatorExpr
+    private static class AccAvg extends AccumulatorExpr implements MergeableAccumulator
     {
         // Non-empty case but still can be nothing because the expression may be undefined.
         private NodeValue total = noValuesToAvg ;
-        private int count = 0 ;
+        private long count = 0 ;
 
         public AccAvg(Expr expr) { super(expr, false) ; }
 
@@ -110,5 +112,25 @@ public class AggAvg extends AggregatorBase
             NodeValue nvCount = NodeValue.makeInteger(count) ;
             return XSDFuncOp.numDivide(total, nvCount) ;
         }
+
+        // State: total, count of numbers, count, error count.
+        @Override
+        public List<Node> getPartialState()
+        {
+            return List.of(total.asNode(), countToNode(count),
+                           countToNode(getAccCount()), countToNode(errorCount)) ;
+        }
+
+        @Override
+        public void mergePartialState(List<Node> state)
+        {
+            long otherCount = nodeToCount(state.get(1)) ;
+            if ( otherCount > 0 ) {
+                NodeValue nv = NodeValue.makeNode(state.get(0)) ;
+                total = ( count == 0 ) ? nv : XSDFuncOp.numAdd(nv, total) ;
+                count += otherCount ;
+            }
+            mergeCounts(nodeToCount(state.get(2)), nodeToCount(state.get(3))) ;
+        }
     }
 }
@@ -18,6 +18,8 @@
 
 package org.apache.jena.sparql.expr.aggregate;
 
+import java.util.List ;
+
 import org.apache.jena.atlas.logging.Log ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.engine.binding.Binding ;
@@ -70,7 +72,7 @@ public class AggCount extends AggregatorBase
         return true ;
     }
 
-    static class AccCount implements Accumulator
+    static class AccCount implements MergeableAccumulator
     {
         private long count = 0 ;
         public AccCount()   { }
@@ -80,5 +82,12 @@ public class AggCount extends AggregatorBase
         // Errors can't occur.
         @Override
         public NodeValue getValue()             { return NodeValue.makeInteger(count) ; }
+
+        @Override
+        public List<Node> getPartialState()     { return List.of(AccumulatorExpr.countToNode(count)) ; }
+
+        @Override
+        public void mergePartialState(List<Node> state)
+        { count += AccumulatorExpr.nodeToCount(state.get(0)) ; }
     }
 }
@@ -18,6 +18,8 @@
 
 package org.apache.jena.sparql.expr.aggregate;
 
+import java.util.List ;
+
 import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.expr.Expr ;
@@ -56,7 +58,7 @@ public class AggCountVar extends AggregatorBase
     public Node getValueEmpty()     { return NodeConst.nodeZero ; } 
 
     // ---- Accumulator
-    private static class AccCountVar extends AccumulatorExpr
+    private static class AccCountVar extends AccumulatorExpr implements MergeableAccumulator
     {
         private long count = 0 ;
         public AccCountVar(Expr expr)   { super(expr, false) ; }
@@ -76,5 +78,12 @@ public class AggCountVar extends AggregatorBase
 
         @Override
         public NodeValue getAccValue()             { return NodeValue.makeInteger(count) ; }
+
+        @Override
+        public List<Node> getPartialState()     { return List.of(countToNode(count)) ; }
+
+        @Override
+        public void mergePartialState(List<Node> state)
+        { count += nodeToCount(state.get(0)) ; }
     }
 }
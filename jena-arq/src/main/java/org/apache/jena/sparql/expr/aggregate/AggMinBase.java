@@ -18,6 +18,9 @@
 
 package org.apache.jena.sparql.expr.aggregate;
 
+import java.util.Arrays ;
+import java.util.List ;
+
 import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.expr.Expr ;
@@ -40,7 +43,7 @@ abstract class AggMinBase extends AggregatorBase
     public final Node getValueEmpty()     { return null ; } 
 
     // ---- Accumulator
-    private static class AccMin extends AccumulatorExpr
+    private static class AccMin extends AccumulatorExpr implements MergeableAccumulator
     {
         // Non-empty case but still can be nothing because the expression may be undefined.
         private NodeValue minSoFar = null ;
@@ -73,5 +76,22 @@ abstract class AggMinBase extends AggregatorBase
         @Override
         public NodeValue getAccValue()
         { return minSoFar ; }
+
+        // State: min so far, count, error count.
+        @Override
+        public List<Node> getPartialState()
+        { return Arrays.asList(NodeValue.toNode(minSoFar), countToNode(getAccCount()), countToNode(errorCount)) ; }
+
+        @Override
+        public void mergePartialState(List<Node> state)
+        {
+            Node n = state.get(0) ;
+            if ( n != null ) {
+                NodeValue nv = NodeValue.makeNode(n) ;
+                if ( minSoFar == null || NodeValue.compareAlways(minSoFar, nv) > 0 )
+                    minSoFar = nv ;
+            }
+            mergeCounts(nodeToCount(state.get(1)), nodeToCount(state.get(2))) ;
+        }
     }
 }
@@ -18,6 +18,9 @@
 
 package org.apache.jena.sparql.expr.aggregate;
 
+import java.util.Arrays ;
+import java.util.List ;
+
 import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.expr.Expr ;
@@ -59,7 +62,7 @@ public class AggSum  extends AggregatorBase
     } 
 
     // ---- Accumulator
-    private static class AccSum extends AccumulatorExpr
+    private static class AccSum extends AccumulatorExpr implements MergeableAccumulator
     {
         // Non-empty case but still can be nothing because the expression may be undefined.
         private NodeValue total = null ;
@@ -87,5 +90,21 @@ public class AggSum  extends AggregatorBase
         @Override
         public NodeValue getAccValue()
         { return total ; }
+
+        // State: total, count, error count.
+        @Override
+        public List<Node> getPartialState()
+        { return Arrays.asList(NodeValue.toNode(total), countToNode(getAccCount()), countToNode(errorCount)) ; }
+
+        @Override
+        public void mergePartialState(List<Node> state)
+        {
+            Node n = state.get(0) ;
+            if ( n != null ) {
+                NodeValue nv = NodeValue.makeNode(n) ;
+                total = ( total == null ) ? nv : XSDFuncOp.numAdd(nv, total) ;
+            }
+            mergeCounts(nodeToCount(state.get(1)), nodeToCount(state.get(2))) ;
+        }
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.expr.aggregate;
+
+import java.util.List ;
+
+import org.apache.jena.graph.Node ;
+
+/** An {@link Accumulator} whose state can be extracted and combined with the state
+ *  of another accumulator of the same aggregator, so that a group can be calculated
+ *  in parts (e.g. when grouping spills to disk, or in parallel) and the parts merged.
+ */
+
+public interface MergeableAccumulator extends Accumulator
+{
+    /**
+     * The state of the accumulator so far, as a list of nodes.
+     * The list is the same length for every accumulator of the same aggregator;
+     * an element is null for "no value".
+     */
+    public List<Node> getPartialState() ;
+
+    /**
+     * Combine a state from {@link #getPartialState} of another accumulator of
+     * the same aggregator into this accumulator.
+     */
+    public void mergePartialState(List<Node> state) ;
+}
@@ -28,6 +28,7 @@ import java.util.function.Predicate;
 import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.graph.Node ;
+import org.apache.jena.query.ARQ;
 import org.apache.jena.sparql.ARQInternalErrorException ;
 import org.apache.jena.sparql.algebra.Op ;
 import org.apache.jena.sparql.algebra.op.OpBGP ;
@@ -44,6 +45,7 @@ import org.apache.jena.sparql.engine.binding.BindingFactory ;
 import org.apache.jena.sparql.engine.iterator.*;
 import org.apache.jena.sparql.mgt.Explain ;
 import org.apache.jena.sparql.path.eval.PathEval ;
+import org.apache.jena.sparql.path.eval.PathEvalBidirectional;
 import org.apache.jena.sparql.pfunction.PropertyFunctionFactory ;
 import org.apache.jena.sparql.pfunction.PropertyFunctionRegistry ;
 import org.apache.jena.sparql.util.Context;
@@ -162,6 +164,15 @@ public class PathLib
     private static QueryIterator evalGroundedPath(Binding binding,
                                                   Graph graph, Node subject, Path path, Node object,
                                                   ExecutionContext execCxt) {
+        // Literals are matched by value below, not by the term found in the graph.
+        if ( PathEvalBidirectional.isApplicable(path) && ! object.isLiteral() ) {
+            long budget = execCxt.getContext().getLong(ARQ.pathBidirectionalBudget, -1L);
+            if ( budget != 0 ) {
+                Boolean b = PathEvalBidirectional.exists(graph, subject, path, object, budget, execCxt.getContext());
+                if ( b != null )
+                    return b ? QueryIterSingleton.create(binding, execCxt) : QueryIterNullIterator.create(execCxt);
+            }
+        }
         Iterator<Node> iter = PathEval.eval(graph, subject, path, execCxt.getContext()) ;
         // Now count the number of matches.
 
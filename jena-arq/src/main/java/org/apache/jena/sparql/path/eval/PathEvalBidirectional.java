@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path.eval;
+
+import java.util.*;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.path.P_OneOrMore1;
+import org.apache.jena.sparql.path.P_Path1;
+import org.apache.jena.sparql.path.P_ZeroOrMore1;
+import org.apache.jena.sparql.path.Path;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * Test whether there is a path {@code path+} or {@code path*} between two fixed
+ * terms by searching from both ends at once.
+ * <p>
+ * Each side keeps a frontier; the smaller frontier is expanded by one step of the
+ * path, forwards from the subject or backwards from the object, until the two sides
+ * meet or one side has nowhere left to go. This visits far fewer nodes than
+ * evaluating the path from the subject and then looking for the object in the results.
+ */
+public class PathEvalBidirectional {
+
+    /** Whether {@link #exists} applies to the path. */
+    public static boolean isApplicable(Path path) {
+        return path instanceof P_OneOrMore1 || path instanceof P_ZeroOrMore1;
+    }
+
+    /**
+     * Test for a path from {@code subject} to {@code object}, where the path is
+     * {@code path+} or {@code path*} (see {@link #isApplicable}).
+     * Terms are compared by term equality.
+     * <p>
+     * Returns null if the search expanded more than {@code budget} nodes before
+     * finishing, in which case the outcome is not known. A negative budget means no limit.
+     */
+    public static Boolean exists(Graph graph, Node subject, Path path, Node object, long budget, Context context) {
+        if ( ! isApplicable(path) )
+            throw new IllegalArgumentException("Not a path+ or path*: "+path);
+        Path step = ((P_Path1)path).getSubPath();
+        if ( path instanceof P_ZeroOrMore1 && subject.equals(object) )
+            return true;
+
+        // A path of one or more steps exists if a node reachable from the subject
+        // by zero or more steps can reach the object by one or more steps.
+        // Forward side: the subject and the nodes reached from it.
+        // Backward side: the nodes that reach the object by one or more steps.
+        Set<Node> forwardVisited = new HashSet<>();
+        Set<Node> backwardVisited = new HashSet<>();
+        forwardVisited.add(subject);
+        List<Node> forwardFrontier = List.of(subject);
+        List<Node> backwardFrontier = List.of(object);
+        // The object is not on the backward side until reached by a step.
+        boolean firstBackwardStep = true;
+        long expanded = 0;
+
+        while ( ! forwardFrontier.isEmpty() && ! backwardFrontier.isEmpty() ) {
+            boolean forwards = ! firstBackwardStep && forwardFrontier.size() <= backwardFrontier.size();
+            List<Node> frontier = forwards ? forwardFrontier : backwardFrontier;
+            Set<Node> visited = forwards ? forwardVisited : backwardVisited;
+            Set<Node> other = forwards ? backwardVisited : forwardVisited;
+            List<Node> next = new ArrayList<>();
+            for ( Node node : frontier ) {
+                if ( budget >= 0 && ++expanded > budget )
+                    return null;
+                Iterator<Node> iter = forwards
+                        ? PathEval.eval(graph, node, step, context)
+                        : PathEval.evalReverse(graph, node, step, context);
+                while ( iter.hasNext() ) {
+                    Node n = iter.next();
+                    if ( ! visited.add(n) )
+                        continue;
+                    if ( other.contains(n) )
+                        return true;
+                    next.add(n);
+                }
+            }
+            if ( forwards )
+                forwardFrontier = next;
+            else {
+                backwardFrontier = next;
+                firstBackwardStep = false;
+            }
+        }
+        return false;
+    }
+}
@@ -46,6 +46,8 @@ import org.junit.runners.Suite ;
     // Thrift is done in the "thrift" package
     , TestParserFactory.class
     , TestCollectorStream.class
+    , TestParallelParserNTuples.class
+    , TestParallelParserTurtle.class
     , TC_RIOT_RDFXML.class
 })
 
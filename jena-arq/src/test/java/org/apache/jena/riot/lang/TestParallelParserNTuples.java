@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.*;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.util.IsoMatcher;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestParallelParserNTuples {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int N = 2000;
+
+    // Lines of about 60 bytes; small chunks so there are many of them.
+    private static final int ChunkSize = 1000;
+
+    private static String dataNT() {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < N ; i++ ) {
+            sb.append("<http://example/s").append(i).append("> <http://example/p> \"value ").append(i).append("\" .\n");
+            // Blank nodes used across chunks.
+            sb.append("_:b").append(i%7).append(" <http://example/q> <http://example/s").append(i).append("> .\n");
+        }
+        return sb.toString();
+    }
+
+    private static String dataNQ() {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < N ; i++ ) {
+            sb.append("<http://example/s").append(i).append("> <http://example/p> \"value\"@en <http://example/g").append(i%3).append("> .\n");
+            sb.append("_:b").append(i%5).append(" <http://example/q> \"").append(i).append("\" .\n");
+        }
+        return sb.toString();
+    }
+
+    private Path file(String filename, String contents) throws IOException {
+        Path path = folder.getRoot().toPath().resolve(filename);
+        Files.writeString(path, contents, StandardCharsets.UTF_8);
+        return path;
+    }
+
+    private static Supplier<ParserProfile> profiles() {
+        UUID seed = UUID.randomUUID();
+        return ()->RiotLib.createParserProfile(RiotLib.factoryRDF(LabelToNode.createScopeByDocumentHash(seed)),
+                                               ErrorHandlerFactory.errorHandlerStrictSilent(), false);
+    }
+
+    private static List<Triple> parseParallel(Path path, int threads, boolean ordered) {
+        List<Triple> triples = new ArrayList<>();
+        StreamRDF dest = new StreamRDFBase() {
+            @Override public void triple(Triple triple) { triples.add(triple); }
+        };
+        ParallelParserNTuples.parse(path, Lang.NTRIPLES, threads, ordered, ChunkSize, profiles(), dest);
+        return triples;
+    }
+
+    private static List<Triple> parseSequential(Path path) {
+        List<Triple> triples = new ArrayList<>();
+        StreamRDF dest = new StreamRDFBase() {
+            @Override public void triple(Triple triple) { triples.add(triple); }
+        };
+        RDFParser.source(path).parse(dest);
+        return triples;
+    }
+
+    private static Graph graph(List<Triple> triples) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        triples.forEach(graph::add);
+        return graph;
+    }
+
+    private static Set<Node> blankNodes(List<Triple> triples) {
+        Set<Node> bNodes = new HashSet<>();
+        triples.forEach(t -> { if ( t.getSubject().isBlank() ) bNodes.add(t.getSubject()); });
+        return bNodes;
+    }
+
+    @Test public void parallel_nt_01() throws IOException {
+        Path path = file("data.nt", dataNT());
+        List<Triple> expected = parseSequential(path);
+        List<Triple> actual = parseParallel(path, 4, false);
+        assertEquals(2*N, actual.size());
+        assertTrue(graph(expected).isIsomorphicWith(graph(actual)));
+        assertEquals(7, blankNodes(actual).size());
+    }
+
+    @Test public void parallel_nt_ordered() throws IOException {
+        Path path = file("data.nt", dataNT());
+        List<Triple> expected = parseSequential(path);
+        List<Triple> actual = parseParallel(path, 4, true);
+        assertEquals(expected.size(), actual.size());
+        for ( int i = 0 ; i < expected.size() ; i++ ) {
+            Triple t1 = expected.get(i);
+            Triple t2 = actual.get(i);
+            // Blank nodes differ between parser runs.
+            if ( t1.getSubject().isBlank() ) {
+                assertTrue(t2.getSubject().isBlank());
+                assertEquals(t1.getObject(), t2.getObject());
+            } else
+                assertEquals(t1, t2);
+        }
+    }
+
+    @Test public void parallel_nt_one_thread() throws IOException {
+        Path path = file("data.nt", dataNT());
+        List<Triple> actual = parseParallel(path, 1, true);
+        assertTrue(graph(parseSequential(path)).isIsomorphicWith(graph(actual)));
+    }
+
+    @Test public void parallel_nt_no_final_newline() throws IOException {
+        Path path = file("data.nt", dataNT()+"<http://example/s> <http://example/p> <http://example/o> .");
+        List<Triple> actual = parseParallel(path, 3, true);
+        assertEquals(2*N+1, actual.size());
+    }
+
+    @Test public void parallel_nt_empty() throws IOException {
+        Path path = file("data.nt", "");
+        List<Triple> actual = parseParallel(path, 3, true);
+        assertEquals(0, actual.size());
+    }
+
+    @Test(expected = RiotException.class)
+    public void parallel_nt_bad() throws IOException {
+        Path path = file("data.nt", dataNT()+"<http://example/s> <http://example/p> .\n"+dataNT());
+        parseParallel(path, 4, false);
+    }
+
+    @Test public void parallel_builder_nt() throws IOException {
+        Path path = file("data.nt", dataNT());
+        Graph expected = RDFParser.source(path).toGraph();
+        Graph actual = RDFParser.source(path).parallel(4).toGraph();
+        assertTrue(expected.isIsomorphicWith(actual));
+    }
+
+    @Test public void parallel_builder_nq() throws IOException {
+        Path path = file("data.nq", dataNQ());
+        DatasetGraph expected = RDFParser.source(path.toString()).toDatasetGraph();
+        DatasetGraph actual = RDFParser.source(path.toString()).parallel(4, false).toDatasetGraph();
+        assertTrue(IsoMatcher.isomorphic(expected, actual));
+    }
+
+    @Test public void parallel_nq() throws IOException {
+        Path path = file("data.nq", dataNQ());
+        List<Quad> quads = new ArrayList<>();
+        StreamRDF dest = new StreamRDFBase() {
+            @Override public void quad(Quad quad) { quads.add(quad); }
+        };
+        ParallelParserNTuples.parse(path, Lang.NQUADS, 4, true, ChunkSize, profiles(), dest);
+        assertEquals(2*N, quads.size());
+        Set<Node> bNodes = new HashSet<>();
+        quads.forEach(q -> { if ( q.getSubject().isBlank() ) bNodes.add(q.getSubject()); });
+        assertEquals(5, bNodes.size());
+    }
+
+    @Test public void parallel_builder_not_file() {
+        // Not a file: parsed by the calling thread.
+        Graph graph = RDFParser.fromString("<http://example/s> <http://example/p> \"1\" .", Lang.NTRIPLES).parallel(4).toGraph();
+        assertEquals(1, graph.size());
+    }
+}
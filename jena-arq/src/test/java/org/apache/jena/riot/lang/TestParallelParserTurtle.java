@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.irix.IRIxResolver;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.*;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestParallelParserTurtle {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int N = 1000;
+
+    // Small segments so there are many of them.
+    private static final int ChunkSize = 1000;
+
+    private static final String BASE = "http://example/base/";
+
+    private static String dataTTL() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("@prefix : <http://example/> .\n");
+        for ( int i = 0 ; i < N ; i++ ) {
+            sb.append(":s").append(i).append(" :p \"value . ").append(i).append("\" ; :q 1.5, ").append(i).append(" .\n");
+            // Blank nodes, used across segments, and lists.
+            sb.append("_:b").append(i%7).append(" :r :s").append(i).append(" .\n");
+            if ( i % 10 == 0 )
+                sb.append("[ :p :s").append(i).append(" ] :list ( 1 2 \"}\" ) .\n");
+            // Comment, long string, escapes.
+            sb.append("# Comment \"  . \n");
+            sb.append(":s").append(i).append(" :long \"\"\"Line 1 .\nLine \"2\" .\"\"\" ; :local :a\\.b .\n");
+            if ( i % 100 == 50 ) {
+                // Change the prefix part way through.
+                sb.append("PREFIX : <http://example/").append(i).append("/>\n");
+                sb.append("@base <http://example/base").append(i).append("/> .\n");
+                sb.append("<s> <p> <o> .\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String dataTriG() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("PREFIX : <http://example/>\n");
+        for ( int i = 0 ; i < N ; i++ ) {
+            sb.append(":g").append(i%5).append(" {\n  :s").append(i).append(" :p \"").append(i).append("\" .\n");
+            sb.append("  _:b").append(i%3).append(" :q [ :p 'a.b' ] .\n}\n");
+            sb.append(":s").append(i).append(" :p :o .\n");
+            sb.append("GRAPH :g { :s :p ").append(i).append(" }\n");
+        }
+        return sb.toString();
+    }
+
+    private Path file(String filename, String contents) throws IOException {
+        Path path = folder.getRoot().toPath().resolve(filename);
+        Files.writeString(path, contents, StandardCharsets.UTF_8);
+        return path;
+    }
+
+    private static ParserProfile profile(FactoryRDF factory, ErrorHandler errorHandler) {
+        return RiotLib.createParserProfile(factory, errorHandler, IRIxResolver.create(BASE).build(), true);
+    }
+
+    private static boolean parseParallel(Path path, Lang lang, int threads, boolean ordered, StreamRDF dest) {
+        UUID seed = UUID.randomUUID();
+        ErrorHandler errorHandler = ErrorHandlerFactory.errorHandlerStrictSilent();
+        ParserProfile prologue = profile(RiotLib.factoryRDF(), errorHandler);
+        return ParallelParserTurtle.parse(path, lang, threads, ordered, ChunkSize, errorHandler, prologue,
+                                          eh->profile(RiotLib.factoryRDF(LabelToNode.createScopeByDocumentHashPart(seed)), eh),
+                                          dest);
+    }
+
+    private static List<Triple> parseParallel(Path path, int threads, boolean ordered) {
+        List<Triple> triples = new ArrayList<>();
+        StreamRDF dest = new StreamRDFBase() {
+            @Override public void triple(Triple triple) { triples.add(triple); }
+        };
+        assertTrue(parseParallel(path, Lang.TURTLE, threads, ordered, dest));
+        return triples;
+    }
+
+    private static Graph parseSequential(Path path) {
+        return RDFParser.source(path).base(BASE).toGraph();
+    }
+
+    private static Graph graph(List<Triple> triples) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        triples.forEach(graph::add);
+        return graph;
+    }
+
+    // Graph by graph: faster than IsoMatcher for many blank nodes.
+    private static void assertIsomorphic(DatasetGraph expected, DatasetGraph actual) {
+        assertTrue(expected.getDefaultGraph().isIsomorphicWith(actual.getDefaultGraph()));
+        List<Node> graphNames = Iter.toList(expected.listGraphNodes());
+        assertEquals(graphNames.size(), Iter.count(actual.listGraphNodes()));
+        for ( Node gn : graphNames )
+            assertTrue(expected.getGraph(gn).isIsomorphicWith(actual.getGraph(gn)));
+    }
+
+    @Test public void parallel_ttl_01() throws IOException {
+        Path path = file("data.ttl", dataTTL());
+        Graph expected = parseSequential(path);
+        List<Triple> actual = parseParallel(path, 4, false);
+        assertEquals(expected.size(), actual.size());
+        assertTrue(expected.isIsomorphicWith(graph(actual)));
+    }
+
+    @Test public void parallel_ttl_ordered() throws IOException {
+        Path path = file("data.ttl", dataTTL());
+        Graph expected = parseSequential(path);
+        List<Triple> actual = parseParallel(path, 3, true);
+        assertTrue(expected.isIsomorphicWith(graph(actual)));
+        // The last triple.
+        Triple t = actual.get(actual.size()-1);
+        assertEquals("http://example/950/s999", t.getSubject().getURI());
+    }
+
+    @Test public void parallel_ttl_prefixes() throws IOException {
+        Path path = file("data.ttl", dataTTL());
+        List<String> prefixes = new ArrayList<>();
+        List<String> bases = new ArrayList<>();
+        StreamRDF dest = new StreamRDFBase() {
+            @Override public void prefix(String prefix, String iri) { prefixes.add(iri); }
+            @Override public void base(String base) { bases.add(base); }
+        };
+        assertTrue(parseParallel(path, Lang.TURTLE, 4, true, dest));
+        assertEquals(1 + N/100, prefixes.size());
+        assertEquals("http://example/50/", prefixes.get(1));
+        assertEquals(N/100, bases.size());
+    }
+
+    @Test public void parallel_trig() throws IOException {
+        Path path = file("data.trig", dataTriG());
+        DatasetGraph expected = RDFParser.source(path).toDatasetGraph();
+        DatasetGraph actual = DatasetGraphFactory.createTxnMem();
+        assertTrue(parseParallel(path, Lang.TRIG, 4, false, StreamRDFLib.dataset(actual)));
+        assertIsomorphic(expected, actual);
+    }
+
+    @Test public void parallel_one_segment() throws IOException {
+        // Too small to split.
+        Path path = file("data.ttl", "PREFIX : <http://example/> :s :p :o .");
+        assertFalse(parseParallel(path, Lang.TURTLE, 4, true, StreamRDFLib.sinkNull()));
+    }
+
+    @Test public void parallel_unterminated() throws IOException {
+        // Unterminated string: not split.
+        Path path = file("data.ttl", dataTTL()+":s :p \"abc .\n"+dataTTL());
+        assertFalse(parseParallel(path, Lang.TURTLE, 4, true, StreamRDFLib.sinkNull()));
+    }
+
+    @Test public void parallel_bad_directive() throws IOException {
+        Path path = file("data.ttl", dataTTL()+"@prefix ex <http://example/> .\n"+dataTTL());
+        assertFalse(parseParallel(path, Lang.TURTLE, 4, true, StreamRDFLib.sinkNull()));
+    }
+
+    @Test public void parallel_directive_after_dot() throws IOException {
+        // Directives straight after the "." of a statement.
+        String data = dataTTL()
+                + "<x> <p> <o>.BASE <http://example/two/>\n"
+                + "<s> <p> <o>.@prefix : <http://example/three/> .\n"
+                + "<s> <p> \"a\".PREFIX : <http://example/four/>\n"
+                + dataTTL().replace("@prefix : <http://example/> .", "");
+        Path path = file("data.ttl", data);
+        Graph expected = parseSequential(path);
+        List<Triple> actual = parseParallel(path, 4, true);
+        assertTrue(expected.isIsomorphicWith(graph(actual)));
+        Triple t = actual.get(actual.size()-1);
+        assertEquals("http://example/950/s999", t.getSubject().getURI());
+        assertTrue(expected.contains(t));
+    }
+
+    @Test public void parallel_directive_in_statement() throws IOException {
+        // "1.PREFIX" : the "." could be in a number so the directive is not
+        // found while splitting. Not parsed in parallel.
+        String data = dataTTL()
+                + "<x> <p> 1.PREFIX : <http://example/two/>\n"
+                + dataTTL().replace("@prefix : <http://example/> .", "");
+        Path path = file("data.ttl", data);
+        assertFalse(parseParallel(path, Lang.TURTLE, 4, true, StreamRDFLib.sinkNull()));
+        Graph expected = parseSequential(path);
+        Graph actual = RDFParser.source(path).base(BASE).parallel(4).toGraph();
+        assertTrue(expected.isIsomorphicWith(actual));
+    }
+
+    @Test(expected = RiotException.class)
+    public void parallel_bad() throws IOException {
+        Path path = file("data.ttl", dataTTL()+":s :p .\n"+dataTTL());
+        parseParallel(path, 4, false);
+    }
+
+    @Test public void parallel_builder_ttl() throws IOException {
+        Path path = file("data.ttl", dataTTL());
+        Graph expected = RDFParser.source(path).toGraph();
+        Graph actual = RDFParser.source(path).parallel(4).toGraph();
+        assertTrue(expected.isIsomorphicWith(actual));
+    }
+
+    @Test public void parallel_builder_trig() throws IOException {
+        Path path = file("data.trig", dataTriG());
+        DatasetGraph expected = RDFParser.source(path).toDatasetGraph();
+        DatasetGraph actual = RDFParser.source(path).parallel(4, false).toDatasetGraph();
+        assertIsomorphic(expected, actual);
+    }
+}
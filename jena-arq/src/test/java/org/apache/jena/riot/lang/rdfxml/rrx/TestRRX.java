@@ -18,6 +18,9 @@
 
 package org.apache.jena.riot.lang.rdfxml.rrx;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -79,6 +82,45 @@ public class TestRRX {
         noBase("file-external-base.rdf");
     }
 
+    @Test public void nestedBase() {
+        // The same relative IRIs with different bases.
+        String rdfxml = """
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                     xmlns:ex="http://example/ns#"
+                     xml:base="http://example/base1/">
+              <rdf:Description rdf:about="s">
+                <ex:p rdf:resource="o"/>
+                <ex:q xml:base="http://example/base2/">
+                  <rdf:Description rdf:about="s"><ex:p rdf:resource="o"/></rdf:Description>
+                </ex:q>
+                <ex:p rdf:resource="o2"/>
+              </rdf:Description>
+              <rdf:Description rdf:about="s" xml:base="http://example/base2/">
+                <ex:r rdf:resource="o"/>
+              </rdf:Description>
+            </rdf:RDF>
+            """;
+        Graph graph = RDFParser.fromString(rdfxml, lang).base("http://example/").toGraph();
+        String expected = """
+            PREFIX ex: <http://example/ns#>
+            <http://example/base1/s> ex:p <http://example/base1/o>, <http://example/base1/o2> ;
+                                     ex:q <http://example/base2/s> .
+            <http://example/base2/s> ex:p <http://example/base2/o> ;
+                                     ex:r <http://example/base2/o> .
+            """;
+        Graph expectedGraph = RDFParser.fromString(expected, Lang.TURTLE).toGraph();
+        assertTrue(expectedGraph.isIsomorphicWith(graph));
+    }
+
+    @Test public void setDefault() {
+        try {
+            RRX.setDefault(lang);
+            assertEquals(RRX.factory(lang), RDFParserRegistry.getFactory(Lang.RDFXML));
+        } finally {
+            RRX.setDefault(RRX.RDFXML_SAX);
+        }
+    }
+
     private void noBase(String filename) {
         ReaderRIOTFactory factory = RDFParserRegistry.getFactory(lang);
         String fn = "testing/RIOT/rrx-files/"+filename;
@@ -32,6 +32,7 @@ import org.junit.runners.Suite.SuiteClasses;
     , TestStreamRDF.class
     , TestFactoryRDF.class
     , TestFactoryRDFCaching.class
+    , TestFactoryRDFDictionary.class
 
     // Prefix Map implementations
     , TestPrefixMap.class
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.apache.jena.atlas.lib.cache.CacheInfo;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.junit.Test;
+
+public class TestFactoryRDFDictionary extends TestFactoryRDF {
+
+    private final TermDictionary dictionary = new TermDictionary(100);
+
+    public TestFactoryRDFDictionary() {
+        super.factory = new FactoryRDFCaching(dictionary, LabelToNode.createUseLabelAsGiven());
+    }
+
+    @Test public void factory_dictionary_01() {
+        Node n1 = factory.createURI("http://test/n1");
+        Node n2 = factory.createURI("http://test/n2");
+        Node n3 = factory.createURI("http://test/n1");
+        assertSame(n1, n3);
+        assertNotEquals(n1, n2);
+    }
+
+    @Test public void factory_dictionary_02() {
+        Node n1 = factory.createStringLiteral("abc");
+        Node n2 = factory.createLangLiteral("abc", "en");
+        Node n3 = factory.createTypedLiteral("abc", XSDDatatype.XSDtoken);
+        Node n4 = factory.createTypedLiteral("abc", XSDDatatype.XSDstring);
+        assertNotEquals(n1, n2);
+        assertNotEquals(n1, n3);
+        assertNotEquals(n2, n3);
+        assertSame(n1, n4);
+        assertSame(n2, factory.createLangLiteral("abc", "en"));
+        assertSame(n3, factory.createTypedLiteral("abc", XSDDatatype.XSDtoken));
+    }
+
+    @Test public void factory_dictionary_03() {
+        // Not in the dictionary.
+        String lex = "x".repeat(TermDictionary.MaxLiteralLength+1);
+        Node n1 = factory.createStringLiteral(lex);
+        Node n2 = factory.createStringLiteral(lex);
+        assertEquals(n1, n2);
+        assertNotSame(n1, n2);
+    }
+
+    @Test public void factory_dictionary_04() {
+        // Case of language tags.
+        Node n1 = factory.createLangLiteral("abc", "en-gb");
+        Node n2 = factory.createLangLiteral("abc", "en-GB");
+        assertEquals(n1, n2);
+        assertEquals("en-GB", n2.getLiteralLanguage());
+    }
+
+    @Test public void factory_dictionary_stats() {
+        TermDictionary dict = new TermDictionary(100);
+        assertEquals(0, dict.stats().requests);
+        dict.createURI("http://test/n1");
+        dict.createURI("http://test/n1");
+        dict.createURI("http://test/n1");
+        CacheInfo info = dict.stats();
+        assertEquals(3, info.requests);
+        assertEquals(2, info.hits);
+        assertEquals(1, info.misses);
+    }
+
+    @Test public void factory_dictionary_concurrent() throws Exception {
+        TermDictionary dict = new TermDictionary(64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for ( int t = 0 ; t < 4 ; t++ ) {
+                results.add(executor.submit(()->{
+                    for ( int i = 0 ; i < 10_000 ; i++ ) {
+                        String uri = "http://test/n"+(i%200);
+                        Node n = dict.createURI(uri);
+                        assertEquals(uri, n.getURI());
+                        Node lit = dict.createLangLiteral("v"+(i%50), "en");
+                        assertEquals("v"+(i%50), lit.getLiteralLexicalForm());
+                    }
+                }));
+            }
+            for ( Future<?> f : results )
+                f.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(80_000, dict.stats().requests);
+    }
+
+    @Test public void factory_dictionary_shared_parsers() {
+        TermDictionary dict = new TermDictionary();
+        String data = "<http://test/s> <http://test/p> \"o\" .";
+        Graph g1 = RDFParser.fromString(data, Lang.NTRIPLES).termDictionary(dict).toGraph();
+        Graph g2 = RDFParser.fromString(data, Lang.NTRIPLES).termDictionary(dict).toGraph();
+        Node p1 = g1.find().next().getPredicate();
+        Node p2 = g2.find().next().getPredicate();
+        assertSame(p1, p2);
+        assertTrue(dict.stats().hits > 0);
+    }
+}
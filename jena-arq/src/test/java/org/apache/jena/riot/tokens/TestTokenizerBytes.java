@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.tokens;
+
+import static org.apache.jena.riot.system.ErrorHandlerFactory.errorHandlerExceptions;
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.riot.RiotException;
+import org.junit.Test;
+
+public class TestTokenizerBytes {
+
+    private static Tokenizer tokenizer(String string) {
+        return TokenizerBytes.create(ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8)), errorHandlerExceptions());
+    }
+
+    private static Tokenizer tokenizerDirect(String string) {
+        byte[] b = string.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer bb = ByteBuffer.allocateDirect(b.length);
+        bb.put(b).flip();
+        return TokenizerBytes.create(bb, errorHandlerExceptions());
+    }
+
+    private static List<Token> tokens(Tokenizer tokenizer) {
+        List<Token> tokens = new ArrayList<>();
+        tokenizer.forEachRemaining(tokens::add);
+        return tokens;
+    }
+
+    // Same tokens as TokenizerText.
+    private static void testSame(String string) {
+        List<Token> expected = tokens(TokenizerText.create().fromString(string).errorHandler(errorHandlerExceptions()).build());
+        List<Token> actual1 = tokens(tokenizer(string));
+        List<Token> actual2 = tokens(tokenizerDirect(string));
+        assertEquals(expected, actual1);
+        assertEquals(expected, actual2);
+        for ( int i = 0 ; i < expected.size() ; i++ ) {
+            Token t1 = expected.get(i);
+            Token t2 = actual1.get(i);
+            assertEquals(t1.getImage2(), t2.getImage2());
+            assertEquals(t1.getSubToken1(), t2.getSubToken1());
+            assertEquals(t1.getSubToken2(), t2.getSubToken2());
+            assertEquals(t1.getLine(), t2.getLine());
+        }
+    }
+
+    private static void testBad(String string) {
+        assertThrows(RiotException.class, ()->tokens(tokenizer(string)));
+    }
+
+    @Test public void tokenizer_bytes_01() { testSame("<http://example/s> <http://example/p> <http://example/o> ."); }
+
+    @Test public void tokenizer_bytes_02() { testSame("_:b0 <http://example/p> \"abc\" .\n_:b1 <http://example/p> \"\" ."); }
+
+    @Test public void tokenizer_bytes_03() { testSame("<http://example/s> <http://example/p> \"abc\"@en-GB <http://example/g> ."); }
+
+    @Test public void tokenizer_bytes_04() { testSame("<http://example/s> <http://example/p> \"123\"^^<http://www.w3.org/2001/XMLSchema#integer> ."); }
+
+    @Test public void tokenizer_bytes_05() { testSame("<http://example/s> <http://example/p> \"a\\tb\\n\\u00E9\\U0001F600\\\"\" ."); }
+
+    @Test public void tokenizer_bytes_06() { testSame("<http://example/\u00E9> <http://example/p> \"caf\u00E9 \u4E2D\u6587 \uD83D\uDE00\" ."); }
+
+    @Test public void tokenizer_bytes_07() { testSame("<http://example/a\\u0062c> <http://example/p> 'single' ."); }
+
+    @Test public void tokenizer_bytes_08() { testSame("# Comment\n  <http://example/s> <http://example/p> _:b.x.y. # Comment\r\n"); }
+
+    @Test public void tokenizer_bytes_09() { testSame("<< <http://example/s> <http://example/p> _:\u00E9b >> <http://example/q> \"x\" ."); }
+
+    @Test public void tokenizer_bytes_10() { testSame(""); }
+
+    @Test public void tokenizer_bytes_11() { testSame("\"abc\" @en"); }
+
+    @Test public void tokenizer_bytes_12() { testSame("\"abc\" ^^ <http://example/dt>"); }
+
+    @Test public void tokenizer_bytes_bom() {
+        List<Token> tokens = tokens(tokenizer("\uFEFF<http://example/s>"));
+        assertEquals(1, tokens.size());
+        assertEquals("http://example/s", tokens.get(0).getImage());
+    }
+
+    @Test public void tokenizer_bytes_intern() {
+        List<Token> tokens = tokens(tokenizer("<http://example/p> <http://example/p> \"a\"@en \"b\"@en"));
+        assertSame(tokens.get(0).getImage(), tokens.get(1).getImage());
+        assertSame(tokens.get(2).getImage2(), tokens.get(3).getImage2());
+    }
+
+    @Test public void tokenizer_bytes_position() {
+        List<Token> tokens = tokens(tokenizer("<http://example/s>\n  _:b ."));
+        assertEquals(2, tokens.get(1).getLine());
+        assertEquals(3, tokens.get(1).getColumn());
+    }
+
+    @Test public void tokenizer_bytes_bad_01() { testBad("<http://example/s"); }
+
+    @Test public void tokenizer_bytes_bad_02() { testBad("\"abc"); }
+
+    @Test public void tokenizer_bytes_bad_03() { testBad("\"ab\nc\""); }
+
+    @Test public void tokenizer_bytes_bad_04() { testBad("\"\"\"abc\"\"\""); }
+
+    @Test public void tokenizer_bytes_bad_05() { testBad("123"); }
+
+    @Test public void tokenizer_bytes_bad_06() { testBad("\"abc\"@"); }
+
+    @Test public void tokenizer_bytes_bad_07() { testBad("\"\\q\""); }
+
+    @Test public void tokenizer_bytes_bad_08() {
+        // Malformed UTF-8.
+        byte[] b = { '"', (byte)0xC3, '"' };
+        assertThrows(RiotException.class, ()->tokens(TokenizerBytes.create(ByteBuffer.wrap(b), errorHandlerExceptions())));
+    }
+
+    @Test public void tokenizer_bytes_bad_09() { testBad("<http://example/ space>"); }
+}
@@ -24,8 +24,12 @@ import org.junit.runners.Suite ;
 @RunWith(Suite.class)
 @Suite.SuiteClasses( {
         TestQueryEngineMultiThreaded.class
+      , TestQueryPlanCache.class
       , TestQueryEngineFromContext.class
       , TestJsonEval.class
+      , TestAdaptiveBGP.class
+      , TestBatchExecution.class
+      , TestParallelUnion.class
 })
 
 public class TS_Engine {}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.main.solver.AdaptiveBGP;
+import org.apache.jena.sparql.engine.main.solver.SolverRX3;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestAdaptiveBGP {
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+    private static DatasetGraph dsg;
+
+    @BeforeClass
+    static public void beforeClass() {
+        StringBuilder data = new StringBuilder(PREFIXES);
+        for ( int i = 0 ; i < 40 ; i++ ) {
+            data.append(":s" + i + " :type :T .\n");
+            for ( int j = 0 ; j < 20 ; j++ )
+                data.append(":s" + i + " :q " + j + " .\n");
+            if ( i % 10 == 0 )
+                data.append(":s" + i + " :r 'x' ; :link :s" + (i+1) + " .\n");
+        }
+        dsg = DatasetGraphFactory.createTxnMem();
+        RDFParser.fromString(data.toString(), Lang.TURTLE).parse(dsg);
+    }
+
+    @Test public void adaptive_01()    { test(80, "SELECT * { ?s :type :T . ?s :q ?v . ?s :r 'x' }"); }
+    @Test public void adaptive_02()    { test(80, "SELECT * { ?s :type :T . ?s :link ?t . ?t :q ?v }"); }
+    @Test public void adaptive_03()    { test(0,  "SELECT * { ?s :type :T . ?s :q ?v . ?s :r 'y' }"); }
+    @Test public void adaptive_04()    { test(1,  "SELECT * { VALUES ?s { :s0 :s1 } ?s :type :T . ?s :q 3 . ?s :r ?x . ?s :link ?t }"); }
+
+    @Test public void adaptive_order_01() {
+        // The selective triple pattern is moved before the one with many matches.
+        List<Triple> triples = SSE.parseBGP("(prefix ((: <http://example/>)) (bgp (?s :type :T) (?s :q ?v) (?s :r 'x')))").getList();
+        List<Triple> applied = new ArrayList<>();
+        ExecutionContext execCxt = new ExecutionContext(dsg);
+        AdaptiveBGP.Step<Binding> step = (iter, triple) -> {
+            applied.add(triple);
+            return SolverRX3.rdfStarTriple(iter, triple, execCxt);
+        };
+        Iterator<Binding> input = Iter.singleton(BindingFactory.empty());
+        Iterator<Binding> results = AdaptiveBGP.execute(input, triples, step, null);
+        assertEquals(80, Iter.count(results));
+        // The last two steps are the order for the last batch.
+        assertEquals(triples.get(2), applied.get(applied.size()-2));
+        assertEquals(triples.get(1), applied.get(applied.size()-1));
+    }
+
+    private static void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        ResultSetRewindable rs1 = exec(query, true);
+        ResultSetRewindable rs2 = exec(query, false);
+        assertEquals("Adaptive", expectedRows, rs1.size());
+        assertEquals("Static", expectedRows, rs2.size());
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    private static ResultSetRewindable exec(Query query, boolean adaptive) {
+        try ( QueryExecution qExec = QueryExecution.dataset(DatasetFactory.wrap(dsg)).query(query).set(ARQ.optAdaptiveBGP, adaptive).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.batch.*;
+import org.apache.jena.sparql.engine.iterator.QueryIterRoot;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestBatchExecution {
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+    private static DatasetGraph dsg;
+
+    @BeforeClass
+    static public void beforeClass() {
+        // More than one batch of results for some queries.
+        StringBuilder data = new StringBuilder(PREFIXES);
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            data.append(":s" + i + " :type :T .\n");
+            for ( int j = 0 ; j < 20 ; j++ )
+                data.append(":s" + i + " :q " + j + " .\n");
+            if ( i % 10 == 0 )
+                data.append(":s" + i + " :r 'x' ; :link :s" + (i+1) + " .\n");
+        }
+        data.append(":s0 :self :s0 .\n");
+        data.append(":s1 :self :s2 .\n");
+        data.append(":g1 { :s0 :p 'g' }\n");
+        dsg = DatasetGraphFactory.createTxnMem();
+        RDFParser.fromString(data.toString(), Lang.TRIG).parse(dsg);
+    }
+
+    @Test public void batch_bgp_01()        { test(2000, "SELECT * { ?s :type :T . ?s :q ?v }"); }
+    @Test public void batch_bgp_02()        { test(1,    "SELECT * { ?s :self ?s }"); }
+    @Test public void batch_bgp_03()        { test(0,    "SELECT * { ?s :type :T . ?s :r 'y' }"); }
+    @Test public void batch_filter_01()     { test(500,  "SELECT * { ?s :q ?v FILTER(?v < 5) }"); }
+    @Test public void batch_filter_02()     { test(0,    "SELECT * { ?s :q ?v FILTER(?v > 100) }"); }
+    @Test public void batch_filter_03()     { test(0,    "SELECT * { ?s :q ?v FILTER(?z) }"); }
+    @Test public void batch_extend_01()     { test(2000, "SELECT * { ?s :q ?v BIND(?v + 1 AS ?w) BIND(?w * 2 AS ?z) }"); }
+    @Test public void batch_extend_02()     { test(2000, "SELECT * { ?s :q ?v BIND(?v / 0 AS ?w) }"); }
+    @Test public void batch_project_01()    { test(2000, "SELECT ?v { ?s :q ?v }"); }
+    @Test public void batch_slice_01()      { test(10,   "SELECT * { ?s :q ?v } LIMIT 10"); }
+    @Test public void batch_slice_02()      { test(1,    "SELECT * { ?s :q ?v } OFFSET 1999"); }
+    @Test public void batch_slice_03()      { test(0,    "SELECT * { ?s :q ?v } OFFSET 3000"); }
+    @Test public void batch_slice_04()      { test(1500, "SELECT * { ?s :q ?v } OFFSET 100 LIMIT 1500"); }
+    @Test public void batch_distinct_01()   { test(20,   "SELECT DISTINCT ?v { ?s :q ?v }"); }
+    @Test public void batch_distinct_02()   { test(5,    "SELECT DISTINCT ?v { ?s :q ?v } LIMIT 5"); }
+    @Test public void batch_distinct_03()   { test(20,   "SELECT DISTINCT * { [] :q ?v }"); }
+    @Test public void batch_join_01()       { test(200,  "SELECT * { { ?s :r 'x' } { ?s :q ?v } }"); }
+    @Test public void batch_join_02()       { test(200,  "SELECT * { { ?s :link ?t } { ?t :q ?v } }"); }
+    @Test public void batch_join_03()       { test(20,   "SELECT * { { ?s :r 'x' } { SELECT ?t { ?t :self ?x } } }"); }
+    @Test public void batch_optional_01()   { test(2000, "SELECT * { ?s :q ?v OPTIONAL { ?s :r ?x } }"); }
+    @Test public void batch_optional_02()   { test(380,  "SELECT * { ?s :q ?v OPTIONAL { ?s :link ?t } FILTER(?v < 2 || bound(?t)) }"); }
+    @Test public void batch_union_01()      { test(110,  "SELECT * { { ?s :type :T } UNION { ?s :r ?x } }"); }
+    @Test public void batch_graph_01()      { test(1,    "SELECT * { GRAPH ?g { ?s ?p ?o } }"); }
+    @Test public void batch_group_01()      { test(100,  "SELECT ?s (count(*) AS ?c) { ?s :q ?v } GROUP BY ?s"); }
+    @Test public void batch_values_01()     { test(40,   "SELECT * { VALUES ?s { :s0 :s1 } ?s :q ?v }"); }
+
+    @Test public void batch_order_01() {
+        Query query = QueryFactory.create(PREFIXES + "SELECT * { ?s :q ?v FILTER(?v > 17) } ORDER BY ?s ?v LIMIT 50");
+        ResultSetRewindable rs1 = exec(query, true);
+        ResultSetRewindable rs2 = exec(query, false);
+        assertEquals(50, rs1.size());
+        assertTrue(ResultSetCompare.equalsByTermAndOrder(rs1, rs2));
+    }
+
+    @Test public void batch_pipeline_01() {
+        // Match, join and slice directly.
+        Graph graph = dsg.getDefaultGraph();
+        BatchIterator root = new BatchFromQueryIterator(QueryIterRoot.create(new ExecutionContext(dsg)), List.of());
+        BatchIterator left = new BatchMatchTriple(root, graph, SSE.parseTriple("(?s <http://example/type> <http://example/T>)"));
+        BatchIterator root2 = new BatchFromQueryIterator(QueryIterRoot.create(new ExecutionContext(dsg)), List.of());
+        BatchIterator right = new BatchMatchTriple(root2, graph, SSE.parseTriple("(?s <http://example/q> ?v)"));
+        BatchIterator join = new BatchHashJoin(left, right);
+        assertEquals(List.of(Var.alloc("s"), Var.alloc("v")), join.vars());
+        List<BindingBatch> batches = Iter.toList(new BatchSlice(join, 10, 1500));
+        assertEquals(2, batches.size());
+        assertEquals(1500, batches.stream().mapToInt(BindingBatch::size).sum());
+    }
+
+    @Test public void batch_batch_01() {
+        Var x = Var.alloc("x");
+        Var y = Var.alloc("y");
+        BindingBatch batch = new BindingBatch(List.of(x), 4);
+        Node n1 = SSE.parseNode("1");
+        Node n2 = SSE.parseNode("2");
+        batch.set(0, batch.addRow(), n1);
+        batch.set(0, batch.addRow(), n2);
+        BindingBatch projected = batch.project(List.of(y, x));
+        assertEquals(2, projected.size());
+        assertEquals(null, projected.get(0, 1));
+        assertEquals(n2, projected.get(1, 1));
+        BindingBatch sliced = batch.slice(1, 2);
+        assertEquals(1, sliced.size());
+        assertEquals(n2, sliced.binding(0).get(x));
+    }
+
+    private static void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        ResultSetRewindable rs1 = exec(query, true);
+        ResultSetRewindable rs2 = exec(query, false);
+        assertEquals("Batch", expectedRows, rs1.size());
+        assertEquals("Bindings", expectedRows, rs2.size());
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    private static ResultSetRewindable exec(Query query, boolean batch) {
+        try ( QueryExecution qExec = QueryExecution.dataset(DatasetFactory.wrap(dsg)).query(query).set(ARQ.batchExecution, batch).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
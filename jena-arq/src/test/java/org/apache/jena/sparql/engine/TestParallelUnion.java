@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.DatasetSnapshots;
+import org.apache.jena.sparql.engine.main.iterator.QueryIterParallelUnion;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.system.Txn;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestParallelUnion {
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+    private static DatasetGraph dsg;
+
+    @BeforeClass
+    static public void beforeClass() {
+        StringBuilder data = new StringBuilder(PREFIXES);
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            data.append(":s" + i + " :type :T .\n");
+            for ( int j = 0 ; j < 20 ; j++ )
+                data.append(":s" + i + " :q " + j + " .\n");
+            if ( i % 10 == 0 )
+                data.append(":s" + i + " :r 'x' ; :link :s" + (i+1) + " .\n");
+        }
+        dsg = DatasetGraphFactory.createTxnMem();
+        RDFParser.fromString(data.toString(), Lang.TURTLE).parse(dsg);
+    }
+
+    @Test public void parallel_union_01()   { test(2100, "SELECT * { { ?s :type :T } UNION { ?s :q ?v } }"); }
+    @Test public void parallel_union_02()   { test(120,  "SELECT * { { ?s :type :T } UNION { ?s :r ?x } UNION { ?s :link ?t } UNION { ?s :none ?z } }"); }
+    @Test public void parallel_union_03()   { test(0,    "SELECT * { { ?s :none ?x } UNION { ?s :nothing ?x } }"); }
+    @Test public void parallel_union_04()   { test(10,   "SELECT * { { ?s :type :T } UNION { ?s :q ?v } } LIMIT 10"); }
+    @Test public void parallel_union_05()   { test(210,  "SELECT * { ?s :r 'x' { ?s :q ?v } UNION { ?s :link ?t } }"); }
+    @Test public void parallel_union_06()   { test(2,    "SELECT (count(*) AS ?c) { { ?s :type :T } UNION { ?s :q ?v } } GROUP BY (isIRI(?v))"); }
+    @Test public void parallel_join_01()    { test(200,  "SELECT * { { ?s :r 'x' } { ?s :q ?v } }"); }
+    @Test public void parallel_join_02()    { test(20,   "SELECT * { { ?s :r 'x' } { SELECT ?t { ?t :link ?x } LIMIT 2 } }"); }
+
+    @Test public void parallel_error_01() {
+        // An error in a branch is passed to the query thread.
+        String qs = PREFIXES + "SELECT * { { ?s :type :T } UNION { SERVICE <http://example/none> { ?s ?p ?o } } }";
+        Query query = QueryFactory.create(qs);
+        assertThrows(QueryException.class, ()->exec(query, 4));
+    }
+
+    @Test public void parallel_txn_01() {
+        // Read transaction: branches run in worker threads.
+        List<Op> ops = List.of(SSE.parseOp("(bgp (?s ?p ?o))"), SSE.parseOp("(bgp (?s ?p ?o))"));
+        Txn.executeRead(dsg, ()->{
+            QueryIterator qIter = QueryIterParallelUnion.create(ops, 2, new ExecutionContext(dsg));
+            assertNotNull(qIter);
+            long count = 0;
+            while ( qIter.hasNext() ) {
+                qIter.next();
+                count++;
+            }
+            assertEquals(2 * 2120, count);
+        });
+    }
+
+    @Test public void parallel_txn_02() {
+        // Write transaction: not possible.
+        List<Op> ops = List.of(SSE.parseOp("(bgp (?s ?p ?o))"));
+        Txn.executeWrite(dsg, ()->{
+            QueryIterator qIter = QueryIterParallelUnion.create(ops, 2, new ExecutionContext(dsg));
+            assertNull(qIter);
+        });
+    }
+
+    @Test public void snapshot_01() {
+        DatasetGraph dsg2 = DatasetGraphFactory.createTxnMem();
+        assertNull(DatasetSnapshots.snapshot(dsg2));
+        Object snapshot1 = Txn.calculateRead(dsg2, ()->DatasetSnapshots.snapshot(dsg2));
+        Txn.executeRead(dsg2, ()->{
+            Object snapshot = DatasetSnapshots.snapshot(dsg2);
+            assertEquals(snapshot1, snapshot);
+            // Another thread, another transaction, same data.
+            Object other = CompletableFuture.supplyAsync(()->Txn.calculateRead(dsg2, ()->DatasetSnapshots.snapshot(dsg2))).join();
+            assertEquals(snapshot, other);
+            // A commit in another thread.
+            CompletableFuture.runAsync(()->Txn.executeWrite(dsg2, ()->dsg2.add(SSE.parseQuad("(_ :s :p :o)")))).join();
+            Object changed = CompletableFuture.supplyAsync(()->Txn.calculateRead(dsg2, ()->DatasetSnapshots.snapshot(dsg2))).join();
+            assertNotEquals(snapshot, changed);
+        });
+    }
+
+    private static void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        ResultSetRewindable rs1 = exec(query, 4);
+        ResultSetRewindable rs2 = exec(query, 1);
+        assertEquals("Parallel", expectedRows, rs1.size());
+        assertEquals("Sequential", expectedRows, rs2.size());
+        if ( ! query.hasLimit() )
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        // In a read transaction.
+        ResultSetRewindable rs3 = Txn.calculateRead(dsg, ()->exec(query, 4));
+        assertEquals("Parallel (transaction)", expectedRows, rs3.size());
+    }
+
+    private static ResultSetRewindable exec(Query query, int parallelism) {
+        try ( QueryExecution qExec = QueryExecution.dataset(DatasetFactory.wrap(dsg)).query(query).set(ARQ.parallelUnion, parallelism).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
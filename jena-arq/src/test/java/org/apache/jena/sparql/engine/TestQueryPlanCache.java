@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import static org.junit.Assert.*;
+
+import java.lang.ref.WeakReference;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.OpFilter;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.engine.binding.BindingRoot;
+import org.apache.jena.sparql.engine.main.QueryEngineMain;
+import org.apache.jena.sparql.exec.QueryExec;
+import org.apache.jena.sparql.exec.RowSetRewindable;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.syntax.ElementFilter;
+import org.apache.jena.sparql.syntax.ElementGroup;
+import org.apache.jena.sparql.util.Context;
+import org.junit.Test;
+
+public class TestQueryPlanCache {
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+    private static String QUERY = PREFIXES + "SELECT * { ?s :p ?o FILTER(?o > 1) OPTIONAL { ?s :q ?v } }";
+
+    private static DatasetGraph data() {
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem();
+        RDFParser.fromString(PREFIXES + ":a :p 1 . :b :p 2 . :c :p 3 . :b :q 'x' .", Lang.TURTLE).parse(dsg);
+        return dsg;
+    }
+
+    @Test public void parse_01() {
+        QueryPlanCache cache = new QueryPlanCache(10);
+        Query q1 = cache.parse(QUERY, null, Syntax.syntaxARQ);
+        Query q2 = cache.parse(QUERY, null, Syntax.syntaxARQ);
+        assertSame(q1, q2);
+        assertEquals(1, cache.getQueryHits());
+        assertEquals(1, cache.getQueryMisses());
+        assertEquals(QueryFactory.create(QUERY), q1);
+    }
+
+    @Test public void parse_02() {
+        QueryPlanCache cache = new QueryPlanCache(10);
+        Query q1 = cache.parse(QUERY, null, Syntax.syntaxARQ);
+        Query q2 = cache.parse(QUERY, "http://example/base/", Syntax.syntaxARQ);
+        Query q3 = cache.parse(QUERY, null, Syntax.syntaxSPARQL_11);
+        assertNotSame(q1, q2);
+        assertNotSame(q1, q3);
+        assertEquals(0, cache.getQueryHits());
+        assertEquals(3, cache.getQueryMisses());
+    }
+
+    @Test public void parse_03() {
+        QueryPlanCache cache = new QueryPlanCache(10);
+        String bad = "SELECT * {";
+        assertThrows(QueryParseException.class, ()->cache.parse(bad, null, Syntax.syntaxARQ));
+        assertThrows(QueryParseException.class, ()->cache.parse(bad, null, Syntax.syntaxARQ));
+        assertEquals(0, cache.getQueryCacheSize());
+    }
+
+    @Test public void plan_01() {
+        QueryPlanCache cache = new QueryPlanCache(10);
+        Query query = QueryFactory.create(QUERY);
+        DatasetGraph dsg = data();
+        Context cxt = new Context();
+        Op op1 = cache.plan(query, getClass(), dsg, cxt, ()->opOf(query));
+        Op op2 = cache.plan(query, getClass(), dsg, cxt, ()->{ fail("Not cached"); return null; });
+        assertEquals(op1, op2);
+        assertNotSame(op1, op2);
+        assertEquals(1, cache.getPlanHits());
+        // Different optimizer settings
+        Context cxt2 = new Context();
+        cxt2.set(ARQ.optFilterPlacement, false);
+        cache.plan(query, getClass(), dsg, cxt2, ()->opOf(query));
+        // Different dataset
+        cache.plan(query, getClass(), data(), cxt, ()->opOf(query));
+        // Equal, but not the same, query.
+        cache.plan(QueryFactory.create(QUERY), getClass(), dsg, cxt, ()->opOf(query));
+        assertEquals(1, cache.getPlanHits());
+        assertEquals(4, cache.getPlanMisses());
+    }
+
+    @Test public void plan_02() {
+        // Expressions are not shared between the plans returned, or with the query.
+        QueryPlanCache cache = new QueryPlanCache(10);
+        Query query = QueryFactory.create(PREFIXES+"SELECT * { ?s :p ?o FILTER(:f(?o)) }");
+        DatasetGraph dsg = data();
+        Context cxt = new Context();
+        Op op1 = cache.plan(query, getClass(), dsg, cxt, ()->Algebra.compile(query));
+        Op op2 = cache.plan(query, getClass(), dsg, cxt, ()->Algebra.compile(query));
+        Expr queryExpr = ((ElementFilter)((ElementGroup)query.getQueryPattern()).get(1)).getExpr();
+        Expr expr1 = ((OpFilter)op1).getExprs().get(0);
+        Expr expr2 = ((OpFilter)op2).getExprs().get(0);
+        assertEquals(queryExpr, expr1);
+        assertEquals(expr1, expr2);
+        assertNotSame(queryExpr, expr1);
+        assertNotSame(expr1, expr2);
+    }
+
+    @Test public void plan_03() {
+        // The cache does not keep the dataset alive.
+        QueryPlanCache cache = new QueryPlanCache(10);
+        Query query = QueryFactory.create(QUERY);
+        DatasetGraph dsg = data();
+        WeakReference<DatasetGraph> ref = new WeakReference<>(dsg);
+        cache.plan(query, getClass(), dsg, new Context(), ()->opOf(query));
+        dsg = null;
+        for ( int i = 0 ; i < 20 && ref.get() != null ; i++ )
+            System.gc();
+        assertNull(ref.get());
+    }
+
+    @Test public void builder_01() {
+        // The setting in the builder's context applies to parsing a query string.
+        QueryPlanCache cache = QueryPlanCache.get();
+        String queryString = QUERY + " # builder_01";
+        long misses = cache.getQueryMisses();
+        for ( int i = 0 ; i < 2 ; i++ ) {
+            try ( QueryExec qExec = QueryExec.dataset(data()).query(queryString).set(ARQ.queryPlanCache, true).build() ) {
+                assertEquals(2, qExec.select().rewindable().size());
+            }
+        }
+        assertEquals(misses+1, cache.getQueryMisses());
+        try ( QueryExec qExec = QueryExec.dataset(data()).query(queryString).build() ) {
+            assertEquals(2, qExec.select().rewindable().size());
+        }
+        assertEquals(misses+1, cache.getQueryMisses());
+    }
+
+    @Test public void exec_01() {
+        DatasetGraph dsg = data();
+        QueryPlanCache cache = QueryPlanCache.get();
+        Query query = cache.parse(QUERY, null, Syntax.syntaxARQ);
+        long hits = cache.getPlanHits();
+        RowSetRewindable rs1 = exec(dsg, query, true);
+        RowSetRewindable rs2 = exec(dsg, query, true);
+        RowSetRewindable rs3 = exec(dsg, query, false);
+        assertEquals(hits+1, cache.getPlanHits());
+        assertEquals(2, rs1.size());
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        rs1.reset();
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs3));
+    }
+
+    @Test public void exec_02() {
+        // The query after substitution is a new Query object.
+        DatasetGraph dsg = data();
+        Query query = QueryPlanCache.get().parse(QUERY, null, Syntax.syntaxARQ);
+        for ( boolean cached : new boolean[] {true, true, false} ) {
+            try ( QueryExec qExec = QueryExec.dataset(dsg).query(query).set(ARQ.queryPlanCache, cached)
+                                            .substitution("s", NodeFactory.createURI("http://example/b"))
+                                            .build() ) {
+                assertEquals(1, qExec.select().rewindable().size());
+            }
+        }
+    }
+
+    @Test public void exec_03() {
+        // An engine that does not allow its plans to be cached.
+        DatasetGraph dsg = data();
+        QueryPlanCache cache = QueryPlanCache.get();
+        Query query = cache.parse(QUERY, null, Syntax.syntaxARQ);
+        long hits = cache.getPlanHits();
+        long misses = cache.getPlanMisses();
+        for ( int i = 0 ; i < 2 ; i++ ) {
+            Context cxt = ARQ.getContext().copy();
+            cxt.set(ARQ.queryPlanCache, true);
+            QueryEngineBase engine = new QueryEngineMain(query, dsg, BindingRoot.create(), cxt) {
+                @Override
+                protected boolean isPlanCacheable() {
+                    return false;
+                }
+            };
+            QueryIterator qIter = engine.getPlan().iterator();
+            assertEquals(2, Iter.count(qIter));
+            qIter.close();
+        }
+        assertEquals(hits, cache.getPlanHits());
+        assertEquals(misses, cache.getPlanMisses());
+    }
+
+    private static Op opOf(Query query) {
+        return Algebra.optimize(Algebra.compile(query));
+    }
+
+    private static RowSetRewindable exec(DatasetGraph dsg, Query query, boolean cached) {
+        try ( QueryExec qExec = QueryExec.dataset(dsg).query(query).set(ARQ.queryPlanCache, cached).build() ) {
+            return qExec.select().rewindable();
+        }
+    }
+}
@@ -30,6 +30,8 @@ import org.junit.runners.Suite ;
     , TestDataBagDistinctOrder.class
     , TestCancelDistinct.class
     , TestSortedDataBagCancellation.class
+    , TestQueryIterGroupSpill.class
+    , TestQueryIterGroupParallel.class
 })
 public class TS_QueryIterators {
 
@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.exec.QueryExec;
+import org.apache.jena.sparql.exec.QueryExecBuilder;
+import org.apache.jena.sparql.exec.RowSetRewindable;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.function.FunctionBase1;
+import org.apache.jena.sparql.function.FunctionRegistry;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.system.Txn;
+import org.junit.Test;
+
+/** GROUP BY with parallel aggregation. */
+public class TestQueryIterGroupParallel {
+    private static final String PRE = "PREFIX : <http://example/> ";
+
+    // Several batches of input.
+    private static Graph data() {
+        Graph graph = GraphFactory.createDefaultGraph();
+        Node pGroup = SSE.parseNode(":group");
+        Node pValue = SSE.parseNode(":value");
+        for ( int i = 0 ; i < 5000 ; i++ ) {
+            Node s = NodeFactory.createURI("http://example/s"+i);
+            graph.add(s, pGroup, NodeFactory.createURI("http://example/g"+(i%37)));
+            graph.add(s, pValue, SSE.parseNode(Integer.toString(i%101)));
+            if ( i == 4321 )
+                graph.add(s, pValue, SSE.parseNode("'text'"));
+        }
+        return graph;
+    }
+
+    private static RowSetRewindable exec(Graph graph, String queryString, int parallelism) {
+        QueryExecBuilder builder = QueryExec.graph(graph).query(PRE+queryString);
+        if ( parallelism > 0 )
+            builder.set(ARQ.groupByParallelism, parallelism);
+        try ( QueryExec qExec = builder.build() ) {
+            return qExec.select().rewindable();
+        }
+    }
+
+    private static void test(String queryString) {
+        Graph graph = data();
+        RowSetRewindable expected = exec(graph, queryString, -1);
+        for ( int parallelism : new int[] {2, 4} ) {
+            RowSetRewindable actual = exec(graph, queryString, parallelism);
+            expected.reset();
+            assertEquals(expected.size(), actual.size());
+            assertTrue("Parallelism "+parallelism, ResultSetCompare.equalsByTerm(expected, actual));
+        }
+    }
+
+    @Test public void group_parallel_1() {
+        test("SELECT ?g (COUNT(*) AS ?c) (SUM(?v) AS ?sum) (AVG(?v) AS ?avg) { ?s :group ?g ; :value ?v } GROUP BY ?g");
+    }
+
+    @Test public void group_parallel_2() {
+        test("SELECT ?g (MIN(?v) AS ?min) (MAX(?v) AS ?max) (COUNT(?v) AS ?c) { ?s :group ?g ; :value ?v } GROUP BY ?g");
+    }
+
+    @Test public void group_parallel_no_group_by() {
+        test("SELECT (COUNT(*) AS ?c) (SUM(?v) AS ?sum) { ?s :value ?v }");
+    }
+
+    @Test public void group_parallel_not_mergeable() {
+        test("SELECT ?g (SAMPLE(?v) AS ?x) (COUNT(*) AS ?c) { ?s :group ?g ; :value ?v FILTER(?v = 7) } GROUP BY ?g");
+    }
+
+    @Test public void group_parallel_expressions() {
+        test("SELECT ?k (SUM(?v*2) AS ?sum) (COUNT(?v+1) AS ?c) (MAX(STR(?v)) AS ?max) { ?s :group ?g ; :value ?v } GROUP BY (STR(?g) AS ?k)");
+    }
+
+    @Test public void group_parallel_expressions_2() {
+        // Work in the key and aggregate expressions.
+        test("SELECT ?k (MAX(SHA256(CONCAT(STR(?s), STR(?v)))) AS ?max) (SUM(STRLEN(REPLACE(STR(?s), '[0-9]', 'x'))) AS ?len) "+
+             "{ ?s :group ?g ; :value ?v } GROUP BY (SUBSTR(MD5(STR(?g)), 1, 1) AS ?k)");
+    }
+
+    @Test public void group_parallel_exists() {
+        test("SELECT ?k (COUNT(*) AS ?c) { ?s :group ?g ; :value ?v } GROUP BY (EXISTS { ?s :value 7 } AS ?k)");
+    }
+
+    // Records the threads it is called on.
+    private static final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    public static class RecordThread extends FunctionBase1 {
+        @Override
+        public NodeValue exec(NodeValue v) {
+            threads.add(Thread.currentThread());
+            return v;
+        }
+    }
+
+    private static final String recordThread = "http://example/recordThread";
+    private static final String recordThreadQuery =
+        "SELECT ?k (SUM(<"+recordThread+">(?v)) AS ?sum) { ?s :group ?g ; :value ?v } GROUP BY (<"+recordThread+">(?g) AS ?k)";
+
+    @Test public void group_parallel_worker_threads() {
+        // Keys and aggregate expressions are evaluated by the tasks.
+        FunctionRegistry.get().put(recordThread, RecordThread.class);
+        try {
+            threads.clear();
+            exec(data(), recordThreadQuery, 4);
+            assertFalse(threads.isEmpty());
+            assertFalse(threads.contains(Thread.currentThread()));
+        } finally {
+            FunctionRegistry.get().remove(recordThread);
+        }
+    }
+
+    @Test public void group_parallel_transaction() {
+        // Tasks start read transactions on the same data as the query.
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem();
+        Txn.executeWrite(dsg, ()->GraphUtil.addInto(dsg.getDefaultGraph(), data()));
+        FunctionRegistry.get().put(recordThread, RecordThread.class);
+        try {
+            RowSetRewindable expected = Txn.calculateRead(dsg, ()->exec(dsg, recordThreadQuery, -1));
+            threads.clear();
+            RowSetRewindable actual = Txn.calculateRead(dsg, ()->exec(dsg, recordThreadQuery, 4));
+            assertFalse(threads.contains(Thread.currentThread()));
+            assertTrue(ResultSetCompare.equalsByTerm(expected, actual));
+        } finally {
+            FunctionRegistry.get().remove(recordThread);
+        }
+    }
+
+    @Test public void group_parallel_transaction_changed() {
+        // The data changes after the query transaction starts: batches are
+        // aggregated in the query thread and see the data of the query transaction.
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem();
+        Txn.executeWrite(dsg, ()->GraphUtil.addInto(dsg.getDefaultGraph(), data()));
+        FunctionRegistry.get().put(recordThread, RecordThread.class);
+        try {
+            RowSetRewindable expected = Txn.calculateRead(dsg, ()->exec(dsg, recordThreadQuery, -1));
+            threads.clear();
+            RowSetRewindable actual = Txn.calculateRead(dsg, ()->{
+                CompletableFuture.runAsync(()->Txn.executeWrite(dsg, ()->dsg.add(SSE.parseQuad("(_ :s0 :value 1000)")))).join();
+                return exec(dsg, recordThreadQuery, 4);
+            });
+            assertEquals(Set.of(Thread.currentThread()), threads);
+            assertTrue(ResultSetCompare.equalsByTerm(expected, actual));
+        } finally {
+            FunctionRegistry.get().remove(recordThread);
+        }
+    }
+
+    private static RowSetRewindable exec(DatasetGraph dsg, String queryString, int parallelism) {
+        QueryExecBuilder builder = QueryExec.dataset(dsg).query(PRE+queryString);
+        if ( parallelism > 0 )
+            builder.set(ARQ.groupByParallelism, parallelism);
+        try ( QueryExec qExec = builder.build() ) {
+            return qExec.select().rewindable();
+        }
+    }
+}
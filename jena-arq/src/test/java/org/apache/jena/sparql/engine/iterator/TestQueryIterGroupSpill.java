@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.exec.QueryExec;
+import org.apache.jena.sparql.exec.QueryExecBuilder;
+import org.apache.jena.sparql.exec.RowSet;
+import org.apache.jena.sparql.exec.RowSetRewindable;
+import org.apache.jena.sparql.expr.ExprVar;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.expr.aggregate.AggAvg;
+import org.apache.jena.sparql.expr.aggregate.MergeableAccumulator;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.junit.Test;
+
+/** GROUP BY when the groups spill to disk. */
+public class TestQueryIterGroupSpill {
+    private static final String PRE = "PREFIX : <http://example/> ";
+
+    private static Graph data() {
+        Graph graph = GraphFactory.createDefaultGraph();
+        Node pGroup = SSE.parseNode(":group");
+        Node pValue = SSE.parseNode(":value");
+        Node pOther = SSE.parseNode(":other");
+        for ( int i = 0 ; i < 200 ; i++ ) {
+            Node s = NodeFactory.createURI("http://example/s"+i);
+            graph.add(s, pGroup, NodeFactory.createURI("http://example/g"+(i%17)));
+            graph.add(s, pValue, SSE.parseNode(Integer.toString(i%23)));
+            if ( i % 3 == 0 )
+                graph.add(s, pOther, SSE.parseNode("'x"+i+"'"));
+            if ( i == 7 )
+                graph.add(s, pValue, SSE.parseNode("'text'"));
+        }
+        return graph;
+    }
+
+    private static RowSetRewindable exec(Graph graph, String queryString, long threshold) {
+        QueryExecBuilder builder = QueryExec.graph(graph).query(PRE+queryString);
+        if ( threshold >= 0 )
+            builder.set(ARQ.spillToDiskThreshold, threshold);
+        try ( QueryExec qExec = builder.build() ) {
+            RowSet rs = qExec.select();
+            return rs.rewindable();
+        }
+    }
+
+    private static void test(String queryString) {
+        Graph graph = data();
+        RowSetRewindable expected = exec(graph, queryString, -1);
+        for ( long threshold : new long[] {0, 1, 5, 1000} ) {
+            RowSetRewindable actual = exec(graph, queryString, threshold);
+            expected.reset();
+            assertEquals(expected.size(), actual.size());
+            boolean b = ResultSetCompare.equalsByTerm(expected, actual);
+            assertTrue("Threshold "+threshold, b);
+        }
+    }
+
+    @Test public void group_spill_count() {
+        test("SELECT ?g (COUNT(*) AS ?c) (COUNT(?o) AS ?co) { ?s :group ?g OPTIONAL { ?s :other ?o } } GROUP BY ?g");
+    }
+
+    @Test public void group_spill_sum_avg() {
+        test("SELECT ?g (SUM(?v) AS ?sum) (AVG(?v) AS ?avg) { ?s :group ?g ; :value ?v } GROUP BY ?g");
+    }
+
+    @Test public void group_spill_min_max() {
+        test("SELECT ?g (MIN(?v) AS ?min) (MAX(?v) AS ?max) { ?s :group ?g ; :value ?v } GROUP BY ?g");
+    }
+
+    @Test public void group_spill_expr_key() {
+        test("SELECT ?k (COUNT(*) AS ?c) (SUM(?v) AS ?sum) { ?s :value ?v } GROUP BY (isNumeric(?v) AS ?k)");
+    }
+
+    @Test public void group_spill_no_aggregators() {
+        test("SELECT ?g { ?s :group ?g } GROUP BY ?g");
+    }
+
+    @Test public void group_spill_not_mergeable() {
+        // GROUP_CONCAT does not have a partial state; the groups stay in memory.
+        test("SELECT ?g (COUNT(*) AS ?c) (GROUP_CONCAT(?v) AS ?gc) { ?s :group ?g ; :value ?v } GROUP BY ?g");
+    }
+
+    @Test public void group_merge_avg_large_count() {
+        // A count in a partial state that does not fit in an int.
+        long count = 3_000_000_000L;
+        MergeableAccumulator acc = (MergeableAccumulator)new AggAvg(new ExprVar(Var.alloc("v"))).createAccumulator();
+        acc.mergePartialState(List.of(NodeValue.makeInteger(2*count).asNode(),
+                                      NodeValue.makeInteger(count).asNode(),
+                                      NodeValue.makeInteger(count).asNode(),
+                                      NodeValue.makeInteger(0).asNode()));
+        assertEquals(NodeValue.makeDecimal(2), acc.getValue());
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.algebra.Table ;
+import org.apache.jena.sparql.algebra.table.TableN ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingBuilder ;
+import org.apache.jena.sparql.engine.main.OpExecutorFactory ;
+import org.apache.jena.sparql.expr.ExprList ;
+import org.apache.jena.sparql.expr.NodeValue ;
+import org.apache.jena.sparql.util.Context ;
+import org.junit.Test ;
+
+/** Hash join where the probe table spills to disk immediately. */
+public class TestHashJoinSpill extends AbstractTestInnerJoin {
+    /** An execution context with a spill threshold of zero. */
+    static ExecutionContext spillExecCxt() {
+        Context context = new Context() ;
+        context.set(ARQ.spillToDiskThreshold, 0L) ;
+        return new ExecutionContext(context, (Graph)null, (DatasetGraph)null, (OpExecutorFactory)null) ;
+    }
+
+    @Override
+    public QueryIterator join(JoinKey joinKey, Table left, Table right, ExprList conditions) {
+        ExecutionContext execCxt = spillExecCxt() ;
+        return Join.hashJoin(joinKey, left.iterator(execCxt), right.iterator(execCxt), execCxt) ;
+    }
+
+    /**
+     * A table of {@code n} rows with ?a (the join key) from {@code 0} to
+     * {@code modulus-1} and a row number in {@code var}. Every
+     * {@code noKeyEvery}th row does not have ?a.
+     */
+    static Table spillTable(int n, int modulus, String var, int noKeyEvery) {
+        TableN table = new TableN() ;
+        for ( int i = 0 ; i < n ; i++ ) {
+            BindingBuilder builder = Binding.builder() ;
+            if ( i % noKeyEvery != 0 )
+                builder.add(Var.alloc("a"), NodeValue.makeInteger(i % modulus).asNode()) ;
+            builder.add(Var.alloc(var), NodeValue.makeInteger(i).asNode()) ;
+            table.addBinding(builder.build()) ;
+        }
+        return table ;
+    }
+
+    /** An execution context that does not spill. */
+    static ExecutionContext memExecCxt() {
+        return new ExecutionContext(new Context(), (Graph)null, (DatasetGraph)null, (OpExecutorFactory)null) ;
+    }
+
+    // Many partitions, rows without the key on both sides.
+    // ?b is shared so a row without the key matches at most one row of the other side.
+    @Test public void join_spill_no_key() {
+        Table left = spillTable(200, 50, "b", 7) ;
+        Table right = spillTable(150, 60, "b", 11) ;
+        ExecutionContext execCxt = memExecCxt() ;
+        Table expected = new TableN(Join.nestedLoopJoin(left.iterator(execCxt), right.iterator(execCxt), execCxt)) ;
+        testJoin("a", left, right, expected) ;
+    }
+}
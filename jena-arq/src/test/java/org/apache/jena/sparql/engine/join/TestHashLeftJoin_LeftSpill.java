@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import org.apache.jena.sparql.algebra.Table ;
+import org.apache.jena.sparql.algebra.table.TableN ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.expr.ExprList ;
+import org.junit.Test ;
+
+/** Left outer join, left hand side as the probe table, spilling to disk. */
+public class TestHashLeftJoin_LeftSpill extends AbstractTestLeftJoin {
+    @Override
+    public QueryIterator join(JoinKey joinKey, Table left, Table right, ExprList conditions) {
+        ExecutionContext execCxt = TestHashJoinSpill.spillExecCxt() ;
+        return QueryIterHashLeftJoin_Left.create(joinKey, left.iterator(execCxt), right.iterator(execCxt), conditions, execCxt) ;
+    }
+
+    // Many partitions, rows without the key on both sides.
+    // ?b is shared so a row without the key matches at most one row of the other side.
+    @Test public void leftjoin_spill_no_key()   { testSpill(TestHashJoinSpill.spillTable(150, 60, "b", 11)) ; }
+
+    // Rows without the key match everything.
+    @Test public void leftjoin_spill_no_key_all() { testSpill(TestHashJoinSpill.spillTable(150, 60, "c", 11)) ; }
+
+    // Left rows with no match.
+    @Test public void leftjoin_spill_misses()   { testSpill(TestHashJoinSpill.spillTable(150, 30, "c", 1000)) ; }
+
+    private void testSpill(Table right) {
+        Table left = TestHashJoinSpill.spillTable(200, 50, "b", 7) ;
+        ExecutionContext execCxt = TestHashJoinSpill.memExecCxt() ;
+        Table expected = new TableN(Join.nestedLoopLeftJoin(left.iterator(execCxt), right.iterator(execCxt), null, execCxt)) ;
+        testJoin("a", left, right, expected) ;
+    }
+}
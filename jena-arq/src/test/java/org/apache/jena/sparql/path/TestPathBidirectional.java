@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.apache.jena.atlas.lib.StrUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.shared.impl.PrefixMappingImpl;
+import org.apache.jena.sparql.exec.QueryExec;
+import org.apache.jena.sparql.path.eval.PathEvalBidirectional;
+import org.apache.jena.sparql.sse.SSE;
+import org.junit.Test;
+
+/** Bidirectional search for paths with both ends fixed. */
+public class TestPathBidirectional {
+
+    static String graphStr = StrUtils.strjoinNL
+            ("PREFIX : <http://example/>"
+            ,":a :p :b . :b :p :c . :c :p :d . :d :p :b ."
+            ,":a :p :x1 . :x1 :p :x2 . :x2 :p :x3 ."
+            ,":y1 :p :d . :y2 :p :y1 ."
+            ,":c :q :e . :e :q :a ."
+            ,":a :p 'lit' ."
+            );
+
+    static Graph graph = RDFParser.fromString(graphStr, Lang.TTL).toGraph();
+
+    static PrefixMapping pmap = new PrefixMappingImpl();
+    static { pmap.setNsPrefix("", "http://example/"); }
+
+    @Test public void bidirectional_01() { exists(true,  ":a", ":p+", ":d"); }
+    @Test public void bidirectional_02() { exists(true,  ":a", ":p*", ":a"); }
+    @Test public void bidirectional_03() { exists(false, ":a", ":p+", ":a"); }
+    @Test public void bidirectional_04() { exists(true,  ":b", ":p+", ":b"); }
+    @Test public void bidirectional_05() { exists(false, ":d", ":p+", ":a"); }
+    @Test public void bidirectional_06() { exists(true,  ":y2", ":p+", ":c"); }
+    @Test public void bidirectional_07() { exists(true,  ":d", "(^:p)+", ":a"); }
+    @Test public void bidirectional_08() { exists(true,  ":a", "(:p|:q)+", ":a"); }
+    @Test public void bidirectional_09() { exists(true,  ":a", "(:p/:p)+", ":d"); }
+    @Test public void bidirectional_10() { exists(false, ":a", "(:p/:p)+", ":x3"); }
+    @Test public void bidirectional_11() { exists(true,  ":a", ":p*", ":x3"); }
+    @Test public void bidirectional_12() { exists(false, ":zz", ":p+", ":a"); }
+    @Test public void bidirectional_13() { exists(true,  ":zz", ":p*", ":zz"); }
+
+    @Test public void bidirectional_budget() {
+        Path path = SSE.parsePath("(path+ :p)", pmap);
+        Boolean b = PathEvalBidirectional.exists(graph, node(":a"), path, node(":x3"), 1, null);
+        assertNull(b);
+    }
+
+    @Test public void bidirectional_query_01() { query(1, "ASK { :a :p+ :d }"); }
+    @Test public void bidirectional_query_02() { query(0, "ASK { :d :p+ :a }"); }
+    @Test public void bidirectional_query_03() { query(1, "ASK { :a :p+ 'lit' }"); }
+    @Test public void bidirectional_query_04() { query(3, "SELECT * { VALUES ?x { :a :b :y1 } ?x :p+ :c }"); }
+
+    private static void exists(boolean expected, String subject, String pathStr, String object) {
+        Path path = PathParser.parse(pathStr, pmap);
+        Node s = node(subject);
+        Node o = node(object);
+        Boolean b = PathEvalBidirectional.exists(graph, s, path, o, -1, null);
+        assertEquals(expected, b);
+    }
+
+    private static void query(int expected, String queryString) {
+        String qs = "PREFIX : <http://example/> " + queryString;
+        long x1 = count(qs, -1);
+        // Bidirectional search off.
+        long x2 = count(qs, 0);
+        assertEquals(expected, x1);
+        assertEquals(expected, x2);
+    }
+
+    private static long count(String qs, long budget) {
+        try ( QueryExec qExec = QueryExec.graph(graph).query(qs).set(ARQ.pathBidirectionalBudget, budget).build() ) {
+            if ( qs.contains("ASK") )
+                return qExec.ask() ? 1 : 0;
+            return qExec.select().rewindable().size();
+        }
+    }
+
+    private static Node node(String prefixedName) {
+        return SSE.parseNode(prefixedName, pmap);
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.jena.sparql.solver;
 import org.apache.jena.atlas.lib.StrUtils ;
 import org.apache.jena.graph.Triple ;
 import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality ;
 import org.apache.jena.sparql.engine.optimizer.StatsMatcher ;
 import org.apache.jena.sparql.sse.Item ;
 import org.apache.jena.sparql.sse.SSE ;
@@ -53,6 +54,17 @@ public class SolverLibTest
         return new StatsMatcher(item) ; 
     }
 
+    public static StatsCardinality cardinality(String... str)
+    {
+        String s1 = "(prefix ((: <http://example/>))\n(stats " ;
+        String s2 = "))" ;
+
+        String x = StrUtils.strjoinNL(str) ;
+
+        Item item = SSE.parse(s1+x+s2) ;
+        return new StatsCardinality(item) ;
+    }
+
     public static Triple triple(String str)
     {
         String s1 = "(prefix ((: <http://example/>)) " ;
@@ -19,12 +19,19 @@
 package org.apache.jena.sparql.solver;
 
 import static org.apache.jena.sparql.solver.SolverLibTest.bgp ;
+import static org.apache.jena.sparql.solver.SolverLibTest.cardinality ;
 import static org.apache.jena.sparql.solver.SolverLibTest.matcher ;
 import static org.apache.jena.sparql.solver.SolverLibTest.triple ;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.List ;
+
+import org.apache.jena.graph.NodeFactory ;
 import org.apache.jena.graph.Triple ;
 import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality ;
 import org.apache.jena.sparql.engine.optimizer.StatsMatcher ;
 import org.apache.jena.sparql.engine.optimizer.reorder.* ;
 import org.junit.Test ;
@@ -226,4 +233,108 @@ public class TestReorder
         assertEquals(bgp2, bgp) ;
     }
   
+
+    // Detailed statistics.
+    private static final String[] statsDetailed = {
+        "(meta (count 4200) (subjects 1100) (objects 1250))",
+        "(:name 100) (:age 100) (:title 1000) (:author 3000)",
+        "(predicates",
+        "  (:name (count 100) (subjects 100) (objects 100))",
+        "  (:age (count 100) (subjects 100) (objects 50) (histogram (bounds 0 50 100) (counts 50 50) (distinct 25 25)))",
+        "  (:title (count 1000) (subjects 1000) (objects 1000))",
+        "  (:author (count 3000) (subjects 1000) (objects 100))",
+        ")",
+        "(charsets",
+        "  (charset 100 (:name 100) (:age 100))",
+        "  (charset 1000 (:title 1000) (:author 3000))",
+        ")"
+    } ;
+
+    @Test public void stats_detailed_01()
+    {
+        // StatsMatcher ignores the detailed sections.
+        StatsMatcher matcher = SolverLibTest.matcher(statsDetailed) ;
+        assertEquals(3000, matcher.match(triple("(?x :author ?v)")), 0) ;
+    }
+
+    @Test public void stats_detailed_02()
+    {
+        StatsCardinality stats = cardinality(statsDetailed) ;
+        assertEquals(4200, stats.getCount()) ;
+        assertEquals(1000, stats.distinctSubjects(NodeFactory.createURI("http://example/author")), 0) ;
+        assertTrue(stats.hasCharacteristicSets()) ;
+        assertEquals(2, stats.getCharacteristicSets().size()) ;
+    }
+
+    @Test public void stats_detailed_03()
+    {
+        // Predicates that never occur together.
+        StatsCardinality stats = cardinality(statsDetailed) ;
+        double star1 = new ReorderDynamicProgramming(stats).cardinality(bgp("(bgp (?x :name ?n) (?x :author ?a))")) ;
+        assertEquals(0, star1, 0) ;
+        // Correlated predicates.
+        double star2 = new ReorderDynamicProgramming(stats).cardinality(bgp("(bgp (?x :title ?t) (?x :author ?a))")) ;
+        assertEquals(3000, star2, 0.001) ;
+    }
+
+    @Test public void stats_detailed_04()
+    {
+        // Histogram
+        StatsCardinality stats = cardinality(statsDetailed) ;
+        ReorderDynamicProgramming reorder = new ReorderDynamicProgramming(stats) ;
+        assertEquals(2, reorder.cardinality(bgp("(bgp (?x :age 30))")), 0.001) ;
+        assertEquals(0, reorder.cardinality(bgp("(bgp (?x :age 200))")), 0) ;
+        assertEquals(2, reorder.cardinality(bgp("(bgp (?x :age 'Bob'))")), 0.001) ;
+    }
+
+    @Test public void reorder_dp_01()
+    {
+        ReorderTransformation transform = new ReorderDynamicProgramming(cardinality(statsDetailed)) ;
+        BasicPattern bgp1 = bgp("(bgp (?b :author ?a) (?a :name 'Bob') (?b :title ?t))") ;
+        BasicPattern bgp2 = bgp("(bgp (?a :name 'Bob') (?b :author ?a) (?b :title ?t))") ;
+        assertEquals(bgp2, transform.reorder(bgp1)) ;
+    }
+
+    @Test public void reorder_dp_02()
+    {
+        // No information - written order.
+        ReorderTransformation transform = new ReorderDynamicProgramming(cardinality(statsDetailed)) ;
+        BasicPattern bgp1 = bgp("(bgp (?x :p ?v) (?x :q ?w) (?w :r ?z))") ;
+        assertEquals(bgp1, transform.reorder(bgp1)) ;
+    }
+
+    @Test public void reorder_dp_03()
+    {
+        // More than the limit for dynamic programming.
+        ReorderTransformation transform = new ReorderDynamicProgramming(cardinality(statsDetailed)) ;
+        StringBuilder sb = new StringBuilder("(bgp") ;
+        for ( int i = 0 ; i < ReorderDynamicProgramming.MaxPatternsDP ; i++ )
+            sb.append(" (?b :author ?a"+i+")") ;
+        sb.append(" (?a :name 'Bob') (?b :author ?a))") ;
+        BasicPattern bgp1 = bgp(sb.toString()) ;
+        BasicPattern bgp2 = transform.reorder(bgp1) ;
+        assertEquals(bgp1.size(), bgp2.size()) ;
+        assertEquals(bgp1.get(ReorderDynamicProgramming.MaxPatternsDP), bgp2.get(0)) ;
+        assertTrue(List.copyOf(bgp2.getList()).containsAll(bgp1.getList())) ;
+    }
+
+    @Test public void reorder_dp_04()
+    {
+        ReorderProc proc = new ReorderDynamicProgramming(cardinality(statsDetailed))
+            .reorderIndexes(bgp("(bgp (?b :title ?t) (?b :author :z))")) ;
+        BasicPattern bgp2 = proc.reorder(bgp("(bgp (:s :p 1) (:s :p 2))")) ;
+        assertArrayEquals(new Object[] {triple("(:s :p 2)"), triple("(:s :p 1)")}, bgp2.getList().toArray()) ;
+    }
+
+    @Test public void reorder_dp_05()
+    {
+        // Zero distinct subjects : no division by zero.
+        StatsCardinality stats = cardinality("(meta (count 10) (subjects 0) (objects 5))", "(:name 10)") ;
+        ReorderDynamicProgramming reorder = new ReorderDynamicProgramming(stats) ;
+        double card = reorder.cardinality(bgp("(bgp (:s ?p :o) (:s ?q ?z))")) ;
+        assertTrue(Double.isFinite(card)) ;
+        BasicPattern bgp1 = bgp("(bgp (?x ?p ?v) (:s ?p :o))") ;
+        BasicPattern bgp2 = bgp("(bgp (:s ?p :o) (?x ?p ?v))") ;
+        assertEquals(bgp2, reorder.reorder(bgp1)) ;
+    }
 }
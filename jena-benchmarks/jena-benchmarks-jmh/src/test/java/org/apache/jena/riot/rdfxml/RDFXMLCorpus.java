@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.rdfxml;
+
+/**
+ * Generated RDF/XML for the RDF/XML parser benchmarks.
+ */
+public class RDFXMLCorpus {
+
+    /** Top level node elements, with property attributes, literals, language tags and datatypes. */
+    public static final String FLAT = "synthetic-flat";
+
+    /** Nested node elements, rdf:parseType="Resource", rdf:ID, rdf:li and changes of xml:base. */
+    public static final String NESTED = "synthetic-nested";
+
+    /** Number of top level node elements. */
+    public static final int NumNodes = 20_000;
+
+    /** The RDF/XML for a synthetic corpus name, or null if it is not one. */
+    public static String generate(String corpus) {
+        return switch (corpus) {
+            case FLAT -> flat(NumNodes);
+            case NESTED -> nested(NumNodes);
+            default -> null;
+        };
+    }
+
+    private static StringBuilder start() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        sb.append("<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n");
+        sb.append("         xmlns:xsd=\"http://www.w3.org/2001/XMLSchema#\"\n");
+        sb.append("         xmlns:ex=\"http://example/ns#\">\n");
+        return sb;
+    }
+
+    private static String finish(StringBuilder sb) {
+        sb.append("</rdf:RDF>\n");
+        return sb.toString();
+    }
+
+    public static String flat(int numNodes) {
+        StringBuilder sb = start();
+        for ( int i = 0 ; i < numNodes ; i++ ) {
+            sb.append("  <ex:Thing rdf:about=\"item/").append(i).append("\" ex:label=\"Item ").append(i).append("\">\n");
+            sb.append("    <ex:name xml:lang=\"en\">Name of item ").append(i).append("</ex:name>\n");
+            sb.append("    <ex:count rdf:datatype=\"http://www.w3.org/2001/XMLSchema#integer\">").append(i).append("</ex:count>\n");
+            sb.append("    <ex:next rdf:resource=\"item/").append(i+1).append("\"/>\n");
+            sb.append("    <ex:category rdf:resource=\"category/").append(i%100).append("\"/>\n");
+            sb.append("    <ex:description>A description of item ").append(i).append(" &amp; more text.</ex:description>\n");
+            sb.append("  </ex:Thing>\n");
+        }
+        return finish(sb);
+    }
+
+    public static String nested(int numNodes) {
+        StringBuilder sb = start();
+        for ( int i = 0 ; i < numNodes ; i++ ) {
+            sb.append("  <rdf:Description rdf:ID=\"node").append(i).append("\"");
+            if ( i % 10 == 0 )
+                sb.append(" xml:base=\"http://example/base").append(i%30).append("/\"");
+            sb.append(">\n");
+            sb.append("    <ex:part>\n");
+            sb.append("      <ex:Part rdf:about=\"part/").append(i).append("\">\n");
+            sb.append("        <ex:size rdf:datatype=\"http://www.w3.org/2001/XMLSchema#decimal\">").append(i).append(".5</ex:size>\n");
+            sb.append("        <ex:seq><rdf:Seq><rdf:li rdf:resource=\"a\"/><rdf:li rdf:resource=\"b\"/></rdf:Seq></ex:seq>\n");
+            sb.append("      </ex:Part>\n");
+            sb.append("    </ex:part>\n");
+            sb.append("    <ex:address rdf:parseType=\"Resource\">\n");
+            sb.append("      <ex:street>Street ").append(i).append("</ex:street>\n");
+            sb.append("      <ex:city rdf:resource=\"city/").append(i%50).append("\"/>\n");
+            sb.append("    </ex:address>\n");
+            sb.append("  </rdf:Description>\n");
+        }
+        return finish(sb);
+    }
+}
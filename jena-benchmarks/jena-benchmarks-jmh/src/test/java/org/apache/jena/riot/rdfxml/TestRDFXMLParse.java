@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.rdfxml;
+
+import org.apache.jena.mem.graph.helper.JMHDefaultOptions;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.StreamRDFCounting;
+import org.apache.jena.riot.lang.rdfxml.RRX;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sys.JenaSystem;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing RDF/XML with each of the RDF/XML parsers.
+ * <p>
+ * The data is read into memory before the benchmark so only the parsing is measured.
+ * The synthetic corpora are generated; others are files.
+ */
+@State(Scope.Benchmark)
+public class TestRDFXMLParse {
+
+    static { JenaSystem.init(); }
+
+    @Param({
+            "../testing/pizza.owl.rdf",
+            RDFXMLCorpus.FLAT,
+            RDFXMLCorpus.NESTED,
+    })
+    public String param0_Corpus;
+
+    @Param({
+            "RRX-SAX",
+            "RRX-StAX-sr",
+            "RRX-StAX-ev",
+            "ARP1",
+            "ARP0",
+    })
+    public String param1_Parser;
+
+    private static final String BASE = "http://example/base/";
+
+    private byte[] data;
+    private Lang lang;
+
+    @Benchmark
+    public long parse() {
+        StreamRDFCounting dest = StreamRDFLib.count();
+        RDFParser.source(new ByteArrayInputStream(data)).lang(lang).base(BASE).parse(dest);
+        return dest.countTriples();
+    }
+
+    private static Lang parserLang(String parserName) {
+        return switch (parserName) {
+            case "RRX-SAX" -> RRX.RDFXML_SAX;
+            case "RRX-StAX-sr" -> RRX.RDFXML_StAX_sr;
+            case "RRX-StAX-ev" -> RRX.RDFXML_StAX_ev;
+            case "ARP1" -> RRX.RDFXML_ARP1;
+            case "ARP0" -> RRX.RDFXML_ARP0;
+            default -> throw new IllegalArgumentException("Unknown RDF/XML parser: " + parserName);
+        };
+    }
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        this.lang = parserLang(param1_Parser);
+        String corpus = RDFXMLCorpus.generate(param0_Corpus);
+        this.data = (corpus != null)
+                ? corpus.getBytes(StandardCharsets.UTF_8)
+                : Files.readAllBytes(Path.of(param0_Corpus));
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        var opt = JMHDefaultOptions.getDefaults(this.getClass())
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .build();
+        var results = new Runner(opt).run();
+        Assert.assertNotNull(results);
+    }
+}
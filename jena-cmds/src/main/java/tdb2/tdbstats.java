@@ -59,7 +59,9 @@ public class tdbstats extends CmdTDBGraph {
     private static StatsResults stats$(DatasetGraphTDB dsg, Node gn) {
 
         NodeTable nt = dsg.getTripleTable().getNodeTupleTable().getNodeTable();
-        StatsCollectorNodeId stats = new StatsCollectorNodeId(nt);
+        // Scans in subject order except for the union graph.
+        boolean subjectOrder = ( gn == null || !Quad.isUnionGraph(gn) );
+        StatsCollectorNodeId stats = new StatsCollectorNodeId(nt, subjectOrder);
 
         if ( gn == null ) {
             Iterator<Tuple<NodeId>> iter = dsg.getTripleTable().getNodeTupleTable().findAll();
@@ -47,6 +47,7 @@ abstract class AbstractCmdxLoad extends CmdGeneral {
     protected static ArgDecl argTmpdir       = new ArgDecl(true, "tmpdir", "tmp");
     protected static ArgDecl argIndex        = new ArgDecl(true, "index");
     protected static ArgDecl argSortThreads  = new ArgDecl(true, "threads",  "thread", "sortThreads", "sortthreads");
+    protected static ArgDecl argJavaSort     = new ArgDecl(false, "javasort", "javaSort");
 
 //    // If this is put back, note there are two different sorts - one for the node table and several for the indexes.
 //    protected static ArgDecl argSortNodeTableArgs   = new ArgDecl(true, "sortNodeTableArgs");
@@ -57,6 +58,8 @@ abstract class AbstractCmdxLoad extends CmdGeneral {
     protected String indexName = null;
 
     protected int sortThreads = -1;
+    // Sort the index records in the java process, not with sort(1).
+    protected boolean javaSort = false;
 
     // If we add support for arguments to sort(1)
     protected String sortNodeTableArgs = null;
@@ -115,6 +118,8 @@ abstract class AbstractCmdxLoad extends CmdGeneral {
             }
         }
 
+        javaSort = super.contains(argJavaSort);
+
         subCheckArgs();
 
         loaderFiles = new XLoaderFiles(tmpdir);
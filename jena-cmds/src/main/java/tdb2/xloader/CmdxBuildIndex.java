@@ -20,6 +20,7 @@ package tdb2.xloader;
 
 import org.apache.jena.atlas.lib.FileOps;
 import org.apache.jena.cmd.CmdException;
+import org.apache.jena.tdb2.xloader.BulkLoaderX;
 import org.apache.jena.tdb2.xloader.ProcBuildIndexX;
 
 public class CmdxBuildIndex extends AbstractCmdxLoad {
@@ -38,6 +39,7 @@ public class CmdxBuildIndex extends AbstractCmdxLoad {
         super.add(argTmpdir,        "--tmpdir=", "Temporary directory (defaults to --loc)");
         super.add(argIndex,         "--index=", "Index name");
         super.add(argSortThreads,   "--threads=", "Number of threads; passed as an argument to sort(1)");
+        super.add(argJavaSort,      "--javasort", "Sort the index records in this process, not with sort(1)");
         //super.add(argSortIndexArgs, "--sortIndexArgs=", "Specialised argument for the sort for the indexes");
     }
 
@@ -77,6 +79,8 @@ public class CmdxBuildIndex extends AbstractCmdxLoad {
 
         if ( tmpdir == null )
             tmpdir = location;
+        if ( javaSort )
+            BulkLoaderX.SortIndexInJava = true;
         ProcBuildIndexX.exec(location, indexName, sortThreads, sortIndexArgs, loaderFiles);
     }
 }
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.block;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.jena.atlas.lib.Cache;
+import org.apache.jena.atlas.lib.CacheFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caching block manager for many concurrent readers.
+ * <p>
+ * {@link BlockMgrCache} synchronizes every operation, so all reader threads
+ * queue on one monitor. Here, the read side ({@link #getRead}, {@link #release},
+ * {@link #beginRead}, {@link #endRead}) takes no lock on a cache hit. The read
+ * cache is concurrent (Caffeine, W-TinyLFU eviction). On a miss, a reader locks the
+ * stripe for the block id, so that a block is only loaded once and the load
+ * can not race with the writer moving the same block between the caches.
+ * <p>
+ * Write operations are single writer (MRSW) and are synchronized as in
+ * {@link BlockMgrSync}. The writer also takes the stripe lock when it changes
+ * the cache entry for a block.
+ * <p>
+ * Dirty blocks are kept in a write-back map, in least recently used order, that
+ * only the writer changes. Readers look blocks up in it but never cause an
+ * eviction, so blocks are only written back to the wrapped {@code BlockMgr} by
+ * the writer, inside its synchronized operations.
+ * <p>
+ * The wrapped {@code BlockMgr} must support concurrent {@code getRead} calls
+ * (e.g. {@link BlockMgrFileAccess} over
+ * {@link org.apache.jena.dboe.base.file.BlockAccessDirect}, which uses positioned
+ * reads).
+ */
+public class BlockMgrCacheConcurrent extends BlockMgrSync {
+    private static Logger            log            = LoggerFactory.getLogger(BlockMgrCacheConcurrent.class);
+
+    /** Number of locks for read misses. Must be a power of two. */
+    private static final int         NumStripes     = 64;
+    private final Object[]           stripes        = new Object[NumStripes];
+
+    // Read cache : always present.
+    private final Cache<Long, Block> readCache;
+
+    // Delayed dirty writes. May be present, may not.
+    // writeCache is for lookup by readers; writeOrder is the LRU order of
+    // the same entries and is only used by the writer.
+    private final int                writeSlots;
+    private final Map<Long, Block>   writeCache;
+    private final LinkedHashMap<Long, Block> writeOrder;
+
+    // ---- stats
+    private final LongAdder          cacheReadHits  = new LongAdder();
+    private final LongAdder          cacheMisses    = new LongAdder();
+    private final LongAdder          cacheWriteHits = new LongAdder();
+
+    static BlockMgr create(int readSlots, int writeSlots, final BlockMgr blockMgr) {
+        if ( readSlots < 0 && writeSlots < 0 )
+            return blockMgr;
+        return new BlockMgrCacheConcurrent(readSlots, writeSlots, blockMgr);
+    }
+
+    private BlockMgrCacheConcurrent(int readSlots, int writeSlots, final BlockMgr blockMgr) {
+        super(blockMgr);
+        for ( int i = 0 ; i < NumStripes ; i++ )
+            stripes[i] = new Object();
+        if ( readSlots < -1 )
+            readCache = CacheFactory.createNullCache();
+        else
+            readCache = CacheFactory.createCache(readSlots);
+        this.writeSlots = writeSlots;
+        if ( writeSlots <= 0 ) {
+            writeCache = null;
+            writeOrder = null;
+        } else {
+            writeCache = new ConcurrentHashMap<>();
+            writeOrder = new LinkedHashMap<>(16, 0.75f, true);
+        }
+    }
+
+    private Object stripe(long id) {
+        return stripes[(int)(id ^ (id >>> 32)) & (NumStripes - 1)];
+    }
+
+    /** Number of reads found in the read cache. */
+    public long getCacheReadHits()  { return cacheReadHits.sum(); }
+
+    /** Number of reads or writes found in the write cache. */
+    public long getCacheWriteHits() { return cacheWriteHits.sum(); }
+
+    /** Number of reads or writes passed to the wrapped {@code BlockMgr}. */
+    public long getCacheMisses()    { return cacheMisses.sum(); }
+
+    // ---- Read side : not synchronized.
+
+    @Override
+    public Block getRead(long id) {
+        Block blk = lookup(id);
+        if ( blk != null )
+            return blk;
+        synchronized(stripe(id)) {
+            // Another reader may have loaded the block, or the writer moved it.
+            blk = lookup(id);
+            if ( blk != null )
+                return blk;
+            cacheMisses.increment();
+            blk = blockMgr.getRead(id);
+            readCache.put(id, blk);
+            return blk;
+        }
+    }
+
+    // A block may be in the read cache or the write cache.
+    // It can be just in the write cache because the read cache is finite.
+    private Block lookup(long id) {
+        Block blk = readCache.getIfPresent(id);
+        if ( blk != null ) {
+            cacheReadHits.increment();
+            return blk;
+        }
+        if ( writeCache != null ) {
+            blk = writeCache.get(id);
+            if ( blk != null ) {
+                cacheWriteHits.increment();
+                return blk;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void release(Block block) {
+        blockMgr.release(block);
+    }
+
+    @Override
+    public void beginRead() {
+        blockMgr.beginRead();
+    }
+
+    @Override
+    public void endRead() {
+        blockMgr.endRead();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return blockMgr.isClosed();
+    }
+
+    @Override
+    public String getLabel() {
+        return blockMgr.getLabel();
+    }
+
+    // ---- Write side : synchronized, single writer.
+
+    @Override
+    synchronized public void resetAlloc(long boundary) {
+        // On abort, need to clear the caches of inaccesible blocks.
+        List<Long> removals = new ArrayList<>();
+        readCache.keys().forEachRemaining(removals::add);
+        if ( writeOrder != null )
+            removals.addAll(writeOrder.keySet());
+        removals.forEach(id -> {
+            if ( id < boundary )
+                return;
+            synchronized(stripe(id)) {
+                readCache.remove(id);
+                writeRemove(id);
+            }
+        });
+        super.resetAlloc(boundary);
+    }
+
+    @Override
+    synchronized public Block getWrite(long id) {
+        Block blk = null;
+        if ( writeOrder != null )
+            blk = writeOrder.get(id);
+        if ( blk != null ) {
+            cacheWriteHits.increment();
+            return blk;
+        }
+        // A requested block may be in the other cache. Promote it.
+        blk = readCache.getIfPresent(id);
+        if ( blk != null ) {
+            cacheReadHits.increment();
+            return promote(blk);
+        }
+        cacheMisses.increment();
+        blk = super.getWrite(id);
+        writePut(id, blk);
+        return blk;
+    }
+
+    @Override
+    synchronized public Block promote(Block block) {
+        long id = block.getId();
+        Block block2 = super.promote(block);
+        synchronized(stripe(id)) {
+            readCache.remove(id);
+            writeAdd(id, block2);
+        }
+        writeEvict();
+        return block;
+    }
+
+    @Override
+    synchronized public void write(Block block) {
+        writePut(block.getId(), block);
+        super.write(block);
+    }
+
+    @Override
+    synchronized public void overwrite(Block block) {
+        long id = block.getId();
+        // It can be a read block (by the transaction), now being written for
+        // real (enacting a transaction).
+        super.overwrite(block);
+        // Keep read cache up-to-date.
+        synchronized(stripe(id)) {
+            readCache.put(id, block);
+        }
+    }
+
+    @Override
+    synchronized public void free(Block block) {
+        long id = block.getId();
+        synchronized(stripe(id)) {
+            readCache.remove(id);
+            writeRemove(id);
+        }
+        super.free(block);
+    }
+
+    @Override
+    synchronized public void sync() {
+        _sync(false);
+    }
+
+    @Override
+    synchronized public void syncForce() {
+        _sync(true);
+    }
+
+    @Override
+    synchronized public void close() {
+        syncFlush();
+        super.close();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheConcurrent:" + super.blockMgr.toString();
+    }
+
+    private void _sync(boolean force) {
+        if ( log.isDebugEnabled() )
+            log.debug(String.format("%s : H=%d, M=%d, W=%d", getLabel(),
+                                    getCacheReadHits(), getCacheMisses(), getCacheWriteHits()));
+        boolean somethingWritten = syncFlush();
+        if ( force )
+            super.syncForce();
+        else if ( somethingWritten )
+            super.sync();
+    }
+
+    private boolean syncFlush() {
+        if ( writeOrder == null )
+            return false;
+        // Single writer (sync is a write operation MRSW)
+        // Need to get all then delete else concurrent modification exception.
+        List<Long> ids = new ArrayList<>(writeOrder.keySet());
+        if ( ids.isEmpty() )
+            return false;
+        ids.forEach(this::expelEntry);
+        super.sync();
+        return true;
+    }
+
+    // ---- Write cache : called by the writer only.
+
+    // Add or replace a block in the write cache, writing back the least recently
+    // used blocks if the cache is over size.
+    private void writePut(long id, Block block) {
+        synchronized(stripe(id)) {
+            writeAdd(id, block);
+        }
+        writeEvict();
+    }
+
+    // Caller holds the stripe lock for the id.
+    private void writeAdd(long id, Block block) {
+        if ( writeOrder == null )
+            return;
+        writeCache.put(id, block);
+        writeOrder.put(id, block);
+    }
+
+    private void writeEvict() {
+        if ( writeOrder == null )
+            return;
+        while ( writeOrder.size() > writeSlots ) {
+            Iterator<Long> iter = writeOrder.keySet().iterator();
+            expelEntry(iter.next());
+        }
+    }
+
+    // Caller holds the stripe lock for the id.
+    private void writeRemove(long id) {
+        if ( writeOrder == null )
+            return;
+        writeCache.remove(id);
+        writeOrder.remove(id);
+    }
+
+    // Write out when flushed or when evicted from the write cache.
+    private void expelEntry(Long id) {
+        Block block = writeOrder.get(id);
+        if ( block == null ) {
+            log.warn("Write cache: " + id + " expelling entry that isn't there");
+            return;
+        }
+        // This pushes the block to the BlockMgr being cached.
+        // Readers still find the block in the write cache until it is in the
+        // read cache.
+        super.write(block);
+        synchronized(stripe(id)) {
+            writeRemove(id);
+            // Move it into the readCache because it's often read after writing
+            // and the read cache is often larger.
+            readCache.put(id, block);
+        }
+    }
+}
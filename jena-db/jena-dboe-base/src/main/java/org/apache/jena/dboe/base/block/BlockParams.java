@@ -23,4 +23,5 @@ public interface BlockParams {
     public Integer getBlockSize();
     public Integer getBlockReadCacheSize();
     public Integer getBlockWriteCacheSize();
+    public BlockCacheMode getBlockCacheMode();
 }
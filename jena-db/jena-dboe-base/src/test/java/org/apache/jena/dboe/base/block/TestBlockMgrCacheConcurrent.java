@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.block;
+
+import static org.apache.jena.atlas.lib.ByteBufferLib.fill;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.dboe.ConfigTestDBOE;
+import org.apache.jena.dboe.base.file.BlockAccessDirect;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestBlockMgrCacheConcurrent extends AbstractTestBlockMgr
+{
+    static final String filename = ConfigTestDBOE.getTestingDir()+"/block-mgr-concurrent";
+
+    @BeforeClass static public void remove1() { FileOps.delete(filename); }
+    @AfterClass  static public void remove2() { FileOps.delete(filename); }
+
+    @Override
+    protected BlockMgr make() {
+        FileOps.delete(filename);
+        // Small caches so that tests go to the file.
+        return BlockMgrFactory.createStdFile(filename, BlkSize, 5, 3, BlockCacheMode.concurrent);
+    }
+
+    @Test public void cacheConcurrent_01() {
+        assertTrue(blockMgr instanceof BlockMgrCacheConcurrent);
+        BlockMgrCacheConcurrent cache = (BlockMgrCacheConcurrent)blockMgr;
+        long id = writeBlock((byte)7);
+        blockMgr.sync();
+        // Flushed from the write cache into the read cache.
+        Block block = blockMgr.getRead(id);
+        contains(block.getByteBuffer(), (byte)7);
+        blockMgr.release(block);
+        assertEquals(1, cache.getCacheReadHits());
+    }
+
+    @Test public void cacheConcurrent_02() throws Exception {
+        int N = 50;
+        long[] ids = new long[N];
+        for ( int i = 0 ; i < N ; i++ )
+            ids[i] = writeBlock((byte)i);
+        blockMgr.sync();
+
+        int numThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for ( int t = 0 ; t < numThreads ; t++ ) {
+                int start = t;
+                results.add(executor.submit(() -> {
+                    blockMgr.beginRead();
+                    for ( int r = 0 ; r < 20 ; r++ ) {
+                        for ( int i = 0 ; i < N ; i++ ) {
+                            int idx = (start + i) % N;
+                            Block block = blockMgr.getRead(ids[idx]);
+                            assertEquals(ids[idx], block.getId().longValue());
+                            assertEquals((byte)idx, block.getByteBuffer().get(0));
+                            assertEquals((byte)idx, block.getByteBuffer().get(BlkSize - 1));
+                            blockMgr.release(block);
+                        }
+                    }
+                    blockMgr.endRead();
+                }));
+            }
+            for ( Future<?> f : results )
+                f.get();
+        } finally {
+            executor.shutdown();
+        }
+        BlockMgrCacheConcurrent cache = (BlockMgrCacheConcurrent)blockMgr;
+        assertEquals(numThreads * 20 * N, cache.getCacheReadHits() + cache.getCacheWriteHits() + cache.getCacheMisses());
+    }
+
+    @Test(timeout = 60_000)
+    public void cacheConcurrent_03() throws Exception {
+        // Readers of blocks in the write cache do not cause blocks to be
+        // written back: only the writer writes to the wrapped BlockMgr.
+        Set<Thread> writers = ConcurrentHashMap.newKeySet();
+        BlockMgr base = new BlockMgrFileAccess(new BlockAccessDirect(filename+"-3", BlkSize), BlkSize);
+        BlockMgr recording = new BlockMgrWrapper(base) {
+            @Override
+            public void write(Block block) {
+                writers.add(Thread.currentThread());
+                super.write(block);
+            }
+        };
+        BlockMgr mgr = BlockMgrCacheConcurrent.create(5, 3, recording);
+        int N = 500;
+        AtomicLong lastId = new AtomicLong(-1);
+        AtomicBoolean finished = new AtomicBoolean(false);
+        int numThreads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for ( int t = 0 ; t < numThreads ; t++ ) {
+                results.add(executor.submit(() -> {
+                    while ( ! finished.get() ) {
+                        long id = lastId.get();
+                        if ( id < 0 )
+                            continue;
+                        mgr.beginRead();
+                        Block block = mgr.getRead(id);
+                        assertEquals((byte)id, block.getByteBuffer().get(0));
+                        mgr.release(block);
+                        mgr.endRead();
+                    }
+                }));
+            }
+            for ( int i = 0 ; i < N ; i++ ) {
+                Block block = mgr.allocate(BlkSize);
+                long id = block.getId();
+                fill(block.getByteBuffer(), (byte)id);
+                mgr.write(block);
+                mgr.release(block);
+                lastId.set(id);
+            }
+            finished.set(true);
+            for ( Future<?> f : results )
+                f.get();
+        } finally {
+            finished.set(true);
+            executor.shutdown();
+            mgr.close();
+            FileOps.delete(filename+"-3");
+        }
+        assertEquals(Set.of(Thread.currentThread()), writers);
+    }
+
+    private long writeBlock(byte fillValue) {
+        Block block = blockMgr.allocate(BlkSize);
+        fill(block.getByteBuffer(), fillValue);
+        long id = block.getId();
+        blockMgr.write(block);
+        blockMgr.release(block);
+        return id;
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.jena.dboe.index;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.dboe.base.record.Record;
 import org.apache.jena.dboe.base.record.RecordMapper;
@@ -35,4 +36,15 @@ public interface RangeIndex extends Index
 
     /** Return the record containing the greatest key - may or may not have the associated value */
     public Record maxKey();
+
+    /**
+     * Return keys, in order, that split the records between min (inclusive) and max
+     * (exclusive) into up to {@code n} parts of similar size, based on the structure
+     * of the index. Either of min and max may be null for no limit. Each key starts a
+     * part and need not be the key of a record in the index. An empty list means the
+     * records are not split.
+     */
+    public default List<Record> split(Record recordMin, Record recordMax, int n) {
+        return List.of();
+    }
 }
@@ -341,6 +341,58 @@ public final class BPTreeNode extends BPTreePage
         return root.internalMaxRecord(path);
     }
 
+    /**
+     * Keys that split the records between minRec (inclusive) and maxRec (exclusive)
+     * into up to {@code n} parts. The keys are chosen evenly from the keys of the
+     * branch nodes at the highest level of the tree that has enough of them in the
+     * range, or the lowest branch level if no level has. Only branch nodes are read.
+     */
+    static List<Record> splitKeys(BPTreeNode root, Record minRec, Record maxRec, int n) {
+        if ( n <= 1 || ( minRec != null && maxRec != null && Record.keyGE(minRec, maxRec) ) )
+            return List.of();
+        List<Record> keys = new ArrayList<>();
+        List<BPTreeNode> level = List.of(root);
+        for ( ;; ) {
+            keys.clear();
+            for ( BPTreeNode node : level ) {
+                for ( int i = 0 ; i < node.count ; i++ ) {
+                    Record key = node.records.get(i);
+                    if ( minRec != null && Record.keyLE(key, minRec) )
+                        continue;
+                    if ( maxRec != null && Record.keyGE(key, maxRec) )
+                        break;
+                    keys.add(node.keyRecord(key));
+                }
+            }
+            if ( keys.size() >= n-1 || level.get(0).isLeaf )
+                break;
+            // Next level down: the nodes that may have keys in the range.
+            List<BPTreeNode> nextLevel = new ArrayList<>();
+            for ( BPTreeNode node : level ) {
+                int x1 = ( minRec == null ) ? 0 : apply(node.findSlot(minRec));
+                int x2 = ( maxRec == null ) ? node.count : apply(node.findSlot(maxRec));
+                for ( int i = x1 ; i <= x2 ; i++ )
+                    nextLevel.add(cast(node.get(i)));
+            }
+            releaseBelowRoot(level);
+            level = nextLevel;
+        }
+        releaseBelowRoot(level);
+        if ( keys.size() <= n-1 )
+            return keys;
+        List<Record> splits = new ArrayList<>(n-1);
+        for ( int j = 1 ; j < n ; j++ )
+            splits.add(keys.get((int)((long)j * keys.size() / n)));
+        return splits;
+    }
+
+    private static void releaseBelowRoot(List<BPTreeNode> nodes) {
+        for ( BPTreeNode node : nodes ) {
+            if ( ! node.isRoot() )
+                node.release();
+        }
+    }
+
     @Override
     protected Record internalMaxRecord(AccessPath path) {
         BPTreePage page = get(count);
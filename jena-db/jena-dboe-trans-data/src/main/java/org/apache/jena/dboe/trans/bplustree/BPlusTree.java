@@ -20,6 +20,7 @@ package org.apache.jena.dboe.trans.bplustree;
 
 import java.nio.ByteBuffer;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.io.IndentedWriter;
 import org.apache.jena.atlas.iterator.Iter;
@@ -318,6 +319,16 @@ public class BPlusTree extends TransactionalComponentLifecycle<BptTxnState> impl
         //return iterator(fromRec, toRec, RecordFactory.mapperRecord);
     }
 
+    @Override
+    public List<Record> split(Record minRec, Record maxRec, int n) {
+        startReadBlkMgr();
+        BPTreeNode root = getRootRead();
+        List<Record> keys = BPTreeNode.splitKeys(root, minRec, maxRec, n);
+        releaseRootRead(root);
+        finishReadBlkMgr();
+        return keys;
+    }
+
     public Iterator<Record> distinctByKeyPrefix(int keyPrefixLength) {
         startReadBlkMgr();
         BPTreeNode root = getRootRead();
@@ -19,6 +19,7 @@
 package org.apache.jena.dboe.trans.bplustree;
 
 import org.apache.jena.dboe.DBOpEnvException;
+import org.apache.jena.dboe.base.block.BlockCacheMode;
 import org.apache.jena.dboe.base.block.BlockMgr;
 import org.apache.jena.dboe.base.block.BlockMgrFactory;
 import org.apache.jena.dboe.base.block.BlockMgrLogger;
@@ -90,6 +91,11 @@ public class BPlusTreeFactory {
 
     /** Create a B+Tree using defaults */
     public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, RecordFactory factory) {
+        return createBPTree(cid, fileset, factory, null);
+    }
+
+    /** Create a B+Tree using defaults, with the given kind of block cache (direct mode only). */
+    public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, RecordFactory factory, BlockCacheMode cacheMode) {
         int readCacheSize = SystemIndex.BlockReadCacheSize;
         int writeCacheSize = SystemIndex.BlockWriteCacheSize;
         int blockSize = SystemIndex.BlockSize;
@@ -99,7 +105,7 @@ public class BPlusTreeFactory {
             blockSize = SystemIndex.BlockSizeTest;
         }
 
-        return createBPTreeByBlockSize(cid, fileset, blockSize, readCacheSize, writeCacheSize, factory);
+        return createBPTree(cid, fileset, -1, blockSize, readCacheSize, writeCacheSize, cacheMode, factory);
     }
 
     /** Create a B+Tree by BlockSize */
@@ -129,6 +135,13 @@ public class BPlusTreeFactory {
     public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, int order, int blockSize,
                                          int readCacheSize, int writeCacheSize,
                                          RecordFactory factory) {
+        return createBPTree(cid, fileset, order, blockSize, readCacheSize, writeCacheSize, null, factory);
+    }
+
+    /** Knowing all the parameters, create a B+Tree */
+    public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, int order, int blockSize,
+                                         int readCacheSize, int writeCacheSize, BlockCacheMode cacheMode,
+                                         RecordFactory factory) {
         // ---- Checking
         if (blockSize < 0 && order < 0) throw new IllegalArgumentException("Neither blocksize nor order specified");
         if (blockSize >= 0 && order < 0) order = BPlusTreeParams.calcOrder(blockSize, factory.recordLength());
@@ -146,8 +159,8 @@ public class BPlusTreeFactory {
 
         BPlusTreeParams params = new BPlusTreeParams(order, factory);
         BufferChannel bptState = FileFactory.createBufferChannel(fileset, Names.extBptState);
-        BlockMgr blkMgrNodes = BlockMgrFactory.create(fileset, Names.extBptTree, blockSize, readCacheSize, writeCacheSize);
-        BlockMgr blkMgrRecords = BlockMgrFactory.create(fileset, Names.extBptRecords, blockSize, readCacheSize, writeCacheSize);
+        BlockMgr blkMgrNodes = BlockMgrFactory.create(fileset, Names.extBptTree, null, blockSize, readCacheSize, writeCacheSize, cacheMode);
+        BlockMgr blkMgrRecords = BlockMgrFactory.create(fileset, Names.extBptRecords, null, blockSize, readCacheSize, writeCacheSize, cacheMode);
         return BPlusTreeFactory.create(cid, params, bptState, blkMgrNodes, blkMgrRecords);
     }
 
@@ -20,7 +20,10 @@ package org.apache.jena.dboe.trans.bplustree;
 
 import static org.apache.jena.dboe.index.testlib.IndexTestLib.add;
 import static org.apache.jena.dboe.test.RecordLib.intToRecord;
+import static org.apache.jena.dboe.test.RecordLib.r;
+import static org.apache.jena.dboe.test.RecordLib.toIntList;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.jena.atlas.logging.LogCtl;
@@ -31,6 +34,7 @@ import org.apache.jena.dboe.sys.SystemIndex;
 import org.apache.jena.dboe.test.RecordLib;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.junit.Test;
 
 /** Run the tests in default settings for a tree in "non-transactional" mode */
 public class TestBPlusTreeNonTxn extends AbstractTestRangeIndex {
@@ -74,6 +78,58 @@ public class TestBPlusTreeNonTxn extends AbstractTestRangeIndex {
         assertTrue(rIndex.isEmpty());
     }
 
+    @Test public void bptree_split_01() {
+        BPlusTree bpt = makeRangeIndex(2, 2);
+        assertTrue(bpt.split(null, null, 4).isEmpty());
+    }
+
+    @Test public void bptree_split_02() {
+        BPlusTree bpt = makeRangeIndex(2, 2);
+        add(bpt, keys(1000));
+        assertTrue(bpt.split(null, null, 1).isEmpty());
+        assertFalse(testSplit(bpt, null, null, 4).isEmpty());
+    }
+
+    @Test public void bptree_split_03() {
+        BPlusTree bpt = makeRangeIndex(2, 2);
+        add(bpt, keys(1000));
+        assertFalse(testSplit(bpt, r(100), r(900), 8).isEmpty());
+    }
+
+    @Test public void bptree_split_04() {
+        BPlusTree bpt = makeRangeIndex(2, 2);
+        add(bpt, keys(1000));
+        // Less than one leaf.
+        testSplit(bpt, r(500), r(502), 4);
+    }
+
+    private static int[] keys(int N) {
+        int[] keys = new int[N];
+        for ( int i = 0; i < keys.length ; i++ )
+            keys[i] = i;
+        return keys;
+    }
+
+    // The parts, in order, have the same records as the whole range.
+    private static List<Record> testSplit(BPlusTree bpt, Record minRec, Record maxRec, int n) {
+        List<Record> splits = bpt.split(minRec, maxRec, n);
+        assertTrue(splits.size() < n);
+        List<Integer> expected = toIntList(bpt.iterator(minRec, maxRec));
+        List<Integer> actual = new ArrayList<>();
+        Record start = minRec;
+        for ( Record split : splits ) {
+            if ( start != null )
+                assertTrue(Record.keyLT(start, split));
+            actual.addAll(toIntList(bpt.iterator(start, split)));
+            start = split;
+        }
+        if ( maxRec != null && start != null )
+            assertTrue(Record.keyLT(start, maxRec));
+        actual.addAll(toIntList(bpt.iterator(start, maxRec)));
+        assertEquals(expected, actual);
+        return splits;
+    }
+
     @Override
     protected BPlusTree makeRangeIndex(int order, int minRecords) {
         BPlusTree bpt = BPlusTreeFactory.makeMem(order, minRecords, RecordLib.TestRecordLength, 0);
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.function.Function;
 
 import org.apache.jena.atlas.lib.Pair;
+import org.apache.jena.fuseki.server.ResultCache;
 import org.apache.jena.fuseki.servlets.*;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
@@ -49,6 +50,14 @@ public class AccessCtl_SPARQL_QueryDataset extends SPARQL_QueryDataset {
         return Collections.singletonList("user");
     }
 
+    /** Results depend on the user so they are not shared through the result cache. */
+    @Override
+    protected ResultCache resultCache(HttpAction action) {
+        if ( DataAccessCtl.isAccessControlled(action.getDataset()) )
+            return null;
+        return super.resultCache(action);
+    }
+
     /** Decide the dataset - this modifies the query
      *  If the query has a dataset description.
      */
@@ -407,6 +407,10 @@ public class FusekiConfig {
         Resource datasetDesc = (Resource)BuildLib.getOne(fusekiService, FusekiVocab.pDataset);
         Dataset ds = getDataset(datasetDesc, dsDescMap);
         DataService.Builder dataService = DataService.newBuilder(ds.asDatasetGraph());
+        //   fuseki:resultCache true ; or fuseki:resultCache 10000000 ; (bytes)
+        RDFNode resultCache = getZeroOrOne(fusekiService, pResultCache);
+        if ( resultCache != null )
+            dataService.setResultCache(resultCacheSize(resultCache));
         Set<Endpoint> endpoints1 = new HashSet<>();
         Set<Endpoint> endpoints2 = new HashSet<>();
 
@@ -443,6 +447,21 @@ public class FusekiConfig {
         return dataService;
     }
 
+    /** Memory budget, in bytes, for the result cache from the fuseki:resultCache setting. */
+    private static long resultCacheSize(RDFNode n) {
+        if ( n.isLiteral() ) {
+            Literal lit = n.asLiteral();
+            if ( XSDDatatype.XSDboolean.equals(lit.getDatatype()) )
+                return lit.getBoolean() ? ResultCache.DefaultMaxBytes : 0;
+            try {
+                long x = lit.getLong();
+                if ( x >= 0 )
+                    return x;
+            } catch (JenaException ex) {}
+        }
+        throw new FusekiConfigException("Result cache: expected true/false or a size in bytes: "+nodeLabel(n));
+    }
+
     /**
      *  Old style compatibility.
      *  For each endpoint in "endpoints1", ensure there is an endpoint on the dataset (endpoint name "") itself.
@@ -20,6 +20,7 @@ package org.apache.jena.fuseki.metrics;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.jena.fuseki.Fuseki;
 import org.apache.jena.fuseki.server.DataAccessPointRegistry;
+import org.apache.jena.sparql.engine.QueryPlanCache;
 
 public class MetricsProviderRegistry {
 
@@ -45,6 +46,7 @@ public class MetricsProviderRegistry {
                 dapRegistry.accessPoints().forEach(dap->{
                     new FusekiRequestsMetrics( dap ).bindTo( meterRegistry );
                 });
+                new QueryPlanCacheMetrics( QueryPlanCache.get() ).bindTo( meterRegistry );
             }
         } catch (Throwable th) {
             Fuseki.configLog.error("Failed to bind all data access points to Prometheus", th);
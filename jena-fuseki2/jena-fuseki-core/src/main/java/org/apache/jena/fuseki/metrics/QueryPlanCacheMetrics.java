@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.jena.sparql.engine.QueryPlanCache;
+
+/** Hit and miss counts, and sizes, of the {@link QueryPlanCache}. */
+public class QueryPlanCacheMetrics implements MeterBinder {
+
+    private final QueryPlanCache cache;
+
+    public QueryPlanCacheMetrics(QueryPlanCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("fuseki_query_plan_cache_hits", cache, QueryPlanCache::getQueryHits)
+                .tags("cache", "query")
+                .description("Query strings found in the parse cache")
+                .register(registry);
+        FunctionCounter.builder("fuseki_query_plan_cache_misses", cache, QueryPlanCache::getQueryMisses)
+                .tags("cache", "query")
+                .description("Query strings parsed")
+                .register(registry);
+        FunctionCounter.builder("fuseki_query_plan_cache_hits", cache, QueryPlanCache::getPlanHits)
+                .tags("cache", "plan")
+                .description("Optimized algebra found in the cache")
+                .register(registry);
+        FunctionCounter.builder("fuseki_query_plan_cache_misses", cache, QueryPlanCache::getPlanMisses)
+                .tags("cache", "plan")
+                .description("Algebra optimized")
+                .register(registry);
+        Gauge.builder("fuseki_query_plan_cache_size", cache, QueryPlanCache::getQueryCacheSize)
+                .tags("cache", "query")
+                .register(registry);
+        Gauge.builder("fuseki_query_plan_cache_size", cache, QueryPlanCache::getPlanCacheSize)
+                .tags("cache", "plan")
+                .register(registry);
+    }
+}
@@ -57,6 +57,9 @@ public class CounterName {
     public static final CounterName QueryTimeouts    = register("QueryTimeouts",   "query.timeouts");
     public static final CounterName QueryExecErrors  = register("QueryExecErrors", "query.execerrors");
     public static final CounterName QueryIOErrors    = register("QueryIOErrors",   "query.ioerrors");
+    // Result cache - only for services with a result cache.
+    public static final CounterName QueryCacheHits   = register("QueryCacheHits",   "query.cache.hits");
+    public static final CounterName QueryCacheMisses = register("QueryCacheMisses", "query.cache.misses");
 
     // Update
     public static final CounterName UpdateExecErrors = register("UpdateExecErrors", "update.execerrors");
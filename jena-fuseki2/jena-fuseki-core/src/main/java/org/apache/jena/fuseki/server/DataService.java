@@ -54,6 +54,9 @@ public class DataService {
     // Dataset-level authorization policy.
     private final AuthPolicy authPolicy;
 
+    // Cache of query results; null if not enabled.
+    private final ResultCache resultCache;
+
     /**
      * Record which {@link DataAccessPoint DataAccessPoints} this {@code DataService} is
      * associated with. This is mainly for checking and development.
@@ -80,23 +83,37 @@ public class DataService {
 
     /** Return a new builder, populated by an existing DatasetService */
     public static Builder newBuilder(DataService dSrv) {
-        return new Builder(dSrv.dataset, dSrv.endpoints, dSrv.operationsMap, dSrv.plainOperationChooser, dSrv.authPolicy);
+        long resultCacheSize = ( dSrv.resultCache == null ) ? 0 : dSrv.resultCache.getMaxBytes();
+        return new Builder(dSrv.dataset, dSrv.endpoints, dSrv.operationsMap, dSrv.plainOperationChooser, dSrv.authPolicy, resultCacheSize);
     }
 
     /** Create a {@code DataService} for the given dataset. */
     private DataService(DatasetGraph dataset, Map<String, EndpointSet> endpoints,
                         MultiValuedMap<Operation, Endpoint> operationsMap,
                         DispatchFunction plainOperationChooser,
-                        AuthPolicy authPolicy) {
+                        AuthPolicy authPolicy, long resultCacheSize) {
         this.dataset = dataset;
         this.endpoints = Map.copyOf(endpoints);
         this.operationsMap = MultiMapUtils.newListValuedHashMap();
         this.operationsMap.putAll(operationsMap);
         this.plainOperationChooser = plainOperationChooser;
         this.authPolicy = authPolicy;
+        this.resultCache = createResultCache(dataset, resultCacheSize);
         counters.add(CounterName.Requests);
         counters.add(CounterName.RequestsGood);
         counters.add(CounterName.RequestsBad);
+        if ( resultCache != null ) {
+            addCacheCounters(counters);
+            this.operationsMap.get(Operation.Query).forEach(ep->addCacheCounters(ep.getCounters()));
+        }
+    }
+
+    // Endpoints are shared with any previous DataService for the same dataset.
+    private static void addCacheCounters(CounterSet counterSet) {
+        for ( CounterName cn : List.of(CounterName.QueryCacheHits, CounterName.QueryCacheMisses) ) {
+            if ( !counterSet.contains(cn) )
+                counterSet.add(cn);
+        }
     }
 
     /*package*/ void noteDataAccessPoint(DataAccessPoint dap) {
@@ -250,10 +267,33 @@ public class DataService {
         activeTxn.decrementAndGet();
     }
 
+    private static ResultCache createResultCache(DatasetGraph dataset, long resultCacheSize) {
+        if ( resultCacheSize <= 0 || dataset == null )
+            return null;
+        if ( ! ResultCache.isSupported(dataset) ) {
+            Fuseki.configLog.warn("Result cache: not available for this dataset (only TDB2 and in-memory datasets): "+dataset.getClass().getSimpleName());
+            return null;
+        }
+        return new ResultCache(dataset, resultCacheSize);
+    }
+
+    /** Return the cache of query results for this dataset, or null if there isn't one. */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /** A write transaction has committed: cached query results are now out of date. */
+    public void noteCommit() {
+        if ( resultCache != null )
+            resultCache.invalidate();
+    }
+
     /** Shutdown and never use again. */
     public synchronized void shutdown() {
         if ( state == CLOSING )
             return;
+        if ( resultCache != null )
+            resultCache.close();
         expel(dataset);
         dataset = null;
         state = CLOSED;
@@ -313,18 +353,22 @@ public class DataService {
         // Dataset-level authorization policy.
         private AuthPolicy authPolicy = null;
 
+        // Memory budget, in bytes, for cached query results. 0 means no cache.
+        private long resultCacheSize = 0;
+
         private Builder() {}
 
         private Builder(DatasetGraph dataset, Map<String, EndpointSet> endpoints,
                         MultiValuedMap<Operation, Endpoint> operationsMap,
                         DispatchFunction plainOperationChooser,
-                        AuthPolicy authPolicy) {
+                        AuthPolicy authPolicy, long resultCacheSize) {
             this();
             this.dataset = dataset;
             this.endpoints.putAll(endpoints);
             this.operationsMap.putAll(operationsMap);
             this.plainOperationChooser = plainOperationChooser;
             this.authPolicy = authPolicy;
+            this.resultCacheSize = resultCacheSize;
         }
 
         public Builder dataset(DatasetGraph dsg) { this.dataset = dsg; return this; }
@@ -388,8 +432,21 @@ public class DataService {
             return this;
         }
 
+        /**
+         * Cache query results, using up to {@code maxBytes} of memory.
+         * A value of 0 means no cache. The cache is only used for TDB2 and in-memory
+         * datasets, where changes made outside Fuseki can be seen.
+         * @see ResultCache
+         */
+        public Builder setResultCache(long maxBytes) {
+            if ( maxBytes < 0 )
+                throw new FusekiException("Negative result cache size: "+maxBytes);
+            this.resultCacheSize = maxBytes;
+            return this;
+        }
+
         public DataService build() {
-            return new DataService(dataset, endpoints, operationsMap, plainOperationChooser, authPolicy);
+            return new DataService(dataset, endpoints, operationsMap, plainOperationChooser, authPolicy, resultCacheSize);
         }
     }
 }
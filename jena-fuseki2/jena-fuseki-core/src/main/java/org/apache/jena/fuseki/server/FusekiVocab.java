@@ -63,6 +63,7 @@ public class FusekiVocab
     public static final Property pAllowTimeoutOverride      = property("allowTimeoutOverride");
     public static final Property pMaximumTimeoutOverride    = property("maximumTimeoutOverride");
     public static final Property pDataset                   = property("dataset");
+    public static final Property pResultCache               = property("resultCache");
 
     // Endpoint description - old style.
     public static final Property pServiceQueryEP                = property("serviceQuery");
@@ -0,0 +1,338 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.jena.dboe.transaction.txn.Transaction;
+import org.apache.jena.dboe.transaction.txn.TransactionCoordinator;
+import org.apache.jena.dboe.transaction.txn.TransactionListener;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphWrapper;
+import org.apache.jena.sparql.core.mem.DatasetGraphInMemory;
+import org.apache.jena.tdb2.store.DatasetGraphTDB;
+import org.apache.jena.tdb2.sys.TDBInternal;
+
+/**
+ * Cache of serialized SPARQL query results for a {@link DataService}.
+ * <p>
+ * Entries are the bytes of a response, keyed by the query endpoint, the query and the
+ * request settings that determine the response format. The endpoint is part of the key
+ * because each endpoint can have its own context, which may change the results. The cache is held to a budget of bytes;
+ * least recently used entries are dropped to make space.
+ * <p>
+ * All entries are dropped when a write transaction on the dataset commits:
+ * <ul>
+ * <li>Fuseki operations that commit a write call {@link #invalidate}.</li>
+ * <li>For TDB2, a listener on the {@link TransactionCoordinator} sees all commits,
+ * including ones made by the application outside Fuseki.</li>
+ * <li>For in-memory datasets ({@link DatasetGraphInMemory}), the generation counter
+ * of the dataset is checked on each use of the cache.</li>
+ * </ul>
+ * A response is only added to the cache if there has been no invalidation since it
+ * was started (see {@link #recorder}), so results calculated from data that has since
+ * changed are never added.
+ * <p>
+ * Other datasets can be changed by the application without the cache seeing the
+ * change, so they are not supported (see {@link #isSupported}).
+ */
+public class ResultCache {
+    /** Default memory budget, in bytes. */
+    public static final long DefaultMaxBytes = 64 * 1024 * 1024;
+
+    /** Serialized response. */
+    public record Entry(String contentType, String charset, byte[] bytes) {}
+
+    private final DatasetGraph dataset;
+    private final long maxBytes;
+    // Access order - the first entry is the least recently used.
+    // Guarded by "this".
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    // Incremented by each invalidation. Guarded by "this".
+    private long generation = 0;
+
+    // In-memory dataset, if any, and the dataset generation that the entries are for.
+    private final DatasetGraphInMemory dsgInMemory;
+    private long dsgGeneration = -1;
+
+    // TDB2: the storage the listener is attached to. Compaction changes the storage.
+    // Listeners are changed in the exclusive mode of the TransactionCoordinator so
+    // this is not done while holding the lock on "this", which a commit may need.
+    private final Object storageLock = new Object();
+    private volatile DatasetGraphTDB dsgTDB = null;
+    private TransactionCoordinator coordinator = null;
+    private final TransactionListener commitListener = new TransactionListener() {
+        @Override
+        public void notifyCommitFinish(Transaction transaction) {
+            if ( transaction.isWriteTxn() )
+                invalidate();
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResultCache(DatasetGraph dataset, long maxBytes) {
+        if ( maxBytes <= 0 )
+            throw new IllegalArgumentException("Result cache size must be positive: "+maxBytes);
+        if ( ! isSupported(dataset) )
+            throw new IllegalArgumentException("Result cache: changes to the dataset can not be tracked: "+dataset.getClass().getSimpleName());
+        this.dataset = dataset;
+        this.maxBytes = maxBytes;
+        this.dsgInMemory = findInMemory(dataset);
+        if ( dsgInMemory != null )
+            dsgGeneration = dsgInMemory.getGeneration();
+        checkStorage(true);
+    }
+
+    /**
+     * Whether changes to the dataset, however they are made, are seen by the cache:
+     * true for TDB2 and in-memory ({@link DatasetGraphInMemory}) datasets.
+     */
+    public static boolean isSupported(DatasetGraph dataset) {
+        return findInMemory(dataset) != null || findTDB(dataset) != null;
+    }
+
+    /** Unwrap until a {@link DatasetGraphInMemory} is encountered */
+    private static DatasetGraphInMemory findInMemory(DatasetGraph dsg) {
+        DatasetGraph dsgw = dsg;
+        while ( dsgw instanceof DatasetGraphWrapper wrapper )
+            dsgw = wrapper.getWrapped();
+        return ( dsgw instanceof DatasetGraphInMemory dsgim ) ? dsgim : null;
+    }
+
+    /**
+     * Return the cached response for a key, or null.
+     * This must not be called inside a transaction.
+     */
+    public Entry get(String key) {
+        checkStorage(true);
+        synchronized(this) {
+            checkGeneration();
+            Entry entry = entries.get(key);
+            if ( entry == null )
+                misses.increment();
+            else
+                hits.increment();
+            return entry;
+        }
+    }
+
+    /**
+     * Start recording a response for a key.
+     * This must be called before the read transaction for the query starts.
+     */
+    public Recorder recorder(String key) {
+        checkStorage(true);
+        synchronized(this) {
+            checkGeneration();
+            return new Recorder(this, key, generation);
+        }
+    }
+
+    private void put(String key, Entry entry, long startGeneration) {
+        long size = sizeOf(key, entry);
+        if ( size > maxBytes )
+            return;
+        // Called inside the read transaction.
+        checkStorage(false);
+        synchronized(this) {
+            checkGeneration();
+            // The data may have changed while the response was being calculated.
+            if ( startGeneration != generation )
+                return;
+            Entry previous = entries.put(key, entry);
+            if ( previous != null )
+                totalBytes -= sizeOf(key, previous);
+            totalBytes += size;
+            Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator();
+            while ( totalBytes > maxBytes && iter.hasNext() ) {
+                Map.Entry<String, Entry> e = iter.next();
+                totalBytes -= sizeOf(e.getKey(), e.getValue());
+                iter.remove();
+            }
+        }
+    }
+
+    // Approximate memory used by an entry.
+    private static long sizeOf(String key, Entry entry) {
+        return 2L * key.length() + entry.bytes().length;
+    }
+
+    /** Drop all entries. Called when the data may have changed. */
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    // Check the in-memory dataset generation. Caller holds the lock.
+    private void checkGeneration() {
+        if ( dsgInMemory == null )
+            return;
+        long g = dsgInMemory.getGeneration();
+        if ( g != dsgGeneration ) {
+            dsgGeneration = g;
+            invalidate();
+        }
+    }
+
+    /**
+     * Track the current TDB2 storage, which changes on compaction.
+     * If {@code attach} is true, listen to the transactions of a new storage;
+     * this must not be called inside a transaction.
+     */
+    private void checkStorage(boolean attach) {
+        DatasetGraphTDB dsgtdb = findTDB(dataset);
+        if ( dsgtdb == dsgTDB )
+            return;
+        if ( attach ) {
+            synchronized(storageLock) {
+                if ( dsgtdb == dsgTDB )
+                    return;
+                // Any previous storage has been replaced and is no longer in use.
+                coordinator = null;
+                if ( dsgtdb != null ) {
+                    TransactionCoordinator txnMgr = dsgtdb.getTxnSystem().getTxnMgr();
+                    txnMgr.modifyConfig(()->txnMgr.addListener(commitListener));
+                    coordinator = txnMgr;
+                }
+                dsgTDB = dsgtdb;
+            }
+        }
+        invalidate();
+    }
+
+    /** Unwrap until a TDB2 storage is encountered */
+    private static DatasetGraphTDB findTDB(DatasetGraph dsg) {
+        DatasetGraph dsgw = dsg;
+        while ( dsgw instanceof DatasetGraphWrapper wrapper && ! TDBInternal.isTDB2(dsgw) )
+            dsgw = wrapper.getWrapped();
+        if ( ! TDBInternal.isTDB2(dsgw) )
+            return null;
+        return TDBInternal.getDatasetGraphTDB(dsgw);
+    }
+
+    /**
+     * Release the cache: stop listening to the dataset and drop all entries.
+     * This must not be called inside a transaction.
+     */
+    public void close() {
+        synchronized(storageLock) {
+            TransactionCoordinator txnMgr = coordinator;
+            if ( txnMgr != null )
+                txnMgr.modifyConfig(()->txnMgr.removeListener(commitListener));
+            coordinator = null;
+        }
+        invalidate();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Capture the bytes of a response as it is written. The response is added to the
+     * cache by {@link #complete} unless it grows larger than the cache or the data
+     * changes in the meantime.
+     */
+    public static class Recorder {
+        private final ResultCache cache;
+        private final String key;
+        private final long startGeneration;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private boolean overflow = false;
+
+        private Recorder(ResultCache cache, String key, long startGeneration) {
+            this.cache = cache;
+            this.key = key;
+            this.startGeneration = startGeneration;
+        }
+
+        /** Return an {@link OutputStream} that writes to {@code out} and records the bytes. */
+        public OutputStream wrap(OutputStream out) {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    record(1);
+                    if ( ! overflow )
+                        buffer.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    record(len);
+                    if ( ! overflow )
+                        buffer.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.close();
+                }
+            };
+        }
+
+        private void record(int len) {
+            if ( overflow )
+                return;
+            if ( (long)buffer.size() + len > cache.maxBytes ) {
+                overflow = true;
+                buffer.reset();
+            }
+        }
+
+        /** The response has been written successfully. */
+        public void complete(String contentType, String charset) {
+            if ( overflow )
+                return;
+            cache.put(key, new Entry(contentType, charset, buffer.toByteArray()), startGeneration);
+        }
+    }
+}
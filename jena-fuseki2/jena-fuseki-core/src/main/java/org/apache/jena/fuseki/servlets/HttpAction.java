@@ -83,6 +83,9 @@ public class HttpAction
     private DatasetGraph dsg                = null;
     private Context context                 = null;
 
+    // Set when the response is to be added to the result cache.
+    private ResultCache.Recorder resultRecorder = null;
+
     // ----
 
     private boolean startTimeIsSet = false;
@@ -334,6 +337,7 @@ public class HttpAction
     public void commit() {
         dataService.finishTxn();
         transactional.commit();
+        dataService.noteCommit();
         end();
     }
 
@@ -409,6 +413,20 @@ public class HttpAction
         this.dataService = null;
         this.activeDSG = null;
         this.endpoint = null;
+        this.resultRecorder = null;
+    }
+
+    /**
+     * Record the response in a {@link ResultCache} as it is written.
+     * Set to null for no recording.
+     */
+    public void setResultRecorder(ResultCache.Recorder recorder) {
+        this.resultRecorder = recorder;
+    }
+
+    /** Return the {@link ResultCache.Recorder} for the response, or null. */
+    public ResultCache.Recorder getResultRecorder() {
+        return resultRecorder;
     }
 
     public void setStartTime() {
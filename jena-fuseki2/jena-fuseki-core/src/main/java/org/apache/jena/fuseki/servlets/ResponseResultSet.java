@@ -35,7 +35,9 @@ import org.apache.jena.atlas.web.AcceptList;
 import org.apache.jena.atlas.web.MediaType;
 import org.apache.jena.fuseki.DEF;
 import org.apache.jena.fuseki.FusekiException;
+import org.apache.jena.fuseki.server.ResultCache;
 import org.apache.jena.fuseki.system.ConNeg;
+import org.apache.jena.fuseki.system.FusekiNetLib;
 import org.apache.jena.query.QueryCancelledException;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.query.ResultSetFormatter;
@@ -43,6 +45,7 @@ import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.WebContent;
 import org.apache.jena.riot.resultset.ResultSetWriterRegistry;
 import org.apache.jena.riot.rowset.rw.RowSetWriterXML;
+import org.apache.jena.riot.web.HttpNames;
 import org.apache.jena.sparql.core.Prologue;
 import org.apache.jena.sparql.resultset.ResultsWriter;
 import org.apache.jena.sparql.util.Context;
@@ -223,15 +226,67 @@ public class ResponseResultSet
         output(action, contentType, charset, proc);
     }
 
+    // Request parameters, other than the query, that change the response.
+    private static final String[] resultCacheParams = {
+        HttpNames.paramOutput1, HttpNames.paramOutput2, HttpNames.paramOutput3,
+        HttpNames.paramStyleSheet, HttpNames.paramForceAccept, HttpNames.paramCallback,
+        HttpNames.paramDefaultGraphURI, HttpNames.paramNamedGraphURI
+    };
+
+    /**
+     * The {@link ResultCache} key for a request: the endpoint, the query string and
+     * everything in the request that decides the content type and form of the response.
+     * The cache is shared by the endpoints of the service, and each endpoint can have
+     * its own context.
+     */
+    /*package*/ static String resultCacheKey(HttpAction action, String queryString) {
+        StringBuilder sb = new StringBuilder();
+        if ( action.getEndpoint() != null )
+            keyPart(sb, "endpoint", action.getEndpoint().getName());
+        keyPart(sb, "query", queryString);
+        keyPart(sb, "accept", FusekiNetLib.getAccept(action.getRequest()));
+        for ( String param : resultCacheParams ) {
+            String[] values = action.getRequestParameterValues(param);
+            if ( values != null ) {
+                for ( String v : values )
+                    keyPart(sb, param, v);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Include the length so that the parts of a key can not run together.
+    private static void keyPart(StringBuilder sb, String name, String value) {
+        if ( value == null )
+            return;
+        sb.append(name).append('=').append(value.length()).append(':').append(value).append('\n');
+    }
+
+    /** Send a response from the {@link ResultCache}. */
+    /*package*/ static void doResponseCached(HttpAction action, ResultCache.Entry entry) {
+        try {
+            ResponseOps.setHttpResponse(action, entry.contentType(), entry.charset());
+            ServletOps.success(action);
+            OutputStream out = action.getResponseOutputStream();
+            out.write(entry.bytes());
+            out.flush();
+        } catch (IOException ex) { ServletOps.errorOccurred(ex); }
+    }
+
     // Set HTTP response and execute OutputContent inside try-catch.
     private static void output(HttpAction action, String contentType, String charset, OutputContent proc) {
         try {
             ResponseOps.setHttpResponse(action, contentType, charset);
             ServletOps.success(action);
+            ResultCache.Recorder recorder = action.getResultRecorder();
             OutputStream out = action.getResponseOutputStream();
+            if ( recorder != null )
+                out = recorder.wrap(out);
             try {
                 proc.output(out);
                 out.flush();
+                if ( recorder != null )
+                    recorder.complete(contentType, charset);
             } catch (QueryCancelledException ex) {
                 // Status code 200 may have already been sent.
                 // We can try to set the HTTP response code anyway.
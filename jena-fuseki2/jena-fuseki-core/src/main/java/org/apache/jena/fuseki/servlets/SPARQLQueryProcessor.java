@@ -20,6 +20,8 @@ package org.apache.jena.fuseki.servlets;
 
 import static java.lang.String.format;
 import static org.apache.jena.atlas.lib.Lib.uppercase;
+import static org.apache.jena.fuseki.server.CounterName.QueryCacheHits;
+import static org.apache.jena.fuseki.server.CounterName.QueryCacheMisses;
 import static org.apache.jena.fuseki.server.CounterName.QueryTimeouts;
 import static org.apache.jena.fuseki.servlets.ActionExecLib.incCounter;
 import static org.apache.jena.riot.WebContent.ctHTMLForm;
@@ -40,12 +42,14 @@ import org.apache.jena.atlas.json.JsonObject;
 import org.apache.jena.atlas.lib.Pair;
 import org.apache.jena.atlas.web.ContentType;
 import org.apache.jena.fuseki.Fuseki;
+import org.apache.jena.fuseki.server.ResultCache;
 import org.apache.jena.fuseki.system.FusekiNetLib;
 import org.apache.jena.query.*;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.riot.web.HttpNames;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.Prologue;
+import org.apache.jena.sparql.engine.QueryPlanCache;
 import org.apache.jena.sparql.engine.Timeouts;
 import org.apache.jena.sparql.exec.QueryExec;
 import org.apache.jena.sparql.exec.QueryExecDatasetBuilder;
@@ -251,7 +255,10 @@ public abstract class SPARQLQueryProcessor extends ActionService
         Query query = null;
         try {
             // NB syntax is ARQ (a superset of SPARQL)
-            query = QueryFactory.create(queryString, QueryParseBase, Syntax.syntaxARQ);
+            if ( QueryPlanCache.isEnabled(action.getContext()) )
+                query = QueryPlanCache.get().parse(queryString, QueryParseBase, Syntax.syntaxARQ);
+            else
+                query = QueryFactory.create(queryString, QueryParseBase, Syntax.syntaxARQ);
             queryStringLog = formatForLog(query);
             validateQuery(action, query);
         } catch (ActionErrorException ex) {
@@ -267,6 +274,24 @@ public abstract class SPARQLQueryProcessor extends ActionService
             ServletOps.errorBadRequest("Error: \n" + queryString + "\n" + msg);
         }
 
+        // SELECT and ASK responses may be in the result cache.
+        ResultCache resultCache = ( query.isSelectType() || query.isAskType() ) ? resultCache(action) : null;
+        if ( resultCache != null ) {
+            String cacheKey = ResponseResultSet.resultCacheKey(action, queryString);
+            ResultCache.Entry entry = resultCache.get(cacheKey);
+            if ( entry != null ) {
+                incCounter(action.getEndpoint(), QueryCacheHits);
+                incCounter(action.getDataService().getCounters(), QueryCacheHits);
+                action.log.info(format("[%d] Results from cache", action.id));
+                ResponseResultSet.doResponseCached(action, entry);
+                return;
+            }
+            incCounter(action.getEndpoint(), QueryCacheMisses);
+            incCounter(action.getDataService().getCounters(), QueryCacheMisses);
+            // Before the transaction starts.
+            action.setResultRecorder(resultCache.recorder(cacheKey));
+        }
+
         // Assumes finished whole thing by end of sendResult.
         try {
             action.beginRead();
@@ -293,6 +318,15 @@ public abstract class SPARQLQueryProcessor extends ActionService
         } finally { action.endRead(); }
     }
 
+    /**
+     * The {@link ResultCache} for this request, or null for no caching.
+     * The default is no caching.
+     * @param action HTTP Action
+     */
+    protected ResultCache resultCache(HttpAction action) {
+        return null;
+    }
+
     /**
      * Check the query - if unacceptable, throw ActionErrorException
      * or call on of the {@link ServletOps#error} operations.
@@ -19,6 +19,8 @@
 package org.apache.jena.fuseki.servlets;
 
 import org.apache.jena.atlas.lib.Pair;
+import org.apache.jena.fuseki.server.DataService;
+import org.apache.jena.fuseki.server.ResultCache;
 import org.apache.jena.query.Query;
 import org.apache.jena.sparql.core.DatasetDescription;
 import org.apache.jena.sparql.core.DatasetGraph;
@@ -34,6 +36,12 @@ public class SPARQL_QueryDataset extends SPARQLQueryProcessor {
     @Override
     protected void validateQuery(HttpAction action, Query query) { }
 
+    @Override
+    protected ResultCache resultCache(HttpAction action) {
+        DataService dataService = action.getDataService();
+        return ( dataService == null ) ? null : dataService.getResultCache();
+    }
+
     @Override
     protected Pair<DatasetGraph, Query> decideDataset(HttpAction action, Query query, String queryStringLog) {
         return decideDatasetDynamic(action, query, queryStringLog);
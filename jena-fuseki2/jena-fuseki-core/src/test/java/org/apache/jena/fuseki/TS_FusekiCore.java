@@ -19,6 +19,7 @@
 package org.apache.jena.fuseki;
 
 import org.apache.jena.fuseki.server.TestDispatchOnURI;
+import org.apache.jena.fuseki.server.TestResultCache;
 import org.apache.jena.fuseki.servlets.TestCrossOriginFilter;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -29,6 +30,7 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({
     TestValidators.class,
     TestDispatchOnURI.class,
+    TestResultCache.class,
     TestCrossOriginFilter.class
 })
 public class TS_FusekiCore {}
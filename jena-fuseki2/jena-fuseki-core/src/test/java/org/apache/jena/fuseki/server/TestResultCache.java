@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.server;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Result cache and its invalidation when the dataset changes. */
+@RunWith(Parameterized.class)
+public class TestResultCache {
+
+    @Parameters(name = "{index}: {0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] {
+            { "TIM",     (Creator)DatasetGraphFactory::createTxnMem },
+            { "TDB2",    (Creator)DatabaseMgr::createDatasetGraph }
+        });
+    }
+
+    interface Creator { DatasetGraph create(); }
+
+    private final Creator creator;
+    private DatasetGraph dsg;
+    private ResultCache cache;
+
+    public TestResultCache(String name, Creator creator) {
+        this.creator = creator;
+    }
+
+    @Before public void before() {
+        dsg = creator.create();
+        cache = new ResultCache(dsg, 1000);
+    }
+
+    @After public void after() {
+        cache.close();
+    }
+
+    private static void record(ResultCache cache, String key, String content) {
+        ResultCache.Recorder recorder = cache.recorder(key);
+        write(recorder, content);
+        recorder.complete("text/plain", "utf-8");
+    }
+
+    private static void write(ResultCache.Recorder recorder, String content) {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try ( OutputStream out = recorder.wrap(response) ) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) { throw new RuntimeException(ex); }
+        assertEquals(content, response.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String content(ResultCache.Entry entry) {
+        return new String(entry.bytes(), StandardCharsets.UTF_8);
+    }
+
+    @Test public void result_cache_01() {
+        assertNull(cache.get("q1"));
+        record(cache, "q1", "ABC");
+        ResultCache.Entry entry = cache.get("q1");
+        assertNotNull(entry);
+        assertEquals("ABC", content(entry));
+        assertEquals("text/plain", entry.contentType());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test public void result_cache_02() {
+        record(cache, "q1", "ABC");
+        // Read transactions do not change the cache.
+        Txn.executeRead(dsg, ()->dsg.isEmpty());
+        assertNotNull(cache.get("q1"));
+        // Fuseki commit.
+        cache.invalidate();
+        assertNull(cache.get("q1"));
+    }
+
+    @Test public void result_cache_03() {
+        record(cache, "q1", "ABC");
+        // Commit outside Fuseki.
+        Txn.executeWrite(dsg, ()->dsg.add(SSE.parseQuad("(_ :s :p :o)")));
+        assertNull(cache.get("q1"));
+    }
+
+    @Test public void result_cache_unsupported() {
+        // Commits outside Fuseki are not seen: no cache.
+        DatasetGraph dsgGeneral = DatasetGraphFactory.createGeneral();
+        assertTrue(ResultCache.isSupported(dsg));
+        assertFalse(ResultCache.isSupported(dsgGeneral));
+        assertThrows(IllegalArgumentException.class, ()->new ResultCache(dsgGeneral, 1000));
+        DataService dataService = DataService.newBuilder(dsgGeneral).setResultCache(1000).build();
+        assertNull(dataService.getResultCache());
+    }
+
+    @Test public void result_cache_04() {
+        // Data changes while the response is being written.
+        ResultCache.Recorder recorder = cache.recorder("q1");
+        cache.invalidate();
+        write(recorder, "ABC");
+        recorder.complete("text/plain", "utf-8");
+        assertNull(cache.get("q1"));
+    }
+
+    @Test public void result_cache_05() {
+        // Too large for the cache.
+        ResultCache.Recorder recorder = cache.recorder("q1");
+        write(recorder, "X".repeat(2000));
+        recorder.complete("text/plain", "utf-8");
+        assertNull(cache.get("q1"));
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test public void result_cache_06() {
+        // Least recently used entries are dropped to stay within budget.
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            record(cache, "q"+i, "0123456789012345678901234567890123456789");
+            // Keep q0 in use.
+            assertNotNull(cache.get("q0"));
+        }
+        assertTrue(cache.getBytes() <= cache.getMaxBytes());
+        assertNotNull(cache.get("q0"));
+        assertNotNull(cache.get("q99"));
+        assertNull(cache.get("q1"));
+    }
+}
@@ -48,6 +48,7 @@ import org.junit.runners.Suite.SuiteClasses;
 
   , TestQuery.class
   , TestSPARQLProtocol.class
+  , TestResultCacheServer.class
 
   , TestPatchFuseki.class
   , TestFusekiCustomScriptFunc.class
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.main;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.jena.fuseki.server.CounterName;
+import org.apache.jena.fuseki.server.DataService;
+import org.apache.jena.fuseki.server.Endpoint;
+import org.apache.jena.fuseki.server.Operation;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFormatter;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.exec.http.QueryExecutionHTTP;
+import org.apache.jena.sparql.exec.http.UpdateExecutionHTTP;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.apache.jena.tdb2.TDB2;
+import org.apache.jena.sys.JenaSystem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** The result cache through the SPARQL query servlet. */
+public class TestResultCacheServer {
+    static {
+        JenaSystem.init();
+    }
+
+    private FusekiServer server = null;
+    private DataService dataService = null;
+
+    @Before public void before() {
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem();
+        dataService = DataService.newBuilder(dsg).withStdServices(true).setResultCache(1_000_000).build();
+        server = FusekiServer.create().port(0).add("/ds", dataService).start();
+    }
+
+    @After public void after() {
+        if ( server != null )
+            server.stop();
+    }
+
+    @Test public void resultCache_counters() {
+        String URL = server.datasetURL("/ds");
+        update(URL, "INSERT DATA { <x:s> <x:p> 1 }");
+        assertEquals(1, count(URL));
+        assertEquals(1, count(URL));
+        assertEquals(1, counter(CounterName.QueryCacheMisses));
+        assertEquals(1, counter(CounterName.QueryCacheHits));
+        assertEquals(1, dataService.getResultCache().getHits());
+    }
+
+    @Test public void resultCache_invalidate() {
+        String URL = server.datasetURL("/ds");
+        update(URL, "INSERT DATA { <x:s> <x:p> 1 }");
+        assertEquals(1, count(URL));
+        update(URL, "INSERT DATA { <x:s> <x:p> 2 }");
+        assertEquals(2, count(URL));
+        assertEquals(2, counter(CounterName.QueryCacheMisses));
+        assertEquals(0, counter(CounterName.QueryCacheHits));
+    }
+
+    @Test public void resultCache_endpoints() {
+        // Two query endpoints that differ only in their context.
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        Txn.executeWrite(dsg, ()->dsg.add(SSE.parseQuad("(<x:g> <x:s> <x:p> 1)")));
+        Context cxt = new Context();
+        cxt.set(TDB2.symUnionDefaultGraph, true);
+        DataService dSrv = DataService.newBuilder(dsg)
+                .addEndpoint(Operation.Query, "query")
+                .addEndpoint(Endpoint.create().operation(Operation.Query).endpointName("union").context(cxt).build())
+                .setResultCache(1_000_000)
+                .build();
+        FusekiServer server2 = FusekiServer.create().port(0).add("/ds2", dSrv).start();
+        try {
+            String URL = server2.datasetURL("/ds2");
+            assertEquals(0, count(URL+"/query"));
+            assertEquals(1, count(URL+"/union"));
+            assertEquals(0, count(URL+"/query"));
+            assertEquals(1, count(URL+"/union"));
+            assertEquals(2, dSrv.getResultCache().getHits());
+        } finally {
+            server2.stop();
+        }
+    }
+
+    // Service counter, checked against the sum of the query endpoint counters.
+    private long counter(CounterName name) {
+        long value = dataService.getCounters().value(name);
+        long endpoints = 0;
+        for ( Endpoint ep : dataService.getEndpoints(Operation.Query) )
+            endpoints += ep.getCounters().value(name);
+        assertEquals(name.getName(), value, endpoints);
+        return value;
+    }
+
+    private static void update(String URL, String updateString) {
+        UpdateExecutionHTTP.service(URL).update(updateString).execute();
+    }
+
+    private static int count(String URL) {
+        try ( QueryExecutionHTTP qExec = QueryExecutionHTTP.service(URL).query("SELECT * { ?s ?p ?o }").build() ) {
+            ResultSet rs = qExec.execSelect();
+            return ResultSetFormatter.consume(rs);
+        }
+    }
+}
@@ -65,6 +65,12 @@ public class SecuredQueryEngine extends QueryEngineMain {
         return result;
     }
 
+    // The rewrite depends on the security evaluator, not just the query and dataset.
+    @Override
+    protected boolean isPlanCacheable() {
+        return false;
+    }
+
     private void setGraphIRI(final DatasetGraph dataset) {
         final Graph g = dataset.getDefaultGraph();
         if (g instanceof SecuredGraph) {
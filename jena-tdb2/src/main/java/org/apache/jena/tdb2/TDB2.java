@@ -20,6 +20,7 @@ package org.apache.jena.tdb2;
 
 import org.apache.jena.atlas.lib.Version;
 import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.core.DatasetSnapshots;
 import org.apache.jena.sparql.core.assembler.AssemblerUtils;
 import org.apache.jena.sparql.engine.main.StageBuilder;
 import org.apache.jena.sparql.engine.main.StageGenerator;
@@ -149,6 +150,9 @@ public class TDB2 {
         // graph types inside a general purpose dataset work.
         StageGenerator stageGenerator = new StageGeneratorDirectTDB(orig);
         StageBuilder.setGenerator(ARQ.getContext(), stageGenerator);
+
+        // Worker threads of parallel query execution check they see the same data as the query.
+        DatasetSnapshots.register(TDBInternal::transactionSnapshot);
     }
 
     // ---- Must be after initialization.
@@ -22,9 +22,11 @@ import java.io.InputStream;
 import java.util.List;
 
 import org.apache.jena.atlas.lib.Timer;
+import org.apache.jena.atlas.lib.cache.CacheInfo;
 import org.apache.jena.graph.Node;
 import org.apache.jena.query.TxnType;
 import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.system.TermDictionary;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.system.progress.MonitorOutput;
 import org.apache.jena.system.progress.ProgressMonitor;
@@ -44,6 +46,8 @@ public abstract class LoaderBase implements DataLoader {
     protected final Node graphName;
     private Timer timer;
     protected final MonitorOutput output;
+    // IRIs and short literals, shared by all the files of the load.
+    protected final TermDictionary termDictionary = new TermDictionary();
 
     protected LoaderBase(DatasetGraph dsg, Node graphName, MonitorOutput output) {
         this.dsg = dsg;
@@ -123,7 +127,7 @@ public abstract class LoaderBase implements DataLoader {
         ProgressMonitor monitor = createProgressMonitor(output);
         monitor.startMessage("Start: "+label);
         monitor.start();
-        LoaderOps.inputStream(stream(), input, syntax, monitor);
+        LoaderOps.inputStream(stream(), input, syntax, monitor, termDictionary);
         monitor.finish();
         monitor.finishMessage("Finished: "+label);
     }
@@ -136,7 +140,7 @@ public abstract class LoaderBase implements DataLoader {
     protected void loadOne(String filename, ProgressMonitor monitor) {
         String label = LoaderOps.label(filename);
         monitor.setLabel(label);
-        LoaderOps.inputFile(stream(), filename, monitor);
+        LoaderOps.inputFile(stream(), filename, monitor, termDictionary);
     }
 
     protected void outputSummary(long totalElapsed) {
@@ -148,8 +152,12 @@ public abstract class LoaderBase implements DataLoader {
             if ( countTriples() > 0 && countQuads() == 0 )
                 label = "Triples";
             double seconds = totalElapsed/1000.0;
-            if ( seconds > 1 )
+            if ( seconds > 1 ) {
                 output.print("Time = %,.3f seconds : %s = %,d : Rate = %,.0f /s", seconds, label, count, count/seconds);
+                CacheInfo info = termDictionary.stats();
+                if ( info.requests > 0 )
+                    output.print("Term dictionary : Lookups = %,d : Hit rate = %.1f%%", info.requests, 100*info.hitRate);
+            }
         }
     }
 }
@@ -35,6 +35,7 @@ import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFParser;
 import org.apache.jena.riot.system.StreamRDF;
 import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.riot.system.TermDictionary;
 import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.system.progress.*;
 import org.apache.jena.tdb2.TDB2;
@@ -101,10 +102,18 @@ public class LoaderOps {
      * "no output".
      */
     public static void inputFile(StreamRDF sink, String source, ProgressMonitor monitor) {
+        inputFile(sink, source, monitor, null);
+    }
+
+    /**
+     * Parse one file, with an optional progress monitor and an optional
+     * {@link TermDictionary} shared with other parsers.
+     */
+    public static void inputFile(StreamRDF sink, String source, ProgressMonitor monitor, TermDictionary termDictionary) {
         if ( monitor != null )
             sink = new ProgressStreamRDF(sink, monitor);
         sink.start();
-        RDFParser.source(source).parse(sink);
+        RDFParser.source(source).termDictionary(termDictionary).parse(sink);
         sink.finish();
     }
 
@@ -114,10 +123,18 @@ public class LoaderOps {
      * @param syntax
      */
     public static void inputStream(StreamRDF sink, InputStream input, Lang syntax, ProgressMonitor monitor) {
+        inputStream(sink, input, syntax, monitor, null);
+    }
+
+    /**
+     * Parse one file, with an optional progress monitor and an optional
+     * {@link TermDictionary} shared with other parsers.
+     */
+    public static void inputStream(StreamRDF sink, InputStream input, Lang syntax, ProgressMonitor monitor, TermDictionary termDictionary) {
         if ( monitor != null )
             sink = new ProgressStreamRDF(sink, monitor);
         sink.start();
-        RDFParser.source(input).lang(syntax).parse(sink);
+        RDFParser.source(input).lang(syntax).termDictionary(termDictionary).parse(sink);
         sink.finish();
     }
 
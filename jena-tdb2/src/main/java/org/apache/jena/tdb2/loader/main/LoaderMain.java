@@ -31,11 +31,13 @@ import org.apache.jena.query.TxnType;
 import org.apache.jena.riot.lang.StreamRDFCounting;
 import org.apache.jena.riot.system.StreamRDF;
 import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
 import org.apache.jena.tdb2.loader.DataLoader;
 import org.apache.jena.tdb2.loader.base.*;
 import org.apache.jena.system.progress.MonitorOutput;
 import org.apache.jena.system.progress.ProgressMonitor;
 import org.apache.jena.system.progress.ProgressMonitorOutput;
+import org.apache.jena.tdb2.store.ClosureTable;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
 import org.apache.jena.tdb2.store.NodeId;
 import org.apache.jena.tdb2.store.StoragePrefixesTDB;
@@ -240,6 +242,10 @@ public class LoaderMain extends LoaderBase implements DataLoader {
 
     @Override
     public void startBulk() {
+        // The closure is not used until it is rebuilt at the end of the load.
+        ClosureTable closure = dsgtdb.getClosureTable();
+        if ( closure != null )
+            Txn.executeWrite(dsgtdb, ()->closure.invalidate());
         // Lock everyone else out while we multithread.
         dsgtdb.getTxnSystem().getTxnMgr().startExclusiveMode();
         super.startBulk();
@@ -268,6 +274,9 @@ public class LoaderMain extends LoaderBase implements DataLoader {
         }
         super.finishBulk();
         dsgtdb.getTxnSystem().getTxnMgr().finishExclusiveMode();
+        ClosureTable closure = dsgtdb.getClosureTable();
+        if ( closure != null )
+            Txn.executeWrite(dsgtdb, ()->closure.rebuild());
     }
 
     /** Execute secondary index building of a {@link LoaderPlan} */
@@ -31,6 +31,7 @@ import org.apache.jena.tdb2.loader.base.LoaderOps;
 import org.apache.jena.system.progress.MonitorOutput;
 import org.apache.jena.system.progress.ProgressMonitor;
 import org.apache.jena.system.progress.ProgressMonitorOutput;
+import org.apache.jena.tdb2.store.ClosureTable;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
 import org.apache.jena.tdb2.sys.TDBInternal;
 
@@ -93,6 +94,10 @@ public class LoaderSequential extends LoaderBase {
     public void finishBulk() {
         triplesLoader.loadDataFinish();
         quadsLoader.loadDataFinish();
+        // The triples were written to the indexes directly.
+        ClosureTable closure = dsgtdb.getClosureTable();
+        if ( closure != null && countTriples != 0 )
+            closure.rebuild();
         super.finishBulk();
         //dsgtdb.getTxnSystem().getTxnMgr().finishExclusiveMode();
     }
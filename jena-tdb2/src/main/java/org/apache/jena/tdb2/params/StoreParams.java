@@ -20,6 +20,7 @@ package org.apache.jena.tdb2.params;
 
 import java.util.Objects;
 
+import org.apache.jena.dboe.base.block.BlockCacheMode;
 import org.apache.jena.dboe.base.block.BlockParams;
 import org.apache.jena.dboe.base.block.FileMode;
 import org.apache.jena.dboe.index.IndexParams;
@@ -49,9 +50,11 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
 
     /*package*/ final Item<Integer>            blockReadCacheSize;          // Direct mode block cache size
     /*package*/ final Item<Integer>            blockWriteCacheSize;         // Direct mode block cache size
+    /*package*/ final Item<BlockCacheMode>     blockCacheMode;              // Direct mode block cache implementation
 
     /*package*/ final Item<Integer>            Node2NodeIdCacheSize;
     /*package*/ final Item<Integer>            NodeId2NodeCacheSize;
+    /*package*/ final Item<Long>               NodeId2NodeCacheBytes;       // Off-heap cache, in bytes
     /*package*/ final Item<Integer>            NodeMissCacheSize;
     /*package*/ final Item<Integer>            prefixNode2NodeIdCacheSize;
     /*package*/ final Item<Integer>            prefixNodeId2NodeCacheSize;
@@ -78,6 +81,8 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
     /*package*/ final Item<String>             primaryIndexPrefix;
     /*package*/ final Item<String[]>           prefixIndexes;
 
+    /*package*/ final Item<String[]>           closurePredicates;
+
     /** @deprecated Prefer {@link #builder(String)}. */
     @Deprecated
     public static StoreParamsBuilder builder() {
@@ -105,8 +110,10 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
     /*package*/ StoreParams(String label,
                             Item<FileMode> fileMode, Item<Integer> blockSize,
                             Item<Integer> blockReadCacheSize, Item<Integer> blockWriteCacheSize,
+                            Item<BlockCacheMode> blockCacheMode,
 
                             Item<Integer> node2NodeIdCacheSize, Item<Integer> nodeId2NodeCacheSize,
+                            Item<Long> nodeId2NodeCacheBytes,
                             Item<Integer> nodeMissCacheSize,
 
                             Item<Integer> prefixNode2NodeIdCacheSize, Item<Integer> prefixNodeId2NodeCacheSize,
@@ -117,15 +124,18 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
                             Item<String> primaryIndexQuads, Item<String[]> quadIndexes,
 
                             Item<String> prefixTableBasename,
-                            Item<String> primaryIndexPrefix, Item<String[]> prefixIndexes) {
+                            Item<String> primaryIndexPrefix, Item<String[]> prefixIndexes,
+                            Item<String[]> closurePredicates) {
         this.label                  = label;
         this.fileMode               = fileMode;
         this.blockSize              = blockSize;
         this.blockReadCacheSize     = blockReadCacheSize;
         this.blockWriteCacheSize    = blockWriteCacheSize;
+        this.blockCacheMode         = blockCacheMode;
 
         this.Node2NodeIdCacheSize   = node2NodeIdCacheSize;
         this.NodeId2NodeCacheSize   = nodeId2NodeCacheSize;
+        this.NodeId2NodeCacheBytes  = nodeId2NodeCacheBytes;
         this.NodeMissCacheSize      = nodeMissCacheSize;
 
         this.prefixNode2NodeIdCacheSize   = prefixNode2NodeIdCacheSize;
@@ -142,6 +152,8 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
         this.prefixIndexes          = prefixIndexes;
 
         this.prefixTableBaseName    = prefixTableBasename;
+
+        this.closurePredicates      = closurePredicates;
     }
 
     /** The system default settings. This is the normal set to use.
@@ -209,6 +221,16 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
         return blockWriteCacheSize.isSet;
     }
 
+    @Override
+    public BlockCacheMode getBlockCacheMode() {
+        return blockCacheMode.value;
+    }
+
+    @Override
+    public boolean isSetBlockCacheMode() {
+        return blockCacheMode.isSet;
+    }
+
     @Override
     public Integer getNode2NodeIdCacheSize() {
         return Node2NodeIdCacheSize.value;
@@ -229,6 +251,16 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
         return NodeId2NodeCacheSize.value;
     }
 
+    @Override
+    public Long getNodeId2NodeCacheBytes() {
+        return NodeId2NodeCacheBytes.value;
+    }
+
+    @Override
+    public boolean isSetNodeId2NodeCacheBytes() {
+        return NodeId2NodeCacheBytes.isSet;
+    }
+
     @Override
     public Integer getNodeMissCacheSize() {
         return NodeMissCacheSize.value;
@@ -311,6 +343,11 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
         return prefixIndexes.value;
     }
 
+    /** The properties, as URIs, with a transitive closure index. */
+    public String[] getClosurePredicates() {
+        return closurePredicates.value;
+    }
+
     @Override
     public String toString() {
         StringBuilder buff = new StringBuilder();
@@ -321,8 +358,10 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
         fmt(buff, "blockSize", getBlockSize(), blockSize.isSet);
         fmt(buff, "readCacheSize", getBlockReadCacheSize(), blockReadCacheSize.isSet);
         fmt(buff, "writeCacheSize", getBlockWriteCacheSize(), blockWriteCacheSize.isSet);
+        fmt(buff, "blockCacheMode", getBlockCacheMode().toString(), blockCacheMode.isSet);
         fmt(buff, "Node2NodeIdCacheSize", getNode2NodeIdCacheSize(), Node2NodeIdCacheSize.isSet);
         fmt(buff, "NodeId2NodeCacheSize", getNodeId2NodeCacheSize(), NodeId2NodeCacheSize.isSet);
+        fmt(buff, "NodeId2NodeCacheBytes", getNodeId2NodeCacheBytes().toString(), NodeId2NodeCacheBytes.isSet);
         fmt(buff, "NodeMissCacheSize", getNodeMissCacheSize(), NodeMissCacheSize.isSet);
 
         fmt(buff, "nodeTableBaseName", getNodeTableBaseName(), nodeTableBaseName.isSet);
@@ -334,6 +373,7 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
         fmt(buff, "prefixTableBaseName", getPrefixTableBaseName(), prefixTableBaseName.isSet);
         fmt(buff, "primaryIndexPrefix", getPrimaryIndexPrefix(), primaryIndexPrefix.isSet);
         fmt(buff, "prefixIndexes", getPrefixIndexes(), prefixIndexes.isSet);
+        fmt(buff, "closurePredicates", getClosurePredicates(), closurePredicates.isSet);
 
         return buff.toString();
     }
@@ -375,10 +415,14 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
             return false;
         if ( !sameValues(params1.blockWriteCacheSize, params2.blockWriteCacheSize) )
             return false;
+        if ( !sameValues(params1.blockCacheMode, params2.blockCacheMode) )
+            return false;
         if ( !sameValues(params1.Node2NodeIdCacheSize, params2.Node2NodeIdCacheSize) )
             return false;
         if ( !sameValues(params1.NodeId2NodeCacheSize, params2.NodeId2NodeCacheSize) )
             return false;
+        if ( !sameValues(params1.NodeId2NodeCacheBytes, params2.NodeId2NodeCacheBytes) )
+            return false;
         if ( !sameValues(params1.NodeMissCacheSize, params2.NodeMissCacheSize) )
             return false;
         if ( !sameValues(params1.nodeTableBaseName, params2.nodeTableBaseName) )
@@ -397,6 +441,8 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
             return false;
         if ( !sameValues(params1.prefixIndexes, params2.prefixIndexes) )
             return false;
+        if ( !sameValues(params1.closurePredicates, params2.closurePredicates) )
+            return false;
         return true;
     }
 
@@ -410,10 +456,12 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
         int result = 1;
         result = prime * result + ((Node2NodeIdCacheSize == null) ? 0 : Node2NodeIdCacheSize.hashCode());
         result = prime * result + ((NodeId2NodeCacheSize == null) ? 0 : NodeId2NodeCacheSize.hashCode());
+        result = prime * result + ((NodeId2NodeCacheBytes == null) ? 0 : NodeId2NodeCacheBytes.hashCode());
         result = prime * result + ((NodeMissCacheSize == null) ? 0 : NodeMissCacheSize.hashCode());
         result = prime * result + ((blockReadCacheSize == null) ? 0 : blockReadCacheSize.hashCode());
         result = prime * result + ((blockSize == null) ? 0 : blockSize.hashCode());
         result = prime * result + ((blockWriteCacheSize == null) ? 0 : blockWriteCacheSize.hashCode());
+        result = prime * result + ((blockCacheMode == null) ? 0 : blockCacheMode.hashCode());
         result = prime * result + ((fileMode == null) ? 0 : fileMode.hashCode());
         result = prime * result + ((nodeTableBaseName == null) ? 0 : nodeTableBaseName.hashCode());
         result = prime * result + ((prefixTableBaseName == null) ? 0 : prefixTableBaseName.hashCode());
@@ -423,6 +471,7 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
         result = prime * result + ((primaryIndexTriples == null) ? 0 : primaryIndexTriples.hashCode());
         result = prime * result + ((quadIndexes == null) ? 0 : quadIndexes.hashCode());
         result = prime * result + ((tripleIndexes == null) ? 0 : tripleIndexes.hashCode());
+        result = prime * result + ((closurePredicates == null) ? 0 : closurePredicates.hashCode());
         return result;
     }
 
@@ -445,6 +494,11 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
                 return false;
         } else if ( !NodeId2NodeCacheSize.equals(other.NodeId2NodeCacheSize) )
             return false;
+        if ( NodeId2NodeCacheBytes == null ) {
+            if ( other.NodeId2NodeCacheBytes != null )
+                return false;
+        } else if ( !NodeId2NodeCacheBytes.equals(other.NodeId2NodeCacheBytes) )
+            return false;
         if ( NodeMissCacheSize == null ) {
             if ( other.NodeMissCacheSize != null )
                 return false;
@@ -465,6 +519,11 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
                 return false;
         } else if ( !blockWriteCacheSize.equals(other.blockWriteCacheSize) )
             return false;
+        if ( blockCacheMode == null ) {
+            if ( other.blockCacheMode != null )
+                return false;
+        } else if ( !blockCacheMode.equals(other.blockCacheMode) )
+            return false;
         if ( fileMode == null ) {
             if ( other.fileMode != null )
                 return false;
@@ -510,6 +569,11 @@ public class StoreParams implements IndexParams, BlockParams, StoreParamsDynamic
                 return false;
         } else if ( !tripleIndexes.equals(other.tripleIndexes) )
             return false;
+        if ( closurePredicates == null ) {
+            if ( other.closurePredicates != null )
+                return false;
+        } else if ( !closurePredicates.equals(other.closurePredicates) )
+            return false;
         return true;
     }
 }
@@ -18,6 +18,7 @@
 
 package org.apache.jena.tdb2.params;
 
+import org.apache.jena.dboe.base.block.BlockCacheMode;
 import org.apache.jena.dboe.base.block.FileMode;
 
 public class StoreParamsBuilder {
@@ -71,10 +72,14 @@ public class StoreParamsBuilder {
 
     private Item<Integer>            blockWriteCacheSize   = new Item<>(StoreParamsConst.blockWriteCacheSize, false);
 
+    private Item<BlockCacheMode>     blockCacheMode        = new Item<>(StoreParamsConst.blockCacheMode, false);
+
     private Item<Integer>            Node2NodeIdCacheSize  = new Item<>(StoreParamsConst.Node2NodeIdCacheSize, false);
 
     private Item<Integer>            NodeId2NodeCacheSize  = new Item<>(StoreParamsConst.NodeId2NodeCacheSize, false);
 
+    private Item<Long>               NodeId2NodeCacheBytes = new Item<>(StoreParamsConst.NodeId2NodeCacheBytes, false);
+
     private Item<Integer>            NodeMissCacheSize     = new Item<>(StoreParamsConst.NodeMissCacheSize, false);
 
     private Item<Integer>            prefixNode2NodeIdCacheSize  = new Item<>(StoreParamsConst.Node2NodeIdCacheSize, false);
@@ -103,6 +108,8 @@ public class StoreParamsBuilder {
 
     private Item<String[]>           prefixIndexes         = new Item<>(StoreParamsConst.prefixIndexes, false);
 
+    private Item<String[]>           closurePredicates     = new Item<>(StoreParamsConst.closurePredicates, false);
+
     /** @deprecated Prefer {@link #create(String)}. */
     @Deprecated
     public static StoreParamsBuilder create() {
@@ -141,12 +148,18 @@ public class StoreParamsBuilder {
         if ( additionalParams.isSetBlockWriteCacheSize() )
             b.blockWriteCacheSize(additionalParams.getBlockWriteCacheSize());
 
+        if ( additionalParams.isSetBlockCacheMode() )
+            b.blockCacheMode(additionalParams.getBlockCacheMode());
+
         if ( additionalParams.isSetNode2NodeIdCacheSize() )
             b.node2NodeIdCacheSize(additionalParams.getNode2NodeIdCacheSize());
 
         if ( additionalParams.isSetNodeId2NodeCacheSize() )
             b.nodeId2NodeCacheSize(additionalParams.getNodeId2NodeCacheSize());
 
+        if ( additionalParams.isSetNodeId2NodeCacheBytes() )
+            b.nodeId2NodeCacheBytes(additionalParams.getNodeId2NodeCacheBytes());
+
         if ( additionalParams.isSetNodeMissCacheSize() )
             b.nodeMissCacheSize(additionalParams.getNodeMissCacheSize());
 
@@ -162,9 +175,11 @@ public class StoreParamsBuilder {
         this.blockSize              = other.blockSize;
         this.blockReadCacheSize     = other.blockReadCacheSize;
         this.blockWriteCacheSize    = other.blockWriteCacheSize;
+        this.blockCacheMode         = other.blockCacheMode;
 
         this.Node2NodeIdCacheSize   = other.Node2NodeIdCacheSize;
         this.NodeId2NodeCacheSize   = other.NodeId2NodeCacheSize;
+        this.NodeId2NodeCacheBytes  = other.NodeId2NodeCacheBytes;
         this.NodeMissCacheSize      = other.NodeMissCacheSize;
 
         this.prefixNode2NodeIdCacheSize   = other.prefixNode2NodeIdCacheSize;
@@ -182,18 +197,21 @@ public class StoreParamsBuilder {
         this.prefixTableBaseName    = other.prefixTableBaseName;
         this.primaryIndexPrefix     = other.primaryIndexPrefix;
         this.prefixIndexes          = other.prefixIndexes;
+
+        this.closurePredicates      = other.closurePredicates;
     }
 
     public StoreParams build() {
         return new StoreParams(
-                 label, fileMode, blockSize, blockReadCacheSize, blockWriteCacheSize,
-                 Node2NodeIdCacheSize, NodeId2NodeCacheSize, NodeMissCacheSize,
+                 label, fileMode, blockSize, blockReadCacheSize, blockWriteCacheSize, blockCacheMode,
+                 Node2NodeIdCacheSize, NodeId2NodeCacheSize, NodeId2NodeCacheBytes, NodeMissCacheSize,
                  prefixNode2NodeIdCacheSize, prefixNodeId2NodeCacheSize, prefixNodeMissCacheSize,
                  nodeTableBaseName,
                  primaryIndexTriples, tripleIndexes,
                  primaryIndexQuads, quadIndexes,
                  prefixTableBaseName, primaryIndexPrefix,
-                 prefixIndexes);
+                 prefixIndexes,
+                 closurePredicates);
     }
 
     public String label() {
@@ -241,6 +259,15 @@ public class StoreParamsBuilder {
         return this;
     }
 
+    public BlockCacheMode getBlockCacheMode() {
+        return blockCacheMode.value;
+    }
+
+    public StoreParamsBuilder blockCacheMode(BlockCacheMode blockCacheMode) {
+        this.blockCacheMode = new Item<>(blockCacheMode, true);
+        return this;
+    }
+
     public int getNode2NodeIdCacheSize() {
         return Node2NodeIdCacheSize.value;
     }
@@ -259,6 +286,15 @@ public class StoreParamsBuilder {
         return this;
     }
 
+    public long getNodeId2NodeCacheBytes() {
+        return NodeId2NodeCacheBytes.value;
+    }
+
+    public StoreParamsBuilder nodeId2NodeCacheBytes(long nodeId2NodeCacheBytes) {
+        this.NodeId2NodeCacheBytes = new Item<>(nodeId2NodeCacheBytes, true);
+        return this;
+    }
+
     public int getNodeMissCacheSize() {
         return NodeMissCacheSize.value;
     }
@@ -367,4 +403,13 @@ public class StoreParamsBuilder {
         this.prefixIndexes = new Item<>(prefixIndexes, true);
         return this;
     }
+
+    public String[] getClosurePredicates() {
+        return closurePredicates.value;
+    }
+
+    public StoreParamsBuilder closurePredicates(String[] closurePredicates) {
+        this.closurePredicates = new Item<>(closurePredicates, true);
+        return this;
+    }
 }
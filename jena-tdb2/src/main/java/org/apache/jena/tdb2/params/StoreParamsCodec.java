@@ -26,6 +26,7 @@ import org.apache.jena.atlas.io.IO;
 import org.apache.jena.atlas.json.*;
 import org.apache.jena.atlas.lib.Lib;
 import org.apache.jena.atlas.logging.FmtLog;
+import org.apache.jena.dboe.base.block.BlockCacheMode;
 import org.apache.jena.dboe.base.block.FileMode;
 import org.apache.jena.dboe.base.file.Location;
 import org.apache.jena.dboe.sys.Names;
@@ -91,8 +92,13 @@ public class StoreParamsCodec {
         encode(builder, key(fBlockSize),                params.getBlockSize());
         encode(builder, key(fBlockReadCacheSize),       params.getBlockReadCacheSize());
         encode(builder, key(fBlockWriteCacheSize),      params.getBlockWriteCacheSize());
+        // Optional (only when not the default) so the file can be read by earlier versions.
+        if ( params.getBlockCacheMode() != blockCacheMode )
+            encode(builder, key(fBlockCacheMode),       params.getBlockCacheMode().name());
         encode(builder, key(fNode2NodeIdCacheSize),     params.getNode2NodeIdCacheSize());
         encode(builder, key(fNodeId2NodeCacheSize),     params.getNodeId2NodeCacheSize());
+        if ( params.getNodeId2NodeCacheBytes() != NodeId2NodeCacheBytes )
+            encode(builder, key(fNodeId2NodeCacheBytes),    params.getNodeId2NodeCacheBytes());
         encode(builder, key(fNodeMissCacheSize),        params.getNodeMissCacheSize());
         encode(builder, key(fNodeTableBaseName),        params.getNodeTableBaseName());
         encode(builder, key(fPrimaryIndexTriples),      params.getPrimaryIndexTriples());
@@ -102,6 +108,8 @@ public class StoreParamsCodec {
         encode(builder, key(fPrefixTableBaseName),      params.getPrefixTableBaseName());
         encode(builder, key(fPrimaryIndexPrefix),       params.getPrimaryIndexPrefix());
         encode(builder, key(fPrefixIndexes),            params.getPrefixIndexes());
+        if ( params.getClosurePredicates().length > 0 )
+            encode(builder, key(fClosurePredicates),    params.getClosurePredicates());
 
         builder.finishObject("StoreParams");
         return (JsonObject)builder.build();
@@ -134,8 +142,10 @@ public class StoreParamsCodec {
                 case fBlockSize:               builder.blockSize(getInt(json, key));                       break ;
                 case fBlockReadCacheSize:      builder.blockReadCacheSize(getInt(json, key));              break ;
                 case fBlockWriteCacheSize:     builder.blockWriteCacheSize(getInt(json, key));             break ;
+                case fBlockCacheMode:          builder.blockCacheMode(BlockCacheMode.valueOf(getString(json, key))); break ;
                 case fNode2NodeIdCacheSize:    builder.node2NodeIdCacheSize(getInt(json, key));            break ;
                 case fNodeId2NodeCacheSize:    builder.nodeId2NodeCacheSize(getInt(json, key));            break ;
+                case fNodeId2NodeCacheBytes:   builder.nodeId2NodeCacheBytes(getLong(json, key));          break ;
                 case fNodeMissCacheSize:       builder.nodeMissCacheSize(getInt(json, key));               break ;
 
                 case fNodeTableBaseName:       builder.nodeTableBaseName(getString(json, key));            break ;
@@ -148,6 +158,8 @@ public class StoreParamsCodec {
                 case fPrimaryIndexPrefix:      builder.primaryIndexPrefix(getString(json, key));           break ;
                 case fPrefixIndexes:           builder.prefixIndexes(getStringArray(json, key));           break ;
 
+                case fClosurePredicates:       builder.closurePredicates(getStringArray(json, key));       break ;
+
                 default:
                     throw new TDBException("StoreParams key not recognized: "+key);
             }
@@ -171,6 +183,13 @@ public class StoreParamsCodec {
         return x;
     }
 
+    private static Long getLong(JsonObject json, String key) {
+        if ( ! json.hasKey(key) )
+            throw new TDBException("StoreParamsCodec.getLong: no such key: "+key);
+        Long x = json.get(key).getAsNumber().value().longValue();
+        return x;
+    }
+
     private static String[] getStringArray(JsonObject json, String key) {
         if ( ! json.hasKey(key) )
             throw new TDBException("StoreParamsCodec.getStringArray: no such key: "+key);
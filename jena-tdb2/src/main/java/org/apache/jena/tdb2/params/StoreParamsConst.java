@@ -18,6 +18,7 @@
 
 package org.apache.jena.tdb2.params;
 
+import org.apache.jena.dboe.base.block.BlockCacheMode;
 import org.apache.jena.dboe.base.block.FileMode;
 import org.apache.jena.dboe.sys.Names;
 import org.apache.jena.tdb2.sys.SystemTDB;
@@ -40,12 +41,20 @@ public class StoreParamsConst {
     public static final String   fBlockWriteCacheSize  = "block_write_cache_size";
     public static final int      blockWriteCacheSize   = SystemTDB.BlockWriteCacheSize;
 
+    // In tdb.cfg, "tdb.block_cache_mode" : "sync" or "concurrent". Direct file mode only.
+    public static final String         fBlockCacheMode = "block_cache_mode";
+    public static final BlockCacheMode blockCacheMode  = BlockCacheMode.sync;
+
     public static final String   fNode2NodeIdCacheSize = "node2nodeid_cache_size";
     public static final int      Node2NodeIdCacheSize  = SystemTDB.Node2NodeIdCacheSize;
 
     public static final String   fNodeId2NodeCacheSize = "nodeid2node_cache_size";
     public static final int      NodeId2NodeCacheSize  = SystemTDB.NodeId2NodeCacheSize;
 
+    /** Off-heap NodeId to Node cache size in bytes; 0 means use the on-heap cache. */
+    public static final String   fNodeId2NodeCacheBytes = "nodeid2node_cache_bytes";
+    public static final long     NodeId2NodeCacheBytes  = 0L;
+
     public static final String   fNodeMissCacheSize    = "node_miss_cache_size";
     public static final int      NodeMissCacheSize     = SystemTDB.NodeMissCacheSize;
 
@@ -86,6 +95,10 @@ public class StoreParamsConst {
     public static final String   fPrefixIndexes        = "prefix_indexes";
     public static final String[] prefixIndexes         = Names.prefixIndexes;
 
+    /** Properties (URIs) with a transitive closure index; none by default. */
+    public static final String   fClosurePredicates    = "closure_predicates";
+    public static final String[] closurePredicates     = new String[0];
+
     // Must be after the constants above to get initialization order right
     // because StoreParamsBuilder uses these constants.
 
@@ -18,6 +18,7 @@
 
 package org.apache.jena.tdb2.params;
 
+import org.apache.jena.dboe.base.block.BlockCacheMode;
 import org.apache.jena.dboe.base.block.FileMode;
 
 /** Store parameters that can be adjusted after a store has been created,
@@ -42,6 +43,10 @@ public interface StoreParamsDynamic {
     public Integer getBlockWriteCacheSize();
     public boolean isSetBlockWriteCacheSize();
 
+    /** Block cache implementation (note: direct mode only). {@code concurrent} does not serialize readers. */
+    public BlockCacheMode getBlockCacheMode();
+    public boolean isSetBlockCacheMode();
+
     // == NodeTable - Triples and Quads
     /** Node cache for Node{@literal ->}NodeId. */
     public Integer getNode2NodeIdCacheSize();
@@ -51,6 +56,13 @@ public interface StoreParamsDynamic {
     public Integer getNodeId2NodeCacheSize();
     public boolean isSetNodeId2NodeCacheSize();
 
+    /**
+     * Off-heap node cache for NodeId{@literal ->}Node, in bytes.
+     * If greater than zero, this replaces the on-heap cache of {@link #getNodeId2NodeCacheSize} entries.
+     */
+    public Long getNodeId2NodeCacheBytes();
+    public boolean isSetNodeId2NodeCacheBytes();
+
     /** Node cache for recording known misses */
     public Integer getNodeMissCacheSize();
     public boolean isSetNodeMissCacheSize();
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.expr.*;
+import org.apache.jena.tdb2.store.NodeIdRange;
+
+/**
+ * Find the ranges of NodeIds a variable can have to pass numeric or
+ * {@code xsd:dateTime} comparisons with constants in a filter, such as
+ * {@code FILTER(?age > 30 && ?age < 40)}.
+ * <p>
+ * The ranges are used to scan part of an index, for a triple pattern with the
+ * variable as the object, instead of all the objects of a predicate. They only
+ * reduce what is read from the index; the filter is still evaluated.
+ */
+class FilterRanges {
+
+    /** The bounds for one variable. Either numeric or dateTime. */
+    private static class Bounds {
+        final boolean isDateTime;
+        BigDecimal lowerNumber = null;
+        BigDecimal upperNumber = null;
+        XMLGregorianCalendar lowerDateTime = null;
+        XMLGregorianCalendar upperDateTime = null;
+
+        Bounds(boolean isDateTime) {
+            this.isDateTime = isDateTime;
+        }
+
+        List<NodeIdRange> ranges() {
+            return isDateTime
+                    ? NodeIdRange.dateTime(lowerDateTime, upperDateTime)
+                    : NodeIdRange.numeric(lowerNumber, upperNumber);
+        }
+    }
+
+    /**
+     * NodeId ranges for variables from the comparisons in the filter expressions.
+     * Variables without a usable comparison are not in the map.
+     */
+    static Map<Var, List<NodeIdRange>> ranges(ExprList exprs) {
+        Map<Var, Bounds> bounds = new HashMap<>();
+        for ( Expr expr : exprs )
+            accumulate(bounds, expr);
+        Map<Var, List<NodeIdRange>> ranges = new HashMap<>();
+        bounds.forEach((var, b) -> ranges.put(var, b.ranges()));
+        return ranges;
+    }
+
+    private static void accumulate(Map<Var, Bounds> bounds, Expr expr) {
+        if ( expr instanceof E_LogicalAnd and ) {
+            accumulate(bounds, and.getArg1());
+            accumulate(bounds, and.getArg2());
+            return;
+        }
+        // Normalize to "?var op constant".
+        boolean lower;
+        if ( expr instanceof E_GreaterThan || expr instanceof E_GreaterThanOrEqual )
+            lower = true;
+        else if ( expr instanceof E_LessThan || expr instanceof E_LessThanOrEqual )
+            lower = false;
+        else
+            return;
+        ExprFunction2 cmp = (ExprFunction2)expr;
+        Expr arg1 = cmp.getArg1();
+        Expr arg2 = cmp.getArg2();
+        if ( arg2.isVariable() && arg1.isConstant() ) {
+            Expr x = arg1;
+            arg1 = arg2;
+            arg2 = x;
+            lower = !lower;
+        }
+        if ( ! arg1.isVariable() || ! arg2.isConstant() )
+            return;
+        Var var = arg1.asVar();
+        NodeValue nv = arg2.getConstant();
+        // Inclusive bounds: the strictness of the comparison is left to the filter.
+        if ( nv.isDateTime() ) {
+            Bounds b = bounds.computeIfAbsent(var, v -> new Bounds(true));
+            if ( ! b.isDateTime )
+                return;
+            XMLGregorianCalendar cal = nv.getDateTime();
+            if ( lower ) {
+                if ( b.lowerDateTime == null || cal.compare(b.lowerDateTime) == DatatypeConstants.GREATER )
+                    b.lowerDateTime = cal;
+            } else {
+                if ( b.upperDateTime == null || cal.compare(b.upperDateTime) == DatatypeConstants.LESSER )
+                    b.upperDateTime = cal;
+            }
+            return;
+        }
+        if ( nv.isNumber() ) {
+            BigDecimal d = decimal(nv);
+            if ( d == null )
+                return;
+            Bounds b = bounds.computeIfAbsent(var, v -> new Bounds(false));
+            if ( b.isDateTime )
+                return;
+            if ( lower ) {
+                if ( b.lowerNumber == null || d.compareTo(b.lowerNumber) > 0 )
+                    b.lowerNumber = d;
+            } else {
+                if ( b.upperNumber == null || d.compareTo(b.upperNumber) < 0 )
+                    b.upperNumber = d;
+            }
+        }
+    }
+
+    // The value as a decimal, or null for NaN and infinities.
+    private static BigDecimal decimal(NodeValue nv) {
+        if ( nv.isInteger() || nv.isDecimal() )
+            return nv.getDecimal();
+        double d = nv.getDouble();
+        if ( Double.isNaN(d) || Double.isInfinite(d) )
+            return null;
+        return BigDecimal.valueOf(d);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.expr.*;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.nodetable.NodeTable;
+
+/**
+ * A filter expression evaluated on {@link BindingNodeId}s inside the basic pattern
+ * solver, so that rejected rows are never turned into bindings of nodes.
+ * <p>
+ * Some tests are decided from the NodeIds alone, without going to the node table:
+ * {@code sameTerm} with a variable or a constant, {@code =} with an IRI,
+ * {@code bound}, and {@code !} and {@code &&} of these. Anything else is evaluated on
+ * a {@link BindingTDB}, which only retrieves the nodes the expression uses and
+ * decodes inline values (numbers, dateTimes, ...) directly from the NodeId.
+ */
+class NodeIdFilter implements Predicate<BindingNodeId> {
+
+    /**
+     * Whether the expression can be evaluated within the solver. Expressions
+     * with a graph pattern ({@code EXISTS}) are left to the general filter code.
+     */
+    static boolean canEvaluate(Expr expr) {
+        if ( expr instanceof ExprFunctionOp )
+            return false;
+        if ( expr instanceof ExprFunction function ) {
+            for ( Expr arg : function.getArgs() ) {
+                if ( ! canEvaluate(arg) )
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    static NodeIdFilter create(Expr expr, NodeTable nodeTable, ExecutionContext execCxt) {
+        return new NodeIdFilter(expr, nodeTable, execCxt);
+    }
+
+    /** Decides a test from the NodeIds: TRUE, FALSE, or null for "evaluate the expression". */
+    private interface Test {
+        Boolean test(BindingNodeId binding);
+    }
+
+    private final Expr expr;
+    private final Set<Var> vars;
+    private final NodeTable nodeTable;
+    private final ExecutionContext execCxt;
+    private final Test test;
+
+    private NodeIdFilter(Expr expr, NodeTable nodeTable, ExecutionContext execCxt) {
+        this.expr = expr;
+        this.vars = expr.getVarsMentioned();
+        this.nodeTable = nodeTable;
+        this.execCxt = execCxt;
+        this.test = compile(expr);
+    }
+
+    /** Whether all the variables of the expression are in the collection. */
+    boolean isCoveredBy(Collection<Var> boundVars) {
+        return boundVars.containsAll(vars);
+    }
+
+    Expr getExpr() {
+        return expr;
+    }
+
+    @Override
+    public boolean test(BindingNodeId binding) {
+        if ( test != null ) {
+            Boolean b = test.test(binding);
+            if ( b != null )
+                return b;
+        }
+        return expr.isSatisfied(new BindingTDB(binding, nodeTable), execCxt);
+    }
+
+    // A test for the whole filter expression, where an evaluation error and
+    // false have the same effect: the row is rejected.
+    private Test compile(Expr e) {
+        Test t = compileExact(e);
+        if ( t != null )
+            return t;
+        if ( e instanceof E_Equals equals ) {
+            // RDFterm-equal with an IRI : IRIs are only equal to the same IRI.
+            // Any other term is false, or an error for some literals.
+            Test t1 = equalsIRI(equals.getArg1(), equals.getArg2());
+            return ( t1 != null ) ? t1 : equalsIRI(equals.getArg2(), equals.getArg1());
+        }
+        if ( e instanceof E_LogicalAnd and ) {
+            Test t1 = compile(and.getArg1());
+            Test t2 = compile(and.getArg2());
+            return and(t1, t2);
+        }
+        return null;
+    }
+
+    // A test that gives exactly true or false, never covering for an error, so it can be negated.
+    private Test compileExact(Expr e) {
+        if ( e instanceof E_Bound bound && bound.getArg() instanceof ExprVar ev ) {
+            Var v = ev.asVar();
+            return binding -> binding.containsKey(v)
+                              || ( binding.getParentBinding() != null && binding.getParentBinding().contains(v) );
+        }
+        if ( e instanceof E_SameTerm sameTerm )
+            return sameTerm(sameTerm.getArg1(), sameTerm.getArg2());
+        if ( e instanceof E_LogicalNot not ) {
+            Test t = compileExact(not.getArg());
+            if ( t == null )
+                return null;
+            return binding -> {
+                Boolean b = t.test(binding);
+                return ( b == null ) ? null : ! b;
+            };
+        }
+        if ( e instanceof E_LogicalAnd and ) {
+            Test t1 = compileExact(and.getArg1());
+            Test t2 = compileExact(and.getArg2());
+            if ( t1 == null || t2 == null )
+                return null;
+            return and(t1, t2);
+        }
+        return null;
+    }
+
+    private static Test and(Test t1, Test t2) {
+        if ( t1 == null && t2 == null )
+            return null;
+        return binding -> {
+            Boolean b1 = ( t1 == null ) ? null : t1.test(binding);
+            if ( Boolean.FALSE.equals(b1) )
+                return false;
+            Boolean b2 = ( t2 == null ) ? null : t2.test(binding);
+            if ( Boolean.FALSE.equals(b2) )
+                return false;
+            if ( b1 == null || b2 == null )
+                return null;
+            return true;
+        };
+    }
+
+    private Test sameTerm(Expr arg1, Expr arg2) {
+        if ( arg1.isVariable() && arg2.isVariable() ) {
+            Var v1 = arg1.asVar();
+            Var v2 = arg2.asVar();
+            return binding -> {
+                NodeId id1 = boundId(binding, v1);
+                NodeId id2 = boundId(binding, v2);
+                if ( id1 == null || id2 == null )
+                    return null;
+                // The node table has one NodeId per term and inline values are canonical.
+                return id1.equals(id2);
+            };
+        }
+        if ( arg1.isConstant() && arg2.isVariable() )
+            return sameTerm(arg2, arg1);
+        if ( ! arg1.isVariable() || ! arg2.isConstant() )
+            return null;
+        Var v = arg1.asVar();
+        NodeId constId = constantId(arg2.getConstant().asNode());
+        if ( constId == null )
+            return null;
+        return binding -> {
+            NodeId id = boundId(binding, v);
+            if ( id == null )
+                return null;
+            return id.equals(constId);
+        };
+    }
+
+    private Test equalsIRI(Expr arg1, Expr arg2) {
+        if ( ! arg1.isVariable() || ! arg2.isConstant() )
+            return null;
+        Node node = arg2.getConstant().asNode();
+        if ( node == null || ! node.isURI() )
+            return null;
+        return sameTerm(arg1, arg2);
+    }
+
+    /**
+     * The NodeId for a constant, or null if the NodeId does not identify the term
+     * (an inline value in non-canonical form).
+     * A term not in the node table gets {@link NodeId#NodeDoesNotExist}, which is never
+     * equal to the NodeId of a term from the data.
+     */
+    private NodeId constantId(Node node) {
+        if ( node == null )
+            return null;
+        NodeId id = nodeTable.getNodeIdForNode(node);
+        if ( id == null )
+            return null;
+        if ( id.isInline() && ! node.equals(NodeId.extract(id)) )
+            return null;
+        return id;
+    }
+
+    // The NodeId of a variable, or null if unbound or bound to a term not in the node table.
+    private static NodeId boundId(BindingNodeId binding, Var var) {
+        NodeId id = binding.get(var);
+        if ( id == null || NodeId.isDoesNotExist(id) )
+            return null;
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeIdFilter["+expr+"]";
+    }
+}
@@ -31,9 +31,11 @@ import org.apache.jena.sparql.algebra.optimize.TransformFilterPlacement;
 import org.apache.jena.sparql.core.BasicPattern;
 import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.sparql.core.Substitute;
+import org.apache.jena.sparql.core.TriplePath;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.ExecutionContext;
 import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.iterator.QueryIterFilterExpr;
 import org.apache.jena.sparql.engine.iterator.QueryIterPeek;
 import org.apache.jena.sparql.engine.main.OpExecutor;
 import org.apache.jena.sparql.engine.main.OpExecutorFactory;
@@ -41,11 +43,13 @@ import org.apache.jena.sparql.engine.main.QC;
 import org.apache.jena.sparql.engine.main.iterator.QueryIterGraph;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderProc;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation;
+import org.apache.jena.sparql.expr.Expr;
 import org.apache.jena.sparql.expr.ExprList;
 import org.apache.jena.sparql.mgt.Explain;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
 import org.apache.jena.tdb2.store.GraphTDB;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.sys.SystemTDB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -163,6 +167,21 @@ public class OpExecutorTDB2 extends OpExecutor
         return optimizeExecuteQuads(ds, input, gn, bgp, null, execCxt);
     }
 
+    @Override
+    protected QueryIterator execute(OpPath opPath, QueryIterator input)
+    {
+        if ( ! isForTDB || ! execCxt.getContext().isTrueOrUndef(SystemTDB.symNodeIdPaths) )
+            return super.execute(opPath, input);
+        TriplePath triplePath = opPath.getTriplePath();
+        GraphTDB graph = (GraphTDB)execCxt.getActiveGraph();
+        Node gn = decideGraphNode(graph.getGraphName(), execCxt);
+        // Not the union graph.
+        if ( ! PathTDB2.canEvaluate(triplePath) || Node.ANY.equals(gn) )
+            return super.execute(opPath, input);
+        Predicate<Tuple<NodeId>> filter = QC2.getFilter(execCxt.getContext());
+        return PathTDB2.execute(graph.getDSG(), gn, triplePath, input, filter, execCxt);
+    }
+
     @Override
     protected QueryIterator execute(OpGraph opGraph, QueryIterator input)
     {
@@ -376,6 +395,45 @@ public class OpExecutorTDB2 extends OpExecutor
             filter = QC2.getFilter(execCxt.getContext());
         }
 
+        @Override
+        public QueryIterator execute(OpFilter opFilter, QueryIterator input)
+        {
+            // The filters placed on a triple or quad pattern by TransformFilterPlacement.
+            // Evaluate them on NodeIds, within the pattern solver.
+            if ( ! execCxt.getContext().isTrue(SystemTDB.symNodeIdFilter) )
+                return super.execute(opFilter, input);
+
+            Op subOp = opFilter.getSubOp();
+            Node gn;
+            BasicPattern bgp;
+            if ( subOp instanceof OpBGP opBGP && execCxt.getActiveGraph() instanceof GraphTDB gtdb ) {
+                gn = decideGraphNode(gtdb.getGraphName(), execCxt);
+                bgp = opBGP.getPattern();
+            } else if ( subOp instanceof OpQuadPattern opQuadPattern && execCxt.getDataset() instanceof DatasetGraphTDB ) {
+                gn = decideGraphNode(opQuadPattern.getGraphNode(), execCxt);
+                bgp = opQuadPattern.getBasicPattern();
+            } else
+                return super.execute(opFilter, input);
+
+            ExprList nodeIdExprs = new ExprList();
+            ExprList otherExprs = new ExprList();
+            for ( Expr expr : opFilter.getExprs() ) {
+                if ( NodeIdFilter.canEvaluate(expr) )
+                    nodeIdExprs.add(expr);
+                else
+                    otherExprs.add(expr);
+            }
+
+            Explain.explain("Execute", bgp, execCxt.getContext());
+            DatasetGraphTDB dsgtdb = ( subOp instanceof OpBGP )
+                ? ((GraphTDB)execCxt.getActiveGraph()).getDSG()
+                : (DatasetGraphTDB)execCxt.getDataset();
+            QueryIterator qIter = PatternMatchTDB2.execute(dsgtdb, gn, bgp, input, filter, nodeIdExprs, execCxt);
+            for ( Expr expr : otherExprs )
+                qIter = new QueryIterFilterExpr(qIter, expr, execCxt);
+            return qIter;
+        }
+
         @Override
         public QueryIterator execute(OpBGP opBGP, QueryIterator input)
         {
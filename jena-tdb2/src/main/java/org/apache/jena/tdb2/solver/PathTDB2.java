@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.lib.tuple.Tuple;
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.iterator.QueryIterNullIterator;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper;
+import org.apache.jena.sparql.engine.iterator.QueryIterRepeatApply;
+import org.apache.jena.sparql.engine.iterator.QueryIterSingleton;
+import org.apache.jena.sparql.path.*;
+import org.apache.jena.tdb2.store.ClosureTable;
+import org.apache.jena.tdb2.store.DatasetGraphTDB;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.apache.jena.tdb2.store.nodetable.NodeTable;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+
+/**
+ * Evaluation of the property paths {@code :p+} and {@code :p*}, and {@code ^:p+} and
+ * {@code ^:p*}, on NodeIds.
+ * <p>
+ * The path is walked from a fixed end, using the triple or quad indexes. The nodes
+ * visited are kept as the 64 bit encoding of their NodeIds in an open addressing hash
+ * set, and only the nodes in the results are turned into RDF terms, when the bindings
+ * are used.
+ * <p>
+ * If the database has a valid {@link ClosureTable} for the property, the path on the
+ * default graph is looked up in the closure instead of walked.
+ * <p>
+ * A row of input where neither end of the path is fixed, or where a fixed end or the
+ * property is not in the database, is evaluated by the general ARQ path engine.
+ */
+class PathTDB2 {
+
+    /** Return whether the path is one that can be evaluated on NodeIds. */
+    static boolean canEvaluate(TriplePath triplePath) {
+        return link(triplePath.getPath()) != null;
+    }
+
+    /**
+     * Evaluate a path, on the default graph storage ({@code graphNode} is null) or a
+     * named graph. The path must be one where {@link #canEvaluate} is true.
+     */
+    static QueryIterator execute(DatasetGraphTDB dsgtdb, Node graphNode, TriplePath triplePath, QueryIterator input,
+                                 Predicate<Tuple<NodeId>> filter, ExecutionContext execCxt) {
+        NodeTupleTable nodeTupleTable = dsgtdb.chooseNodeTupleTable(graphNode);
+        // The closure is of the default graph and does not apply the filter.
+        ClosureTable closure = ( graphNode == null && filter == null ) ? dsgtdb.getClosureTable() : null;
+        return new QueryIterPathTDB2(nodeTupleTable, closure, graphNode, triplePath, input, filter, execCxt);
+    }
+
+    /** The link of {@code :p+}, {@code :p*}, {@code ^:p+} or {@code ^:p*} or null. */
+    private static Path link(Path path) {
+        Path subPath;
+        if ( path instanceof P_OneOrMore1 p )
+            subPath = p.getSubPath();
+        else if ( path instanceof P_ZeroOrMore1 p )
+            subPath = p.getSubPath();
+        else
+            return null;
+        if ( subPath instanceof P_Inverse inverse )
+            subPath = inverse.getSubPath();
+        if ( subPath instanceof P_Link || subPath instanceof P_ReverseLink )
+            return subPath;
+        return null;
+    }
+
+    // Whether the path follows the links from subject to object.
+    private static boolean isForward(Path path) {
+        boolean forward = true;
+        Path subPath = ((P_Path1)path).getSubPath();
+        if ( subPath instanceof P_Inverse inverse ) {
+            forward = ! forward;
+            subPath = inverse.getSubPath();
+        }
+        if ( subPath instanceof P_ReverseLink )
+            forward = ! forward;
+        return forward;
+    }
+
+    private static class QueryIterPathTDB2 extends QueryIterRepeatApply {
+        private final NodeTupleTable nodeTupleTable;
+        private final ClosureTable closure;
+        private final Node graphNode;
+        private final TriplePath triplePath;
+        private final Predicate<Tuple<NodeId>> filter;
+        private final Node property;
+        private final boolean forward;
+        private final boolean zeroLength;
+
+        QueryIterPathTDB2(NodeTupleTable nodeTupleTable, ClosureTable closure, Node graphNode, TriplePath triplePath,
+                          QueryIterator input, Predicate<Tuple<NodeId>> filter, ExecutionContext execCxt) {
+            super(input, execCxt);
+            this.nodeTupleTable = nodeTupleTable;
+            this.graphNode = graphNode;
+            this.triplePath = triplePath;
+            this.filter = filter;
+            Path path = triplePath.getPath();
+            this.property = ((P_Path0)link(path)).getNode();
+            this.forward = isForward(path);
+            this.zeroLength = ( path instanceof P_ZeroOrMore1 );
+            this.closure = ( closure != null && closure.hasPredicate(property) ) ? closure : null;
+        }
+
+        @Override
+        protected QueryIterator nextStage(Binding binding) {
+            Node s = Var.lookup(binding, triplePath.getSubject());
+            Node o = Var.lookup(binding, triplePath.getObject());
+            if ( ! s.isConcrete() && ! o.isConcrete() )
+                return fallback(binding);
+
+            // Walk from the subject along the links, or from the object against them.
+            Node start = s.isConcrete() ? s : o;
+            Node end = s.isConcrete() ? o : s;
+            boolean alongLinks = ( s.isConcrete() == forward );
+
+            NodeTable nodeTable = nodeTupleTable.getNodeTable();
+            NodeId startId = nodeTable.getNodeIdForNode(start);
+            NodeId propertyId = nodeTable.getNodeIdForNode(property);
+            NodeId graphId = ( graphNode == null ) ? null : nodeTable.getNodeIdForNode(graphNode);
+            if ( NodeId.isDoesNotExist(startId) || NodeId.isDoesNotExist(propertyId) || NodeId.isDoesNotExist(graphId) )
+                return fallback(binding);
+
+            // A writer that has changed the property does not see its changes in the closure until commit.
+            boolean useClosure = ( closure != null && closure.isCurrent() && closure.isValid(propertyId) );
+            if ( end.isConcrete() ) {
+                NodeId endId = nodeTable.getNodeIdForNode(end);
+                if ( NodeId.isDoesNotExist(endId) )
+                    return fallback(binding);
+                // Test for a path between the two ends.
+                if ( useClosure ) {
+                    boolean found = ( zeroLength && startId.equals(endId) )
+                                    || ( alongLinks ? closure.contains(propertyId, startId, endId)
+                                                    : closure.contains(propertyId, endId, startId) );
+                    return found ? QueryIterSingleton.create(binding, getExecContext()) : QueryIterNullIterator.create(getExecContext());
+                }
+                Iterator<NodeId> reachable = new Reachable(nodeTupleTable, graphId, propertyId, startId, alongLinks, zeroLength, filter);
+                while ( reachable.hasNext() ) {
+                    if ( reachable.next().equals(endId) )
+                        return QueryIterSingleton.create(binding, getExecContext());
+                }
+                return QueryIterNullIterator.create(getExecContext());
+            }
+
+            Iterator<NodeId> reachable;
+            if ( useClosure ) {
+                reachable = closure.reachable(propertyId, startId, alongLinks);
+                if ( zeroLength )
+                    reachable = Iter.concat(Iter.singleton(startId), Iter.filter(reachable, id -> ! id.equals(startId)));
+            } else
+                reachable = new Reachable(nodeTupleTable, graphId, propertyId, startId, alongLinks, zeroLength, filter);
+
+            Var endVar = Var.alloc(end);
+            Iterator<BindingNodeId> iter = Iter.map(reachable, id -> {
+                BindingNodeId output = new BindingNodeId(binding);
+                output.put(endVar, id);
+                return output;
+            });
+            return QueryIterPlainWrapper.create(SolverLibTDB.convertToNodes(iter, nodeTable), getExecContext());
+        }
+
+        private QueryIterator fallback(Binding binding) {
+            return PathLib.execTriplePath(binding, triplePath, getExecContext());
+        }
+    }
+
+    /**
+     * The nodes reachable from a start node by one or more links (or zero or more),
+     * in breadth first order, each once. Links are followed one node at a time, as
+     * the iterator is used.
+     */
+    private static class Reachable implements Iterator<NodeId> {
+        private final NodeTupleTable nodeTupleTable;
+        private final NodeId graphId;
+        private final NodeId propertyId;
+        private final NodeId startId;
+        private final Predicate<Tuple<NodeId>> filter;
+        // Slots in the tuple of the node to follow from and the node reached.
+        private final int fromSlot;
+        private final int toSlot;
+
+        private final LongHashSet visited = new LongHashSet();
+        // Visited nodes, in order. The queue is [expanded, tail).
+        private long[] queue = new long[64];
+        private int tail = 0;
+        private int expanded = 0;
+        private int returned = 0;
+        private boolean started = false;
+
+        Reachable(NodeTupleTable nodeTupleTable, NodeId graphId, NodeId propertyId, NodeId startId,
+                  boolean alongLinks, boolean zeroLength, Predicate<Tuple<NodeId>> filter) {
+            this.nodeTupleTable = nodeTupleTable;
+            this.graphId = graphId;
+            this.propertyId = propertyId;
+            this.startId = startId;
+            this.filter = filter;
+            int offset = ( graphId == null ) ? 0 : 1;
+            this.fromSlot = offset + ( alongLinks ? 0 : 2 );
+            this.toSlot = offset + ( alongLinks ? 2 : 0 );
+            if ( zeroLength ) {
+                visit(startId);
+                started = true;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if ( ! started ) {
+                started = true;
+                follow(startId);
+            }
+            while ( returned == tail && expanded < tail )
+                follow(NodeIdFactory.decode(queue[expanded++]));
+            return returned < tail;
+        }
+
+        @Override
+        public NodeId next() {
+            if ( ! hasNext() )
+                throw new NoSuchElementException();
+            return NodeIdFactory.decode(queue[returned++]);
+        }
+
+        private void follow(NodeId nodeId) {
+            NodeId[] ids = new NodeId[( graphId == null ) ? 3 : 4];
+            if ( graphId != null )
+                ids[0] = graphId;
+            ids[fromSlot] = nodeId;
+            ids[ids.length-2] = propertyId;
+            Iterator<Tuple<NodeId>> iter = nodeTupleTable.find(TupleFactory.create(ids));
+            if ( filter != null )
+                iter = Iter.filter(iter, filter);
+            iter.forEachRemaining(tuple -> visit(tuple.get(toSlot)));
+        }
+
+        private void visit(NodeId nodeId) {
+            long x = NodeIdFactory.encode(nodeId);
+            if ( ! visited.add(x) )
+                return;
+            if ( tail == queue.length )
+                queue = Arrays.copyOf(queue, 2*queue.length);
+            queue[tail++] = x;
+        }
+    }
+
+    /** Set of longs, open addressing with linear probing. */
+    private static class LongHashSet {
+        // Zero marks an empty entry so the value zero is recorded separately.
+        private long[] entries = new long[64];
+        private int size = 0;
+        private boolean hasZero = false;
+
+        /** Add a value; return true if it was not already in the set. */
+        boolean add(long x) {
+            if ( x == 0 ) {
+                if ( hasZero )
+                    return false;
+                hasZero = true;
+                return true;
+            }
+            if ( 2*(size+1) > entries.length )
+                resize();
+            if ( ! insert(entries, x) )
+                return false;
+            size++;
+            return true;
+        }
+
+        private static boolean insert(long[] entries, long x) {
+            int mask = entries.length-1;
+            int i = hash(x) & mask;
+            while ( entries[i] != 0 ) {
+                if ( entries[i] == x )
+                    return false;
+                i = (i+1) & mask;
+            }
+            entries[i] = x;
+            return true;
+        }
+
+        private void resize() {
+            long[] entries2 = new long[2*entries.length];
+            for ( long x : entries ) {
+                if ( x != 0 )
+                    insert(entries2, x);
+            }
+            entries = entries2;
+        }
+
+        private static int hash(long x) {
+            long h = x * 0x9E3779B97F4A7C15L;
+            return (int)(h >>> 32);
+        }
+    }
+}
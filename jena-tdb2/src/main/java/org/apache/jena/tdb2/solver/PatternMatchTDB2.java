@@ -20,9 +20,8 @@ package org.apache.jena.tdb2.solver;
 
 import static org.apache.jena.sparql.engine.main.solver.SolverLib.makeAbortable;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import org.apache.jena.atlas.iterator.Iter;
@@ -30,19 +29,26 @@ import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.atlas.lib.tuple.TupleFactory;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ARQ;
 import org.apache.jena.sparql.core.BasicPattern;
 import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.ExecutionContext;
 import org.apache.jena.sparql.engine.QueryIterator;
 import org.apache.jena.sparql.engine.binding.Binding;
 import org.apache.jena.sparql.engine.iterator.Abortable;
 import org.apache.jena.sparql.engine.iterator.QueryIterAbortable;
+import org.apache.jena.sparql.engine.main.solver.AdaptiveBGP;
+import org.apache.jena.sparql.expr.ExprList;
+import org.apache.jena.sparql.util.VarUtils;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
 import org.apache.jena.tdb2.store.GraphTDB;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdRange;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+import org.apache.jena.tdb2.sys.SystemTDB;
 
 /**
  * Entry to the basic pattern solver for TDB2.
@@ -57,7 +63,7 @@ public class PatternMatchTDB2 {
     {
         // Maybe default graph or named graph.
         NodeTupleTable ntt = graph.getNodeTupleTable();
-        return execute(ntt, graph.getGraphName(), pattern, input, filter, execCxt);
+        return execute(ntt, graph.getGraphName(), pattern, input, filter, null, execCxt);
     }
 
     /**
@@ -70,7 +76,24 @@ public class PatternMatchTDB2 {
                                         ExecutionContext execCxt)
     {
         NodeTupleTable ntt = ds.chooseNodeTupleTable(graphNode);
-        return execute(ntt, graphNode, pattern, input, filter, execCxt);
+        return execute(ntt, graphNode, pattern, input, filter, null, execCxt);
+    }
+
+    /**
+     * Non-reordering execution of a quad pattern, with filter expressions, given an
+     * iterator of bindings as input.
+     * <p>
+     * Each expression is evaluated on NodeIds as soon as the triple patterns so far
+     * bind all its variables (or after the last triple pattern), so rejected rows
+     * are not further matched or converted to nodes.
+     * The expressions must pass {@link NodeIdFilter#canEvaluate}.
+     */
+    public static QueryIterator execute(DatasetGraphTDB ds, Node graphNode, BasicPattern pattern,
+                                        QueryIterator input, Predicate<Tuple<NodeId>> filter,
+                                        ExprList exprs, ExecutionContext execCxt)
+    {
+        NodeTupleTable ntt = ds.chooseNodeTupleTable(graphNode);
+        return execute(ntt, graphNode, pattern, input, filter, exprs, execCxt);
     }
 
     // The worker.  Callers choose the NodeTupleTable.
@@ -79,7 +102,7 @@ public class PatternMatchTDB2 {
 
     private static QueryIterator execute(NodeTupleTable nodeTupleTable, Node graphNode, BasicPattern pattern,
                                          QueryIterator input, Predicate<Tuple<NodeId>> filter,
-                                         ExecutionContext execCxt)
+                                         ExprList exprs, ExecutionContext execCxt)
     {
         if ( Quad.isUnionGraph(graphNode) )
             graphNode = Node.ANY;
@@ -103,33 +126,145 @@ public class PatternMatchTDB2 {
         Iterator<BindingNodeId> chain = Iter.map(input, SolverLibTDB.convFromBinding(nodeTable));
         List<Abortable> killList = new ArrayList<>();
 
-        for ( Triple triple : triples ) {
-            Tuple<Node> patternTuple = null;
-            if ( graphNode == null )
-                // 3-tuples
-                patternTuple = TupleFactory.create3(triple.getSubject(), triple.getPredicate(), triple.getObject());
-            else
-                // 4-tuples.
-                patternTuple = TupleFactory.create4(graphNode, triple.getSubject(), triple.getPredicate(), triple.getObject());
+        // Adaptive execution: reorder the triple patterns as execution proceeds.
+        // Not with filter expressions, which are placed by the static order.
+        if ( exprs == null && triples.size() >= 3 && execCxt.getContext().isTrue(ARQ.optAdaptiveBGP) ) {
+            final Node gn = graphNode;
+            chain = AdaptiveBGP.execute(chain, triples,
+                                        (iter, triple) -> matchQuadPattern(iter, gn, triple, nodeTupleTable, patternTuple(gn, triple), null, anyGraph, filter, execCxt),
+                                        killList);
+            Iterator<Binding> iterBinding = SolverLibTDB.convertToNodes(chain, nodeTable);
+            return new QueryIterAbortable(iterBinding, killList, input, execCxt);
+        }
+
+        // Parallel scan of the first triple pattern, from the join identity.
+        int parallelism = execCxt.getContext().getInt(SystemTDB.symParallelScan, 0);
+        // Not for the union graph: parts are split on whole quads so the same triple,
+        // from different graphs, could come from different parts.
+        if ( parallelism > 1 && ! anyGraph && ! triples.isEmpty() && input.isJoinIdentity() && chain.hasNext() ) {
+            BindingNodeId root = chain.next();
+            final Node gn = graphNode;
+            StageParallelScan.Pipeline pipeline = (table, cxt) ->
+                stages(Iter.singleton(root), nodeTupleTable, table, gn, triples, anyGraph, filter, exprs, new ArrayList<>(), cxt);
+            boolean ordered = execCxt.getContext().isTrue(SystemTDB.symParallelScanOrdered);
+            StageParallelScan parallel = StageParallelScan.create(nodeTupleTable, patternTuple(graphNode, triples.get(0)), pipeline,
+                                                                  parallelism, ordered, execCxt);
+            if ( parallel != null ) {
+                killList.add(parallel);
+                Iterator<Binding> iterBinding = SolverLibTDB.convertToNodes(parallel, nodeTable);
+                return new QueryIterAbortable(iterBinding, killList, input, execCxt);
+            }
+            chain = Iter.singleton(root);
+        }
+
+        chain = stages(chain, nodeTupleTable, nodeTupleTable, graphNode, triples, anyGraph, filter, exprs, killList, execCxt);
+        Iterator<Binding> iterBinding = SolverLibTDB.convertToNodes(chain, nodeTable);
+
+        // "input" will be closed by QueryIterAbortable but is otherwise unused.
+        // "killList" will be aborted on timeout.
+        return new QueryIterAbortable(iterBinding, killList, input, execCxt);
+    }
+
+    /**
+     * The stages for the triple patterns, after the input. The first triple pattern
+     * is matched in {@code firstTable}, which is {@code nodeTupleTable} except for a
+     * part of a parallel scan.
+     */
+    private static Iterator<BindingNodeId> stages(Iterator<BindingNodeId> chain, NodeTupleTable nodeTupleTable, NodeTupleTable firstTable,
+                                                  Node graphNode, List<Triple> triples, boolean anyGraph,
+                                                  Predicate<Tuple<NodeId>> filter, ExprList exprs,
+                                                  List<Abortable> killList, ExecutionContext execCxt) {
+        NodeTable nodeTable = nodeTupleTable.getNodeTable();
+        List<NodeIdFilter> pending = new ArrayList<>();
+        if ( exprs != null )
+            exprs.forEach(expr -> pending.add(NodeIdFilter.create(expr, nodeTable, execCxt)));
+        // Index range scans for comparisons with numbers and dateTimes.
+        Map<Var, List<NodeIdRange>> ranges = ( exprs != null && execCxt.getContext().isTrue(SystemTDB.symFilterRangeScan) )
+                ? FilterRanges.ranges(exprs)
+                : Map.of();
+        Set<Var> patternVars = new HashSet<>();
+        if ( graphNode != null )
+            VarUtils.addVar(patternVars, graphNode);
+
+        // Merge join, if enabled, for a star of patterns at the start of the basic pattern.
+        // Not for the union graph which needs the ???G indexes, or for a graph variable,
+        // or when the first pattern has its own tuple table.
+        int starLength = 0;
+        if ( firstTable == nodeTupleTable && ! anyGraph && ( graphNode == null || graphNode.isConcrete() )
+             && execCxt.getContext().isTrue(SystemTDB.symMergeJoin) )
+            starLength = StageMergeJoin.starLength(triples);
+        if ( starLength > 0 ) {
+            List<Triple> star = triples.subList(0, starLength);
+            final Node gn = graphNode;
+            List<Tuple<Node>> starTuples = new ArrayList<>(starLength);
+            star.forEach(triple -> starTuples.add(patternTuple(gn, triple)));
+            Function<Iterator<BindingNodeId>, Iterator<BindingNodeId>> nestedLoops = iter -> {
+                for ( Triple triple : star ) {
+                    List<NodeIdRange> objectRanges = Var.isVar(triple.getObject()) ? ranges.get(Var.alloc(triple.getObject())) : null;
+                    iter = matchQuadPattern(iter, gn, triple, nodeTupleTable, patternTuple(gn, triple), objectRanges, false, filter, execCxt);
+                }
+                return iter;
+            };
+            chain = StageMergeJoin.access(nodeTupleTable, chain, starTuples, filter, nestedLoops);
+            if ( ! pending.isEmpty() ) {
+                star.forEach(triple -> VarUtils.addVarsFromTriple(patternVars, triple));
+                chain = applyFilters(chain, pending, patternVars);
+            }
+            chain = makeAbortable(chain, killList);
+        }
+
+        for ( int i = starLength ; i < triples.size() ; i++ ) {
+            Triple triple = triples.get(i);
+            Tuple<Node> patternTuple = patternTuple(graphNode, triple);
+            NodeTupleTable table = ( i == 0 ) ? firstTable : nodeTupleTable;
             // Plain RDF, no RDF-star
             // chain = solve(nodeTupleTable, tuple, anyGraph, chain, filter, execCxt)
             // ;
             // RDF-star SA
-            chain = matchQuadPattern(chain, graphNode, triple, nodeTupleTable, patternTuple, anyGraph, filter, execCxt);
+            List<NodeIdRange> objectRanges = Var.isVar(triple.getObject()) ? ranges.get(Var.alloc(triple.getObject())) : null;
+            chain = matchQuadPattern(chain, graphNode, triple, table, patternTuple, objectRanges, anyGraph, filter, execCxt);
 
+            if ( ! pending.isEmpty() ) {
+                VarUtils.addVarsFromTriple(patternVars, triple);
+                chain = applyFilters(chain, pending, patternVars);
+            }
             chain = makeAbortable(chain, killList);
         }
+        // Any expressions that use variables from the input.
+        if ( ! pending.isEmpty() )
+            chain = applyFilters(chain, pending, null);
 
-        Iterator<Binding> iterBinding = SolverLibTDB.convertToNodes(chain, nodeTable);
+        return chain;
+    }
 
-        // "input" will be closed by QueryIterAbortable but is otherwise unused.
-        // "killList" will be aborted on timeout.
-        return new QueryIterAbortable(iterBinding, killList, input, execCxt);
+    private static Tuple<Node> patternTuple(Node graphNode, Triple triple) {
+        if ( graphNode == null )
+            // 3-tuples
+            return TupleFactory.create3(triple.getSubject(), triple.getPredicate(), triple.getObject());
+        // 4-tuples.
+        return TupleFactory.create4(graphNode, triple.getSubject(), triple.getPredicate(), triple.getObject());
+    }
+
+    /**
+     * Filter by, and remove from the pending list, the filters whose variables are
+     * all bound. All pending filters are applied if {@code boundVars} is null.
+     */
+    private static Iterator<BindingNodeId> applyFilters(Iterator<BindingNodeId> chain, List<NodeIdFilter> pending, Set<Var> boundVars) {
+        Iterator<NodeIdFilter> iter = pending.iterator();
+        while ( iter.hasNext() ) {
+            NodeIdFilter nodeIdFilter = iter.next();
+            if ( boundVars == null || nodeIdFilter.isCoveredBy(boundVars) ) {
+                chain = Iter.filter(chain, nodeIdFilter);
+                iter.remove();
+            }
+        }
+        return chain;
     }
 
     private static Iterator<BindingNodeId> matchQuadPattern(Iterator<BindingNodeId> chain, Node graphNode, Triple tPattern,
-                                                            NodeTupleTable nodeTupleTable, Tuple<Node> patternTuple, boolean anyGraph,
+                                                            NodeTupleTable nodeTupleTable, Tuple<Node> patternTuple,
+                                                            List<NodeIdRange> objectRanges, boolean anyGraph,
                                                             Predicate<Tuple<NodeId>> filter, ExecutionContext execCxt) {
-        return SolverRX.matchQuadPattern(chain, graphNode, tPattern, nodeTupleTable, patternTuple, anyGraph, filter, execCxt);
+        return SolverRX.matchQuadPattern(chain, graphNode, tPattern, nodeTupleTable, patternTuple, objectRanges, anyGraph, filter, execCxt);
     }
 }
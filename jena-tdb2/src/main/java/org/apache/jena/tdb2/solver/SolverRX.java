@@ -23,6 +23,7 @@ import static org.apache.jena.sparql.engine.main.solver.SolverLib.tripleHasEmbTr
 import static org.apache.jena.tdb2.solver.SolverLibTDB.convFromBinding;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -40,6 +41,7 @@ import org.apache.jena.sparql.engine.binding.BindingFactory;
 import org.apache.jena.sparql.engine.main.solver.SolverRX4;
 import org.apache.jena.tdb2.lib.TupleLib;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdRange;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
 
@@ -58,10 +60,21 @@ public class SolverRX {
     static Iterator<BindingNodeId> matchQuadPattern(Iterator<BindingNodeId> chain, Node graphNode, Triple tPattern,
                                                     NodeTupleTable nodeTupleTable, Tuple<Node> patternTuple,
                                                     boolean anyGraph, Predicate<Tuple<NodeId>> filter, ExecutionContext execCxt) {
+        return matchQuadPattern(chain, graphNode, tPattern, nodeTupleTable, patternTuple, null, anyGraph, filter, execCxt);
+    }
+
+    /**
+     * Entry point from {@link PatternMatchTDB2}, with ranges of NodeIds for the
+     * object to use for index range scans, or null.
+     */
+    /*package*/
+    static Iterator<BindingNodeId> matchQuadPattern(Iterator<BindingNodeId> chain, Node graphNode, Triple tPattern,
+                                                    NodeTupleTable nodeTupleTable, Tuple<Node> patternTuple, List<NodeIdRange> objectRanges,
+                                                    boolean anyGraph, Predicate<Tuple<NodeId>> filter, ExecutionContext execCxt) {
         if ( DATAPATH ) {
             if ( ! tripleHasEmbTripleWithVars(tPattern) )
                 // No RDF-star <<>> with variables which are wildcards at this point.
-                return StageMatchTuple.access(nodeTupleTable, chain, patternTuple, filter, anyGraph, execCxt);
+                return StageMatchTuple.access(nodeTupleTable, chain, patternTuple, objectRanges, filter, anyGraph, execCxt);
         }
 
         // RDF-star <<>> with wildcards.
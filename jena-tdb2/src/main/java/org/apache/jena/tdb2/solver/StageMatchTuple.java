@@ -18,8 +18,10 @@
 
 package org.apache.jena.tdb2.solver;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -31,8 +33,10 @@ import org.apache.jena.graph.Node;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.ExecutionContext;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdRange;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+import org.apache.jena.tdb2.sys.SystemTDB;
 
 class StageMatchTuple {
 
@@ -44,12 +48,34 @@ class StageMatchTuple {
      */
     static Iterator<BindingNodeId> access(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input, Tuple<Node> patternTuple,
                                           Predicate<Tuple<NodeId>> filter, boolean anyGraph, ExecutionContext execCxt) {
-        return Iter.flatMap(input, bnid -> {
-            return StageMatchTuple.access(nodeTupleTable, bnid, patternTuple, filter, anyGraph, execCxt);
+        return access(nodeTupleTable, input, patternTuple, null, filter, anyGraph, execCxt);
+    }
+
+    /**
+     * Function to access the data storage, with the possible NodeIds for the object
+     * slot limited to some ranges ({@link NodeIdRange}), or null for no limit.
+     * The ranges are used for index range scans when the subject and object are not
+     * bound; they do not filter the results.
+     */
+    static Iterator<BindingNodeId> access(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input, Tuple<Node> patternTuple,
+                                          List<NodeIdRange> objectRanges,
+                                          Predicate<Tuple<NodeId>> filter, boolean anyGraph, ExecutionContext execCxt) {
+        int batchSize = ( execCxt == null )
+                ? SystemTDB.LookupBatchSize
+                : execCxt.getContext().getInt(SystemTDB.symLookupBatchSize, SystemTDB.LookupBatchSize);
+        // S, P, O are the last three slots.
+        RangeScan rangeScan = ( objectRanges == null ) ? null : new RangeScan(nodeTupleTable, patternTuple.len()-1, objectRanges);
+        if ( batchSize <= 1 )
+            return Iter.flatMap(input, bnid -> {
+                return StageMatchTuple.access(nodeTupleTable, bnid, patternTuple, rangeScan, filter, anyGraph, execCxt);
+            });
+        return Iter.flatMap(new Batches(input, batchSize), batch -> {
+            return StageMatchTuple.accessBatch(nodeTupleTable, batch, patternTuple, rangeScan, filter, anyGraph, execCxt);
         });
     }
 
     private static Iterator<BindingNodeId> access(NodeTupleTable nodeTupleTable, BindingNodeId input, Tuple<Node> patternTuple,
+                                                  RangeScan rangeScan,
                                                   Predicate<Tuple<NodeId>> filter, boolean anyGraph, ExecutionContext execCxt) {
         // ---- Convert to NodeIds
         NodeId ids[] = new NodeId[patternTuple.len()];
@@ -60,8 +86,159 @@ class StageMatchTuple {
         if ( !b )
             // Short cut - known unknown NodeId
             return Iter.nullIterator();
+        return matches(nodeTupleTable, input, ids, vars, rangeScan, filter, anyGraph);
+    }
+
+    /** A row of input and its lookup pattern. */
+    private record Probe(BindingNodeId input, NodeId[] ids, Var[] vars) {}
+
+    /**
+     * Index lookups for a batch of input rows.
+     * <p>
+     * The lookups are made in the order of their NodeIds, not the input order, so
+     * that successive B+tree descents go to the same or nearby blocks, which will
+     * be in the block cache, rather than to random places in the index. Slots
+     * bound by the input are compared in pattern order which is the index order
+     * in the common case of one slot bound by the input.
+     */
+    private static Iterator<BindingNodeId> accessBatch(NodeTupleTable nodeTupleTable, List<BindingNodeId> batch, Tuple<Node> patternTuple,
+                                                       RangeScan rangeScan,
+                                                       Predicate<Tuple<NodeId>> filter, boolean anyGraph, ExecutionContext execCxt) {
+        if ( batch.size() == 1 )
+            return access(nodeTupleTable, batch.get(0), patternTuple, rangeScan, filter, anyGraph, execCxt);
+        NodeTable nodeTable = nodeTupleTable.getNodeTable();
+        List<Probe> probes = new ArrayList<>(batch.size());
+        for ( BindingNodeId input : batch ) {
+            NodeId ids[] = new NodeId[patternTuple.len()];
+            Var[] vars = new Var[patternTuple.len()];
+            if ( prepare(nodeTable, patternTuple, input, ids, vars) )
+                probes.add(new Probe(input, ids, vars));
+        }
+        probes.sort(StageMatchTuple::compareProbes);
+        return Iter.flatMap(probes.iterator(), probe -> {
+            return matches(nodeTupleTable, probe.input(), probe.ids(), probe.vars(), rangeScan, filter, anyGraph);
+        });
+    }
+
+    // Unbound slots (null) sort first.
+    private static int compareProbes(Probe probe1, Probe probe2) {
+        NodeId[] ids1 = probe1.ids();
+        NodeId[] ids2 = probe2.ids();
+        for ( int i = 0 ; i < ids1.length ; i++ ) {
+            NodeId id1 = ids1[i];
+            NodeId id2 = ids2[i];
+            if ( id1 == id2 )
+                continue;
+            if ( id1 == null )
+                return -1;
+            if ( id2 == null )
+                return 1;
+            int x = NodeId.compare(id1, id2);
+            if ( x != 0 )
+                return x;
+        }
+        return 0;
+    }
 
-        Iterator<Tuple<NodeId>> iterMatches = nodeTupleTable.find(TupleFactory.create(ids));
+    /** Group an iterator into lists of up to {@code batchSize} items. */
+    private static class Batches implements Iterator<List<BindingNodeId>> {
+        private final Iterator<BindingNodeId> input;
+        private final int batchSize;
+
+        Batches(Iterator<BindingNodeId> input, int batchSize) {
+            this.input = input;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return input.hasNext();
+        }
+
+        @Override
+        public List<BindingNodeId> next() {
+            if ( ! input.hasNext() )
+                throw new NoSuchElementException();
+            List<BindingNodeId> batch = new ArrayList<>(batchSize);
+            while ( input.hasNext() && batch.size() < batchSize )
+                batch.add(input.next());
+            return batch;
+        }
+    }
+
+    /**
+     * The range scans for the object slot of the pattern of a stage.
+     * <p>
+     * The scan is the same for all input rows that set the same slots of the
+     * pattern, which is every row when the pattern does not use variables bound by
+     * the input. The first row with a pattern streams the scan. The next row with
+     * the same pattern reads the matches and keeps them for any later rows, unless
+     * there are more than {@link SystemTDB#RangeScanCacheSize} matches.
+     * <p>
+     * The data does not change during a stage: it is read in a transaction, and
+     * SPARQL Update evaluates the WHERE clause before changing the data.
+     */
+    private static class RangeScan {
+        private final NodeTupleTable nodeTupleTable;
+        private final int slot;
+        private final List<NodeIdRange> ranges;
+        // The last pattern and what is known about it.
+        private Tuple<NodeId> pattern = null;
+        private boolean noIndex = false;
+        private boolean tooLarge = false;
+        private List<Tuple<NodeId>> matches = null;
+
+        RangeScan(NodeTupleTable nodeTupleTable, int slot, List<NodeIdRange> ranges) {
+            this.nodeTupleTable = nodeTupleTable;
+            this.slot = slot;
+            this.ranges = ranges;
+        }
+
+        /** The matches, or null if the tuple table can not do range scans for the pattern. */
+        Iterator<Tuple<NodeId>> find(Tuple<NodeId> patternIds) {
+            if ( ! patternIds.equals(pattern) ) {
+                pattern = patternIds;
+                tooLarge = false;
+                matches = null;
+                Iterator<Tuple<NodeId>> iter = nodeTupleTable.findRange(patternIds, slot, ranges);
+                noIndex = ( iter == null );
+                return iter;
+            }
+            if ( noIndex )
+                return null;
+            if ( matches != null )
+                return matches.iterator();
+            Iterator<Tuple<NodeId>> iter = nodeTupleTable.findRange(patternIds, slot, ranges);
+            if ( tooLarge )
+                return iter;
+            List<Tuple<NodeId>> list = new ArrayList<>();
+            while ( iter.hasNext() ) {
+                if ( list.size() >= SystemTDB.RangeScanCacheSize ) {
+                    tooLarge = true;
+                    return Iter.concat(list.iterator(), iter);
+                }
+                list.add(iter.next());
+            }
+            matches = list;
+            return matches.iterator();
+        }
+    }
+
+    /** Find the matches for a pattern of NodeIds and bind the variables. */
+    private static Iterator<BindingNodeId> matches(NodeTupleTable nodeTupleTable, BindingNodeId input, NodeId[] ids, Var[] vars,
+                                                   RangeScan rangeScan,
+                                                   Predicate<Tuple<NodeId>> filter, boolean anyGraph) {
+        Tuple<NodeId> patternIds = TupleFactory.create(ids);
+        Iterator<Tuple<NodeId>> iterMatches = null;
+        if ( rangeScan != null ) {
+            // S, P, O are the last three slots.
+            int sSlot = ids.length-3;
+            int oSlot = ids.length-1;
+            if ( ids[sSlot] == null && ids[oSlot] == null )
+                iterMatches = rangeScan.find(patternIds);
+        }
+        if ( iterMatches == null )
+            iterMatches = nodeTupleTable.find(patternIds);
         if ( false ) {
             List<Tuple<NodeId>> x = Iter.toList(iterMatches);
             System.out.println(x);
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.iterator.IteratorSlotted;
+import org.apache.jena.atlas.iterator.PeekIterator;
+import org.apache.jena.atlas.lib.tuple.Tuple;
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.main.solver.SolverLib;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.apache.jena.tdb2.store.nodetable.NodeTable;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+
+/**
+ * Merge join for a "star" of patterns on the same subject variable, for example
+ * {@code ?s :p1 :o1 . ?s :p2 :o2}.
+ * <p>
+ * If each pattern can be scanned from an index where the subject comes directly
+ * after the slots that are set (POS for {@code ?s :p :o}; PSO, if configured, for
+ * {@code ?s :p ?o}), the scans are sorted by subject. They are joined by stepping
+ * along them together, with no index lookup for each row.
+ */
+class StageMergeJoin {
+
+    /**
+     * The number of triples at the start of the list that form a star on a subject
+     * variable, or 0 if there are less than two. The subject variable must not appear
+     * elsewhere in the triples and there must be no RDF-star triple terms with variables.
+     */
+    static int starLength(List<Triple> triples) {
+        if ( triples.size() < 2 )
+            return 0;
+        Node subject = triples.get(0).getSubject();
+        if ( ! Var.isVar(subject) )
+            return 0;
+        int n = 0;
+        for ( Triple triple : triples ) {
+            if ( ! subject.equals(triple.getSubject()) )
+                break;
+            if ( subject.equals(triple.getPredicate()) || subject.equals(triple.getObject()) )
+                break;
+            if ( SolverLib.tripleHasEmbTripleWithVars(triple) )
+                break;
+            n++;
+        }
+        return ( n >= 2 ) ? n : 0;
+    }
+
+    /**
+     * Function to access the data storage for a star of patterns.
+     * Input rows that bind any variable of the patterns, or patterns for which there
+     * is no suitable index, are passed to {@code fallback}.
+     */
+    static Iterator<BindingNodeId> access(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input, List<Tuple<Node>> patterns,
+                                          Predicate<Tuple<NodeId>> filter,
+                                          Function<Iterator<BindingNodeId>, Iterator<BindingNodeId>> fallback) {
+        Set<Var> vars = new HashSet<>();
+        patterns.forEach(pattern -> pattern.forEach(n -> {
+            if ( Var.isVar(n) )
+                vars.add(Var.alloc(n));
+        }));
+        return Iter.flatMap(input, bnid -> {
+            Iterator<BindingNodeId> iter = null;
+            if ( ! bindsAny(bnid, vars) )
+                iter = mergeJoin(nodeTupleTable, bnid, patterns, filter);
+            if ( iter == null )
+                iter = fallback.apply(Iter.singleton(bnid));
+            return iter;
+        });
+    }
+
+    private static boolean bindsAny(BindingNodeId bnid, Set<Var> vars) {
+        Binding parent = bnid.getParentBinding();
+        for ( Var v : vars ) {
+            if ( bnid.containsKey(v) )
+                return true;
+            if ( parent != null && parent.contains(v) )
+                return true;
+        }
+        return false;
+    }
+
+    /** Return null if an index for a sorted scan is not available. */
+    private static Iterator<BindingNodeId> mergeJoin(NodeTupleTable nodeTupleTable, BindingNodeId input, List<Tuple<Node>> patterns,
+                                                     Predicate<Tuple<NodeId>> filter) {
+        NodeTable nodeTable = nodeTupleTable.getNodeTable();
+        int sSlot = patterns.get(0).len()-3;
+        List<Var[]> vars = new ArrayList<>(patterns.size());
+        List<Tuple<NodeId>> patternIds = new ArrayList<>(patterns.size());
+        for ( Tuple<Node> pattern : patterns ) {
+            NodeId[] ids = new NodeId[pattern.len()];
+            Var[] v = new Var[pattern.len()];
+            for ( int i = 0 ; i < pattern.len() ; i++ ) {
+                Node n = pattern.get(i);
+                if ( Var.isVar(n) ) {
+                    v[i] = Var.alloc(n);
+                    continue;
+                }
+                NodeId id = nodeTable.getNodeIdForNode(n);
+                if ( NodeId.isDoesNotExist(id) )
+                    return Iter.nullIterator();
+                ids[i] = id;
+            }
+            vars.add(v);
+            patternIds.add(TupleFactory.create(ids));
+        }
+
+        List<PeekIterator<Tuple<NodeId>>> scans = new ArrayList<>(patterns.size());
+        for ( Tuple<NodeId> ids : patternIds ) {
+            Iterator<Tuple<NodeId>> scan = nodeTupleTable.findSorted(ids, sSlot);
+            if ( scan == null ) {
+                scans.forEach(Iter::close);
+                return null;
+            }
+            if ( filter != null )
+                scan = Iter.filter(scan, filter);
+            scans.add(PeekIterator.create(scan));
+        }
+        return new MergeJoinIterator(input, scans, vars, sSlot);
+    }
+
+    private static class MergeJoinIterator extends IteratorSlotted<BindingNodeId> {
+        private final BindingNodeId input;
+        private final List<PeekIterator<Tuple<NodeId>>> scans;
+        private final List<Var[]> vars;
+        private final int sSlot;
+        // Results for the current subject.
+        private final Deque<BindingNodeId> pending = new ArrayDeque<>();
+        private boolean scansFinished = false;
+
+        MergeJoinIterator(BindingNodeId input, List<PeekIterator<Tuple<NodeId>>> scans, List<Var[]> vars, int sSlot) {
+            this.input = input;
+            this.scans = scans;
+            this.vars = vars;
+            this.sSlot = sSlot;
+        }
+
+        @Override
+        protected boolean hasMore() {
+            return ! scansFinished || ! pending.isEmpty();
+        }
+
+        @Override
+        protected BindingNodeId moveToNext() {
+            while ( pending.isEmpty() ) {
+                if ( scansFinished )
+                    return null;
+                NodeId subject = nextSubject();
+                if ( subject == null ) {
+                    scansFinished = true;
+                    return null;
+                }
+                joinSubject(subject);
+            }
+            return pending.poll();
+        }
+
+        /**
+         * Move all the scans to the next subject they have in common.
+         * Return null if there is none.
+         */
+        private NodeId nextSubject() {
+            int N = scans.size();
+            NodeId subject = null;
+            // Number of scans, ending with the current one, at "subject".
+            int agreed = 0;
+            int j = 0;
+            while ( agreed < N ) {
+                PeekIterator<Tuple<NodeId>> scan = scans.get(j);
+                for ( ;; ) {
+                    if ( ! scan.hasNext() )
+                        return null;
+                    NodeId s = scan.peek().get(sSlot);
+                    int x = ( subject == null ) ? 1 : NodeIdFactory.compareEncoding(s, subject);
+                    if ( x < 0 ) {
+                        scan.next();
+                        continue;
+                    }
+                    if ( x == 0 )
+                        agreed++;
+                    else {
+                        subject = s;
+                        agreed = 1;
+                    }
+                    break;
+                }
+                j = (j+1) % N;
+            }
+            return subject;
+        }
+
+        /** Take the rows for the subject from each scan and form the cross product. */
+        private void joinSubject(NodeId subject) {
+            List<BindingNodeId> acc = List.of(input);
+            for ( int j = 0 ; j < scans.size() ; j++ ) {
+                PeekIterator<Tuple<NodeId>> scan = scans.get(j);
+                Var[] v = vars.get(j);
+                List<BindingNodeId> acc2 = new ArrayList<>();
+                while ( scan.hasNext() && scan.peek().get(sSlot).equals(subject) ) {
+                    Tuple<NodeId> tuple = scan.next();
+                    for ( BindingNodeId b : acc ) {
+                        BindingNodeId b2 = tupleToBinding(b, tuple, v);
+                        if ( b2 != null )
+                            acc2.add(b2);
+                    }
+                }
+                acc = acc2;
+            }
+            pending.addAll(acc);
+        }
+
+        @Override
+        protected void closeIterator() {
+            scans.forEach(Iter::close);
+        }
+    }
+
+    private static BindingNodeId tupleToBinding(BindingNodeId input, Tuple<NodeId> tuple, Var[] vars) {
+        BindingNodeId output = new BindingNodeId(input);
+        for ( int i = 0 ; i < vars.length ; i++ ) {
+            Var v = vars[i];
+            if ( v == null )
+                continue;
+            NodeId id = tuple.get(i);
+            NodeId current = output.get(v);
+            if ( current != null ) {
+                if ( ! current.equals(id) )
+                    return null;
+                continue;
+            }
+            output.put(v, id);
+        }
+        return output;
+    }
+}
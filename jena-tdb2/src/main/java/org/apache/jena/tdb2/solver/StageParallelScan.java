@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.iterator.IteratorCloseable;
+import org.apache.jena.atlas.lib.InternalErrorException;
+import org.apache.jena.atlas.lib.tuple.Tuple;
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.query.QueryExecException;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetSnapshots;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.iterator.Abortable;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdRange;
+import org.apache.jena.tdb2.store.nodetable.NodeTable;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTableWrapper;
+
+/**
+ * Parallel evaluation of a basic graph pattern from the join identity.
+ * <p>
+ * The index range scanned for the first pattern is split into parts at the keys of
+ * the B+Tree branch nodes (see {@link NodeTupleTable#split}). Worker threads take
+ * parts in turn, scan them and continue with the rest of the basic graph pattern.
+ * The results are passed, in batches, through bounded queues to the query thread,
+ * either as they are produced or, for an ordered merge, part by part in index order,
+ * which is the order of sequential evaluation.
+ * <p>
+ * Each worker starts its own read transaction and checks that it sees the same data
+ * as the query (see {@link DatasetSnapshots}). A part for which this is not the case
+ * is evaluated in the query thread.
+ */
+class StageParallelScan implements IteratorCloseable<BindingNodeId>, Abortable {
+    /** Number of parts for each worker thread, to balance the work. */
+    static final int PartsPerThread = 4;
+    /** Number of rows passed from a worker to the query thread at a time. */
+    static final int BatchSize = 100;
+    /** Number of batches waiting for the query thread before a worker waits. */
+    static final int QueueSize = 16;
+
+    private static final ThreadFactory threadFactory = new BasicThreadFactory.Builder()
+        .daemon(true)
+        .namingPattern("tdb-scan-%d")
+        .build();
+    private static final ExecutorService executor = Executors.newCachedThreadPool(threadFactory);
+
+    // Rows of a part, or a part to be evaluated in the query thread, or an error.
+    // No rows and not local is the end of the part.
+    private record Item(int part, List<BindingNodeId> rows, boolean local, Throwable error) {}
+
+    /** Evaluate the basic graph pattern, starting with a tuple table that scans a part of the first pattern. */
+    interface Pipeline extends BiFunction<NodeTupleTable, ExecutionContext, Iterator<BindingNodeId>> {}
+
+    private final NodeTupleTable nodeTupleTable;
+    private final Tuple<NodeId> firstPattern;
+    // Start of each part; the first is null.
+    private final List<Tuple<NodeId>> starts;
+    private final Pipeline pipeline;
+    private final Object snapshot;
+    private final ExecutionContext execCxt;
+    // One queue for each part for an ordered merge, else one queue.
+    private final List<BlockingQueue<Item>> queues;
+    private final AtomicInteger nextPart = new AtomicInteger(0);
+    private volatile boolean stopping = false;
+
+    // Query thread.
+    private int partsFinished = 0;
+    private Iterator<BindingNodeId> current = null;
+    private Iterator<BindingNodeId> localPart = null;
+    private BindingNodeId slot = null;
+
+    /**
+     * Start the parallel evaluation. Return null if the first pattern can not be
+     * split into parts or the query is not in a read transaction whose data is known.
+     *
+     * @param nodeTupleTable Tuple table for the first pattern.
+     * @param firstPattern The first pattern, with the constant terms of the basic graph pattern.
+     * @param pipeline Evaluation of the basic graph pattern from the join identity.
+     */
+    static StageParallelScan create(NodeTupleTable nodeTupleTable, Tuple<Node> firstPattern, Pipeline pipeline,
+                                    int parallelism, boolean ordered, ExecutionContext execCxt) {
+        DatasetGraph dsg = execCxt.getDataset();
+        if ( dsg == null || ! dsg.isInTransaction() || dsg.transactionMode() != ReadWrite.READ )
+            return null;
+        Object snapshot = DatasetSnapshots.snapshot(dsg);
+        if ( snapshot == null )
+            return null;
+        Tuple<NodeId> pattern = patternIds(nodeTupleTable.getNodeTable(), firstPattern);
+        if ( pattern == null )
+            return null;
+        List<Tuple<NodeId>> splits = nodeTupleTable.split(pattern, parallelism * PartsPerThread);
+        if ( splits == null || splits.isEmpty() )
+            return null;
+        List<Tuple<NodeId>> starts = new ArrayList<>(splits.size()+1);
+        starts.add(null);
+        starts.addAll(splits);
+        StageParallelScan iter = new StageParallelScan(nodeTupleTable, pattern, starts, pipeline, snapshot, ordered, execCxt);
+        int workers = Math.min(parallelism, starts.size());
+        for ( int i = 0 ; i < workers ; i++ )
+            executor.execute(iter::work);
+        return iter;
+    }
+
+    // The NodeIds of a pattern, with null for a variable. Return null for an unknown
+    // term, when there is nothing to scan, and for a triple term.
+    private static Tuple<NodeId> patternIds(NodeTable nodeTable, Tuple<Node> patternTuple) {
+        NodeId[] ids = new NodeId[patternTuple.len()];
+        for ( int i = 0 ; i < ids.length ; i++ ) {
+            Node n = patternTuple.get(i);
+            if ( Var.isVar(n) )
+                continue;
+            if ( n.isNodeTriple() )
+                return null;
+            NodeId id = nodeTable.getNodeIdForNode(n);
+            if ( NodeId.isDoesNotExist(id) )
+                return null;
+            ids[i] = id;
+        }
+        return TupleFactory.create(ids);
+    }
+
+    private StageParallelScan(NodeTupleTable nodeTupleTable, Tuple<NodeId> firstPattern, List<Tuple<NodeId>> starts,
+                              Pipeline pipeline, Object snapshot, boolean ordered, ExecutionContext execCxt) {
+        this.nodeTupleTable = nodeTupleTable;
+        this.firstPattern = firstPattern;
+        this.starts = starts;
+        this.pipeline = pipeline;
+        this.snapshot = snapshot;
+        this.execCxt = execCxt;
+        int numQueues = ordered ? starts.size() : 1;
+        this.queues = new ArrayList<>(numQueues);
+        for ( int i = 0 ; i < numQueues ; i++ )
+            queues.add(new ArrayBlockingQueue<>(QueueSize));
+    }
+
+    private NodeTupleTable partTable(int part) {
+        Tuple<NodeId> start = starts.get(part);
+        Tuple<NodeId> finish = ( part+1 < starts.size() ) ? starts.get(part+1) : null;
+        return new NodeTupleTablePart(nodeTupleTable, firstPattern, start, finish);
+    }
+
+    private BlockingQueue<Item> queue(int part) {
+        return ( queues.size() == 1 ) ? queues.get(0) : queues.get(part);
+    }
+
+    // ---- Worker threads
+
+    private void work() {
+        ExecutionContext cxt = ExecutionContext.fork(execCxt);
+        DatasetGraph dsg = cxt.getDataset();
+        for ( ;; ) {
+            int part = nextPart.getAndIncrement();
+            if ( stopping || part >= starts.size() )
+                return;
+            boolean inTransaction = false;
+            try {
+                dsg.begin(TxnType.READ);
+                inTransaction = true;
+                if ( ! snapshot.equals(DatasetSnapshots.snapshot(dsg)) ) {
+                    // The data has changed since the query started.
+                    put(new Item(part, null, true, null));
+                    continue;
+                }
+                execute(part, cxt);
+                put(new Item(part, null, false, null));
+            } catch (Throwable th) {
+                put(new Item(part, null, false, th));
+            } finally {
+                if ( inTransaction )
+                    dsg.end();
+            }
+        }
+    }
+
+    private void execute(int part, ExecutionContext cxt) {
+        // NodeIds do not depend on the transaction so rows are passed on as they are.
+        Iterator<BindingNodeId> iter = pipeline.apply(partTable(part), cxt);
+        try {
+            List<BindingNodeId> rows = new ArrayList<>(BatchSize);
+            while ( ! stopping && iter.hasNext() ) {
+                rows.add(iter.next());
+                if ( rows.size() >= BatchSize ) {
+                    put(new Item(part, rows, false, null));
+                    rows = new ArrayList<>(BatchSize);
+                }
+            }
+            if ( ! rows.isEmpty() )
+                put(new Item(part, rows, false, null));
+        } finally {
+            Iter.close(iter);
+        }
+    }
+
+    // Wait for space in the queue, unless the iterator is closed.
+    private void put(Item item) {
+        BlockingQueue<Item> queue = queue(item.part());
+        try {
+            while ( ! stopping ) {
+                if ( queue.offer(item, 100, TimeUnit.MILLISECONDS) )
+                    return;
+            }
+        } catch (InterruptedException ex) {
+            stopping = true;
+        }
+    }
+
+    // ---- Query thread
+
+    @Override
+    public boolean hasNext() {
+        if ( slot != null )
+            return true;
+        for ( ;; ) {
+            if ( current != null && current.hasNext() ) {
+                slot = current.next();
+                return true;
+            }
+            current = null;
+            if ( localPart != null ) {
+                Iter.close(localPart);
+                localPart = null;
+                partsFinished++;
+            }
+            if ( partsFinished >= starts.size() )
+                return false;
+            Item item = take();
+            if ( item.error() != null ) {
+                stopping = true;
+                throw exception(item.error());
+            }
+            if ( item.rows() != null )
+                current = item.rows().iterator();
+            else if ( item.local() ) {
+                localPart = pipeline.apply(partTable(item.part()), execCxt);
+                current = localPart;
+            } else
+                partsFinished++;
+        }
+    }
+
+    private Item take() {
+        // Ordered: the queue of the part after those finished.
+        BlockingQueue<Item> queue = queue(partsFinished);
+        try {
+            for ( ;; ) {
+                if ( stopping )
+                    throw new QueryCancelledException();
+                Item item = queue.poll(100, TimeUnit.MILLISECONDS);
+                if ( item != null )
+                    return item;
+                if ( execCxt.getCancelSignal() != null && execCxt.getCancelSignal().get() )
+                    throw new QueryCancelledException();
+            }
+        } catch (InterruptedException ex) {
+            throw new QueryCancelledException();
+        }
+    }
+
+    private static RuntimeException exception(Throwable th) {
+        if ( th instanceof RuntimeException ex )
+            return ex;
+        if ( th instanceof Error err )
+            throw err;
+        return new QueryExecException(th);
+    }
+
+    @Override
+    public BindingNodeId next() {
+        if ( ! hasNext() )
+            throw new NoSuchElementException();
+        BindingNodeId b = slot;
+        slot = null;
+        return b;
+    }
+
+    @Override
+    public void close() {
+        stopping = true;
+        queues.forEach(BlockingQueue::clear);
+        if ( localPart != null ) {
+            Iter.close(localPart);
+            localPart = null;
+        }
+    }
+
+    @Override
+    public void abort() {
+        stopping = true;
+    }
+
+    /** The tuple table with finds for the first pattern limited to a part of the index. */
+    private static class NodeTupleTablePart extends NodeTupleTableWrapper {
+        private final Tuple<NodeId> pattern;
+        private final Tuple<NodeId> start;
+        private final Tuple<NodeId> finish;
+
+        NodeTupleTablePart(NodeTupleTable ntt, Tuple<NodeId> pattern, Tuple<NodeId> start, Tuple<NodeId> finish) {
+            super(ntt);
+            this.pattern = pattern;
+            this.start = start;
+            this.finish = finish;
+        }
+
+        @Override
+        public Iterator<Tuple<NodeId>> find(NodeId... ids) {
+            return find(TupleFactory.create(ids));
+        }
+
+        @Override
+        public Iterator<Tuple<NodeId>> find(Tuple<NodeId> ids) {
+            if ( ! pattern.equals(ids) )
+                throw new InternalErrorException("Parallel scan: pattern "+ids+" is not "+pattern);
+            return nodeTupleTable.findPart(ids, start, finish);
+        }
+
+        @Override
+        public Iterator<Tuple<NodeId>> findRange(Tuple<NodeId> ids, int slot, List<NodeIdRange> ranges) {
+            return null;
+        }
+
+        @Override
+        public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> ids, int slot) {
+            return null;
+        }
+    }
+}
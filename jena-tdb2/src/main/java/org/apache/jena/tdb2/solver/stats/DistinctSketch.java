@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.jena.tdb2.solver.stats;
+
+import java.util.TreeSet;
+
+/**
+ * Estimate of the number of different values seen, using a fixed amount of space
+ * ("k minimum values"). The {@code k} smallest hashes are kept; if there are more
+ * than {@code k} different values, the estimate is from how closely the kept hashes
+ * fill the range of hash values.
+ */
+class DistinctSketch {
+    private final int k;
+    // Hashes as non-negative longs.
+    private final TreeSet<Long> smallest = new TreeSet<>();
+
+    DistinctSketch(int k) {
+        this.k = k;
+    }
+
+    void add(long hash) {
+        long h = mix(hash) >>> 1;
+        if ( smallest.size() >= k ) {
+            if ( h >= smallest.last() )
+                return;
+            if ( smallest.add(h) )
+                smallest.pollLast();
+            return;
+        }
+        smallest.add(h);
+    }
+
+    long estimate() {
+        if ( smallest.size() < k )
+            return smallest.size();
+        // The k-th smallest as a fraction of the range.
+        double fraction = (double)smallest.last() / Long.MAX_VALUE;
+        return Math.round((k - 1) / fraction);
+    }
+
+    // Spread the bits (SplitMix64 finalizer).
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -26,6 +26,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -34,6 +35,10 @@ import org.apache.jena.atlas.logging.Log;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.CharacteristicSet;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.Histogram;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.PredicateStats;
 import org.apache.jena.sparql.engine.optimizer.StatsMatcher;
 import org.apache.jena.sparql.graph.NodeConst;
 import org.apache.jena.sparql.sse.Item;
@@ -47,25 +52,17 @@ public class Stats
 
     /** Write statistics */
     static public void write(String filename, StatsResults stats) {
-        write(filename, stats.getPredicates(), stats.getTypes(), stats.getCount());
-    }
-
-    /** Write statistics */
-    static public void write(OutputStream output, StatsResults stats) {
-        write(output, stats.getPredicates(), stats.getTypes(), stats.getCount());
-    }
-
-    static private void write(String filename, Map<Node, Long> predicateStats, Map<Node, Long> typeStats, long statsTotal) {
         // Write out the stats
         try (OutputStream statsOut = new BufferedOutputStream(new FileOutputStream(filename))) {
-            write(statsOut, predicateStats, typeStats, statsTotal);
+            write(statsOut, stats);
         } catch (IOException ex) {
             Log.warn(Stats.class, "Problem when writing stats file", ex);
         }
     }
 
-    static private void write(OutputStream output, Map<Node, Long> predicateStats, Map<Node, Long> typeStats, long statsTotal) {
-        Item item = format(predicateStats, typeStats, statsTotal);
+    /** Write statistics */
+    static public void write(OutputStream output, StatsResults stats) {
+        Item item = format(stats);
         ItemWriter.write(output, item);
     }
 
@@ -82,8 +79,18 @@ public class Stats
         return stats;
     }
 
-    public static Item format(StatsResults stats) {
-        return format(stats.getPredicates(), stats.getTypes(), stats.getCount());
+    public static Item format(StatsResults results) {
+        Item stats = format(results.getPredicates(), results.getTypes(), results.getCount());
+        ItemList meta = Item.find(stats.getList(), StatsMatcher.META).getList();
+        if ( results.getSubjects() >= 0 )
+            addPair(meta, StatsCardinality.SUBJECTS, NodeFactoryExtra.intToNode(results.getSubjects()));
+        if ( results.getObjects() >= 0 )
+            addPair(meta, StatsCardinality.OBJECTS, NodeFactoryExtra.intToNode(results.getObjects()));
+        if ( !results.getPredicateStats().isEmpty() )
+            stats.getList().add(formatPredicates(results.getPredicateStats()));
+        if ( !results.getCharacteristicSets().isEmpty() )
+            stats.getList().add(formatCharacteristicSets(results.getCharacteristicSets()));
+        return stats;
     }
 
     private static Item format(Map<Node, Long> predicates, Map<Node, Long> types, long count) {
@@ -117,6 +124,54 @@ public class Stats
         return stats;
     }
 
+    // (predicates (<p> (count N) (subjects S) (objects O) (histogram ...)) ...)
+    private static Item formatPredicates(Map<Node, PredicateStats> predicateStats) {
+        Item predicates = createTagged(StatsCardinality.PREDICATES);
+        for ( Entry<Node, PredicateStats> entry : predicateStats.entrySet() ) {
+            Node node = entry.getKey();
+            if ( node.getURI().startsWith("http://www.w3.org/1999/02/22-rdf-syntax-ns#_") )
+                continue;
+            PredicateStats ps = entry.getValue();
+            ItemList x = new ItemList();
+            x.add(node);
+            addPair(x, StatsMatcher.COUNT, NodeFactoryExtra.intToNode(ps.count()));
+            addPair(x, StatsCardinality.SUBJECTS, NodeFactoryExtra.intToNode(ps.subjects()));
+            addPair(x, StatsCardinality.OBJECTS, NodeFactoryExtra.intToNode(ps.objects()));
+            Histogram h = ps.histogram();
+            if ( h != null ) {
+                Item histogram = createTagged(StatsCardinality.HISTOGRAM);
+                Item bounds = createTagged(StatsCardinality.BOUNDS);
+                for ( double v : h.bounds() )
+                    bounds.getList().add(NodeFactoryExtra.doubleToNode(v));
+                Item counts = createTagged(StatsCardinality.COUNTS);
+                for ( long v : h.counts() )
+                    counts.getList().add(NodeFactoryExtra.intToNode(v));
+                Item distinct = createTagged(StatsCardinality.DISTINCT);
+                for ( long v : h.distinct() )
+                    distinct.getList().add(NodeFactoryExtra.intToNode(v));
+                histogram.getList().add(bounds);
+                histogram.getList().add(counts);
+                histogram.getList().add(distinct);
+                x.add(histogram);
+            }
+            predicates.getList().add(Item.createList(x));
+        }
+        return predicates;
+    }
+
+    // (charsets (charset S (<p1> N1) ...) ...)
+    private static Item formatCharacteristicSets(List<CharacteristicSet> sets) {
+        Item charsets = createTagged(StatsCardinality.CHARSETS);
+        for ( CharacteristicSet cs : sets ) {
+            Item charset = createTagged(StatsCardinality.CHARSET);
+            charset.getList().add(NodeFactoryExtra.intToNode(cs.subjects()));
+            for ( Entry<Node, Long> entry : cs.occurrences().entrySet() )
+                addPair(charset.getList(), entry.getKey(), NodeFactoryExtra.intToNode(entry.getValue()));
+            charsets.getList().add(charset);
+        }
+        return charsets;
+    }
+
     private static void addTypeTriple(ItemList statsList, Node type, Node intCount) {
         ItemList triple = new ItemList();
         triple.add("VAR");
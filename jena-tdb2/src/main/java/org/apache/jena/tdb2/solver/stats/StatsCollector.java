@@ -20,6 +20,7 @@ package org.apache.jena.tdb2.solver.stats;
 
 import java.util.Map;
 
+import org.apache.jena.datatypes.DatatypeFormatException;
 import org.apache.jena.graph.Node;
 import org.apache.jena.sparql.graph.NodeConst;
 
@@ -29,8 +30,37 @@ public class StatsCollector extends StatsCollectorBase<Node> {
         super(NodeConst.nodeRDFType);
     }
 
+    /**
+     * Statistics collector that also collects detailed statistics.
+     * Set {@code subjectOrder} if the triples for each subject are recorded together.
+     */
+    public StatsCollector(boolean subjectOrder) {
+        super(NodeConst.nodeRDFType, true, subjectOrder);
+    }
+
     @Override
     protected Map<Node, Long> convert(Map<Node, Long> map) {
         return map;
     }
+
+    @Override
+    protected Node convert(Node node) {
+        return node;
+    }
+
+    @Override
+    protected long hash(Node node) {
+        return node.hashCode();
+    }
+
+    @Override
+    protected double numeric(Node node) {
+        if ( !node.isLiteral() )
+            return Double.NaN;
+        try {
+            return ( node.getLiteralValue() instanceof Number number ) ? number.doubleValue() : Double.NaN;
+        } catch (DatatypeFormatException ex) {
+            return Double.NaN;
+        }
+    }
 }
@@ -16,23 +16,82 @@
  * limitations under the License.
  */
 
+
 package org.apache.jena.tdb2.solver.stats;
 
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.CharacteristicSet;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.Histogram;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.PredicateStats;
 
-/** Statistics collector, general purpose */
+/**
+ * Statistics collector, general purpose.
+ * <p>
+ * Detailed statistics, if requested, are the number of different subjects and
+ * objects of each predicate, histograms of the numeric values of objects, and, if
+ * the triples are recorded grouped by subject, characteristic sets. These are used
+ * by {@link org.apache.jena.sparql.engine.optimizer.StatsCardinality}.
+ */
 abstract class StatsCollectorBase<T> {
+    /** Number of hashes kept for estimating the number of different values. */
+    static final int SketchSize = 1024;
+    /** Number of numeric values sampled for the histogram of a predicate. */
+    static final int SampleSize = 1024;
+    /** Number of buckets in a histogram. */
+    static final int HistogramBuckets = 16;
+    /** Number of characteristic sets in the results; the sets for fewest subjects are dropped. */
+    static final int MaxCharacteristicSets = 10000;
+
     private long            count      = 0;
     private Map<T, Long>    predicates = new HashMap<>(10000);
     private Map<T, Long>    types      = new HashMap<>(10000);
     private T               typeTrigger;
 
+    // Detailed statistics.
+    private final boolean   detailed;
+    private final boolean   subjectOrder;
+    private DistinctSketch  subjects   = new DistinctSketch(SketchSize);
+    private DistinctSketch  objects    = new DistinctSketch(SketchSize);
+    private Map<T, Detail>  details    = new HashMap<>();
+    // Fixed seed so that the same data gives the same statistics.
+    private Random          random     = new Random(0L);
+
+    // Characteristic sets: the subject being recorded and its predicates.
+    private T               currentGraph   = null;
+    private T               currentSubject = null;
+    private Map<T, Long>    currentPredicates = new HashMap<>();
+    private Map<Set<T>, CharsetCounts<T>> charsets = new HashMap<>();
+
+    private static class Detail {
+        final DistinctSketch subjects = new DistinctSketch(SketchSize);
+        final DistinctSketch objects  = new DistinctSketch(SketchSize);
+        // Reservoir sample of the numeric objects.
+        long numeric = 0;
+        double[] sample = null;
+    }
+
+    private static class CharsetCounts<T> {
+        long subjects = 0;
+        final Map<T, Long> occurrences = new HashMap<>();
+    }
+
     protected StatsCollectorBase(T typeTrigger) {
+        this(typeTrigger, false, false);
+    }
+
+    /**
+     * Collect detailed statistics if {@code detailed} is true.
+     * {@code subjectOrder} is true if all the triples for a subject (in a graph)
+     * are recorded together, as when scanning an index that starts with the subject;
+     * this is necessary for characteristic sets.
+     */
+    protected StatsCollectorBase(T typeTrigger, boolean detailed, boolean subjectOrder) {
         this.typeTrigger = typeTrigger;
+        this.detailed = detailed;
+        this.subjectOrder = detailed && subjectOrder;
     }
 
     public void record(T g, T s, T p, T o) {
@@ -40,11 +99,121 @@ abstract class StatsCollectorBase<T> {
         predicates.put(p, predicates.getOrDefault(p, 0L) + 1);
         if ( typeTrigger != null && typeTrigger.equals(p) )
             types.put(o, types.getOrDefault(o, 0L) + 1);
+        if ( detailed )
+            recordDetail(g, s, p, o);
+    }
+
+    private void recordDetail(T g, T s, T p, T o) {
+        long sHash = hash(s);
+        long oHash = hash(o);
+        subjects.add(sHash);
+        objects.add(oHash);
+        Detail detail = details.computeIfAbsent(p, x -> new Detail());
+        detail.subjects.add(sHash);
+        detail.objects.add(oHash);
+        double v = numeric(o);
+        if ( !Double.isNaN(v) ) {
+            if ( detail.sample == null )
+                detail.sample = new double[SampleSize];
+            detail.numeric++;
+            if ( detail.numeric <= SampleSize )
+                detail.sample[(int)detail.numeric - 1] = v;
+            else {
+                long j = random.nextLong(detail.numeric);
+                if ( j < SampleSize )
+                    detail.sample[(int)j] = v;
+            }
+        }
+        if ( subjectOrder ) {
+            if ( !Objects.equals(s, currentSubject) || !Objects.equals(g, currentGraph) ) {
+                endSubject();
+                currentGraph = g;
+                currentSubject = s;
+            }
+            currentPredicates.merge(p, 1L, Long::sum);
+        }
+    }
+
+    private void endSubject() {
+        if ( currentPredicates.isEmpty() )
+            return;
+        CharsetCounts<T> cs = charsets.computeIfAbsent(Set.copyOf(currentPredicates.keySet()), x -> new CharsetCounts<>());
+        cs.subjects++;
+        currentPredicates.forEach((p, n) -> cs.occurrences.merge(p, n, Long::sum));
+        currentPredicates.clear();
     }
 
     protected abstract Map<Node, Long> convert(Map<T, Long> map);
 
+    protected abstract Node convert(T item);
+
+    /** A hash of the item, for estimating the number of different items. */
+    protected abstract long hash(T item);
+
+    /** The numeric value of the item, or NaN. */
+    protected abstract double numeric(T item);
+
     public StatsResults results() {
-        return new StatsResults(convert(predicates), convert(types), count);
+        if ( !detailed )
+            return new StatsResults(convert(predicates), convert(types), count);
+        endSubject();
+        Map<Node, PredicateStats> predicateStats = new HashMap<>();
+        details.forEach((p, detail) -> {
+            long n = predicates.get(p);
+            PredicateStats ps = new PredicateStats(n,
+                                                   Math.min(n, detail.subjects.estimate()),
+                                                   Math.min(n, detail.objects.estimate()),
+                                                   histogram(detail));
+            predicateStats.put(convert(p), ps);
+        });
+        List<CharacteristicSet> sets = new ArrayList<>();
+        charsets.values().stream()
+            .sorted((cs1, cs2) -> Long.compare(cs2.subjects, cs1.subjects))
+            .limit(MaxCharacteristicSets)
+            .forEach(cs -> {
+                Map<Node, Long> occurrences = new HashMap<>();
+                cs.occurrences.forEach((p, n) -> occurrences.put(convert(p), n));
+                sets.add(new CharacteristicSet(cs.subjects, occurrences));
+            });
+        return new StatsResults(convert(predicates), convert(types), count,
+                                Math.min(count, subjects.estimate()), Math.min(count, objects.estimate()),
+                                predicateStats, sets);
+    }
+
+    /** Equi-depth histogram from the sample. Values are not split across buckets. */
+    private static Histogram histogram(Detail detail) {
+        if ( detail.numeric == 0 )
+            return null;
+        int n = (int)Math.min(detail.numeric, SampleSize);
+        double[] values = Arrays.copyOf(detail.sample, n);
+        Arrays.sort(values);
+        double scale = (double)detail.numeric / n;
+        int buckets = Math.min(HistogramBuckets, n);
+        List<Double> bounds = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        List<Long> distinct = new ArrayList<>();
+        int start = 0;
+        for ( int b = 0 ; b < buckets && start < n ; b++ ) {
+            int end = ( b == buckets - 1 ) ? n : Math.max(start + 1, (int)((long)n * (b + 1) / buckets));
+            while ( end < n && values[end] == values[end - 1] )
+                end++;
+            int size = end - start;
+            int sampleDistinct = 1;
+            for ( int i = start + 1 ; i < end ; i++ ) {
+                if ( values[i] != values[i - 1] )
+                    sampleDistinct++;
+            }
+            long bucketCount = Math.round(size * scale);
+            // Repeated values in the sample: assume all the different values were seen.
+            long bucketDistinct = ( n == detail.numeric || sampleDistinct < size ) ? sampleDistinct : bucketCount;
+            bounds.add(values[start]);
+            counts.add(bucketCount);
+            distinct.add(bucketDistinct);
+            start = end;
+        }
+        bounds.add(values[n - 1]);
+        return new Histogram(bounds.stream().mapToDouble(Double::doubleValue).toArray(),
+                             counts.stream().mapToLong(Long::longValue).toArray(),
+                             distinct.stream().mapToLong(Long::longValue).toArray());
     }
 }
@@ -18,16 +18,28 @@
 
 package org.apache.jena.tdb2.solver.stats;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.jena.graph.Node;
 import org.apache.jena.sparql.graph.NodeConst;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.apache.jena.tdb2.store.NodeIdType;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 
 /** Statistics collector, aggregates based on NodeId */
 public class StatsCollectorNodeId extends StatsCollectorBase<NodeId> {
+    // Inline values used for histograms.
+    private static final Set<NodeIdType> numericTypes =
+        EnumSet.of(NodeIdType.XSD_INTEGER, NodeIdType.XSD_DECIMAL, NodeIdType.XSD_DOUBLE, NodeIdType.XSD_FLOAT,
+                   NodeIdType.XSD_POSITIVE_INTEGER, NodeIdType.XSD_NEGATIVE_INTEGER,
+                   NodeIdType.XSD_NON_NEGATIVE_INTEGER, NodeIdType.XSD_NON_POSITIVE_INTEGER,
+                   NodeIdType.XSD_LONG, NodeIdType.XSD_INT, NodeIdType.XSD_SHORT, NodeIdType.XSD_BYTE,
+                   NodeIdType.XSD_UNSIGNEDLONG, NodeIdType.XSD_UNSIGNEDINT, NodeIdType.XSD_UNSIGNEDSHORT, NodeIdType.XSD_UNSIGNEDBYTE);
+
     private NodeTable nodeTable;
 
     public StatsCollectorNodeId(NodeTable nodeTable) {
@@ -35,6 +47,17 @@ public class StatsCollectorNodeId extends StatsCollectorBase<NodeId> {
         this.nodeTable = nodeTable;
     }
 
+    /**
+     * Statistics collector that also collects detailed statistics.
+     * Set {@code subjectOrder} if the triples for each subject are recorded together
+     * (for example, from the SPO or GSPO index).
+     * Histograms are only for numbers that are inline in the NodeId.
+     */
+    public StatsCollectorNodeId(NodeTable nodeTable, boolean subjectOrder) {
+        super(findRDFType(nodeTable), true, subjectOrder);
+        this.nodeTable = nodeTable;
+    }
+
     private static NodeId findRDFType(NodeTable nodeTable) {
         // It may not exist.
         NodeId nodeId = nodeTable.getNodeIdForNode(NodeConst.nodeRDFType);
@@ -53,4 +76,22 @@ public class StatsCollectorNodeId extends StatsCollectorBase<NodeId> {
         }
         return statsNodes;
     }
+
+    @Override
+    protected Node convert(NodeId nodeId) {
+        return nodeTable.getNodeForNodeId(nodeId);
+    }
+
+    @Override
+    protected long hash(NodeId nodeId) {
+        return NodeIdFactory.encode(nodeId);
+    }
+
+    @Override
+    protected double numeric(NodeId nodeId) {
+        if ( !numericTypes.contains(nodeId.type()) )
+            return Double.NaN;
+        Node n = NodeId.extract(nodeId);
+        return ( n.getLiteralValue() instanceof Number number ) ? number.doubleValue() : Double.NaN;
+    }
 }
@@ -16,11 +16,15 @@
  * limitations under the License.
  */
 
+
 package org.apache.jena.tdb2.solver.stats;
 
+import java.util.List;
 import java.util.Map;
 
 import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.CharacteristicSet;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.PredicateStats;
 
 /** Statistics collector */
 public class StatsResults
@@ -28,11 +32,26 @@ public class StatsResults
     private final Map<Node, Long> predicates;
     private final Map<Node, Long> types;
     private final long count;
+    // Detailed statistics: -1 or empty if not collected.
+    private final long subjects;
+    private final long objects;
+    private final Map<Node, PredicateStats> predicateStats;
+    private final List<CharacteristicSet> characteristicSets;
 
     StatsResults(Map<Node, Long> predicates, Map<Node, Long> types, long count) {
+        this(predicates, types, count, -1, -1, Map.of(), List.of());
+    }
+
+    StatsResults(Map<Node, Long> predicates, Map<Node, Long> types, long count,
+                 long subjects, long objects,
+                 Map<Node, PredicateStats> predicateStats, List<CharacteristicSet> characteristicSets) {
         this.count = count;
         this.predicates = predicates;
         this.types = types;
+        this.subjects = subjects;
+        this.objects = objects;
+        this.predicateStats = predicateStats;
+        this.characteristicSets = characteristicSets;
     }
 
     public Map<Node, Long> getPredicates() {
@@ -46,4 +65,24 @@ public class StatsResults
     public long getCount() {
         return count;
     }
+
+    /** Estimated number of different subjects, or -1 if not collected. */
+    public long getSubjects() {
+        return subjects;
+    }
+
+    /** Estimated number of different objects, or -1 if not collected. */
+    public long getObjects() {
+        return objects;
+    }
+
+    /** Detailed statistics for each predicate; empty if not collected. */
+    public Map<Node, PredicateStats> getPredicateStats() {
+        return predicateStats;
+    }
+
+    /** Characteristic sets, most subjects first; empty if not collected. */
+    public List<CharacteristicSet> getCharacteristicSets() {
+        return characteristicSets;
+    }
 }
@@ -0,0 +1,361 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store;
+
+import java.util.*;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.lib.tuple.Tuple;
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.dboe.transaction.txn.Transaction;
+import org.apache.jena.dboe.transaction.txn.TransactionListener;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.NodeConst;
+import org.apache.jena.tdb2.store.nodetable.NodeTable;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+import org.apache.jena.tdb2.store.tupletable.TupleIndex;
+import org.apache.jena.tdb2.store.tupletable.TupleTable;
+
+/**
+ * The transitive closure of selected properties of the default graph, kept as (P,S,O)
+ * tuples in two indexes (PSO and POS). A tuple {@code (p, x, y)} records that
+ * {@code y} is reachable from {@code x} by one or more {@code p} links, so {@code :p+}
+ * and {@code :p*} are index lookups. The properties are set with
+ * {@link org.apache.jena.tdb2.params.StoreParams#getClosurePredicates} when the database
+ * is created.
+ * <p>
+ * The changes made by a write transaction to triples of these properties are noted as
+ * they happen and the closure is updated, in batches of added links and, for removed
+ * links, when the transaction commits, before the indexes are prepared, so the closure
+ * commits or aborts with the data.
+ * <ul>
+ * <li>An added link {@code (a, b)} adds a tuple from everything that reaches {@code a}
+ * (and {@code a}) to everything reachable from {@code b} (and {@code b}).</li>
+ * <li>A removed link from {@code a} may change the closure of {@code a} and of everything
+ * that reaches {@code a}. Those rows are recalculated from the triples.</li>
+ * </ul>
+ * A transaction that removes many links recalculates the whole closure instead.
+ * <p>
+ * The closure of a property is only used when it is marked as valid. The mark is kept in
+ * the closure indexes and is set by {@link #rebuild()}. Bulk loaders write to the triple
+ * indexes directly; they remove the mark, or rebuild the closure, as part of the load.
+ * A database opened with a property that does not have a valid closure, for example one
+ * newly added to the {@code closure_predicates}, has the closure rebuilt when it is opened.
+ */
+public class ClosureTable implements TransactionListener {
+    /** Index names and the component names of their files. */
+    public static final String primaryIndex    = "PSO";
+    public static final String[] indexes       = { "PSO", "POS" };
+    public static final String baseName        = "closure";
+
+    /** File name of a closure index. */
+    public static String indexFileName(String index) {
+        return baseName+"-"+index;
+    }
+
+    /** Number of pending added links, or removed links, before they are acted on. */
+    static int PendingLimit = 10_000;
+
+    /**
+     * The tuple {@code (p, validMarker, validMarker)} marks the closure of {@code p} as
+     * complete. A literal is never the subject of a link, so is not otherwise in the
+     * second slot.
+     */
+    private static final NodeId validMarker = NodeId.inline(NodeConst.nodeZero);
+
+    private final TupleTable closure;
+    private final NodeTupleTable triples;
+    private final Set<Node> predicates;
+
+    // Changes by the write transaction, not yet in the closure.
+    // Only the writer thread updates these.
+    private volatile Thread writer = null;
+    private final List<Triple> pendingAdds = new ArrayList<>();
+    private final Map<NodeId, Set<NodeId>> pendingDeletes = new HashMap<>();
+    private int pendingDeletesCount = 0;
+    // Too many changes to track: recalculate everything at commit.
+    private boolean pendingRebuild = false;
+
+    public ClosureTable(TupleIndex[] closureIndexes, NodeTupleTable triples, Collection<Node> predicates) {
+        this.closure = new TupleTable(3, closureIndexes);
+        this.triples = triples;
+        this.predicates = Set.copyOf(predicates);
+    }
+
+    /** The properties with a closure. */
+    public Set<Node> getPredicates() {
+        return predicates;
+    }
+
+    /** Whether the property has a closure. */
+    public boolean hasPredicate(Node property) {
+        return predicates.contains(property);
+    }
+
+    /**
+     * Whether the closure can be used in the current transaction. It can not be used by
+     * a writer that has changed triples of the closure properties, until the commit.
+     */
+    public boolean isCurrent() {
+        return writer != Thread.currentThread();
+    }
+
+    /** Whether the closure of every property is complete. */
+    public boolean isValid() {
+        NodeTable nodeTable = triples.getNodeTable();
+        for ( Node property : predicates ) {
+            if ( ! isValid(nodeTable.getNodeIdForNode(property)) )
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the closure of a property is complete. Until it is, paths must be found
+     * from the triples.
+     */
+    public boolean isValid(NodeId propertyId) {
+        if ( NodeId.isDoesNotExist(propertyId) )
+            return false;
+        return closure.find(TupleFactory.create3(propertyId, validMarker, validMarker)).hasNext();
+    }
+
+    /**
+     * Mark the closure as not to be used until the next {@link #rebuild()}.
+     * This must be called inside a write transaction.
+     */
+    public void invalidate() {
+        NodeTable nodeTable = triples.getNodeTable();
+        for ( Node property : predicates ) {
+            NodeId p = nodeTable.getNodeIdForNode(property);
+            if ( ! NodeId.isDoesNotExist(p) )
+                closure.delete(TupleFactory.create3(p, validMarker, validMarker));
+        }
+    }
+
+    /**
+     * The nodes reachable from {@code start} by one or more links of a property, or if
+     * not {@code alongLinks}, the nodes from which {@code start} is reachable.
+     */
+    public Iterator<NodeId> reachable(NodeId propertyId, NodeId start, boolean alongLinks) {
+        Iterator<NodeId> iter = alongLinks
+            ? Iter.map(closure.find(TupleFactory.create3(propertyId, start, NodeId.NodeIdAny)), t -> t.get(2))
+            : Iter.map(closure.find(TupleFactory.create3(propertyId, NodeId.NodeIdAny, start)), t -> t.get(1));
+        if ( start.equals(validMarker) )
+            // Skip the marker tuple.
+            iter = Iter.filter(iter, x -> ! x.equals(validMarker));
+        return iter;
+    }
+
+    /** Whether {@code end} is reachable from {@code start} by one or more links of a property. */
+    public boolean contains(NodeId propertyId, NodeId start, NodeId end) {
+        if ( start.equals(validMarker) )
+            return false;
+        return closure.find(TupleFactory.create3(propertyId, start, end)).hasNext();
+    }
+
+    // ---- Changes
+
+    /** Note a triple is being added to the default graph. */
+    public void noteAdd(Node s, Node p, Node o) {
+        if ( ! predicates.contains(p) )
+            return;
+        writer = Thread.currentThread();
+        if ( pendingRebuild )
+            return;
+        // Earlier triples are in the database by now.
+        if ( pendingAdds.size() >= PendingLimit )
+            applyAdds();
+        pendingAdds.add(Triple.create(s, p, o));
+    }
+
+    /** Note a triple is being deleted from the default graph. */
+    public void noteDelete(Node s, Node p, Node o) {
+        if ( ! predicates.contains(p) )
+            return;
+        NodeTable nodeTable = triples.getNodeTable();
+        noteDelete(nodeTable.getNodeIdForNode(s), nodeTable.getNodeIdForNode(p));
+    }
+
+    /** Note a triple, as NodeIds, is being deleted from the default graph. */
+    public void noteDelete(Tuple<NodeId> triple) {
+        NodeId p = triple.get(1);
+        if ( ! predicates.contains(triples.getNodeTable().getNodeForNodeId(p)) )
+            return;
+        noteDelete(triple.get(0), p);
+    }
+
+    private void noteDelete(NodeId s, NodeId p) {
+        // Not in the database: not a change.
+        if ( NodeId.isDoesNotExist(s) || NodeId.isDoesNotExist(p) )
+            return;
+        writer = Thread.currentThread();
+        if ( pendingRebuild )
+            return;
+        if ( pendingDeletesCount >= PendingLimit ) {
+            pendingAdds.clear();
+            pendingDeletes.clear();
+            pendingRebuild = true;
+            return;
+        }
+        if ( pendingDeletes.computeIfAbsent(p, x->new HashSet<>()).add(s) )
+            pendingDeletesCount++;
+    }
+
+    private void resetPending() {
+        pendingAdds.clear();
+        pendingDeletes.clear();
+        pendingDeletesCount = 0;
+        pendingRebuild = false;
+        writer = null;
+    }
+
+    /** Apply the noted changes. */
+    private void applyPending() {
+        if ( pendingRebuild ) {
+            rebuild();
+            return;
+        }
+        if ( pendingAdds.isEmpty() && pendingDeletes.isEmpty() )
+            return;
+        applyAdds();
+        applyDeletes();
+        resetPending();
+    }
+
+    private void applyAdds() {
+        NodeTable nodeTable = triples.getNodeTable();
+        for ( Triple t : pendingAdds ) {
+            NodeId s = nodeTable.getNodeIdForNode(t.getSubject());
+            NodeId p = nodeTable.getNodeIdForNode(t.getPredicate());
+            NodeId o = nodeTable.getNodeIdForNode(t.getObject());
+            if ( NodeId.isDoesNotExist(s) || NodeId.isDoesNotExist(p) || NodeId.isDoesNotExist(o) )
+                continue;
+            addLink(p, s, o);
+        }
+        pendingAdds.clear();
+    }
+
+    private void applyDeletes() {
+        // After the additions, the closure includes everything that reached a node
+        // before and after the transaction.
+        pendingDeletes.forEach((p, subjects) -> {
+            Set<NodeId> sources = new HashSet<>();
+            for ( NodeId s : subjects ) {
+                sources.add(s);
+                reachable(p, s, false).forEachRemaining(sources::add);
+            }
+            sources.forEach(x -> recalculate(p, x));
+        });
+        pendingDeletes.clear();
+    }
+
+    private void addLink(NodeId p, NodeId a, NodeId b) {
+        // The closure is transitive so all the tuples for this link are present.
+        if ( contains(p, a, b) )
+            return;
+        List<NodeId> from = Iter.toList(reachable(p, a, false));
+        from.add(a);
+        List<NodeId> to = Iter.toList(reachable(p, b, true));
+        to.add(b);
+        for ( NodeId x : from ) {
+            for ( NodeId y : to )
+                closure.add(TupleFactory.create3(p, x, y));
+        }
+    }
+
+    /** Replace the closure tuples from {@code x} with ones calculated from the triples. */
+    private void recalculate(NodeId p, NodeId x) {
+        List<Tuple<NodeId>> current = Iter.toList(closure.find(TupleFactory.create3(p, x, NodeId.NodeIdAny)));
+        closure.deleteAll(current);
+        Set<NodeId> visited = new HashSet<>();
+        Deque<NodeId> queue = new ArrayDeque<>();
+        queue.add(x);
+        while ( ! queue.isEmpty() ) {
+            NodeId n = queue.poll();
+            Iterator<Tuple<NodeId>> iter = triples.find(TupleFactory.create3(n, p, NodeId.NodeIdAny));
+            iter.forEachRemaining(t -> {
+                NodeId y = t.get(2);
+                if ( visited.add(y) )
+                    queue.add(y);
+            });
+        }
+        for ( NodeId y : visited )
+            closure.add(TupleFactory.create3(p, x, y));
+    }
+
+    /**
+     * Recalculate the closure of every property from the triples.
+     * This must be called inside a write transaction.
+     */
+    public void rebuild() {
+        resetPending();
+        closure.clear();
+        NodeTable nodeTable = triples.getNodeTable();
+        for ( Node property : predicates ) {
+            // Allocated so that the closure can be marked as valid.
+            NodeId p = nodeTable.getAllocateNodeId(property);
+            triples.find(TupleFactory.create3(NodeId.NodeIdAny, p, NodeId.NodeIdAny)).forEachRemaining(t -> {
+                NodeId x = t.get(0);
+                // A subject has at least one tuple once it has been calculated.
+                if ( ! closure.find(TupleFactory.create3(p, x, NodeId.NodeIdAny)).hasNext() )
+                    recalculate(p, x);
+            });
+            closure.add(TupleFactory.create3(p, validMarker, validMarker));
+        }
+    }
+
+    /** Number of tuples in the closure. */
+    public long size() {
+        NodeTable nodeTable = triples.getNodeTable();
+        long markers = predicates.stream().filter(property -> isValid(nodeTable.getNodeIdForNode(property))).count();
+        return closure.size() - markers;
+    }
+
+    public TupleTable getTupleTable() {
+        return closure;
+    }
+
+    // -- TransactionListener
+
+    @Override
+    public void notifyTxnStart(Transaction transaction) {
+        if ( transaction.isWriteTxn() )
+            resetPending();
+    }
+
+    @Override
+    public void notifyPromoteFinish(Transaction transaction) {
+        if ( transaction.isWriteTxn() )
+            resetPending();
+    }
+
+    @Override
+    public void notifyPrepareStart(Transaction transaction) {
+        if ( transaction.isWriteTxn() )
+            applyPending();
+    }
+
+    @Override
+    public void notifyAbortStart(Transaction transaction) {
+        if ( transaction.isWriteTxn() )
+            resetPending();
+    }
+}
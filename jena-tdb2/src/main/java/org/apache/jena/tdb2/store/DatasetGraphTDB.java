@@ -82,6 +82,12 @@ public class DatasetGraphTDB extends DatasetGraphStorage
         return storageTDB.getTripleTable();
     }
 
+    /** The transitive closure table, or null if the database does not have one. */
+    public ClosureTable getClosureTable() {
+        checkNotClosed();
+        return storageTDB.getClosureTable();
+    }
+
     public TransactionalSystem getTxnSystem() {
         return txnSystem;
     }
@@ -129,8 +129,8 @@ public class NodeIdFactory
         return decode(value2);
     }
 
-    // 64 bit version
-    private static NodeId decode(long value2) {
+    /** The NodeId for a 64 bit on-disk encoding. See {@link #encode}. */
+    public static NodeId decode(long value2) {
         return NodeIdFactory.create64(value2);
     }
 
@@ -140,7 +140,8 @@ public class NodeIdFactory
         Bytes.setLong(v2, b, 0);
     }
 
-    private static long encode(NodeId nodeId) {
+    /** The 64 bit on-disk encoding of a NodeId. */
+    public static long encode(NodeId nodeId) {
         long x = nodeId.value2;
         switch(nodeId.type()) {
             case PTR:
@@ -175,6 +176,14 @@ public class NodeIdFactory
         b.putLong(idx, v2);
     }
 
+    /**
+     * Compare NodeIds by their on-disk encoding. This is the order of NodeIds in the
+     * tuple indexes.
+     */
+    public static int compareEncoding(NodeId nodeId1, NodeId nodeId2) {
+        return Long.compareUnsigned(encode(nodeId1), encode(nodeId2));
+    }
+
     public static void setNext(NodeId nodeId, byte[] b, int idx) {
         long v2 = encode(nodeId);
         Bytes.setLong(v2+1, b, idx);
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.apache.jena.tdb2.store.value.DateTimeNode;
+import org.apache.jena.tdb2.store.value.IntegerNode;
+
+/**
+ * An inclusive range of NodeIds, in the order of the on-disk encoding of NodeIds,
+ * which is the order of entries in the tuple indexes.
+ * <p>
+ * For some inline types, the order of the encoding follows the order of the values,
+ * at least within part of the type. {@link #numeric} and {@link #dateTime} give ranges
+ * that cover every NodeId that may be a value in an interval. The ranges are a
+ * superset - values found by scanning them still have to be tested.
+ */
+public final class NodeIdRange {
+    // 56 bits of value for inline NodeIds other than doubles.
+    private static final long MAX_VALUE_56 = 0x00FF_FFFF_FFFF_FFFFL;
+    // 62 bits of value for doubles. All ones is not used so that the upper bound is
+    // not the last possible 64 bit encoding.
+    private static final long MAX_VALUE_62 = 0x3FFF_FFFF_FFFF_FFFEL;
+
+    /** All pointers to the node table : terms that are not inline, including numbers out of range for inlining. */
+    private static final NodeIdRange ptrRange = new NodeIdRange(NodeIdFactory.createPtr(0), NodeIdFactory.createPtr(Long.MAX_VALUE));
+
+    private final NodeId low;
+    private final NodeId high;
+
+    public NodeIdRange(NodeId low, NodeId high) {
+        this.low = Objects.requireNonNull(low);
+        this.high = Objects.requireNonNull(high);
+    }
+
+    /** Lowest NodeId in the range. */
+    public NodeId getLow() {
+        return low;
+    }
+
+    /** Highest NodeId in the range. */
+    public NodeId getHigh() {
+        return high;
+    }
+
+    /**
+     * The ranges, in index order, that include all NodeIds for numbers between
+     * {@code lower} and {@code upper}, inclusive. A null bound means "unbounded".
+     */
+    public static List<NodeIdRange> numeric(BigDecimal lower, BigDecimal upper) {
+        List<NodeIdRange> ranges = new ArrayList<>();
+        ranges.add(ptrRange);
+        // xsd:integer is 56 bit two's complement so non-negative values come before negative values.
+        BigDecimal min = BigDecimal.valueOf(IntegerNode.MIN);
+        BigDecimal max = BigDecimal.valueOf(IntegerNode.MAX);
+        BigDecimal lo = ( lower == null ) ? min : lower.setScale(0, RoundingMode.CEILING).max(min);
+        BigDecimal hi = ( upper == null ) ? max : upper.setScale(0, RoundingMode.FLOOR).min(max);
+        if ( lo.compareTo(hi) <= 0 ) {
+            long loValue = lo.longValueExact();
+            long hiValue = hi.longValueExact();
+            if ( hiValue >= 0 )
+                ranges.add(integerRange(Math.max(loValue, 0), hiValue));
+            if ( loValue < 0 )
+                ranges.add(integerRange(loValue, Math.min(hiValue, -1)));
+        }
+        // The encodings of xsd:decimal and xsd:float are not in value order.
+        ranges.add(typeRange(NodeIdType.XSD_DECIMAL, NodeIdType.XSD_FLOAT));
+        // Derived integer types.
+        ranges.add(typeRange(NodeIdType.XSD_POSITIVE_INTEGER, NodeIdType.XSD_UNSIGNEDBYTE));
+        // xsd:double (highest).
+        ranges.add(new NodeIdRange(NodeId.createRaw(NodeIdType.XSD_DOUBLE, 0), NodeId.createRaw(NodeIdType.XSD_DOUBLE, MAX_VALUE_62)));
+        return ranges;
+    }
+
+    /**
+     * The ranges, in index order, that include all NodeIds for {@code xsd:dateTime}
+     * values between {@code lower} and {@code upper}, inclusive. A null bound means
+     * "unbounded".
+     * <p>
+     * Inline dateTimes are encoded with the timezone first, then the local date
+     * and time, so there is one range for each timezone. Comparing values in
+     * different timezones, or with and without a timezone, can move the local time by
+     * up to 28 hours, so the bounds are widened by two days.
+     */
+    public static List<NodeIdRange> dateTime(XMLGregorianCalendar lower, XMLGregorianCalendar upper) {
+        List<NodeIdRange> ranges = new ArrayList<>();
+        ranges.add(ptrRange);
+        LocalDate lo = localDate(lower, -2);
+        LocalDate hi = localDate(upper, 2);
+        for ( int tz = 0 ; tz < DateTimeNode.TZ_FIELD_VALUES ; tz++ ) {
+            long loValue = ( lo == null || lo.getYear() < 0 )
+                    ? DateTimeNode.packFields(tz, 0, 0, 0, 0, 0, 0)
+                    : DateTimeNode.packFields(tz, lo.getYear(), lo.getMonthValue(), lo.getDayOfMonth(), 0, 0, 0);
+            long hiValue = ( hi == null || hi.getYear() >= 8000 )
+                    ? DateTimeNode.packFields(tz, -1, -1, -1, -1, -1, -1)
+                    : DateTimeNode.packFields(tz, hi.getYear(), hi.getMonthValue(), hi.getDayOfMonth(), 23, 59, 59_999);
+            ranges.add(new NodeIdRange(NodeId.createRaw(NodeIdType.XSD_DATETIME, loValue),
+                                       NodeId.createRaw(NodeIdType.XSD_DATETIME, hiValue)));
+        }
+        // xsd:dateTimeStamp and xsd:date, which are adjacent.
+        ranges.add(typeRange(NodeIdType.XSD_DATETIMESTAMP, NodeIdType.XSD_DATE));
+        return ranges;
+    }
+
+    // The local date, moved by some days, or null for "unbounded".
+    private static LocalDate localDate(XMLGregorianCalendar cal, int days) {
+        if ( cal == null )
+            return null;
+        try {
+            return LocalDate.of(cal.getYear(), cal.getMonth(), cal.getDay()).plusDays(days);
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    private static NodeIdRange integerRange(long lo, long hi) {
+        return new NodeIdRange(NodeId.createRaw(NodeIdType.XSD_INTEGER, IntegerNode.pack56(lo)),
+                               NodeId.createRaw(NodeIdType.XSD_INTEGER, IntegerNode.pack56(hi)));
+    }
+
+    // All the NodeIds of the types from type1 to type2, which must be adjacent in the encoding.
+    private static NodeIdRange typeRange(NodeIdType type1, NodeIdType type2) {
+        return new NodeIdRange(NodeId.createRaw(type1, 0), NodeId.createRaw(type2, MAX_VALUE_56));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(low, high);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if ( this == obj )
+            return true;
+        if ( !(obj instanceof NodeIdRange other) )
+            return false;
+        return low.equals(other.low) && high.equals(other.high);
+    }
+
+    @Override
+    public String toString() {
+        return "["+low+", "+high+"]";
+    }
+}
@@ -36,6 +36,7 @@ public class StorageTDB implements StorageRDF {
     // SWITCHING. This could be the switch point, not the DatasetGraph. Probably makes little difference.
     private TripleTable                 tripleTable;
     private QuadTable                   quadTable;
+    private ClosureTable                closureTable;
     private TransactionalSystem         txnSystem;
     // SWITCHING.
 
@@ -47,9 +48,14 @@ public class StorageTDB implements StorageRDF {
     private boolean                     closed         = false;
 
     public StorageTDB(TransactionalSystem txnSystem, TripleTable tripleTable, QuadTable quadTable) {
+        this(txnSystem, tripleTable, quadTable, null);
+    }
+
+    public StorageTDB(TransactionalSystem txnSystem, TripleTable tripleTable, QuadTable quadTable, ClosureTable closureTable) {
         this.txnSystem = txnSystem;
         this.tripleTable = tripleTable;
         this.quadTable = quadTable;
+        this.closureTable = closureTable;
     }
 
     public QuadTable getQuadTable() {
@@ -62,11 +68,23 @@ public class StorageTDB implements StorageRDF {
         return tripleTable;
     }
 
+    /** The transitive closure table, or null if the database does not have one. */
+    public ClosureTable getClosureTable() {
+        checkActive();
+        return closureTable;
+    }
+
     private void checkActive() {}
 
-    private final void notifyAdd(Node g, Node s, Node p, Node o) { }
+    private final void notifyAdd(Node g, Node s, Node p, Node o) {
+        if ( closureTable != null && g == null )
+            closureTable.noteAdd(s, p, o);
+    }
 
-    private final void notifyDelete(Node g, Node s, Node p, Node o) { }
+    private final void notifyDelete(Node g, Node s, Node p, Node o) {
+        if ( closureTable != null && g == null )
+            closureTable.noteDelete(s, p, o);
+    }
 
     @Override
     public void add(Node s, Node p, Node o) {
@@ -105,7 +123,11 @@ public class StorageTDB implements StorageRDF {
         checkActive();
         ensureWriteTxn();
         removeWorker(() -> tripleTable.getNodeTupleTable().findAsNodeIds(s,p,o),
-                     x  -> tripleTable.getNodeTupleTable().getTupleTable().delete(x) );
+                     x  -> {
+                         if ( closureTable != null )
+                             closureTable.noteDelete(x);
+                         tripleTable.getNodeTupleTable().getTupleTable().delete(x);
+                     });
     }
 
     @Override
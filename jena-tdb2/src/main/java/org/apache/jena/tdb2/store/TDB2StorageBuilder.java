@@ -21,7 +21,9 @@ package org.apache.jena.tdb2.store;
 import java.io.File;
 import java.io.FileFilter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import org.apache.jena.atlas.lib.tuple.TupleMap;
@@ -38,8 +40,11 @@ import org.apache.jena.dboe.trans.bplustree.BPlusTreeFactory;
 import org.apache.jena.dboe.trans.data.TransBinaryDataFile;
 import org.apache.jena.dboe.transaction.txn.*;
 import org.apache.jena.dboe.transaction.txn.journal.Journal;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.sparql.engine.main.QC;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation;
+import org.apache.jena.system.Txn;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.params.StoreParams;
 import org.apache.jena.tdb2.solver.OpExecutorTDB2;
@@ -107,6 +112,13 @@ public class TDB2StorageBuilder {
 
         // Enable query processing.
         QC.setFactory(dsg.getContext(), OpExecutorTDB2.OpExecFactoryTDB);
+
+        // A new closure, or one left incomplete by a bulk load.
+        ClosureTable closureTable = storage.getClosureTable();
+        if ( closureTable != null && ! Txn.calculateRead(dsg, ()->closureTable.isValid()) ) {
+            log.debug("Rebuild closure: "+String.join(",", params.getClosurePredicates()));
+            Txn.executeWrite(dsg, ()->closureTable.rebuild());
+        }
         return dsg;
     }
 
@@ -189,7 +201,8 @@ public class TDB2StorageBuilder {
         NodeTable nodeTable = buildNodeTable(params.getNodeTableBaseName(), true);
         TripleTable tripleTable = buildTripleTable(nodeTable);
         QuadTable quadTable = buildQuadTable(nodeTable);
-        StorageTDB dsg = new StorageTDB(txnSystem, tripleTable, quadTable);
+        ClosureTable closureTable = buildClosureTable(tripleTable);
+        StorageTDB dsg = new StorageTDB(txnSystem, tripleTable, quadTable, closureTable);
         return dsg;
     }
 
@@ -233,6 +246,23 @@ public class TDB2StorageBuilder {
         return tripleTable;
     }
 
+    /** The closure table, or null if no properties are configured. */
+    private ClosureTable buildClosureTable(TripleTable tripleTable) {
+        String[] predicates = params.getClosurePredicates();
+        if ( predicates.length == 0 )
+            return null;
+        String primary = ClosureTable.primaryIndex;
+        String[] indexes = ClosureTable.indexes;
+        TupleIndex closureIndexes[] = new TupleIndex[indexes.length];
+        for ( int i = 0; i < indexes.length; i++ )
+            closureIndexes[i] = makeTupleIndex(primary, indexes[i], ClosureTable.indexFileName(indexes[i]));
+        List<Node> properties = Arrays.stream(predicates).map(NodeFactory::createURI).toList();
+        ClosureTable closureTable = new ClosureTable(closureIndexes, tripleTable.getNodeTupleTable(), properties);
+        listeners.add(closureTable);
+        log.debug("Closure: "+String.join(",", predicates));
+        return closureTable;
+    }
+
     private StoragePrefixesTDB buildPrefixTable(NodeTable prefixNodes) {
         String primary = params.getPrimaryIndexPrefix();
         String[] indexes = params.getPrefixIndexes();
@@ -268,7 +298,7 @@ public class TDB2StorageBuilder {
     private TupleIndex makeTupleIndex(String primary, String index, String name) {
         TupleMap cmap = TupleMap.create(primary, index);
         RecordFactory rf = new RecordFactory(SystemTDB.SizeOfNodeId * cmap.length(), 0);
-        RangeIndex rIdx = makeRangeIndex(rf, index);
+        RangeIndex rIdx = makeRangeIndex(rf, name);
         TupleIndex tIdx = new TupleIndexRecord(primary.length(), cmap, index, rf, rIdx);
         return tIdx;
     }
@@ -276,7 +306,7 @@ public class TDB2StorageBuilder {
     private RangeIndex makeRangeIndex(RecordFactory recordFactory, String name) {
         ComponentId cid = componentIdMgr.getComponentId(name);
         FileSet fs = new FileSet(location, name);
-        BPlusTree bpt = BPlusTreeFactory.createBPTree(cid, fs, recordFactory);
+        BPlusTree bpt = BPlusTreeFactory.createBPTree(cid, fs, recordFactory, params.getBlockCacheMode());
         components.add(bpt);
         return bpt;
     }
@@ -297,7 +327,8 @@ public class TDB2StorageBuilder {
         int nodeToIdCacheSize   = isData ? params.getNode2NodeIdCacheSize() : params.getPrefixNode2NodeIdCacheSize();
         int idToNodeCacheSize   = isData ? params.getNodeId2NodeCacheSize() : params.getPrefixNodeId2NodeCacheSize();
         int missCacheSize       = isData ? params.getNodeMissCacheSize()    : params.getPrefixNodeMissCacheSize();
-        nodeTable = NodeTableCache.create(nodeTable, nodeToIdCacheSize, idToNodeCacheSize, missCacheSize);
+        long idToNodeCacheBytes = isData ? params.getNodeId2NodeCacheBytes() : 0;
+        nodeTable = NodeTableCache.create(nodeTable, nodeToIdCacheSize, idToNodeCacheSize, missCacheSize, idToNodeCacheBytes);
         return nodeTable;
     }
 
@@ -0,0 +1,473 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.nodetable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+import org.apache.jena.atlas.lib.Cache;
+import org.apache.jena.atlas.lib.cache.CacheInfo;
+import org.apache.jena.graph.Node;
+import org.apache.jena.riot.thrift.ThriftConvert;
+import org.apache.jena.riot.thrift.wire.RDF_Term;
+import org.apache.jena.tdb2.TDBException;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.apache.thrift.TDeserializer;
+import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TCompactProtocol;
+
+/**
+ * A NodeId to Node cache that keeps the nodes outside the Java heap, sized by
+ * bytes, not by number of entries.
+ * <p>
+ * Nodes are stored in the RDF Thrift encoding used by {@link NodeTableTRDF} in
+ * direct {@link ByteBuffer}s. The cache is split into segments, each with its
+ * own lock. A segment is a ring buffer: new entries are appended and, when the
+ * segment is full, the oldest entries are evicted (FIFO). The per-segment index
+ * from NodeId to buffer offset is a primitive hash table so the heap cost is a
+ * few bytes per entry regardless of the size of the node.
+ * <p>
+ * Only pointer NodeIds are cached; inline NodeIds do not need the node table.
+ * A node larger than a segment is not cached.
+ */
+public class NodeCacheOffHeap implements Cache<NodeId, Node> {
+    /** Number of segments (independent locks). Must be a power of two. */
+    private static final int NumSegments = 16;
+    // Entry header: key (long), length of encoding (int).
+    private static final int HeaderSize  = Long.BYTES + Integer.BYTES;
+    /** Smallest size of cache, in bytes. */
+    public static final long MinBytes    = NumSegments * 1024L;
+
+    private final Segment[] segments;
+    private final long maxBytes;
+
+    private final LongAdder hits      = new LongAdder();
+    private final LongAdder misses    = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** Create a cache using up to {@code maxBytes} of off-heap memory. */
+    public NodeCacheOffHeap(long maxBytes) {
+        if ( maxBytes < MinBytes )
+            throw new IllegalArgumentException("NodeCacheOffHeap: too small: "+maxBytes);
+        long segmentBytes = Math.min(maxBytes / NumSegments, Integer.MAX_VALUE - 8);
+        this.maxBytes = segmentBytes * NumSegments;
+        this.segments = new Segment[NumSegments];
+        for ( int i = 0 ; i < NumSegments ; i++ )
+            segments[i] = new Segment((int)segmentBytes);
+    }
+
+    private Segment segment(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return segments[(int)(h >>> 32) & (NumSegments - 1)];
+    }
+
+    private static boolean cacheable(NodeId nodeId) {
+        return nodeId != null && nodeId.isPtr();
+    }
+
+    @Override
+    public boolean containsKey(NodeId key) {
+        if ( !cacheable(key) )
+            return false;
+        long k = key.getPtrLocation();
+        return segment(k).contains(k);
+    }
+
+    @Override
+    public Node getIfPresent(NodeId key) {
+        if ( !cacheable(key) )
+            return null;
+        long k = key.getPtrLocation();
+        byte[] bytes = segment(k).get(k);
+        if ( bytes == null ) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return decode(bytes);
+    }
+
+    @Override
+    public Node get(NodeId key, Function<NodeId, Node> callable) {
+        Node node = getIfPresent(key);
+        if ( node != null )
+            return node;
+        node = callable.apply(key);
+        if ( node != null )
+            put(key, node);
+        return node;
+    }
+
+    @Override
+    public void put(NodeId key, Node node) {
+        if ( !cacheable(key) || node == null )
+            return;
+        long k = key.getPtrLocation();
+        byte[] bytes = encode(node);
+        segment(k).put(k, bytes);
+    }
+
+    @Override
+    public void remove(NodeId key) {
+        if ( !cacheable(key) )
+            return;
+        long k = key.getPtrLocation();
+        segment(k).remove(k);
+    }
+
+    /** Iterate over the keys (a snapshot). */
+    @Override
+    public Iterator<NodeId> keys() {
+        List<NodeId> keys = new ArrayList<>();
+        for ( Segment seg : segments )
+            seg.keys(k -> keys.add(NodeIdFactory.createPtr(k)));
+        return keys.iterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        for ( Segment seg : segments )
+            seg.clear();
+    }
+
+    @Override
+    public long size() {
+        long x = 0;
+        for ( Segment seg : segments )
+            x += seg.count();
+        return x;
+    }
+
+    @Override
+    public CacheInfo stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        long requests = h + m;
+        double hitRate = (requests == 0) ? 1.0 : ((double)h) / requests;
+        return new CacheInfo(requests, h, m, hitRate);
+    }
+
+    /** Number of entries dropped to make space for new entries. */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /** Number of off-heap bytes allocated. */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** Number of off-heap bytes currently holding entries. */
+    public long getBytesUsed() {
+        long x = 0;
+        for ( Segment seg : segments )
+            x += seg.bytesUsed();
+        return x;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("NodeCacheOffHeap[%s evictions=%,d entries=%,d bytes=%,d/%,d]",
+                             stats(), getEvictionCount(), size(), getBytesUsed(), getMaxBytes());
+    }
+
+    // ---- Encoding : as NodeTableTRDF.
+
+    // TSerializer and TDeserializer are not thread-safe.
+    private static final ThreadLocal<TSerializer> serializer = ThreadLocal.withInitial(()->{
+        try {
+            return new TSerializer(new TCompactProtocol.Factory());
+        } catch (TException ex) {
+            throw new TDBException("NodeCacheOffHeap/serializer", ex);
+        }
+    });
+
+    private static final ThreadLocal<TDeserializer> deserializer = ThreadLocal.withInitial(()->{
+        try {
+            return new TDeserializer(new TCompactProtocol.Factory());
+        } catch (TException ex) {
+            throw new TDBException("NodeCacheOffHeap/deserializer", ex);
+        }
+    });
+
+    private static byte[] encode(Node node) {
+        RDF_Term term = ThriftConvert.convert(node, true);
+        try {
+            return serializer.get().serialize(term);
+        } catch (TException ex) {
+            throw new TDBException("NodeCacheOffHeap/encode", ex);
+        }
+    }
+
+    private static Node decode(byte[] bytes) {
+        RDF_Term term = new RDF_Term();
+        try {
+            deserializer.get().deserialize(term, bytes);
+        } catch (TException ex) {
+            throw new TDBException("NodeCacheOffHeap/decode", ex);
+        }
+        return ThriftConvert.convert(term);
+    }
+
+    /**
+     * Ring buffer of entries (key, length, bytes) in a direct ByteBuffer.
+     * Live entries are in [tail, head) or, when wrapped, in [tail, limit) and [0, head).
+     */
+    private class Segment {
+        private final ByteBuffer arena;
+        private final int capacity;
+        private final LongIntMap index = new LongIntMap();
+        private int head  = 0;
+        private int tail  = 0;
+        private int limit;
+        private int count = 0;
+        private long bytesUsed = 0;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.limit = capacity;
+            this.arena = ByteBuffer.allocateDirect(capacity);
+        }
+
+        synchronized boolean contains(long key) {
+            return index.get(key) >= 0;
+        }
+
+        synchronized byte[] get(long key) {
+            int posn = index.get(key);
+            if ( posn < 0 )
+                return null;
+            int len = arena.getInt(posn + Long.BYTES);
+            byte[] bytes = new byte[len];
+            arena.get(posn + HeaderSize, bytes);
+            return bytes;
+        }
+
+        synchronized void put(long key, byte[] bytes) {
+            int size = HeaderSize + bytes.length;
+            if ( size > capacity )
+                return;
+            if ( index.get(key) >= 0 )
+                // Nodes do not change once allocated a NodeId.
+                return;
+            makeRoom(size);
+            arena.putLong(head, key);
+            arena.putInt(head + Long.BYTES, bytes.length);
+            arena.put(head + HeaderSize, bytes);
+            index.put(key, head);
+            head += size;
+            count++;
+            bytesUsed += size;
+        }
+
+        // Remove from the index; the space is reclaimed when the entry reaches the tail.
+        synchronized void remove(long key) {
+            index.remove(key);
+        }
+
+        synchronized void keys(LongConsumer action) {
+            index.forEachKey(action);
+        }
+
+        synchronized void clear() {
+            index.clear();
+            head = 0;
+            tail = 0;
+            limit = capacity;
+            count = 0;
+            bytesUsed = 0;
+        }
+
+        synchronized long count() {
+            return index.size();
+        }
+
+        synchronized long bytesUsed() {
+            return bytesUsed;
+        }
+
+        private void makeRoom(int size) {
+            if ( head + size > capacity ) {
+                // Evict the rest of the upper lap, then wrap around.
+                while ( count > 0 && tail >= head )
+                    evictTail();
+                if ( count == 0 ) {
+                    head = 0;
+                    tail = 0;
+                    limit = capacity;
+                    return;
+                }
+                limit = head;
+                head = 0;
+            }
+            // Wrapped : evict the entries that the new entry overwrites.
+            while ( count > 0 && tail >= head && tail < head + size )
+                evictTail();
+            if ( count == 0 ) {
+                tail = head;
+                limit = capacity;
+            }
+        }
+
+        private void evictTail() {
+            long key = arena.getLong(tail);
+            int size = HeaderSize + arena.getInt(tail + Long.BYTES);
+            // Explicitly removed entries are no longer in the index.
+            if ( index.get(key) == tail ) {
+                index.remove(key);
+                evictions.increment();
+            }
+            tail += size;
+            count--;
+            bytesUsed -= size;
+            if ( tail >= limit ) {
+                tail = 0;
+                limit = capacity;
+            }
+        }
+    }
+
+    /** Open addressing hash map from non-negative long to non-negative int. */
+    private static class LongIntMap {
+        private static final long Empty = -1;
+        private long[] keys;
+        private int[] values;
+        private int size = 0;
+
+        LongIntMap() {
+            allocate(1024);
+        }
+
+        private void allocate(int slots) {
+            keys = new long[slots];
+            values = new int[slots];
+            Arrays.fill(keys, Empty);
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int)(h ^ (h >>> 32)) & (keys.length - 1);
+        }
+
+        int size() {
+            return size;
+        }
+
+        /** Return the value or -1. */
+        int get(long key) {
+            int i = slot(key);
+            for ( ;; ) {
+                long k = keys[i];
+                if ( k == Empty )
+                    return -1;
+                if ( k == key )
+                    return values[i];
+                i = (i + 1) & (keys.length - 1);
+            }
+        }
+
+        void put(long key, int value) {
+            if ( 2 * (size + 1) > keys.length )
+                resize();
+            int i = slot(key);
+            for ( ;; ) {
+                long k = keys[i];
+                if ( k == Empty ) {
+                    keys[i] = key;
+                    values[i] = value;
+                    size++;
+                    return;
+                }
+                if ( k == key ) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & (keys.length - 1);
+            }
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key);
+            for ( ;; ) {
+                long k = keys[i];
+                if ( k == Empty )
+                    return;
+                if ( k == key )
+                    break;
+                i = (i + 1) & mask;
+            }
+            // Backward shift deletion.
+            int gap = i;
+            int j = i;
+            for ( ;; ) {
+                j = (j + 1) & mask;
+                long k = keys[j];
+                if ( k == Empty )
+                    break;
+                int home = slot(k);
+                // Move k into the gap if its home slot is not in (gap, j].
+                boolean inRange = (gap <= j) ? (gap < home && home <= j) : (gap < home || home <= j);
+                if ( !inRange ) {
+                    keys[gap] = k;
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = Empty;
+            size--;
+        }
+
+        void forEachKey(LongConsumer action) {
+            for ( long k : keys ) {
+                if ( k != Empty )
+                    action.accept(k);
+            }
+        }
+
+        void clear() {
+            allocate(1024);
+            size = 0;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate(2 * oldKeys.length);
+            size = 0;
+            for ( int i = 0 ; i < oldKeys.length ; i++ ) {
+                if ( oldKeys[i] != Empty )
+                    put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
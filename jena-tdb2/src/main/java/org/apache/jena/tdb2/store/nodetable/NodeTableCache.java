@@ -77,21 +77,39 @@ public class NodeTableCache implements NodeTable, TransactionListener {
         int nodeToIdCacheSize   = isData ? params.getNode2NodeIdCacheSize() : params.getPrefixNode2NodeIdCacheSize();
         int idToNodeCacheSize   = isData ? params.getNodeId2NodeCacheSize() : params.getPrefixNodeId2NodeCacheSize();
         int missCacheSize       = isData ? params.getNodeMissCacheSize()    : params.getPrefixNodeMissCacheSize();
-        return create(nodeTable, nodeToIdCacheSize, idToNodeCacheSize, missCacheSize);
+        long idToNodeCacheBytes = isData ? params.getNodeId2NodeCacheBytes() : 0;
+        return create(nodeTable, nodeToIdCacheSize, idToNodeCacheSize, missCacheSize, idToNodeCacheBytes);
     }
 
     /** Build a node table cache. */
     public static NodeTable create(NodeTable nodeTable, int nodeToIdCacheSize, int idToNodeCacheSize, int nodeMissesCacheSize) {
-        if ( nodeToIdCacheSize <= 0 && idToNodeCacheSize <= 0 )
+        return create(nodeTable, nodeToIdCacheSize, idToNodeCacheSize, nodeMissesCacheSize, 0);
+    }
+
+    /**
+     * Build a node table cache.
+     * If {@code idToNodeCacheBytes} is greater than zero, the NodeId to Node cache is
+     * a {@link NodeCacheOffHeap} of that many bytes, and {@code idToNodeCacheSize} is not used.
+     */
+    public static NodeTable create(NodeTable nodeTable, int nodeToIdCacheSize, int idToNodeCacheSize, int nodeMissesCacheSize,
+                                   long idToNodeCacheBytes) {
+        if ( nodeToIdCacheSize <= 0 && idToNodeCacheSize <= 0 && idToNodeCacheBytes <= 0 )
             return nodeTable;
-        return new NodeTableCache(nodeTable, nodeToIdCacheSize, idToNodeCacheSize, nodeMissesCacheSize);
+        return new NodeTableCache(nodeTable, nodeToIdCacheSize, idToNodeCacheSize, nodeMissesCacheSize, idToNodeCacheBytes);
     }
 
-    private NodeTableCache(NodeTable baseTable, int nodeToIdCacheSize, int idToNodeCacheSize, int nodeMissesCacheSize) {
+    private NodeTableCache(NodeTable baseTable, int nodeToIdCacheSize, int idToNodeCacheSize, int nodeMissesCacheSize,
+                           long idToNodeCacheBytes) {
         this.baseTable = baseTable;
         if ( nodeToIdCacheSize > 0 )
             node2id_Cache = createCache("nodeToId", nodeToIdCacheSize, 1000);
-        if ( idToNodeCacheSize > 0 )
+        if ( idToNodeCacheBytes > 0 && idToNodeCacheBytes < NodeCacheOffHeap.MinBytes ) {
+            Log.warn(this, "NodeId to Node cache size of "+idToNodeCacheBytes+" bytes is too small - using "+NodeCacheOffHeap.MinBytes);
+            idToNodeCacheBytes = NodeCacheOffHeap.MinBytes;
+        }
+        if ( idToNodeCacheBytes > 0 )
+            id2node_Cache = new ThreadBufferingCache<>("idToNode", new NodeCacheOffHeap(idToNodeCacheBytes), 1000);
+        else if ( idToNodeCacheSize > 0 )
             id2node_Cache = createCache("idToNode", idToNodeCacheSize, 1000);
         if ( nodeMissesCacheSize > 0 )
             notPresent = CacheFactory.createCache(nodeMissesCacheSize);
@@ -120,6 +138,14 @@ public class NodeTableCache implements NodeTable, TransactionListener {
         return getNodeIdForNodeCache(node) != null;
     }
 
+    /**
+     * The committed NodeId to Node cache, or null if there isn't one.
+     * This is a {@link NodeCacheOffHeap} if the cache is sized by bytes.
+     */
+    public Cache<NodeId, Node> getNodeIdToNodeCache() {
+        return id2node_Cache == null ? null : id2node_Cache.getBaseCache();
+    }
+
     // ---- Cache access
 
     @Override
@@ -27,6 +27,7 @@ import org.apache.jena.atlas.iterator.Iter;
 import org.apache.jena.atlas.lib.Cache;
 import org.apache.jena.atlas.lib.CacheFactory;
 import org.apache.jena.atlas.lib.Lib;
+import org.apache.jena.atlas.lib.cache.CacheInfo;
 import org.apache.jena.tdb2.TDBException;
 
 /**
@@ -223,4 +224,10 @@ public class ThreadBufferingCache<Key,Value> implements Cache<Key,Value> {
             return baseCache.size();
         return localCache().size();
     }
+
+    /** Statistics of the main cache. */
+    @Override
+    public CacheInfo stats() {
+        return baseCache.stats();
+    }
 }
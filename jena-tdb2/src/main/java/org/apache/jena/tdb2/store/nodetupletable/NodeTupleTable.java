@@ -19,12 +19,14 @@
 package org.apache.jena.tdb2.store.nodetupletable;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.lib.Closeable;
 import org.apache.jena.atlas.lib.Sync;
 import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.graph.Node;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdRange;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.tupletable.TupleTable;
 
@@ -49,6 +51,40 @@ public interface NodeTupleTable extends Sync, Closeable
     /** Find by NodeId. */
     public Iterator<Tuple<NodeId>> find(Tuple<NodeId> ids);
 
+    /**
+     * Find by NodeId, with range scans for the NodeIds in slot {@code slot}.
+     * Return null if the tuple table can not do range scans for the pattern.
+     * See {@link TupleTable#findRange}.
+     */
+    public default Iterator<Tuple<NodeId>> findRange(Tuple<NodeId> ids, int slot, List<NodeIdRange> ranges) {
+        return null;
+    }
+
+    /**
+     * Find by NodeId, with the results sorted by the NodeId in slot {@code slot}.
+     * Return null if the tuple table has no index for this.
+     * See {@link TupleTable#findSorted}.
+     */
+    public default Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> ids, int slot) {
+        return null;
+    }
+
+    /**
+     * Split the tuples that {@link #find(Tuple)} returns into up to {@code n} parts.
+     * Return the tuples that start each part after the first, or null if the tuple
+     * table can not split. See {@link TupleTable#split}.
+     */
+    public default List<Tuple<NodeId>> split(Tuple<NodeId> ids, int n) {
+        return null;
+    }
+
+    /**
+     * Find by NodeId, in the part from {@code start} (inclusive) to {@code finish}
+     * (exclusive), tuples returned by {@link #split}, or null for no limit.
+     * See {@link TupleTable#findPart}.
+     */
+    public Iterator<Tuple<NodeId>> findPart(Tuple<NodeId> ids, Tuple<NodeId> start, Tuple<NodeId> finish);
+
     /** Find all tuples */
     public Iterator<Tuple<NodeId>> findAll();
 
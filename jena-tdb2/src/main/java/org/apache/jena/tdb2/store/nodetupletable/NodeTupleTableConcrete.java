@@ -21,6 +21,7 @@ package org.apache.jena.tdb2.store.nodetupletable;
 import static java.lang.String.format;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.iterator.Iter;
 import org.apache.jena.atlas.lib.tuple.Tuple;
@@ -29,6 +30,7 @@ import org.apache.jena.graph.Node;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.lib.TupleLib;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdRange;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.tupletable.TupleIndex;
 import org.apache.jena.tdb2.store.tupletable.TupleTable;
@@ -168,6 +170,49 @@ public class NodeTupleTableConcrete implements NodeTupleTable
         } finally { finishRead(); }
     }
 
+    @Override
+    public Iterator<Tuple<NodeId>> findRange(Tuple<NodeId> tuple, int slot, List<NodeIdRange> ranges)
+    {
+        try {
+            startRead();
+            Iterator<Tuple<NodeId>> iter = tupleTable.findRange(tuple, slot, ranges);
+            if ( iter == null )
+                return null;
+            return iteratorControl(iter);
+        } finally { finishRead(); }
+    }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> tuple, int slot)
+    {
+        try {
+            startRead();
+            Iterator<Tuple<NodeId>> iter = tupleTable.findSorted(tuple, slot);
+            if ( iter == null )
+                return null;
+            return iteratorControl(iter);
+        } finally { finishRead(); }
+    }
+
+    @Override
+    public List<Tuple<NodeId>> split(Tuple<NodeId> tuple, int n)
+    {
+        try {
+            startRead();
+            return tupleTable.split(tuple, n);
+        } finally { finishRead(); }
+    }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findPart(Tuple<NodeId> tuple, Tuple<NodeId> start, Tuple<NodeId> finish)
+    {
+        try {
+            startRead();
+            Iterator<Tuple<NodeId>> iter = tupleTable.findPart(tuple, start, finish);
+            return iteratorControl(iter);
+        } finally { finishRead(); }
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> findAll()
     {
@@ -19,10 +19,12 @@
 package org.apache.jena.tdb2.store.nodetupletable;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.graph.Node;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdRange;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.tupletable.TupleTable;
 
@@ -64,6 +66,22 @@ public class NodeTupleTableWrapper implements NodeTupleTable
     public Iterator<Tuple<NodeId>> find(Tuple<NodeId> tuple)
     { return nodeTupleTable.find(tuple); }
 
+    @Override
+    public Iterator<Tuple<NodeId>> findRange(Tuple<NodeId> tuple, int slot, List<NodeIdRange> ranges)
+    { return nodeTupleTable.findRange(tuple, slot, ranges); }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> tuple, int slot)
+    { return nodeTupleTable.findSorted(tuple, slot); }
+
+    @Override
+    public List<Tuple<NodeId>> split(Tuple<NodeId> tuple, int n)
+    { return nodeTupleTable.split(tuple, n); }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findPart(Tuple<NodeId> tuple, Tuple<NodeId> start, Tuple<NodeId> finish)
+    { return nodeTupleTable.findPart(tuple, start, finish); }
+
     @Override
     public Iterator<Tuple<NodeId>> findAsNodeIds(Node... nodes)
     { return nodeTupleTable.findAsNodeIds(nodes); }
@@ -20,12 +20,15 @@ package org.apache.jena.tdb2.store.tupletable;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.lib.Closeable;
 import org.apache.jena.atlas.lib.Sync;
 import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.atlas.lib.tuple.TupleMap;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.apache.jena.tdb2.store.NodeIdRange;
 
 public interface TupleIndex extends Sync, Closeable
 {
@@ -55,6 +58,62 @@ public interface TupleIndex extends Sync, Closeable
      */
     public Iterator<Tuple<NodeId>> find(Tuple<NodeId> pattern);
 
+    /**
+     * Find all tuples matching the pattern that have a NodeId in one of the ranges in
+     * the natural order slot {@code slot}. The ranges are scanned in list order.
+     * <p>
+     * Return null if the index can not do this with range scans: the pattern slots
+     * before the range slot, in index order, must all be set, and the range slot and
+     * the slots after it must all be "any".
+     */
+    public default Iterator<Tuple<NodeId>> findRange(Tuple<NodeId> pattern, int slot, List<NodeIdRange> ranges) {
+        return null;
+    }
+
+    /**
+     * Split the tuples that {@link #find} returns for the pattern into up to {@code n}
+     * parts of similar size, based on the structure of the index. Return the tuples,
+     * in natural order, that start each part after the first, in index order, for use
+     * with {@link #findPart}. An empty list means no split. Return null if the index
+     * can not split.
+     */
+    public default List<Tuple<NodeId>> split(Tuple<NodeId> pattern, int n) {
+        return null;
+    }
+
+    /**
+     * Find the tuples matching the pattern that are, in index order, from {@code start}
+     * (inclusive) to {@code finish} (exclusive). Either may be null for no limit.
+     * The limits are tuples returned by {@link #split} for the pattern.
+     */
+    public Iterator<Tuple<NodeId>> findPart(Tuple<NodeId> pattern, Tuple<NodeId> start, Tuple<NodeId> finish);
+
+    /**
+     * Return the index order position of the natural order slot {@code slot} if, in
+     * this index, the slots set in the pattern come first, followed by {@code slot},
+     * then the remaining "any" slots. Otherwise return -1.
+     * <p>
+     * A {@link #find} for such a pattern returns tuples sorted by the NodeId in
+     * {@code slot}, in the order of {@link NodeIdFactory#compareEncoding}.
+     */
+    public default int prefixPosition(Tuple<NodeId> pattern, int slot) {
+        TupleMap tupleMap = getMapping();
+        int position = -1;
+        for ( int i = 0; i < pattern.len() ; i++ ) {
+            int naturalSlot = tupleMap.mapIdx(i);
+            boolean isAny = NodeId.isAny(pattern.get(naturalSlot));
+            if ( naturalSlot == slot ) {
+                if ( ! isAny )
+                    return -1;
+                position = i;
+            } else if ( isAny == ( position < 0 ) ) {
+                // Unset slot before the slot or set slot after it.
+                return -1;
+            }
+        }
+        return position;
+    }
+
     /** return an iterator of everything */
     public Iterator<Tuple<NodeId>> all();
 
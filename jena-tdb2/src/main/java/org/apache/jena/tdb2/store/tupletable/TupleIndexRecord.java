@@ -23,6 +23,7 @@ import static org.apache.jena.tdb2.sys.SystemTDB.SizeOfNodeId;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.function.Predicate;
 
 import org.apache.jena.atlas.iterator.Iter;
@@ -39,6 +40,7 @@ import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.lib.TupleLib;
 import org.apache.jena.tdb2.store.NodeId;
 import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.apache.jena.tdb2.store.NodeIdRange;
 
 public class TupleIndexRecord extends TupleIndexBase
 {
@@ -243,6 +245,92 @@ public class TupleIndexRecord extends TupleIndexBase
         return tuples;
     }
 
+    @Override
+    public Iterator<Tuple<NodeId>> findRange(Tuple<NodeId> patternNaturalOrder, int slot, List<NodeIdRange> ranges) {
+        // Convert to index order.
+        Tuple<NodeId> pattern = tupleMap.map(patternNaturalOrder);
+        final int idx = prefixPosition(patternNaturalOrder, slot);
+        if ( idx < 0 )
+            return null;
+        return Iter.flatMap(ranges.iterator(), range -> {
+            Record minRec = factory.createKeyOnly();
+            Record maxRec = factory.createKeyOnly();
+            for ( int i = 0; i < idx ; i++ ) {
+                NodeIdFactory.set(pattern.get(i), minRec.getKey(), i*SizeOfNodeId);
+                NodeIdFactory.set(pattern.get(i), maxRec.getKey(), i*SizeOfNodeId);
+            }
+            // Low inclusive; high+1 exclusive.
+            NodeIdFactory.set(range.getLow(), minRec.getKey(), idx*SizeOfNodeId);
+            NodeIdFactory.setNext(range.getHigh(), maxRec.getKey(), idx*SizeOfNodeId);
+            return index.iterator(minRec, maxRec, recordMapper);
+        });
+    }
+
+    @Override
+    public List<Tuple<NodeId>> split(Tuple<NodeId> patternNaturalOrder, int n) {
+        Tuple<NodeId> pattern = tupleMap.map(patternNaturalOrder);
+        Record[] range = keyRange(pattern);
+        if ( range == null )
+            return List.of();
+        List<Record> keys = index.split(range[0], range[1], n);
+        return Iter.iter(keys).map(r -> TupleLib.tuple(r, tupleMap)).toList();
+    }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findPart(Tuple<NodeId> patternNaturalOrder, Tuple<NodeId> start, Tuple<NodeId> finish) {
+        Tuple<NodeId> pattern = tupleMap.map(patternNaturalOrder);
+        Record[] range = keyRange(pattern);
+        if ( range == null )
+            // All slots set.
+            return find(patternNaturalOrder);
+        Record minRec = range[0];
+        Record maxRec = range[1];
+        if ( start != null ) {
+            Record r = TupleLib.record(factory, start, tupleMap);
+            if ( minRec == null || Record.keyGT(r, minRec) )
+                minRec = r;
+        }
+        if ( finish != null ) {
+            Record r = TupleLib.record(factory, finish, tupleMap);
+            if ( maxRec == null || Record.keyLT(r, maxRec) )
+                maxRec = r;
+        }
+        if ( minRec != null && maxRec != null && Record.keyGE(minRec, maxRec) )
+            return Iter.nullIterator();
+        Iterator<Tuple<NodeId>> tuples = index.iterator(minRec, maxRec, recordMapper);
+        // Set slots after the leading ones.
+        int leading = 0;
+        while ( leading < pattern.len() && ! NodeId.isAny(pattern.get(leading)) )
+            leading++;
+        for ( int i = leading ; i < pattern.len() ; i++ ) {
+            if ( ! NodeId.isAny(pattern.get(i)) )
+                return scan(tuples, patternNaturalOrder);
+        }
+        return tuples;
+    }
+
+    /**
+     * The index key range, {min (inclusive), max (exclusive)}, of the leading set slots
+     * of a pattern in index order, with nulls for no limit. Return null if all slots are set.
+     */
+    private Record[] keyRange(Tuple<NodeId> pattern) {
+        int leadingIdx = -1;
+        while ( leadingIdx+1 < pattern.len() && ! NodeId.isAny(pattern.get(leadingIdx+1)) )
+            leadingIdx++;
+        if ( leadingIdx == pattern.len()-1 )
+            return null;
+        if ( leadingIdx < 0 )
+            return new Record[] {null, null};
+        Record minRec = factory.createKeyOnly();
+        Record maxRec = factory.createKeyOnly();
+        for ( int i = 0; i <= leadingIdx ; i++ ) {
+            NodeIdFactory.set(pattern.get(i), minRec.getKey(), i*SizeOfNodeId);
+            NodeIdFactory.set(pattern.get(i), maxRec.getKey(), i*SizeOfNodeId);
+        }
+        NodeIdFactory.setNext(pattern.get(leadingIdx), maxRec.getKey(), leadingIdx*SizeOfNodeId);
+        return new Record[] {minRec, maxRec};
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> all()
     {
@@ -20,10 +20,12 @@ package org.apache.jena.tdb2.store.tupletable;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.atlas.lib.tuple.TupleMap;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdRange;
 
 public class TupleIndexWrapper implements TupleIndex
 {
@@ -61,6 +63,26 @@ public class TupleIndexWrapper implements TupleIndex
         return index.find(pattern);
     }
 
+    @Override
+    public Iterator<Tuple<NodeId>> findRange(Tuple<NodeId> pattern, int slot, List<NodeIdRange> ranges) {
+        return index.findRange(pattern, slot, ranges);
+    }
+
+    @Override
+    public List<Tuple<NodeId>> split(Tuple<NodeId> pattern, int n) {
+        return index.split(pattern, n);
+    }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findPart(Tuple<NodeId> pattern, Tuple<NodeId> start, Tuple<NodeId> finish) {
+        return index.findPart(pattern, start, finish);
+    }
+
+    @Override
+    public int prefixPosition(Tuple<NodeId> pattern, int slot) {
+        return index.prefixPosition(pattern, slot);
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> all() {
         return index.all();
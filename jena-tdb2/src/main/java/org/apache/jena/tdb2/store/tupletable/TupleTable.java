@@ -30,6 +30,8 @@ import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.atlas.logging.Log;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.apache.jena.tdb2.store.NodeIdRange;
 import org.apache.jena.tdb2.sys.SystemTDB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -147,6 +149,11 @@ public class TupleTable implements Sync, Closeable
         if ( numSlots == 0 )
             return scanAllIndex.all();
 
+        return chooseIndex(pattern).find(pattern);
+    }
+
+    // The index used by find for a pattern with some slots set.
+    private TupleIndex chooseIndex(Tuple<NodeId> pattern) {
         int indexNumSlots = 0;
         TupleIndex index = null;
         for ( TupleIndex idx : indexes ) {
@@ -162,7 +169,84 @@ public class TupleTable implements Sync, Closeable
         if ( index == null )
             // No index at all.  Scan.
             index = indexes[0];
-        return index.find(pattern);
+        return index;
+    }
+
+    // The index used by find for a pattern.
+    private TupleIndex indexFor(Tuple<NodeId> pattern) {
+        for ( int i = 0; i < tupleLen ; i++ ) {
+            if ( ! NodeId.isAny(pattern.get(i)) )
+                return chooseIndex(pattern);
+        }
+        return scanAllIndex;
+    }
+
+    /**
+     * Split the tuples that {@link #find} returns for the pattern into up to {@code n}
+     * parts, in the order of the index used. Return the tuples that start each part
+     * after the first, for use with {@link #findPart}, or null if the index can not split.
+     * See {@link TupleIndex#split}.
+     */
+    public List<Tuple<NodeId>> split(Tuple<NodeId> pattern, int n) {
+        if ( tupleLen != pattern.len() )
+            throw new TDBException(format("Mismatch: finding tuple of length %d in a table of tuples of length %d", pattern.len(), tupleLen));
+        for ( int i = 0; i < tupleLen ; i++ ) {
+            if ( NodeId.isDoesNotExist(pattern.get(i)) )
+                return List.of();
+        }
+        return indexFor(pattern).split(pattern, n);
+    }
+
+    /**
+     * Find the matching tuples in the part of the index used by {@link #find} from
+     * {@code start} (inclusive) to {@code finish} (exclusive), which are tuples
+     * returned by {@link #split} for the pattern, or null for no limit.
+     */
+    public Iterator<Tuple<NodeId>> findPart(Tuple<NodeId> pattern, Tuple<NodeId> start, Tuple<NodeId> finish) {
+        if ( tupleLen != pattern.len() )
+            throw new TDBException(format("Mismatch: finding tuple of length %d in a table of tuples of length %d", pattern.len(), tupleLen));
+        for ( int i = 0; i < tupleLen ; i++ ) {
+            if ( NodeId.isDoesNotExist(pattern.get(i)) )
+                return Iter.nullIterator();
+        }
+        return indexFor(pattern).findPart(pattern, start, finish);
+    }
+
+    /**
+     * Find all matching tuples with a NodeId in one of the ranges in slot {@code slot},
+     * using range scans of an index. Return null if there is no index where the
+     * defined slots of the pattern are a prefix followed by the range slot.
+     * See {@link TupleIndex#findRange}.
+     */
+    public Iterator<Tuple<NodeId>> findRange(Tuple<NodeId> pattern, int slot, List<NodeIdRange> ranges) {
+        if ( tupleLen != pattern.len() )
+            throw new TDBException(format("Mismatch: finding tuple of length %d in a table of tuples of length %d", pattern.len(), tupleLen));
+        for ( TupleIndex idx : indexes ) {
+            if ( idx == null )
+                continue;
+            Iterator<Tuple<NodeId>> iter = idx.findRange(pattern, slot, ranges);
+            if ( iter != null )
+                return iter;
+        }
+        return null;
+    }
+
+    /**
+     * Find all matching tuples, sorted by the NodeId in slot {@code slot}, in the order of
+     * {@link NodeIdFactory#compareEncoding}. Return null if there is no index where
+     * the defined slots of the pattern are a prefix followed by {@code slot}.
+     * See {@link TupleIndex#prefixPosition}.
+     */
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> pattern, int slot) {
+        if ( tupleLen != pattern.len() )
+            throw new TDBException(format("Mismatch: finding tuple of length %d in a table of tuples of length %d", pattern.len(), tupleLen));
+        for ( TupleIndex idx : indexes ) {
+            if ( idx == null )
+                continue;
+            if ( idx.prefixPosition(pattern, slot) >= 0 )
+                return idx.find(pattern);
+        }
+        return null;
     }
 
     @Override
@@ -103,6 +103,22 @@ public class DateTimeNode
         return v;
     }
 
+    /**
+     * Pack a local date and time with a timezone field value (0 to 127), without
+     * checking the fields. Used to make the bounds of a scan over packed values: within
+     * one timezone field value, the order of packed values is the order of the local
+     * date and time.
+     */
+    public static long packFields(int tzField, int year, int month, int day, int hour, int mins, int millisec) {
+        long v = 0;
+        v = date(v, year, month, day);
+        v = time(v, hour, mins, millisec);
+        return tz(v, tzField);
+    }
+
+    /** The number of timezone field values. */
+    public static final int TZ_FIELD_VALUES = 1 << TZ_LEN;
+
     // From string. Assumed legal. Retains all info this way.
     // returns -1 for unpackable.
     public static long packDate(String lex) {
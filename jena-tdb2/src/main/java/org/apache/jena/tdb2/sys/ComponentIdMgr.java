@@ -56,6 +56,9 @@ public class ComponentIdMgr {
 
         setup(50, "nodes");
         setup(51, "nodes-data");
+
+        setup(60, "closure-PSO");
+        setup(61, "closure-POS");
     }
 
     static void setup(int idx, String unitName) {
@@ -597,7 +597,11 @@ public class DatabaseOps {
         ReorderTransformation reorder = null;
         if ( location.exists(Names.optStats) ) {
             try {
-                reorder = ReorderLib.weighted(location.getPath(Names.optStats));
+                // Cost-based, if enabled and the stats file has characteristic sets.
+                String filename = location.getPath(Names.optStats);
+                reorder = ARQ.getContext().isTrue(SystemTDB.symCostBasedReorder)
+                        ? ReorderLib.statistics(filename)
+                        : ReorderLib.weighted(filename);
                 LOG.debug("Statistics-based BGP optimizer");
             }
             catch (SSE_ParseException ex) {
@@ -31,6 +31,7 @@ import org.apache.jena.dboe.base.record.RecordFactory;
 import org.apache.jena.dboe.sys.SysDB;
 import org.apache.jena.dboe.sys.SystemIndex;
 import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderDynamicProgramming;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderLib;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation;
 import org.apache.jena.sparql.util.Symbol;
@@ -119,6 +120,74 @@ public class SystemTDB
     /** Experimental : triple and quad filtering at scan level */
     public static final Symbol symTupleFilter       = allocSymbol("tupleFilter");
 
+    /**
+     * Evaluate filters on NodeIds, inside the basic pattern solver, before
+     * converting to nodes. Default: false.
+     */
+    public static final Symbol symNodeIdFilter      = allocSymbol("nodeIdFilter");
+
+    /**
+     * Use index range scans for numeric and dateTime comparisons in filters on the
+     * object of a triple pattern. The filters are those evaluated in the basic
+     * pattern solver, so this also needs {@link #symNodeIdFilter}. Default: false.
+     * <p>
+     * A stage reuses the matches of its range scan for later input rows that give
+     * the same pattern, up to {@link #RangeScanCacheSize} matches.
+     */
+    public static final Symbol symFilterRangeScan   = allocSymbol("filterRangeScan");
+
+    /**
+     * Number of input rows collected and sorted by lookup key before probing the
+     * indexes for a pattern in the basic pattern solver. 0 or 1 means one index
+     * lookup per input row, in input order. Default: {@link #LookupBatchSize}.
+     * <p>
+     * With batching, each lookup is still a separate index access; the gain is from
+     * the locality of successive accesses. A stage reads a whole batch of input
+     * before producing its first result, which delays LIMIT, ASK and EXISTS, and the
+     * results within a batch are in lookup key order, not input order.
+     */
+    public static final Symbol symLookupBatchSize   = allocSymbol("lookupBatchSize");
+
+    /**
+     * Use a merge join of sorted index scans for a star of patterns on the same
+     * subject variable when the indexes allow it. Default: false.
+     * <p>
+     * The scans step forward row by row; they do not seek. A merge join is good when
+     * the patterns have similar numbers of matches, but it is a full range scan of
+     * each pattern, so a selective pattern joined with a large one is better done by
+     * index lookups.
+     */
+    public static final Symbol symMergeJoin         = allocSymbol("mergeJoin");
+
+    /**
+     * Evaluate the property paths {@code :p+} and {@code :p*} on NodeIds, using the
+     * indexes directly. Default: true.
+     */
+    public static final Symbol symNodeIdPaths       = allocSymbol("nodeIdPaths");
+
+    /**
+     * Number of threads for the parallel scan of a basic graph pattern evaluated from
+     * the join identity in a read transaction: the index range of the first triple
+     * pattern is split into parts, and each part is scanned and continued with the
+     * rest of the basic graph pattern by a worker thread.
+     * 0 or 1 means no parallel scan. Default: 0.
+     */
+    public static final Symbol symParallelScan      = allocSymbol("parallelScan");
+
+    /**
+     * Keep the results of a parallel scan ({@link #symParallelScan}) in the order of
+     * sequential evaluation. Default: false.
+     */
+    public static final Symbol symParallelScanOrdered = allocSymbol("parallelScanOrdered");
+
+    /**
+     * Use the cost-based join order ({@link ReorderDynamicProgramming}) when the
+     * statistics file of a database has characteristic sets, as written by
+     * {@code tdb2.tdbstats}. Otherwise the statistics file is used for the weighted
+     * reorder. Read when the database is opened. Default: false.
+     */
+    public static final Symbol symCostBasedReorder  = allocSymbol("costBasedReorder");
+
     private static final String PropertyFileKey1    = tdbPropertyRoot+".settings";
     private static final String PropertyFileKey2    = tdbSymbolPrefix+":settings";
 
@@ -173,6 +242,12 @@ public class SystemTDB
     /** Size of read block cache (32 bit systems only). Per file. */
     public static final int BlockReadCacheSize      = intValue("BlockReadCacheSize", 5*1000);
 
+    /** Default number of rows in a batch of index lookups: 1, no batching. See {@link #symLookupBatchSize}. */
+    public static final int LookupBatchSize         = intValue("LookupBatchSize", 1);
+
+    /** Maximum number of matches of a range scan kept for reuse by a stage. See {@link #symFilterRangeScan}. */
+    public static final int RangeScanCacheSize      = intValue("RangeScanCacheSize", 10*1000);
+
     // ---- Misc
 
     /** Default BGP optimizer */
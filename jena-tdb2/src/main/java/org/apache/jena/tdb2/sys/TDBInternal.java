@@ -20,9 +20,11 @@ package org.apache.jena.tdb2.sys;
 
 import java.util.Arrays;
 
+import org.apache.jena.atlas.lib.Pair;
 import org.apache.jena.dboe.base.file.Location;
 import org.apache.jena.dboe.trans.bplustree.BPlusTree;
 import org.apache.jena.dboe.transaction.txn.TransactionCoordinator;
+import org.apache.jena.dboe.transaction.txn.TransactionInfo;
 import org.apache.jena.graph.Node;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.sparql.core.DatasetGraph;
@@ -147,6 +149,22 @@ public class TDBInternal {
         return unwrap(dsg);
     }
 
+    /**
+     * Return an object identifying the data seen by the transaction of the calling
+     * thread: the storage and its data version. Returns null if not a TDB2-backed
+     * DatasetGraph or if not in a transaction.
+     * @see org.apache.jena.sparql.core.DatasetSnapshots
+     */
+    public static Object transactionSnapshot(DatasetGraph dsg) {
+        DatasetGraphTDB dsgtdb = unwrap(dsg);
+        if ( dsgtdb == null )
+            return null;
+        TransactionInfo txn = dsgtdb.getTxnSystem().getTransactionInfo();
+        if ( txn == null )
+            return null;
+        return Pair.create(dsgtdb, txn.getDataVersion());
+    }
+
     /**
      * Return the DatasetGraphTDB for a DatasetGraph, or throw an exception.
      */
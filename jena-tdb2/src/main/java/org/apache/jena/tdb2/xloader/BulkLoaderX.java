@@ -58,6 +58,12 @@ public class BulkLoaderX {
      */
     public static boolean CompressSortIndexFiles = true;
 
+    /**
+     * Whether to sort the index records in this process (see {@link SortRecords})
+     * rather than using an external {@code sort(1)} process.
+     */
+    public static boolean SortIndexInJava = false;
+
     // Ubuntu: it now (21.04) is at /usr/bin/gzip.
     //   /bin has become a symbolic link to /usr/bin.
     //   New installs of 20.04 have it at /usr/bin, upgrades have it at /bin.
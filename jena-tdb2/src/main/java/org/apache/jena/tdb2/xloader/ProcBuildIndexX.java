@@ -155,6 +155,8 @@ public class ProcBuildIndexX
                                          List<String>sortKeyArgs) {
         if ( isEmpty(datafile) )
             return 0;
+        if ( BulkLoaderX.SortIndexInJava )
+            return java_sort_build_index(datafile, dsg, indexName, sortThreads, TMPDIR);
         // Sort task.
         Process proc2;
         OutputStream toSortOutputStream; // Not used. Input is a file.
@@ -237,25 +239,29 @@ public class ProcBuildIndexX
         return count;
     }
 
-    private static long indexBuilder(DatasetGraph dsg, InputStream input, String indexName) {
-        long tickPoint = BulkLoaderX.DataTick;
-        int superTick = BulkLoaderX.DataSuperTick;
-
-        // Location of storage, not the DB.
-        DatasetGraphTDB dsgtdb = TDBInternal.getDatasetGraphTDB(dsg);
-
-        int keyLength = SystemTDB.SizeOfNodeId * indexName.length();
-        int valueLength = 0;
-
-        // The name is the order. Input is already in the right order.
-
+    /** Sort in this process then build the index. */
+    private static long java_sort_build_index(String datafile, DatasetGraph dsg, String indexName, int sortThreads, String TMPDIR) {
+        if ( sortThreads <= 0 )
+            sortThreads = 2;
         int tupleLength = indexName.length();
+        int rowBlock = 1000;
+        // Handles .gz
+        InputStream input = IO.ensureBuffered(IO.openFile(datafile));
+        try ( SortRecords sorter = new SortRecords(tupleLength, SortRecords.defaultRunSize(tupleLength), sortThreads,
+                                                   TMPDIR, BulkLoaderX.CompressSortIndexFiles) ) {
+            // Records in index order, unsorted.
+            Iterator<Record> records = new RecordsFromInput(input, tupleLength, colMap(indexName), rowBlock);
+            Iterator<Record> sorted = sorter.sort(records);
+            return indexBuilder(dsg, sorted, indexName);
+        } finally {
+            IO.close(input);
+        }
+    }
 
-        TupleIndex index = TDBInternal.findIndex(dsg, indexName);
-        if ( index == null )
-            throw new TDBException("Can not find index: " + indexName);
-
+    /** The mapping from the primary order to the index order. */
+    private static TupleMap colMap(String indexName) {
         String primaryOrder;
+        int tupleLength = indexName.length();
         if ( tupleLength == 3 ) {
             primaryOrder = Names.primaryIndexTriples;
         } else if ( tupleLength == 4 ) {
@@ -263,7 +269,25 @@ public class ProcBuildIndexX
         } else {
             throw new TDBException("Index name: " + indexName);
         }
-        TupleMap colMap = TupleMap.create(primaryOrder, indexName);
+        return TupleMap.create(primaryOrder, indexName);
+    }
+
+    private static long indexBuilder(DatasetGraph dsg, InputStream input, String indexName) {
+        // The name is the order. Input is already in the right order.
+        int tupleLength = indexName.length();
+        int rowBlock = 1000;
+        Iterator<Record> iter = new RecordsFromInput(input, tupleLength, colMap(indexName), rowBlock);
+        return indexBuilder(dsg, iter, indexName);
+    }
+
+    /** Build the index from records, which are in index order and sorted. */
+    private static long indexBuilder(DatasetGraph dsg, Iterator<Record> iter, String indexName) {
+        long tickPoint = BulkLoaderX.DataTick;
+        int superTick = BulkLoaderX.DataSuperTick;
+
+        TupleIndex index = TDBInternal.findIndex(dsg, indexName);
+        if ( index == null )
+            throw new TDBException("Can not find index: " + indexName);
 
         int blockSize = SystemTDB.BlockSize;
         RecordFactory recordFactory = ((TupleIndexRecord)index).getRangeIndex().getRecordFactory();
@@ -277,9 +301,6 @@ public class ProcBuildIndexX
         BlockMgr blkMgrNodes = bpt.getNodeManager().getBlockMgr();
         BlockMgr blkMgrRecords = bpt.getRecordsMgr().getBlockMgr();
         BufferChannel blkState = bpt.getStateManager().getBufferChannel();
-        // ----
-        int rowBlock = 1000;
-        Iterator<Record> iter = new RecordsFromInput(input, tupleLength, colMap, rowBlock);
         // ProgressMonitor.
         ProgressMonitor monitor = ProgressMonitorOutput.create(BulkLoaderX.LOG_Index, indexName, tickPoint, superTick);
         ProgressIterator<Record> iter2 = new ProgressIterator<>(iter, monitor);
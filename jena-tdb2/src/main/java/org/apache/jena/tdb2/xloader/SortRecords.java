@@ -0,0 +1,317 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.xloader;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.atlas.iterator.IteratorSlotted;
+import org.apache.jena.atlas.lib.Bytes;
+import org.apache.jena.dboe.base.record.Record;
+import org.apache.jena.dboe.base.record.RecordFactory;
+import org.apache.jena.dboe.sys.SysDB;
+import org.apache.jena.tdb2.TDBException;
+
+/**
+ * External merge sort, in this process, of index records (fixed width keys of
+ * NodeIds), removing duplicates. This is the equivalent of
+ * {@code sort --unique} on the hex text form of the records.
+ * <p>
+ * Records are collected in memory into runs of rows of longs. Each run is sorted with
+ * {@link Arrays#parallelSort} in a pool of {@code sortThreads} threads, created once
+ * and shut down by {@link #close}, and, if there is more than one run, written in
+ * binary to a temporary file, optionally compressed.
+ * The sorted output is a k-way merge of the runs. If the input fits in one run,
+ * no temporary files are used.
+ */
+class SortRecords implements AutoCloseable {
+
+    private static final Comparator<long[]> rowComparator = (row1, row2) -> {
+        for ( int i = 0 ; i < row1.length ; i++ ) {
+            int x = Long.compareUnsigned(row1[i], row2[i]);
+            if ( x != 0 )
+                return x;
+        }
+        return 0;
+    };
+
+    /**
+     * The largest run size, using about half the heap.
+     * (Each row is an array object of {@code tupleLength} longs, and a reference to it.)
+     * The space for a run is allocated as the input is read so a small input
+     * uses little memory.
+     */
+    static int defaultRunSize(int tupleLength) {
+        long bytesPerRow = 16 + tupleLength * SysDB.SizeOfLong + 8;
+        long rows = Runtime.getRuntime().maxMemory() / 2 / bytesPerRow;
+        return (int)Math.max(10_000, Math.min(rows, Integer.MAX_VALUE - 8));
+    }
+
+    /** Initial allocation of the array for a run. */
+    private static final int InitialRunAlloc = 64 * 1024;
+
+    private final int tupleLength;
+    private final int runSize;
+    private final int sortThreads;
+    private final Path tmpDir;
+    private final boolean compress;
+    private final RecordFactory recordFactory;
+    private final List<Path> runFiles = new ArrayList<>();
+    private final List<Long> runLengths = new ArrayList<>();
+    private final List<Closeable> readers = new ArrayList<>();
+    // Created on the first run sorted with more than one thread.
+    private ForkJoinPool pool = null;
+
+    SortRecords(int tupleLength, int runSize, int sortThreads, String tmpDir, boolean compress) {
+        this.tupleLength = tupleLength;
+        this.runSize = runSize;
+        this.sortThreads = Math.max(1, sortThreads);
+        this.tmpDir = Path.of(tmpDir);
+        this.compress = compress;
+        this.recordFactory = new RecordFactory(tupleLength * SysDB.SizeOfLong, 0);
+    }
+
+    /**
+     * Sort the input. The returned iterator yields the records in sorted order
+     * without duplicates. Call {@link #close} after use to remove any temporary files.
+     */
+    public Iterator<Record> sort(Iterator<Record> input) {
+        long[][] rows = new long[Math.min(runSize, InitialRunAlloc)][];
+        for (;;) {
+            int n = 0;
+            while ( n < runSize && input.hasNext() ) {
+                if ( n == rows.length )
+                    rows = Arrays.copyOf(rows, (int)Math.min(runSize, 2L * rows.length));
+                rows[n++] = toRow(input.next());
+            }
+            sortRun(rows, n);
+            if ( runFiles.isEmpty() && ! input.hasNext() )
+                // All in memory.
+                return new IterUnique(new IterRows(rows, n));
+            writeRun(rows, n);
+            if ( ! input.hasNext() )
+                break;
+        }
+        rows = null;
+        List<Iterator<long[]>> runs = new ArrayList<>(runFiles.size());
+        for ( int i = 0 ; i < runFiles.size() ; i++ )
+            runs.add(readRun(runFiles.get(i), runLengths.get(i)));
+        return new IterUnique(new IterMerge(runs));
+    }
+
+    private long[] toRow(Record record) {
+        long[] row = new long[tupleLength];
+        byte[] key = record.getKey();
+        for ( int i = 0 ; i < tupleLength ; i++ )
+            row[i] = Bytes.getLong(key, i * SysDB.SizeOfLong);
+        return row;
+    }
+
+    private Record toRecord(long[] row) {
+        Record record = recordFactory.create();
+        byte[] key = record.getKey();
+        for ( int i = 0 ; i < tupleLength ; i++ )
+            Bytes.setLong(row[i], key, i * SysDB.SizeOfLong);
+        return record;
+    }
+
+    private void sortRun(long[][] rows, int n) {
+        if ( sortThreads == 1 ) {
+            Arrays.sort(rows, 0, n, rowComparator);
+            return;
+        }
+        // Arrays.parallelSort uses the fork-join pool of the calling task.
+        if ( pool == null )
+            pool = new ForkJoinPool(sortThreads);
+        try {
+            pool.submit(() -> Arrays.parallelSort(rows, 0, n, rowComparator)).get();
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new TDBException("Failed to sort a run", ex);
+        }
+    }
+
+    private void writeRun(long[][] rows, int n) {
+        try {
+            Path path = Files.createTempFile(tmpDir, "sort-", ".run");
+            runFiles.add(path);
+            OutputStream out = Files.newOutputStream(path);
+            if ( compress )
+                out = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED), 128*1024);
+            long count = 0;
+            long[] previous = null;
+            try ( DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out, 128*1024)) ) {
+                for ( int i = 0 ; i < n ; i++ ) {
+                    long[] row = rows[i];
+                    rows[i] = null;
+                    // Remove duplicates within the run.
+                    if ( previous != null && Arrays.equals(previous, row) )
+                        continue;
+                    for ( long x : row )
+                        dout.writeLong(x);
+                    previous = row;
+                    count++;
+                }
+            }
+            runLengths.add(count);
+        } catch (IOException ex) { IO.exception(ex); }
+    }
+
+    private Iterator<long[]> readRun(Path path, long length) {
+        try {
+            InputStream in = Files.newInputStream(path);
+            if ( compress )
+                in = new InflaterInputStream(in, new Inflater(), 128*1024);
+            DataInputStream din = new DataInputStream(new BufferedInputStream(in, 128*1024));
+            readers.add(din);
+            return new Iterator<long[]>() {
+                long remaining = length;
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                public long[] next() {
+                    if ( remaining <= 0 )
+                        throw new NoSuchElementException();
+                    remaining--;
+                    long[] row = new long[tupleLength];
+                    try {
+                        for ( int i = 0 ; i < tupleLength ; i++ )
+                            row[i] = din.readLong();
+                    } catch (IOException ex) { IO.exception(ex); }
+                    return row;
+                }
+            };
+        } catch (IOException ex) {
+            IO.exception(ex);
+            return null;
+        }
+    }
+
+    /** Shut down the sort threads, close any open runs and delete the temporary files. */
+    @Override
+    public void close() {
+        if ( pool != null ) {
+            pool.shutdown();
+            pool = null;
+        }
+        readers.forEach(IO::close);
+        readers.clear();
+        for ( Path path : runFiles ) {
+            try { Files.deleteIfExists(path); }
+            catch (IOException ex) { IO.exception(ex); }
+        }
+        runFiles.clear();
+        runLengths.clear();
+    }
+
+    /** Rows of an in-memory sorted run. */
+    private static class IterRows implements Iterator<long[]> {
+        private final long[][] rows;
+        private final int n;
+        private int idx = 0;
+
+        IterRows(long[][] rows, int n) {
+            this.rows = rows;
+            this.n = n;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return idx < n;
+        }
+
+        @Override
+        public long[] next() {
+            if ( idx >= n )
+                throw new NoSuchElementException();
+            long[] row = rows[idx];
+            rows[idx] = null;
+            idx++;
+            return row;
+        }
+    }
+
+    /** K-way merge of sorted runs. */
+    private static class IterMerge implements Iterator<long[]> {
+        // Each entry is the current row and the rest of its run.
+        private final PriorityQueue<Map.Entry<long[], Iterator<long[]>>> queue;
+
+        IterMerge(List<Iterator<long[]>> runs) {
+            this.queue = new PriorityQueue<>(Math.max(1, runs.size()), (e1, e2) -> rowComparator.compare(e1.getKey(), e2.getKey()));
+            for ( Iterator<long[]> run : runs ) {
+                if ( run.hasNext() )
+                    queue.add(Map.entry(run.next(), run));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public long[] next() {
+            Map.Entry<long[], Iterator<long[]>> e = queue.poll();
+            if ( e == null )
+                throw new NoSuchElementException();
+            Iterator<long[]> run = e.getValue();
+            if ( run.hasNext() )
+                queue.add(Map.entry(run.next(), run));
+            return e.getKey();
+        }
+    }
+
+    /** Skip duplicates in a sorted stream of rows, and convert to records. */
+    private class IterUnique extends IteratorSlotted<Record> {
+        private final Iterator<long[]> input;
+        private long[] previous = null;
+
+        IterUnique(Iterator<long[]> input) {
+            this.input = input;
+        }
+
+        @Override
+        protected boolean hasMore() {
+            return true;
+        }
+
+        @Override
+        protected Record moveToNext() {
+            while ( input.hasNext() ) {
+                long[] row = input.next();
+                if ( previous != null && Arrays.equals(previous, row) )
+                    continue;
+                previous = row;
+                return toRecord(row);
+            }
+            return null;
+        }
+    }
+}
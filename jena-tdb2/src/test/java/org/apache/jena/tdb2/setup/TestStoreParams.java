@@ -20,6 +20,7 @@ package org.apache.jena.tdb2.setup;
 
 import org.apache.jena.atlas.json.JSON;
 import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.dboe.base.block.BlockCacheMode;
 import org.apache.jena.dboe.base.block.FileMode;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.params.StoreParams;
@@ -98,6 +99,41 @@ public class TestStoreParams {
         assertArrayEquals(expected, params.getTripleIndexes());
     }
 
+    @Test public void store_params_15() {
+        StoreParams params = StoreParams.builder(label()).blockCacheMode(BlockCacheMode.concurrent).build();
+        StoreParams params2 = roundTrip(params);
+        assertEqualsStoreParams(params,params2);
+        assertEquals(BlockCacheMode.concurrent, params2.getBlockCacheMode());
+    }
+
+    @Test public void store_params_16() {
+        // Default is not written.
+        JsonObject obj = StoreParamsCodec.encodeToJson(StoreParams.builder(label()).build());
+        assertFalse(obj.hasKey("tdb.block_cache_mode"));
+        String xs = "{ \"tdb.block_cache_mode\": \"concurrent\" }";
+        StoreParams params = StoreParamsCodec.decode(JSON.parse(xs));
+        assertTrue(params.isSetBlockCacheMode());
+        assertEquals(BlockCacheMode.concurrent, params.getBlockCacheMode());
+    }
+
+    @Test public void store_params_17() {
+        StoreParams params = StoreParams.builder(label()).nodeId2NodeCacheBytes(5_000_000_000L).build();
+        StoreParams params2 = roundTrip(params);
+        assertEqualsStoreParams(params,params2);
+        assertEquals(5_000_000_000L, params2.getNodeId2NodeCacheBytes().longValue());
+    }
+
+    @Test public void store_params_18() {
+        // Default (none) is not written.
+        JsonObject obj = StoreParamsCodec.encodeToJson(StoreParams.builder(label()).build());
+        assertFalse(obj.hasKey("tdb.closure_predicates"));
+        String[] predicates = { "http://example/p", "http://example/q" };
+        StoreParams params = StoreParams.builder(label()).closurePredicates(predicates).build();
+        StoreParams params2 = roundTrip(params);
+        assertEqualsStoreParams(params,params2);
+        assertArrayEquals(predicates, params2.getClosurePredicates());
+    }
+
     // Check that setting gets recorded and propagated.
 
     @Test public void store_params_20() {
@@ -20,10 +20,12 @@ package org.apache.jena.tdb2.setup;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.dboe.base.block.BlockCacheMode;
 import org.apache.jena.dboe.base.file.Location;
 import org.apache.jena.dboe.sys.Names;
 import org.apache.jena.tdb2.ConfigTest;
@@ -165,5 +167,14 @@ public class TestStoreParamsCreate {
         assertFalse(StoreParams.sameValues(pApp, pDB));
         assertFalse(StoreParams.sameValues(pSpecial, pDB));
     }
-}
 
+    // A tdb.cfg written by hand. The JSON key is the base name with the "tdb." prefix.
+    @Test public void params_cfg_block_cache_mode() throws IOException {
+        Files.createDirectories(dbContainer);
+        Files.writeString(cfgContainer, "{ \"tdb.block_cache_mode\" : \"concurrent\" }");
+        dbConnection = DatabaseConnection.connectCreate(locContainer);
+        StoreParams pDB = TDBInternal.getDatasetGraphTDB(dbConnection.getDatasetGraph()).getStoreParams();
+        assertEquals(BlockCacheMode.concurrent, pDB.getBlockCacheMode());
+        assertTrue(pDB.isSetBlockCacheMode());
+    }
+}
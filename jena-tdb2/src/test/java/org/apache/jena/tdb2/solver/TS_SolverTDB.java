@@ -25,6 +25,14 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses( {
     TestSolverTDB.class
     , TestStats.class
+    , TestNodeIdFilter.class
+    , TestFilterRangeScan.class
+    , TestLookupBatch.class
+    , TestMergeJoin.class
+    , TestPathTDB2.class
+    , TestAdaptiveBGP.class
+    , TestParallelUnion.class
+    , TestParallelScan.class
 })
 
 public class TS_SolverTDB
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.junit.TL;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Adaptive execution of basic graph patterns gives the same results as static execution. */
+public class TestAdaptiveBGP {
+    private static Dataset dataset = null;
+
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+
+    @BeforeClass
+    static public void beforeClass() {
+        StringBuilder data = new StringBuilder(PREFIXES);
+        for ( int i = 0 ; i < 40 ; i++ ) {
+            data.append(":s" + i + " :type :T .\n");
+            for ( int j = 0 ; j < 20 ; j++ )
+                data.append(":s" + i + " :q " + j + " .\n");
+            if ( i % 10 == 0 )
+                data.append(":s" + i + " :r 'x' ; :link :s" + (i+1) + " .\n");
+        }
+        data.append("GRAPH :g { :s1 :type :T ; :r 'x' ; :q 1, 2 . }\n");
+        dataset = TL.createTestDatasetMem();
+        Txn.executeWrite(dataset, ()->RDFParser.fromString(data.toString(), Lang.TRIG).parse(dataset));
+    }
+
+    @AfterClass
+    static public void afterClass() {
+        TL.expel(dataset);
+    }
+
+    @Test public void adaptive_01()    { test(80, "SELECT * { ?s :type :T . ?s :q ?v . ?s :r 'x' }"); }
+    @Test public void adaptive_02()    { test(80, "SELECT * { ?s :q ?v . ?s :type :T . ?s :r ?x }"); }
+    @Test public void adaptive_03()    { test(80, "SELECT * { ?s :type :T . ?s :link ?t . ?t :q ?v }"); }
+    @Test public void adaptive_04()    { test(0,  "SELECT * { ?s :type :T . ?s :q ?v . ?s :r 'y' }"); }
+    @Test public void adaptive_05()    { test(2,  "SELECT * { GRAPH :g { ?s :type :T . ?s :q ?v . ?s :r 'x' } }"); }
+    @Test public void adaptive_06()    { test(1,  "SELECT * { VALUES ?s { :s0 :s1 } ?s :type :T . ?s :q 3 . ?s :r ?x . ?s :link ?t }"); }
+
+    private static void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(dataset, ()->{
+            ResultSetRewindable rs1 = exec(query, true);
+            ResultSetRewindable rs2 = exec(query, false);
+            assertEquals("Adaptive", expectedRows, rs1.size());
+            assertEquals("Static", expectedRows, rs2.size());
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        });
+    }
+
+    private static ResultSetRewindable exec(Query query, boolean adaptive) {
+        try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query).set(ARQ.optAdaptiveBGP, adaptive).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
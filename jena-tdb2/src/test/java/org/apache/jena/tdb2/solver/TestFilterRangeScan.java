@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.expr.ExprList;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.util.ExprUtils;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.store.NodeIdRange;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Index range scans for numeric and dateTime filters give the same results as full scans. */
+public class TestFilterRangeScan {
+    private static Dataset dataset = null;
+
+    private static String PREFIXES = "PREFIX : <http://example/> PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n";
+
+    private static String DATA = String.join("\n"
+        , PREFIXES
+        , ":a1 :age 25 . :a2 :age 30 . :a3 :age 35 . :a4 :age 40 . :a5 :age -5 ."
+        , ":a6 :age 35.5 . :a7 :age '3.6e1'^^xsd:double . :a8 :age '37'^^xsd:int . :a9 :age '038'^^xsd:integer ."
+        , ":a10 :age 123456789012345678901234567890 . :a11 :age 'thirty' . :a12 :age :unknown ."
+        , ":e1 :date '2024-01-01T00:00:00Z'^^xsd:dateTime ."
+        , ":e2 :date '2024-03-01T10:00:00+14:00'^^xsd:dateTime ."
+        , ":e3 :date '2024-02-29T23:00:00-05:00'^^xsd:dateTime ."
+        , ":e4 :date '2024-03-01T12:00:00'^^xsd:dateTime ."
+        , ":e5 :date '2024-06-01T00:00:00.123456Z'^^xsd:dateTime ."
+        , ":e6 :date '2024-03-01'^^xsd:date ."
+        , ":a1 :date '2024-03-02T00:00:00Z'^^xsd:dateTime ."
+        , "GRAPH :g1 { :a1 :age 31 . :a2 :age 32 . }"
+        , "GRAPH :g2 { :a1 :age 31 . :a3 :age 50 . }"
+        );
+
+    @BeforeClass
+    static public void beforeClass() {
+        dataset = TL.createTestDatasetMem();
+        Txn.executeWrite(dataset, ()->RDFParser.fromString(DATA, Lang.TRIG).parse(dataset));
+    }
+
+    @AfterClass
+    static public void afterClass() {
+        TL.expel(dataset);
+    }
+
+    @Test public void filterRanges_01() {
+        Map<Var, List<NodeIdRange>> ranges = FilterRanges.ranges(exprs("?x > 30", "?x < 40", "?d >= '2024-01-01T00:00:00Z'^^xsd:dateTime"));
+        assertEquals(2, ranges.size());
+        assertTrue(ranges.containsKey(Var.alloc("x")));
+        assertTrue(ranges.containsKey(Var.alloc("d")));
+    }
+
+    @Test public void filterRanges_02() {
+        Map<Var, List<NodeIdRange>> ranges = FilterRanges.ranges(exprs("?x = 30", "?x > 'abc'", "?x < ?y", "?z || ?x > 5"));
+        assertTrue(ranges.isEmpty());
+    }
+
+    @Test public void filterRanges_03() {
+        Map<Var, List<NodeIdRange>> ranges1 = FilterRanges.ranges(exprs("?x > 30 && ?x < 40"));
+        Map<Var, List<NodeIdRange>> ranges2 = FilterRanges.ranges(exprs("30 < ?x", "40 > ?x"));
+        assertEquals(ranges1, ranges2);
+        assertFalse(ranges1.isEmpty());
+    }
+
+    @Test public void rangeScan_numeric_01()    { test(5, "SELECT * { ?s :age ?age FILTER(?age > 30 && ?age < 40) }"); }
+    @Test public void rangeScan_numeric_02()    { test(7, "SELECT * { ?s :age ?age FILTER(?age >= 30) FILTER(?age <= 40) }"); }
+    @Test public void rangeScan_numeric_03()    { test(1, "SELECT * { ?s :age ?age FILTER(?age < 0) }"); }
+    @Test public void rangeScan_numeric_04()    { test(1, "SELECT * { ?s :age ?age FILTER(?age > 1e20) }"); }
+    @Test public void rangeScan_numeric_05()    { test(2, "SELECT * { ?s :age ?age FILTER(?age > 35.2 && ?age < 36.5) }"); }
+    @Test public void rangeScan_numeric_06()    { test(5, "SELECT * { ?s ?p ?age FILTER(?age > 30 && ?age < 40) }"); }
+    @Test public void rangeScan_numeric_07()    { test(1, "SELECT * { ?s :age ?age ; :date ?d FILTER(?age < 30) }"); }
+    @Test public void rangeScan_numeric_08()    { test(1, "SELECT * { :a3 :age ?age FILTER(?age < 40) }"); }
+    @Test public void rangeScan_numeric_09()    { test(1, "SELECT * { VALUES ?age { 35 50 } ?s :age ?age FILTER(?age < 40) }"); }
+
+    // Later input rows reuse the range scan of a pattern.
+    @Test public void rangeScan_reuse_01()      { test(35, "SELECT * { ?e :date ?d . ?s :age ?age FILTER(?age > 30 && ?age < 40) }"); }
+    @Test public void rangeScan_reuse_02()      { test(15, "SELECT * { VALUES ?p { :age :age :date :date :age } ?s ?p ?age FILTER(?age > 30 && ?age < 40) }"); }
+
+    @Test public void rangeScan_dateTime_01()   { test(2, "SELECT * { ?s :date ?d FILTER(?d > '2024-02-15T00:00:00Z'^^xsd:dateTime && ?d < '2024-03-01T12:00:00Z'^^xsd:dateTime) }"); }
+    @Test public void rangeScan_dateTime_02()   { test(2, "SELECT * { ?s :date ?d FILTER(?d >= '2024-03-01T05:00:00Z'^^xsd:dateTime) }"); }
+    @Test public void rangeScan_dateTime_03()   { test(1, "SELECT * { ?s :date ?d FILTER(?d < '2024-01-02T00:00:00Z'^^xsd:dateTime) }"); }
+
+    @Test public void rangeScan_quads_01()      { test(3, "SELECT * { GRAPH ?g { ?s :age ?age FILTER(?age > 30 && ?age < 40) } }"); }
+    @Test public void rangeScan_quads_02()      { test(1, "SELECT * { GRAPH :g2 { ?s :age ?age FILTER(?age > 40) } }"); }
+    @Test public void rangeScan_quads_03()      { test(2, "SELECT * { GRAPH <urn:x-arq:UnionGraph> { ?s :age ?age FILTER(?age > 30 && ?age < 40) } }"); }
+
+    private static ExprList exprs(String... exprStrings) {
+        ExprList exprs = new ExprList();
+        for ( String s : exprStrings )
+            exprs.add(ExprUtils.parse(prefixed(s)));
+        return exprs;
+    }
+
+    private static String prefixed(String exprString) {
+        return exprString.replace("xsd:dateTime", "<http://www.w3.org/2001/XMLSchema#dateTime>");
+    }
+
+    private static void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(dataset, ()->{
+            ResultSetRewindable rs1 = exec(query, true);
+            ResultSetRewindable rs2 = exec(query, false);
+            assertEquals("Range scan", expectedRows, rs1.size());
+            assertEquals("Full scan", expectedRows, rs2.size());
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        });
+    }
+
+    private static ResultSetRewindable exec(Query query, boolean rangeScan) {
+        try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query)
+                                                          .set(SystemTDB.symNodeIdFilter, true)
+                                                          .set(SystemTDB.symFilterRangeScan, rangeScan).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
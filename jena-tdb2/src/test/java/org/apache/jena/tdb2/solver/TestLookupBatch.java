@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Batched, sorted index lookups give the same results as one lookup per row. */
+public class TestLookupBatch {
+    private static Dataset dataset = null;
+
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+
+    private static String DATA = String.join("\n"
+        , PREFIXES
+        , ":s1 :p :o3 . :s2 :p :o1 . :s3 :p :o2 . :s4 :p :o1 . :s5 :p :o5 ."
+        , ":o1 :q 1 . :o2 :q 2 . :o3 :q 3 . :o4 :q 4 ."
+        , ":o1 :r :s1 . :o2 :r :s3 . :o3 :r :s9 ."
+        , "GRAPH :g1 { :s1 :p :o2 . :s2 :p :o3 . }"
+        , "GRAPH :g2 { :s1 :p :o2 . :o2 :q 20 . :o3 :q 30 . }"
+        , "GRAPH :g1 { :o2 :q 200 . }"
+        );
+
+    @BeforeClass
+    static public void beforeClass() {
+        dataset = TL.createTestDatasetMem();
+        Txn.executeWrite(dataset, ()->RDFParser.fromString(DATA, Lang.TRIG).parse(dataset));
+    }
+
+    @AfterClass
+    static public void afterClass() {
+        TL.expel(dataset);
+    }
+
+    @Test public void lookupBatch_01()  { test(4, "SELECT * { ?s :p ?o . ?o :q ?v }"); }
+    @Test public void lookupBatch_02()  { test(1, "SELECT * { ?s :p ?o . ?o :r ?s }"); }
+    @Test public void lookupBatch_03()  { test(0, "SELECT * { ?s :p ?o . ?o :p ?x }"); }
+    @Test public void lookupBatch_04()  { test(3, "SELECT * { ?s :p ?o . ?o :r ?x . ?x :p ?y }"); }
+    @Test public void lookupBatch_05()  { test(3, "SELECT * { VALUES ?o { :o1 :o2 :o9 } ?s :p ?o }"); }
+    @Test public void lookupBatch_06()  { test(2, "SELECT * { GRAPH ?g { ?s :p ?o . ?o :q ?v } }"); }
+    @Test public void lookupBatch_07()  { test(3, "SELECT * { GRAPH <urn:x-arq:UnionGraph> { ?s :p ?o . ?o :q ?v } }"); }
+
+    private static void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(dataset, ()->{
+            ResultSetRewindable rs1 = exec(query, 0);
+            ResultSetRewindable rs2 = exec(query, 2);
+            ResultSetRewindable rs3 = exec(query, 256);
+            assertEquals("No batching", expectedRows, rs1.size());
+            assertEquals("Batch size 2", expectedRows, rs2.size());
+            assertEquals("Batch size 256", expectedRows, rs3.size());
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+            rs1.reset();
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs3));
+            // The default is no batching, so the same order.
+            rs1.reset();
+            ResultSetRewindable rs4 = execDefault(query);
+            assertTrue(ResultSetCompare.equalsByTermAndOrder(rs1, rs4));
+        });
+    }
+
+    private static ResultSetRewindable execDefault(Query query) {
+        try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+
+    private static ResultSetRewindable exec(Query query, int batchSize) {
+        try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query).set(SystemTDB.symLookupBatchSize, batchSize).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
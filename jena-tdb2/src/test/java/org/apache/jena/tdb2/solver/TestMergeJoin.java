@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.params.StoreParams;
+import org.apache.jena.tdb2.params.StoreParamsBuilder;
+import org.apache.jena.tdb2.store.DatasetGraphTDB;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.TDB2StorageBuilder;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.apache.jena.dboe.base.file.Location;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Merge joins of sorted index scans give the same results as nested loop joins. */
+public class TestMergeJoin {
+    private static Dataset dataset = null;
+    // With a PSO index.
+    private static Dataset datasetPSO = null;
+
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+
+    private static String DATA = String.join("\n"
+        , PREFIXES
+        , ":a :type :T ; :color :red ; :size 1 ."
+        , ":b :type :T ; :color :blue ; :size 2 , 3 ."
+        , ":c :type :T ; :color :red ."
+        , ":d :color :red ; :size 4 ."
+        , "GRAPH :g { :a :type :T ; :color :red . :e :type :T ; :color :red . }"
+        );
+
+    @BeforeClass
+    static public void beforeClass() {
+        dataset = TL.createTestDatasetMem();
+        Txn.executeWrite(dataset, ()->RDFParser.fromString(DATA, Lang.TRIG).parse(dataset));
+        StoreParams params = StoreParamsBuilder.create(StoreParams.getDftStoreParams())
+                .tripleIndexes(new String[] {"SPO", "POS", "PSO"})
+                .build();
+        DatasetGraph dsg = TDB2StorageBuilder.build(Location.mem(), params, null);
+        datasetPSO = DatasetFactory.wrap(dsg);
+        Txn.executeWrite(datasetPSO, ()->RDFParser.fromString(DATA, Lang.TRIG).parse(datasetPSO));
+    }
+
+    @AfterClass
+    static public void afterClass() {
+        TL.expel(dataset);
+        datasetPSO.close();
+    }
+
+    @Test public void starLength_01() {
+        assertEquals(2, StageMergeJoin.starLength(triples("(?s :p :o1) (?s :q ?o)")));
+    }
+
+    @Test public void starLength_02() {
+        assertEquals(2, StageMergeJoin.starLength(triples("(?s :p :o1) (?s :q ?o) (?x :r ?s)")));
+    }
+
+    @Test public void starLength_03() {
+        assertEquals(0, StageMergeJoin.starLength(triples("(?s :p :o1) (?x :q ?s)")));
+        assertEquals(0, StageMergeJoin.starLength(triples("(:s :p ?o) (:s :q ?o)")));
+        assertEquals(0, StageMergeJoin.starLength(triples("(?s :p ?s) (?s :q ?o)")));
+        assertEquals(0, StageMergeJoin.starLength(triples("(?s :p :o)")));
+    }
+
+    @Test public void findSorted_01() {
+        Txn.executeRead(dataset, ()->{
+            NodeTupleTable triples = TDBInternal.getDatasetGraphTDB(dataset).getTripleTable().getNodeTupleTable();
+            NodeId p = id(triples, ":type");
+            NodeId o = id(triples, ":T");
+            // POS
+            assertNotNull(triples.findSorted(TupleFactory.create3(null, p, o), 0));
+            // No PSO
+            assertNull(triples.findSorted(TupleFactory.create3(null, p, null), 0));
+            // SPO - subject is set.
+            assertNull(triples.findSorted(TupleFactory.create3(o, p, null), 0));
+        });
+    }
+
+    @Test public void findSorted_02() {
+        Txn.executeRead(datasetPSO, ()->{
+            NodeTupleTable triples = TDBInternal.getDatasetGraphTDB(datasetPSO).getTripleTable().getNodeTupleTable();
+            NodeId p = id(triples, ":type");
+            assertNotNull(triples.findSorted(TupleFactory.create3(null, p, null), 0));
+        });
+    }
+
+    @Test public void mergeJoin_01()    { test(2, "SELECT * { ?s :type :T . ?s :color :red }"); }
+    @Test public void mergeJoin_02()    { test(3, "SELECT * { ?s :type :T ; :color ?c }"); }
+    @Test public void mergeJoin_03()    { test(3, "SELECT * { ?s :type :T ; :size ?z }"); }
+    @Test public void mergeJoin_04()    { test(2, "SELECT * { ?s :color :red ; :size ?z }"); }
+    @Test public void mergeJoin_05()    { test(3, "SELECT * { ?s :type :T ; :color ?c ; :size ?z }"); }
+    @Test public void mergeJoin_06()    { test(2, "SELECT * { GRAPH :g { ?s :type :T ; :color :red } }"); }
+    @Test public void mergeJoin_07()    { test(1, "SELECT * { VALUES ?s { :a :b } ?s :type :T ; :color :red }"); }
+    @Test public void mergeJoin_08()    { test(0, "SELECT * { ?s :type :T ; :color :green }"); }
+    @Test public void mergeJoin_09()    { test(7, "SELECT * { ?s :type :T ; :color ?c . ?x :color ?c }"); }
+    @Test public void mergeJoin_10()    { test(0, "SELECT * { ?s :size ?z ; :color ?z }"); }
+    @Test public void mergeJoin_11()    { test(2, "SELECT * { GRAPH ?g { ?s :type :T ; :color :red } }"); }
+
+    private static List<Triple> triples(String string) {
+        return SSE.parseBGP("(bgp " + string + ")").getList();
+    }
+
+    private static NodeId id(NodeTupleTable nodeTupleTable, String prefixedName) {
+        Node n = NodeFactory.createURI("http://example/" + prefixedName.substring(1));
+        return nodeTupleTable.getNodeTable().getNodeIdForNode(n);
+    }
+
+    private static void test(int expectedRows, String queryString) {
+        test(dataset, expectedRows, queryString);
+        test(datasetPSO, expectedRows, queryString);
+    }
+
+    private static void test(Dataset ds, int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(ds, ()->{
+            ResultSetRewindable rs1 = exec(ds, query, true);
+            ResultSetRewindable rs2 = exec(ds, query, false);
+            assertEquals("Merge join", expectedRows, rs1.size());
+            assertEquals("Nested loops", expectedRows, rs2.size());
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        });
+    }
+
+    private static ResultSetRewindable exec(Dataset ds, Query query, boolean mergeJoin) {
+        try ( QueryExecution qExec = QueryExecution.dataset(ds).query(query).set(SystemTDB.symMergeJoin, mergeJoin).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Filters evaluated on NodeIds give the same results as the general filter code. */
+public class TestNodeIdFilter {
+    private static Dataset dataset = null;
+
+    private static String PREFIXES = "PREFIX : <http://example/> PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n";
+
+    private static String DATA = String.join("\n"
+        , PREFIXES
+        , ":s1 :p :o1 ; :q 1 ; :r 'abc' ; :t '2024-01-01T00:00:00Z'^^xsd:dateTime ."
+        , ":s2 :p :o2 ; :q 2 ; :r 'abc'@en ; :t '2024-06-01T00:00:00Z'^^xsd:dateTime ."
+        , ":s3 :p :o1 ; :q '3.5'^^xsd:decimal ; :r 'def' ."
+        , ":s4 :p :s4 ; :q 12345678901234567890 ; :r :o1 ."
+        , ":s5 :p _:b ; :q 'x' ."
+        , "GRAPH :g1 { :s1 :p :o1 ; :q 10 . :s2 :p :o2 ; :q 20 . }"
+        , "GRAPH :g2 { :s1 :p :o2 ; :q 30 . }"
+        );
+
+    @BeforeClass
+    static public void beforeClass() {
+        dataset = TL.createTestDatasetMem();
+        Txn.executeWrite(dataset, ()->RDFParser.fromString(DATA, Lang.TRIG).parse(dataset));
+    }
+
+    @AfterClass
+    static public void afterClass() {
+        TL.expel(dataset);
+    }
+
+    @Test public void nodeIdFilter_sameTerm_01()    { test(2, "SELECT * { ?s :p ?o FILTER(sameTerm(?o, :o1)) }"); }
+    @Test public void nodeIdFilter_sameTerm_02()    { test(3, "SELECT * { ?s :p ?o FILTER(!sameTerm(?o, :o1)) }"); }
+    @Test public void nodeIdFilter_sameTerm_03()    { test(1, "SELECT * { ?s :p ?o FILTER(sameTerm(?s, ?o)) }"); }
+    @Test public void nodeIdFilter_sameTerm_04()    { test(0, "SELECT * { ?s :p ?o FILTER(sameTerm(?o, :notInData)) }"); }
+    @Test public void nodeIdFilter_sameTerm_05()    { test(1, "SELECT * { ?s :q ?o FILTER(sameTerm(?o, 1)) }"); }
+    // Not the canonical form of the inline value.
+    @Test public void nodeIdFilter_sameTerm_06()    { test(1, "SELECT * { ?s :q ?o FILTER(sameTerm(?o, '01'^^xsd:integer)) }"); }
+    @Test public void nodeIdFilter_sameTerm_07()    { test(1, "SELECT * { ?s :r ?o FILTER(sameTerm(?o, 'abc')) }"); }
+
+    @Test public void nodeIdFilter_equals_01()      { test(2, "SELECT * { ?s :p ?o FILTER(?o = :o1) }"); }
+    @Test public void nodeIdFilter_equals_02()      { test(2, "SELECT * { ?s :p ?o FILTER(:o1 = ?o) }"); }
+    @Test public void nodeIdFilter_equals_03()      { test(1, "SELECT * { ?s :r ?o FILTER(?o = :o1) }"); }
+    @Test public void nodeIdFilter_equals_04()      { test(1, "SELECT * { ?s :q ?o FILTER(?o = '01'^^xsd:integer) }"); }
+    @Test public void nodeIdFilter_equals_05()      { test(3, "SELECT * { ?s :r ?o FILTER(?o != :o1) }"); }
+    @Test public void nodeIdFilter_equals_06()      { test(3, "SELECT * { ?s :p ?o FILTER(!(?o = :o1)) }"); }
+
+    @Test public void nodeIdFilter_value_01()       { test(3, "SELECT * { ?s :q ?o FILTER(?o > 1) }"); }
+    @Test public void nodeIdFilter_value_02()       { test(1, "SELECT * { ?s :t ?o FILTER(?o > '2024-03-01T00:00:00Z'^^xsd:dateTime) }"); }
+    @Test public void nodeIdFilter_value_03()       { test(2, "SELECT * { ?s :r ?o FILTER(isLiteral(?o) && lang(?o) = '') }"); }
+    @Test public void nodeIdFilter_value_04()       { test(4, "SELECT * { ?s :q ?o FILTER(isNumeric(?o)) }"); }
+    @Test public void nodeIdFilter_value_05()       { test(4, "SELECT * { ?s :q ?o FILTER(?o < 10 || ?o = 'x') }"); }
+
+    @Test public void nodeIdFilter_bgp_01()         { test(1, "SELECT * { ?s :p ?o ; :q ?v ; :r ?r FILTER(?o = :o1) FILTER(?v > 1) }"); }
+    @Test public void nodeIdFilter_bgp_02()         { test(1, "SELECT * { ?s :p ?o . ?s :q ?v FILTER(sameTerm(?o, :o1) && ?v > 2) }"); }
+    @Test public void nodeIdFilter_bgp_03()         { test(2, "SELECT * { ?s :p ?o . ?s :t ?t FILTER(bound(?t)) }"); }
+    @Test public void nodeIdFilter_bgp_04()         { test(0, "SELECT * { ?s :p ?o FILTER(bound(?z)) }"); }
+    @Test public void nodeIdFilter_bgp_05()         { test(5, "SELECT * { ?s :p ?o FILTER(!bound(?z)) }"); }
+    @Test public void nodeIdFilter_bgp_06()         { test(1, "SELECT * { ?s :p ?o FILTER EXISTS { ?s :t ?t FILTER(?t > '2024-03-01T00:00:00Z'^^xsd:dateTime) } }"); }
+
+    // Variables from outside the basic graph pattern.
+    @Test public void nodeIdFilter_input_01()       { test(1, "SELECT * { VALUES ?x { :o1 :o2 } ?s :p ?o FILTER(sameTerm(?o, ?x)) FILTER(sameTerm(?s, :s1)) }"); }
+    @Test public void nodeIdFilter_input_02()       { test(0, "SELECT * { VALUES ?x { :notInData } ?s :p ?o FILTER(sameTerm(?o, ?x)) }"); }
+    @Test public void nodeIdFilter_input_03()       { test(5, "SELECT * { VALUES ?x { :notInData } ?s :p ?o FILTER(!sameTerm(?o, ?x)) }"); }
+
+    @Test public void nodeIdFilter_quads_01()       { test(1, "SELECT * { GRAPH ?g { ?s :p ?o FILTER(?o = :o1) } }"); }
+    @Test public void nodeIdFilter_quads_02()       { test(2, "SELECT * { GRAPH ?g { ?s :q ?v FILTER(?v >= 20) } }"); }
+    @Test public void nodeIdFilter_quads_03()       { test(1, "SELECT * { GRAPH :g1 { ?s :p ?o ; :q ?v FILTER(sameTerm(?o, :o2)) } }"); }
+    @Test public void nodeIdFilter_quads_04()       { test(1, "SELECT * { GRAPH ?g { ?s :p ?o } FILTER(sameTerm(?g, :g2)) }"); }
+
+    private static void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(dataset, ()->{
+            ResultSetRewindable rs1 = exec(query, true);
+            ResultSetRewindable rs2 = exec(query, false);
+            assertEquals("NodeId filter", expectedRows, rs1.size());
+            assertEquals("General filter", expectedRows, rs2.size());
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        });
+    }
+
+    private static ResultSetRewindable exec(Query query, boolean nodeIdFilter) {
+        try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query).set(SystemTDB.symNodeIdFilter, nodeIdFilter).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.lib.tuple.Tuple;
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2;
+import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.store.DatasetGraphTDB;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Parallel scans of basic graph patterns give the same results as sequential evaluation. */
+public class TestParallelScan {
+    private Dataset dataset = null;
+
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+
+    @Before
+    public void before() {
+        StringBuilder data = new StringBuilder(PREFIXES);
+        for ( int i = 0 ; i < 200 ; i++ ) {
+            data.append(":s" + i + " :type :T .\n");
+            for ( int j = 0 ; j < 25 ; j++ )
+                data.append(":s" + i + " :q " + j + " .\n");
+            if ( i % 10 == 0 )
+                data.append(":s" + i + " :link :s" + (i+1) + " .\n");
+            data.append("GRAPH :g" + (i % 3) + " { :s" + i + " :q " + i + ", 'v" + i + "' . }\n");
+            // The same triple in several graphs.
+            for ( int g = 0 ; g < 3 ; g++ )
+                data.append("GRAPH :h" + g + " { :s" + i + " :r " + i + " . }\n");
+        }
+        dataset = TL.createTestDatasetMem();
+        Txn.executeWrite(dataset, ()->RDFParser.fromString(data.toString(), Lang.TRIG).parse(dataset));
+    }
+
+    @After
+    public void after() {
+        TL.expel(dataset);
+    }
+
+    @Test public void parallel_scan_01()    { test(5000, "SELECT * { ?s :q ?v }"); }
+    @Test public void parallel_scan_02()    { test(5000, "SELECT * { ?s :q ?v . ?s :type :T }"); }
+    @Test public void parallel_scan_03()    { test(200,  "SELECT * { ?s :q ?v . ?t :link ?s . FILTER(?v < 10) }"); }
+    @Test public void parallel_scan_04()    { test(5220, "SELECT * { ?s ?p ?o }"); }
+    @Test public void parallel_scan_05()    { test(400,  "SELECT * { GRAPH ?g { ?s :q ?v } }"); }
+    @Test public void parallel_scan_06()    { test(134,  "SELECT * { GRAPH :g1 { ?s :q ?v } }"); }
+    @Test public void parallel_scan_07()    { test(400,  "SELECT DISTINCT ?s ?v { GRAPH <urn:x-arq:UnionGraph> { ?s :q ?v } }"); }
+    @Test public void parallel_scan_08()    { test(0,    "SELECT * { ?s :q ?v . ?s :none ?z }"); }
+    @Test public void parallel_scan_09()    { test(200,  "SELECT * { GRAPH <urn:x-arq:UnionGraph> { ?s :r ?v } }"); }
+    @Test public void parallel_scan_10()    { test(600,  "SELECT * { GRAPH ?g { ?s :r ?v } }"); }
+
+    @Test public void parallel_scan_union_default_graph() {
+        Query query = QueryFactory.create(PREFIXES + "SELECT * { ?s :r ?v }");
+        Txn.executeRead(dataset, ()->{
+            try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query)
+                                            .set(SystemTDB.symParallelScan, 4)
+                                            .set(TDB2.symUnionDefaultGraph, true)
+                                            .build() ) {
+                assertEquals(200, ResultSetFactory.makeRewindable(qExec.execSelect()).size());
+            }
+        });
+    }
+
+    @Test public void parallel_scan_ordered_01() { testOrdered(5000, "SELECT * { ?s :q ?v }"); }
+    @Test public void parallel_scan_ordered_02() { testOrdered(500,  "SELECT * { ?s :q ?v . ?t :link ?s }"); }
+
+    @Test public void parallel_scan_split_01() {
+        Txn.executeRead(dataset, ()->{
+            DatasetGraphTDB dsgtdb = TDBInternal.getDatasetGraphTDB(dataset.asDatasetGraph());
+            NodeTupleTable ntt = dsgtdb.getTripleTable().getNodeTupleTable();
+            NodeId q = ntt.getNodeTable().getNodeIdForNode(NodeFactory.createURI("http://example/q"));
+            testSplit(ntt, TupleFactory.create3(null, q, null));
+            testSplit(ntt, TupleFactory.create3(null, null, null));
+        });
+    }
+
+    @Test public void parallel_scan_snapshot_01() {
+        // The data changes after the query transaction starts: parts are evaluated
+        // in the query thread and see the data of the query transaction.
+        Query query = QueryFactory.create(PREFIXES+"SELECT * { ?s :q ?v }");
+        Txn.executeRead(dataset, ()->{
+            CompletableFuture.runAsync(()->Txn.executeWrite(dataset, ()->{
+                dataset.asDatasetGraph().add(SSE.parseQuad("(_ :s999 :q 1)"));
+            })).join();
+            assertEquals(5000, exec(query, 4, false).size());
+        });
+        Txn.executeRead(dataset, ()->assertEquals(5001, exec(query, 4, false).size()));
+    }
+
+    // The parts, in order, have the same tuples as the whole scan.
+    private static void testSplit(NodeTupleTable ntt, Tuple<NodeId> pattern) {
+        List<Tuple<NodeId>> splits = ntt.split(pattern, 4);
+        assertNotNull(splits);
+        assertFalse(splits.isEmpty());
+        assertTrue(splits.size() < 4);
+        List<Tuple<NodeId>> expected = Iter.toList(ntt.find(pattern));
+        List<Tuple<NodeId>> actual = new ArrayList<>();
+        Tuple<NodeId> start = null;
+        for ( Tuple<NodeId> split : splits ) {
+            Iterator<Tuple<NodeId>> part = ntt.findPart(pattern, start, split);
+            assertTrue(part.hasNext());
+            part.forEachRemaining(actual::add);
+            start = split;
+        }
+        ntt.findPart(pattern, start, null).forEachRemaining(actual::add);
+        assertEquals(expected, actual);
+    }
+
+    private void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(dataset, ()->{
+            ResultSetRewindable rs1 = exec(query, 4, false);
+            ResultSetRewindable rs2 = exec(query, 0, false);
+            assertEquals("Parallel", expectedRows, rs1.size());
+            assertEquals("Sequential", expectedRows, rs2.size());
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        });
+    }
+
+    private void testOrdered(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(dataset, ()->{
+            ResultSetRewindable rs1 = exec(query, 4, true);
+            ResultSetRewindable rs2 = exec(query, 0, false);
+            assertEquals("Parallel", expectedRows, rs1.size());
+            assertEquals("Sequential", expectedRows, rs2.size());
+            assertTrue(ResultSetCompare.equalsByTermAndOrder(rs1, rs2));
+        });
+    }
+
+    private ResultSetRewindable exec(Query query, int parallelism, boolean ordered) {
+        try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query)
+                                        .set(SystemTDB.symParallelScan, parallelism)
+                                        .set(SystemTDB.symParallelScanOrdered, ordered)
+                                        .build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetSnapshots;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.junit.TL;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Concurrent evaluation of UNION branches gives the same results as sequential evaluation. */
+public class TestParallelUnion {
+    private Dataset dataset = null;
+
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+
+    @Before
+    public void before() {
+        StringBuilder data = new StringBuilder(PREFIXES);
+        for ( int i = 0 ; i < 40 ; i++ ) {
+            data.append(":s" + i + " :type :T .\n");
+            for ( int j = 0 ; j < 20 ; j++ )
+                data.append(":s" + i + " :q " + j + " .\n");
+            if ( i % 10 == 0 )
+                data.append(":s" + i + " :r 'x' ; :link :s" + (i+1) + " .\n");
+        }
+        data.append("GRAPH :g { :s1 :type :T ; :r 'x' ; :q 1, 2 . }\n");
+        dataset = TL.createTestDatasetMem();
+        Txn.executeWrite(dataset, ()->RDFParser.fromString(data.toString(), Lang.TRIG).parse(dataset));
+    }
+
+    @After
+    public void after() {
+        TL.expel(dataset);
+    }
+
+    @Test public void parallel_union_01()   { test(840, "SELECT * { { ?s :type :T } UNION { ?s :q ?v } }"); }
+    @Test public void parallel_union_02()   { test(48,  "SELECT * { { ?s :type :T } UNION { ?s :r ?x } UNION { ?s :link ?t } UNION { ?s :none ?z } }"); }
+    @Test public void parallel_union_03()   { test(3,   "SELECT * { { GRAPH :g { ?s :q ?v } } UNION { GRAPH ?g { ?s :r ?x } } }"); }
+    @Test public void parallel_join_01()    { test(80,  "SELECT * { { ?s :r 'x' } { ?s :q ?v } }"); }
+
+    @Test public void parallel_snapshot_01() {
+        DatasetGraph dsg = dataset.asDatasetGraph();
+        Txn.executeRead(dsg, ()->{
+            Object snapshot = DatasetSnapshots.snapshot(dsg);
+            assertNotNull(snapshot);
+            Object other = CompletableFuture.supplyAsync(()->Txn.calculateRead(dsg, ()->DatasetSnapshots.snapshot(dsg))).join();
+            assertEquals(snapshot, other);
+            CompletableFuture.runAsync(()->Txn.executeWrite(dsg, ()->dsg.add(SSE.parseQuad("(_ :s :p :o)")))).join();
+            Object changed = CompletableFuture.supplyAsync(()->Txn.calculateRead(dsg, ()->DatasetSnapshots.snapshot(dsg))).join();
+            assertNotEquals(snapshot, changed);
+        });
+    }
+
+    @Test public void parallel_snapshot_02() {
+        // The data changes after the query transaction starts: branches are evaluated
+        // in the query thread and see the data of the query transaction.
+        Query query = QueryFactory.create(PREFIXES+"SELECT * { { ?s :type :T } UNION { ?s :r ?x } }");
+        Txn.executeRead(dataset, ()->{
+            CompletableFuture.runAsync(()->Txn.executeWrite(dataset, ()->{
+                dataset.asDatasetGraph().add(SSE.parseQuad("(_ :s99 :type :T)"));
+                dataset.asDatasetGraph().add(SSE.parseQuad("(_ :s99 :r 'x')"));
+            })).join();
+            ResultSetRewindable rs = exec(query, 4);
+            assertEquals(44, rs.size());
+        });
+        Txn.executeRead(dataset, ()->assertEquals(46, exec(query, 4).size()));
+    }
+
+    private void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(dataset, ()->{
+            ResultSetRewindable rs1 = exec(query, 4);
+            ResultSetRewindable rs2 = exec(query, 1);
+            assertEquals("Parallel", expectedRows, rs1.size());
+            assertEquals("Sequential", expectedRows, rs2.size());
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        });
+    }
+
+    private ResultSetRewindable exec(Query query, int parallelism) {
+        try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query).set(ARQ.parallelUnion, parallelism).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Property paths evaluated on NodeIds give the same results as the general path engine. */
+public class TestPathTDB2 {
+    private static Dataset dataset = null;
+
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+
+    private static String DATA = String.join("\n"
+        , PREFIXES
+        , ":a :p :b . :b :p :c . :c :p :a . :c :p :d . :x :p :y ."
+        , ":d :q 1 ."
+        , "GRAPH :g { :a :p :e . :e :p :f . }"
+        );
+
+    @BeforeClass
+    static public void beforeClass() {
+        dataset = TL.createTestDatasetMem();
+        Txn.executeWrite(dataset, ()->RDFParser.fromString(DATA, Lang.TRIG).parse(dataset));
+    }
+
+    @AfterClass
+    static public void afterClass() {
+        TL.expel(dataset);
+    }
+
+    @Test public void path_01()     { test(4, "SELECT * { :a :p+ ?o }"); }
+    @Test public void path_02()     { test(4, "SELECT * { :a :p* ?o }"); }
+    @Test public void path_03()     { test(3, "SELECT * { ?s :p+ :d }"); }
+    @Test public void path_04()     { test(4, "SELECT * { ?s :p* :d }"); }
+    @Test public void path_05()     { test(1, "SELECT * { :a :p+ :d }"); }
+    @Test public void path_06()     { test(0, "SELECT * { :d :p+ :a }"); }
+    @Test public void path_07()     { test(3, "SELECT * { :a ^:p+ ?s }"); }
+    @Test public void path_08()     { test(2, "SELECT * { :x :p* ?o }"); }
+    @Test public void path_09()     { test(1, "SELECT * { :zzz :p* ?o }"); }
+    @Test public void path_10()     { test(13, "SELECT * { ?s :p+ ?o }"); }
+    @Test public void path_11()     { test(5, "SELECT * { VALUES ?s { :a :x } ?s :p+ ?o }"); }
+    @Test public void path_12()     { test(2, "SELECT * { GRAPH :g { :a :p+ ?o } }"); }
+    @Test public void path_13()     { test(3, "SELECT * { GRAPH ?g { :a :p* ?o } }"); }
+    @Test public void path_14()     { test(1, "SELECT * { :a :p+ ?o . ?o :q ?v }"); }
+    @Test public void path_15()     { test(1, "SELECT * { :a :noSuch* ?o }"); }
+    @Test public void path_16()     { test(2, "SELECT * { GRAPH <urn:x-arq:UnionGraph> { :a :p+ ?o } }"); }
+    @Test public void path_17()     { test(1, "SELECT * { :a :p* :a }"); }
+
+    private static void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(dataset, ()->{
+            ResultSetRewindable rs1 = exec(query, true);
+            ResultSetRewindable rs2 = exec(query, false);
+            assertEquals("NodeId paths", expectedRows, rs1.size());
+            assertEquals("ARQ paths", expectedRows, rs2.size());
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        });
+    }
+
+    private static ResultSetRewindable exec(Query query, boolean nodeIdPaths) {
+        try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query).set(SystemTDB.symNodeIdPaths, nodeIdPaths).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
@@ -19,15 +19,27 @@
 package org.apache.jena.tdb2.solver;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.system.Txn;
+import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.CharacteristicSet;
+import org.apache.jena.sparql.engine.optimizer.StatsCardinality.PredicateStats;
+import org.apache.jena.sparql.sse.Item;
 import org.apache.jena.sparql.sse.SSE;
 import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.solver.stats.Stats;
 import org.apache.jena.tdb2.solver.stats.StatsCollectorNodeId;
 import org.apache.jena.tdb2.solver.stats.StatsResults;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
@@ -116,4 +128,78 @@ public class TestStats {
         assertEquals(1, r.getPredicates().keySet().size());
     }
 
+    // Detailed statistics.
+
+    private static Node name   = NodeFactory.createURI("http://example/name");
+    private static Node age    = NodeFactory.createURI("http://example/age");
+    private static Node title  = NodeFactory.createURI("http://example/title");
+    private static Node author = NodeFactory.createURI("http://example/author");
+
+    private static StatsResults statsDetailed() {
+        DatasetGraph dsg2 = TL.createTestDatasetGraphMem();
+        String data = String.join("\n",
+                                  "(prefix ((: <http://example/>)) (graph",
+                                  "  (:s1 :name 'a') (:s1 :age 10)",
+                                  "  (:s2 :name 'b') (:s2 :age 20)",
+                                  "  (:s3 :title 't') (:s3 :author :s1) (:s3 :author :s2)",
+                                  "))");
+        DatasetGraphTDB dsgtdb = TDBInternal.getDatasetGraphTDB(dsg2);
+        return Txn.calculateWrite(dsg2, () -> {
+            SSE.parseGraph(data).find().forEachRemaining(dsg2.getDefaultGraph()::add);
+            NodeTupleTable ntt = dsgtdb.getTripleTable().getNodeTupleTable();
+            StatsCollectorNodeId stats = new StatsCollectorNodeId(ntt.getNodeTable(), true);
+            Iterator<Tuple<NodeId>> iter = ntt.findAll();
+            for ( ; iter.hasNext() ; ) {
+                Tuple<NodeId> t = iter.next();
+                stats.record(null, t.get(0), t.get(1), t.get(2));
+            }
+            return stats.results();
+        });
+    }
+
+    @Test
+    public void stats_detailed_01() {
+        StatsResults r = statsDetailed();
+        assertEquals(7, r.getCount());
+        assertEquals(3, r.getSubjects());
+        assertEquals(7, r.getObjects());
+        PredicateStats ps = r.getPredicateStats().get(author);
+        assertEquals(2, ps.count());
+        assertEquals(1, ps.subjects());
+        assertEquals(2, ps.objects());
+    }
+
+    @Test
+    public void stats_detailed_02() {
+        StatsResults r = statsDetailed();
+        List<CharacteristicSet> sets = r.getCharacteristicSets();
+        assertEquals(2, sets.size());
+        // Most subjects first.
+        assertEquals(2, sets.get(0).subjects());
+        assertEquals(Map.of(name, 2L, age, 2L), sets.get(0).occurrences());
+        assertEquals(1, sets.get(1).subjects());
+        assertEquals(Map.of(title, 1L, author, 2L), sets.get(1).occurrences());
+    }
+
+    @Test
+    public void stats_detailed_03() {
+        StatsResults r = statsDetailed();
+        StatsCardinality.Histogram h = r.getPredicateStats().get(age).histogram();
+        assertNotNull(h);
+        assertEquals(1, h.estimateEquals(10), 0);
+        assertEquals(0, h.estimateEquals(30), 0);
+    }
+
+    @Test
+    public void stats_detailed_04() {
+        // Round trip through the stats format.
+        Item item = Stats.format(statsDetailed());
+        assertTrue(StatsCardinality.hasCharacteristicSets(item));
+        StatsCardinality stats = new StatsCardinality(item);
+        assertEquals(7, stats.getCount());
+        assertEquals(3, stats.distinctSubjects(), 0);
+        assertEquals(2, stats.starCardinality(Set.of(title, author)), 0);
+        assertEquals(0, stats.starCardinality(Set.of(name, author)), 0);
+        assertEquals(0.5, stats.objectSelectivity(age, NodeFactory.createLiteralByValue(20)), 0.001);
+    }
 }
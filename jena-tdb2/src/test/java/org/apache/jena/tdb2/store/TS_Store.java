@@ -33,6 +33,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses( {
     TestNodeId.class
     , TestNodeIdInline.class
+    , TestNodeIdRange.class
     , TestDoubleNode62.class
     , TestFloatNode.class
     , TestTripleTable.class
@@ -53,6 +54,7 @@ import org.junit.runners.Suite;
     , TestTransPromoteTDB.class
     , TestQuadFilter.class
     , TestGraphView_Prefixes.class
+    , TestClosureTable.class
 } )
 public class TS_Store
 {
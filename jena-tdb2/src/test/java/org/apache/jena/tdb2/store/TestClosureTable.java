@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiFunction;
+
+import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.system.Txn;
+import org.apache.jena.system.progress.MonitorOutput;
+import org.apache.jena.system.progress.MonitorOutputs;
+import org.apache.jena.tdb2.ConfigTest;
+import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.params.StoreParams;
+import org.apache.jena.tdb2.params.StoreParamsCodec;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+import org.apache.jena.tdb2.sys.DatabaseConnection;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.apache.jena.update.UpdateAction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** The transitive closure index gives the same path results as walking the links, as the data changes. */
+public class TestClosureTable {
+    private static String PREFIXES = "PREFIX : <http://example/>\n";
+
+    private static String DATA = String.join("\n"
+        , PREFIXES
+        , ":a :p :b . :b :p :c . :c :p :d ."
+        , ":x :p :y . :y :p :x ."
+        , ":a :q :b . :b :q :z ."
+        , "GRAPH :g { :d :p :e . }"
+        );
+
+    private static Node p = NodeFactory.createURI("http://example/p");
+
+    private static StoreParams params = StoreParams.builder("Closure", StoreParams.getDftMemStoreParams())
+            .closurePredicates(new String[]{ p.getURI() })
+            .build();
+
+    private DatasetGraphTDB dsgtdb;
+    private Dataset dataset;
+
+    @Before public void before() {
+        dsgtdb = TDB2StorageBuilder.build(Location.mem(), params, null);
+        dataset = DatasetFactory.wrap(dsgtdb);
+        Txn.executeWrite(dataset, ()->RDFParser.fromString(DATA, Lang.TRIG).parse(dataset));
+    }
+
+    @After public void after() {
+        TL.expel(dataset);
+    }
+
+    @Test public void closure_none() {
+        DatasetGraph dsg = TL.createTestDatasetGraphMem();
+        try {
+            assertNull(TDBInternal.getDatasetGraphTDB(dsg).getClosureTable());
+        } finally { TL.expel(dsg); }
+    }
+
+    @Test public void closure_size() {
+        // a->b,c,d; b->c,d; c->d; x->y,x; y->x,y
+        assertEquals(10, closureSize());
+    }
+
+    @Test public void closure_query_01()    { test(3, "SELECT * { :a :p+ ?o }"); }
+    @Test public void closure_query_02()    { test(4, "SELECT * { :a :p* ?o }"); }
+    @Test public void closure_query_03()    { test(3, "SELECT * { ?s :p+ :d }"); }
+    @Test public void closure_query_04()    { test(1, "SELECT * { :a :p+ :d }"); }
+    @Test public void closure_query_05()    { test(0, "SELECT * { :d :p+ :a }"); }
+    @Test public void closure_query_06()    { test(2, "SELECT * { :x :p+ ?o }"); }
+    @Test public void closure_query_07()    { test(1, "SELECT * { :x :p* ?o FILTER(?o = :x) }"); }
+    @Test public void closure_query_08()    { test(3, "SELECT * { :d ^:p+ ?s }"); }
+    @Test public void closure_query_09()    { test(10, "SELECT * { ?s :p+ ?o }"); }
+    @Test public void closure_query_10()    { test(1, "SELECT * { GRAPH :g { :d :p+ ?o } }"); }
+    @Test public void closure_query_11()    { test(2, "SELECT * { :a :q+ ?o }"); }
+
+    @Test public void closure_add() {
+        update("INSERT DATA { :d :p :x }");
+        // a,b,c,d each reach x,y as well.
+        assertEquals(18, closureSize());
+        test(5, "SELECT * { :a :p+ ?o }");
+        test(6, "SELECT * { ?s :p+ :x }");
+    }
+
+    @Test public void closure_delete() {
+        update("DELETE DATA { :b :p :c }");
+        // a->b; c->d; x->y,x; y->x,y
+        assertEquals(6, closureSize());
+        test(1, "SELECT * { :a :p+ ?o }");
+        test(0, "SELECT * { :a :p+ :d }");
+    }
+
+    @Test public void closure_delete_cycle() {
+        update("DELETE DATA { :y :p :x }");
+        assertEquals(7, closureSize());
+        test(0, "SELECT * { :x :p+ :x }");
+    }
+
+    @Test public void closure_delete_add() {
+        // Remove and put back in the same transaction.
+        update("DELETE DATA { :b :p :c } ; INSERT DATA { :b :p :c }");
+        assertEquals(10, closureSize());
+        test(3, "SELECT * { :a :p+ ?o }");
+    }
+
+    @Test public void closure_remove_all() {
+        Txn.executeWrite(dataset, ()->dataset.asDatasetGraph().deleteAny(Node.ANY, Node.ANY, p, Node.ANY));
+        assertEquals(0, closureSize());
+        test(0, "SELECT * { ?s :p+ ?o }");
+    }
+
+    @Test public void closure_abort() {
+        dataset.begin(ReadWrite.WRITE);
+        update("INSERT DATA { :d :p :x }");
+        dataset.abort();
+        dataset.end();
+        assertEquals(10, closureSize());
+        test(3, "SELECT * { :a :p+ ?o }");
+    }
+
+    @Test public void closure_in_write() {
+        Txn.executeWrite(dataset, ()->{
+            update("INSERT DATA { :d :p :x }");
+            // Not in the closure yet.
+            test(5, "SELECT * { :a :p+ ?o }");
+        });
+        test(5, "SELECT * { :a :p+ ?o }");
+    }
+
+    @Test public void closure_rebuild() {
+        update("INSERT DATA { :d :p :x } ; DELETE DATA { :a :p :b }");
+        long size = closureSize();
+        Txn.executeWrite(dataset, ()->dsgtdb.getClosureTable().rebuild());
+        assertEquals(size, closureSize());
+    }
+
+    @Test public void closure_persist() {
+        String dir = ConfigTest.getCleanDir();
+        FileOps.clearAll(dir);
+        Location location = Location.create(dir);
+        StoreParams diskParams = StoreParams.builder("Closure", params).build();
+        DatabaseConnection conn = DatabaseConnection.connectCreate(location, diskParams, null);
+        Dataset ds = DatasetFactory.wrap(conn.getDatasetGraph());
+        Txn.executeWrite(ds, ()->RDFParser.fromString(DATA, Lang.TRIG).parse(ds));
+        TDBInternal.expel(conn.getDatasetGraph());
+
+        DatabaseConnection conn2 = DatabaseConnection.connectCreate(location);
+        try {
+            DatasetGraphTDB dsg2 = TDBInternal.getDatasetGraphTDB(conn2.getDatasetGraph());
+            ClosureTable closure = dsg2.getClosureTable();
+            assertNotNull(closure);
+            assertEquals(10, (long)Txn.calculateRead(dsg2, ()->closure.size()));
+        } finally {
+            TDBInternal.expel(conn2.getDatasetGraph());
+            FileOps.clearAll(dir);
+        }
+    }
+
+    @Test public void closure_valid() {
+        assertTrue(Txn.calculateRead(dataset, ()->dsgtdb.getClosureTable().isValid()));
+    }
+
+    @Test public void closure_invalid() {
+        // Change the triples without the closure, as a bulk loader does.
+        Txn.executeWrite(dataset, ()->{
+            ClosureTable closure = dsgtdb.getClosureTable();
+            closure.invalidate();
+            NodeTupleTable triples = dsgtdb.getTripleTable().getNodeTupleTable();
+            NodeId d = triples.getNodeTable().getNodeIdForNode(NodeFactory.createURI("http://example/d"));
+            NodeId x = triples.getNodeTable().getNodeIdForNode(NodeFactory.createURI("http://example/x"));
+            NodeId pId = triples.getNodeTable().getNodeIdForNode(p);
+            triples.getTupleTable().add(TupleFactory.create3(d, pId, x));
+        });
+        assertFalse(Txn.calculateRead(dataset, ()->dsgtdb.getClosureTable().isValid()));
+        // Found from the triples.
+        test(5, "SELECT * { :a :p+ ?o }");
+        Txn.executeWrite(dataset, ()->dsgtdb.getClosureTable().rebuild());
+        assertTrue(Txn.calculateRead(dataset, ()->dsgtdb.getClosureTable().isValid()));
+        assertEquals(18, closureSize());
+        test(5, "SELECT * { :a :p+ ?o }");
+    }
+
+    @Test public void closure_loader_sequential() { closureLoader(LoaderFactory::sequentialLoader); }
+    @Test public void closure_loader_phased()     { closureLoader(LoaderFactory::phasedLoader); }
+    @Test public void closure_loader_parallel()   { closureLoader(LoaderFactory::parallelLoader); }
+
+    private void closureLoader(BiFunction<DatasetGraph, MonitorOutput, DataLoader> maker) {
+        DataLoader loader = maker.apply(dataset.asDatasetGraph(), MonitorOutputs.nullOutput());
+        byte[] data = (PREFIXES+":d :p :x .").getBytes(StandardCharsets.UTF_8);
+        loader.startBulk();
+        loader.loadFromInputStream("data", new ByteArrayInputStream(data), Lang.TURTLE);
+        loader.finishBulk();
+        assertTrue(Txn.calculateRead(dataset, ()->dsgtdb.getClosureTable().isValid()));
+        assertEquals(18, closureSize());
+        test(5, "SELECT * { :a :p+ ?o }");
+    }
+
+    @Test public void closure_many_changes() {
+        int limit = ClosureTable.PendingLimit;
+        ClosureTable.PendingLimit = 2;
+        try {
+            update("INSERT DATA { :d :p :x . :e :p :a . :f :p :e . :z :p :a }");
+            // e,f,z reach a,b,c,d,x,y
+            assertEquals(18+3*6+1, closureSize());
+            update("DELETE DATA { :a :p :b . :b :p :c . :c :p :d }");
+            // d->x,y; e->a; f->e,a; z->a; x->y,x; y->x,y
+            assertEquals(10, closureSize());
+            test(1, "SELECT * { :z :p+ ?o }");
+            test(2, "SELECT * { :d :p+ ?o }");
+        } finally {
+            ClosureTable.PendingLimit = limit;
+        }
+    }
+
+    @Test public void closure_new_predicate() {
+        // A database created without a closure, then opened with one.
+        String dir = ConfigTest.getCleanDir();
+        FileOps.clearAll(dir);
+        Location location = Location.create(dir);
+        DatabaseConnection conn = DatabaseConnection.connectCreate(location);
+        Dataset ds = DatasetFactory.wrap(conn.getDatasetGraph());
+        Txn.executeWrite(ds, ()->RDFParser.fromString(DATA, Lang.TRIG).parse(ds));
+        TDBInternal.expel(conn.getDatasetGraph());
+
+        StoreParams closureParams = StoreParams.builder(StoreParams.getDftStoreParams())
+                .closurePredicates(new String[]{ p.getURI() })
+                .build();
+        StoreParamsCodec.write(location, closureParams);
+        DatabaseConnection conn2 = DatabaseConnection.connectCreate(location);
+        try {
+            DatasetGraphTDB dsg2 = TDBInternal.getDatasetGraphTDB(conn2.getDatasetGraph());
+            ClosureTable closure = dsg2.getClosureTable();
+            assertNotNull(closure);
+            assertTrue(Txn.calculateRead(dsg2, ()->closure.isValid()));
+            assertEquals(10, (long)Txn.calculateRead(dsg2, ()->closure.size()));
+        } finally {
+            TDBInternal.expel(conn2.getDatasetGraph());
+            FileOps.clearAll(dir);
+        }
+    }
+
+    private long closureSize() {
+        return Txn.calculateRead(dataset, ()->dsgtdb.getClosureTable().size());
+    }
+
+    private void update(String updateString) {
+        Txn.executeWrite(dataset, ()->UpdateAction.parseExecute(PREFIXES + updateString, dataset));
+    }
+
+    private void test(int expectedRows, String queryString) {
+        Query query = QueryFactory.create(PREFIXES + queryString);
+        Txn.executeRead(dataset, ()->{
+            ResultSetRewindable rs1 = exec(query, true);
+            ResultSetRewindable rs2 = exec(query, false);
+            assertEquals("Closure", expectedRows, rs1.size());
+            assertEquals("Path engine", expectedRows, rs2.size());
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        });
+    }
+
+    private ResultSetRewindable exec(Query query, boolean nodeIdPaths) {
+        try ( QueryExecution qExec = QueryExecution.dataset(dataset).query(query).set(SystemTDB.symNodeIdPaths, nodeIdPaths).build() ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+import org.junit.Test;
+
+public class TestNodeIdRange
+{
+    @Test public void nodeIdRange_integer_01() { numeric("5", "10", "5", "7", "10"); }
+    @Test public void nodeIdRange_integer_02() { numeric("-10", "10", "-10", "-1", "0", "1", "10"); }
+    @Test public void nodeIdRange_integer_03() { numeric("-10", "-5", "-10", "-7", "-5"); }
+    @Test public void nodeIdRange_integer_04() { numeric(null, "0", "-36028797018963968", "-1", "0"); }
+    @Test public void nodeIdRange_integer_05() { numeric("0", null, "0", "36028797018963967"); }
+    @Test public void nodeIdRange_integer_06() { numeric("2.5", "3.5", "3"); }
+    // Out of range for inline : stored in the node table.
+    @Test public void nodeIdRange_integer_07() { numeric("36028797018963968", null, "36028797018963968", "123456789012345678901234567890"); }
+
+    @Test public void nodeIdRange_integer_10() { notNumeric("5", "10", "4", "11", "-5", "0"); }
+    @Test public void nodeIdRange_integer_11() { notNumeric("-10", "-5", "-11", "-4", "0", "5"); }
+
+    @Test public void nodeIdRange_number_01() {
+        numeric("5", "10", "'5.5'^^xsd:decimal", "'6.0e0'^^xsd:double", "'7'^^xsd:float", "'8'^^xsd:int", "'9'^^xsd:positiveInteger");
+    }
+
+    @Test public void nodeIdRange_number_02() {
+        numeric("5", "10", "'05'^^xsd:integer");
+    }
+
+    @Test public void nodeIdRange_dateTime_01() {
+        dateTime("2024-01-01T00:00:00Z", "2024-12-31T23:59:59Z",
+                 "2024-01-01T00:00:00Z", "2024-06-01T12:00:00Z", "2024-12-31T23:59:59Z");
+    }
+
+    @Test public void nodeIdRange_dateTime_02() {
+        // Other timezones, and no timezone.
+        dateTime("2024-01-01T00:00:00Z", "2024-01-02T00:00:00Z",
+                 "2024-01-01T10:00:00+14:00", "2024-01-01T12:00:00-14:00", "2024-01-01T12:00:00",
+                 "2023-12-31T22:00:00-05:00", "2024-01-02T09:00:00+09:00");
+    }
+
+    @Test public void nodeIdRange_dateTime_03() {
+        dateTime(null, "2024-01-01T00:00:00Z", "0001-01-01T00:00:00Z", "2023-12-31T23:59:59.999Z");
+    }
+
+    @Test public void nodeIdRange_dateTime_04() {
+        dateTime("2024-01-01T00:00:00Z", null, "2024-01-01T00:00:00.001Z", "7999-12-31T23:59:59Z", "9999-01-01T00:00:00Z");
+    }
+
+    @Test public void nodeIdRange_dateTime_05() {
+        notDateTime("2024-01-01T00:00:00Z", "2024-01-02T00:00:00Z", "2023-12-20T00:00:00Z", "2024-01-10T00:00:00Z");
+    }
+
+    private static void numeric(String lower, String upper, String... values) {
+        List<NodeIdRange> ranges = NodeIdRange.numeric(decimal(lower), decimal(upper));
+        for ( String v : values )
+            assertTrue(v, contains(ranges, nodeId(v)));
+    }
+
+    private static void notNumeric(String lower, String upper, String... values) {
+        List<NodeIdRange> ranges = NodeIdRange.numeric(decimal(lower), decimal(upper));
+        for ( String v : values )
+            assertFalse(v, contains(ranges, nodeId(v)));
+    }
+
+    private static void dateTime(String lower, String upper, String... values) {
+        List<NodeIdRange> ranges = NodeIdRange.dateTime(dateTime(lower), dateTime(upper));
+        for ( String v : values )
+            assertTrue(v, contains(ranges, nodeId("'"+v+"'^^xsd:dateTime")));
+    }
+
+    private static void notDateTime(String lower, String upper, String... values) {
+        List<NodeIdRange> ranges = NodeIdRange.dateTime(dateTime(lower), dateTime(upper));
+        for ( String v : values )
+            assertFalse(v, contains(ranges, nodeId("'"+v+"'^^xsd:dateTime")));
+    }
+
+    private static BigDecimal decimal(String str) {
+        return ( str == null ) ? null : new BigDecimal(str);
+    }
+
+    private static XMLGregorianCalendar dateTime(String str) {
+        return ( str == null ) ? null : NodeValue.makeDateTime(str).getDateTime();
+    }
+
+    // Inline NodeId, or a pointer for a term that is not inlined.
+    private static NodeId nodeId(String str) {
+        Node n = NodeFactoryExtra.parseNode(str);
+        NodeId nodeId = NodeId.inline(n);
+        return ( nodeId != null ) ? nodeId : NodeIdFactory.createPtr(1234);
+    }
+
+    private static boolean contains(List<NodeIdRange> ranges, NodeId nodeId) {
+        byte[] x = bytes(nodeId);
+        byte[] previousHigh = null;
+        boolean found = false;
+        for ( NodeIdRange range : ranges ) {
+            byte[] low = bytes(range.getLow());
+            byte[] high = bytes(range.getHigh());
+            // In index order, without overlaps.
+            assertTrue(Arrays.compareUnsigned(low, high) <= 0);
+            if ( previousHigh != null )
+                assertTrue(Arrays.compareUnsigned(previousHigh, low) < 0);
+            previousHigh = high;
+            if ( Arrays.compareUnsigned(low, x) <= 0 && Arrays.compareUnsigned(x, high) <= 0 )
+                found = true;
+        }
+        return found;
+    }
+
+    private static byte[] bytes(NodeId nodeId) {
+        byte[] b = new byte[NodeId.SIZE];
+        NodeIdFactory.set(nodeId, b);
+        return b;
+    }
+}
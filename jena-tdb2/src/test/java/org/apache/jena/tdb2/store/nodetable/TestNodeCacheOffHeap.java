@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.nodetable;
+
+import static org.junit.Assert.*;
+
+import org.apache.jena.atlas.logging.LogCtl;
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.junit.BuildTestLib;
+import org.apache.jena.tdb2.params.StoreParams;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.slf4j.LoggerFactory;
+import org.junit.Test;
+
+public class TestNodeCacheOffHeap {
+
+    private static NodeId ptr(long x) { return NodeIdFactory.createPtr(x); }
+
+    @Test public void offheap_cache_01() {
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(64*1024);
+        assertTrue(cache.isEmpty());
+        Node n1 = SSE.parseNode("<http://example/s>");
+        Node n2 = SSE.parseNode("'abc'@en");
+        Node n3 = SSE.parseNode("'123'^^<http://example/dt>");
+        Node n4 = SSE.parseNode("_:b");
+        cache.put(ptr(1), n1);
+        cache.put(ptr(2), n2);
+        cache.put(ptr(3), n3);
+        cache.put(ptr(4), n4);
+        assertEquals(4, cache.size());
+        assertEquals(n1, cache.getIfPresent(ptr(1)));
+        assertEquals(n2, cache.getIfPresent(ptr(2)));
+        assertEquals(n3, cache.getIfPresent(ptr(3)));
+        assertEquals(n4, cache.getIfPresent(ptr(4)));
+        assertNull(cache.getIfPresent(ptr(5)));
+        assertEquals(4, cache.stats().hits);
+        assertEquals(1, cache.stats().misses);
+    }
+
+    @Test public void offheap_cache_02() {
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(64*1024);
+        Node n1 = SSE.parseNode("<http://example/s>");
+        cache.put(ptr(1), n1);
+        assertTrue(cache.containsKey(ptr(1)));
+        cache.remove(ptr(1));
+        assertFalse(cache.containsKey(ptr(1)));
+        assertNull(cache.getIfPresent(ptr(1)));
+        cache.put(ptr(1), n1);
+        assertEquals(n1, cache.getIfPresent(ptr(1)));
+        cache.clear();
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.getBytesUsed());
+    }
+
+    @Test public void offheap_cache_03() {
+        // Only pointer NodeIds are cached.
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(64*1024);
+        Node n = NodeFactory.createLiteralByValue(123);
+        NodeId inline = NodeId.inline(SSE.parseNode("123"));
+        assertTrue(inline.isInline());
+        cache.put(inline, n);
+        assertTrue(cache.isEmpty());
+        assertNull(cache.getIfPresent(inline));
+    }
+
+    @Test public void offheap_cache_04() {
+        // Small cache - force evictions.
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(16*1024);
+        int N = 5000;
+        for ( int i = 0 ; i < N ; i++ )
+            cache.put(ptr(i), NodeFactory.createURI("http://example/node/"+i));
+        assertTrue(cache.getEvictionCount() > 0);
+        assertTrue(cache.size() < N);
+        assertEquals(N, cache.size() + cache.getEvictionCount());
+        assertTrue(cache.getBytesUsed() <= cache.getMaxBytes());
+        // Most recent entries are still present.
+        for ( int i = N-10 ; i < N ; i++ )
+            assertEquals(NodeFactory.createURI("http://example/node/"+i), cache.getIfPresent(ptr(i)));
+        // Anything present is correct.
+        for ( int i = 0 ; i < N ; i++ ) {
+            Node n = cache.getIfPresent(ptr(i));
+            if ( n != null )
+                assertEquals(NodeFactory.createURI("http://example/node/"+i), n);
+        }
+    }
+
+    @Test public void offheap_cache_05() {
+        // Larger than a segment - not cached.
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(16*1024);
+        Node big = NodeFactory.createLiteralString("x".repeat(4000));
+        cache.put(ptr(1), big);
+        assertNull(cache.getIfPresent(ptr(1)));
+        Node medium = NodeFactory.createLiteralString("x".repeat(500));
+        cache.put(ptr(2), medium);
+        assertEquals(medium, cache.getIfPresent(ptr(2)));
+    }
+
+    @Test public void offheap_cache_06() {
+        // Setting too small for the off-heap cache - the minimum size is used.
+        NodeTable base = BuildTestLib.makeNodeTableBase(Location.mem(), "test", StoreParams.getDftStoreParams());
+        LogCtl.withLevel(LoggerFactory.getLogger(NodeTableCache.class), "ERROR", ()->{
+            NodeTable nodeTable = NodeTableCache.create(base, 10, 10, 10, 1000);
+            Node n = NodeFactory.createURI("http://example/s");
+            NodeId id = nodeTable.getAllocateNodeId(n);
+            assertEquals(n, nodeTable.getNodeForNodeId(id));
+        });
+    }
+}
@@ -18,14 +18,28 @@
 
 package org.apache.jena.tdb2.store.tupletable;
 
+import static org.apache.jena.atlas.lib.tuple.TupleFactory.tuple;
+import static org.apache.jena.tdb2.store.tupletable.NData.*;
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.atlas.lib.tuple.TupleMap;
 import org.apache.jena.dboe.base.file.FileSet;
 import org.apache.jena.dboe.base.record.RecordFactory;
 import org.apache.jena.dboe.index.IndexParams;
 import org.apache.jena.dboe.index.RangeIndex;
+import org.apache.jena.sparql.expr.NodeValue;
 import org.apache.jena.tdb2.junit.BuildTestLib;
 import org.apache.jena.tdb2.params.StoreParams;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdRange;
 import org.apache.jena.tdb2.sys.SystemTDB;
+import org.junit.Test;
 
 public class TestTupleIndexRecord extends AbstractTestTupleIndex
 {
@@ -40,4 +54,41 @@ public class TestTupleIndexRecord extends AbstractTestTupleIndex
         TupleIndexRecord index = new TupleIndexRecord(3, tmap, description, factory, rIdx);
         return index;
     }
+
+    @Test public void TupleIndexRecord_range_1()
+    {
+        TupleIndexRecord index = create("POS");
+        for ( int i = -20 ; i <= 20 ; i++ )
+            add(index, n1, n2, integer(i));
+        add(index, n1, n3, integer(7));
+        add(index, n1, n2, n3);
+
+        List<NodeIdRange> ranges = NodeIdRange.numeric(BigDecimal.valueOf(-2), BigDecimal.valueOf(3));
+        Iterator<Tuple<NodeId>> iter = index.findRange(tuple(NodeId.NodeIdAny, n2, NodeId.NodeIdAny), 2, ranges);
+        assertNotNull(iter);
+        List<Tuple<NodeId>> x = Iter.toList(iter);
+        // n3 is a pointer.
+        assertEquals(7, x.size());
+        assertTrue(x.contains(tuple(n1, n2, n3)));
+        assertTrue(x.contains(tuple(n1, n2, integer(-2))));
+        assertTrue(x.contains(tuple(n1, n2, integer(3))));
+        assertFalse(x.contains(tuple(n1, n2, integer(4))));
+    }
+
+    @Test public void TupleIndexRecord_range_2()
+    {
+        // Range slot is not next after the set slots.
+        TupleIndexRecord index = create("SPO");
+        add(index, n1, n2, integer(1));
+        List<NodeIdRange> ranges = NodeIdRange.numeric(BigDecimal.valueOf(0), BigDecimal.valueOf(3));
+        assertNull(index.findRange(tuple(NodeId.NodeIdAny, n2, NodeId.NodeIdAny), 2, ranges));
+        // Set slot after the range slot.
+        assertNull(index.findRange(tuple(n1, NodeId.NodeIdAny, n3), 1, ranges));
+        assertNotNull(index.findRange(tuple(n1, n2, NodeId.NodeIdAny), 2, ranges));
+    }
+
+    private static NodeId integer(long x)
+    {
+        return NodeId.inline(NodeValue.makeInteger(x).asNode());
+    }
 }
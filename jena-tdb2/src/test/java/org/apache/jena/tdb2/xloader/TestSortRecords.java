@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.xloader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.apache.jena.atlas.lib.Bytes;
+import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.dboe.base.record.Record;
+import org.apache.jena.dboe.base.record.RecordFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSortRecords {
+    private Path tmpDir;
+
+    @Before public void before() throws IOException {
+        tmpDir = Files.createTempDirectory("sort");
+    }
+
+    @After public void after() {
+        FileOps.clearAll(tmpDir.toString());
+        FileOps.delete(tmpDir.toString());
+    }
+
+    private static List<Record> records(int tupleLength, int n, int range, long seed) {
+        RecordFactory factory = new RecordFactory(tupleLength*8, 0);
+        Random random = new Random(seed);
+        List<Record> records = new ArrayList<>();
+        for ( int i = 0 ; i < n ; i++ ) {
+            Record r = factory.create();
+            for ( int j = 0 ; j < tupleLength ; j++ ) {
+                // Include values with the high bit set.
+                long x = random.nextInt(range);
+                if ( random.nextBoolean() )
+                    x = x | 0x8000_0000_0000_0000L;
+                Bytes.setLong(x, r.getKey(), j*8);
+            }
+            records.add(r);
+        }
+        return records;
+    }
+
+    private void test(int tupleLength, int n, int runSize, boolean compress) {
+        List<Record> input = records(tupleLength, n, 10, 1234);
+        // Unsigned byte order.
+        SortedSet<Record> expected = new TreeSet<>(Record::compareByKeyValue);
+        expected.addAll(input);
+        try ( SortRecords sorter = new SortRecords(tupleLength, runSize, 2, tmpDir.toString(), compress) ) {
+            Iterator<Record> iter = sorter.sort(input.iterator());
+            for ( Record r : expected ) {
+                Record r2 = iter.next();
+                assertArrayEquals(r.getKey(), r2.getKey());
+            }
+            assertFalse(iter.hasNext());
+        }
+        assertEquals(0, tmpDir.toFile().list().length);
+    }
+
+    @Test public void sort_empty()          { test(3, 0, 100, false); }
+    @Test public void sort_one_run()        { test(3, 50, 100, false); }
+    @Test public void sort_runs_1()         { test(3, 1000, 100, false); }
+    @Test public void sort_runs_2()         { test(4, 1000, 77, false); }
+    @Test public void sort_runs_compress()  { test(3, 1000, 100, true); }
+    @Test public void sort_runs_exact()     { test(3, 1000, 250, true); }
+    // Runs larger than the initial allocation.
+    @Test public void sort_runs_grow()      { test(3, 300_000, 200_000, false); }
+    @Test public void sort_default_size()   { test(3, 1000, SortRecords.defaultRunSize(3), false); }
+}